@@ -148,6 +148,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return parsedList;
       }
    
+   /**
+    * Releases the token list and parsed statement list, which are needed only 
+    * while the program is being assembled.  The program cannot be assembled again
+    * until it has been tokenized again.  The source lines are kept, for messages.
+    **/
+    
+       public void releaseIntermediates() {
+         tokenList = null;
+         parsedList = null;
+         tokenizer = null;
+      }
+   
    /**
     * Produces list of machine statements that are assembled from the program.
     * @return ArrayList of ProgramStatement.  Each ProgramStatement represents an assembled
@@ -313,9 +325,31 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
        public ErrorList assemble(ArrayList MIPSprogramsToAssemble, boolean extendedAssemblerEnabled,
               boolean warningsAreErrors) throws ProcessingException {
+         return assemble(MIPSprogramsToAssemble, extendedAssemblerEnabled, warningsAreErrors, true);
+      }
+   
+   /**
+    * Assembles the MIPS source program. All files comprising the program must have 
+    * already been tokenized.
+    * @param MIPSprogramsToAssemble ArrayList of MIPSprogram objects, each representing a tokenized source file.
+    * @param extendedAssemblerEnabled A boolean value - true means extended (pseudo) instructions
+    * are permitted in source code and false means they are to be flagged as errors
+    * @param warningsAreErrors A boolean value - true means assembler warnings will be considered errors and terminate
+      the assemble; false means the assembler will produce warning message but otherwise ignore warnings.
+    * @param keepIntermediates A boolean value - true means token lists and parsed statements are kept
+      so the files can be assembled again, as the IDE does for Reset; false means they are released
+      file by file during assembly, which keeps the memory needed proportional to the program size
+      rather than to several copies of its source.
+    * @throws ProcessingException Will throw exception if errors occured while assembling.
+    * @return ErrorList containing nothing or only warnings (otherwise would have thrown exception).
+    **/
+    
+       public ErrorList assemble(ArrayList<?> MIPSprogramsToAssemble, boolean extendedAssemblerEnabled,
+              boolean warningsAreErrors, boolean keepIntermediates) throws ProcessingException {
          this.backStepper = null;
          Assembler asm = new Assembler();
-         this.machineList = asm.assemble(MIPSprogramsToAssemble, extendedAssemblerEnabled, warningsAreErrors);
+         this.machineList = asm.assemble(MIPSprogramsToAssemble, extendedAssemblerEnabled, warningsAreErrors, 
+                                         keepIntermediates);
          this.backStepper = new BackStepper();
          return asm.getErrorList();
       }
@@ -363,6 +397,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return sim.simulate(this, RegisterFile.getProgramCounter(), maxSteps, breakPoints, a);
       }
    
+   /**
+    * Simulates execution of the MIPS program. Program must have already been assembled.
+    * Begins simulation at current program counter address and continues until the
+    * instruction at the given address is reached ("run to cursor"), or until stopped,
+    * paused, another breakpoint is reached, or exception occurs.
+    * @param address instruction address at which to pause
+    * @param breakPoints int array of other breakpoints (PC addresses).  Can be null.
+    * @param a the GUI component responsible for this call (GO normally).  set to null if none.
+    * @return true if execution completed and false otherwise
+    * @throws ProcessingException Will throw exception if errors occured while simulating.
+    **/	
+       public boolean simulateToAddress(int address, int[] breakPoints, AbstractAction a) throws ProcessingException {
+         steppedExecution = false;
+         Simulator sim = Simulator.getInstance();
+         return sim.runToAddress(this, RegisterFile.getProgramCounter(), address, breakPoints, a);
+      }
+   
    
    
    /**
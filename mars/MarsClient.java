@@ -0,0 +1,132 @@
+   package mars;
+   import java.io.*;
+   import java.net.*;
+
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Thin client for the MARS server.  Takes the same command line options as MARS in
+ * command mode, for example <tt>java -cp Mars.jar mars.MarsClient nc ic prog.asm</tt>,
+ * and has the running server carry them out: standard input, when it is not a 
+ * terminal, is sent with the job, and the output and exit code are those MARS would 
+ * have produced.  Without a running server, MARS runs the command in this process.
+ *
+ * @version October 2026
+ * @see MarsServer
+ */
+
+    public class MarsClient {
+   
+       public static void main(String[] args) {
+         if (args.length == 0) {
+            System.out.println("Usage: MarsClient [MARS command line options] filename");
+            System.exit(1);
+         }
+         Socket socket = connect();
+         if (socket == null) {
+            new MarsLaunch(args);
+            return;
+         }
+         int exitCode;
+         try {
+            exitCode = submit(socket, args);
+         } 
+             catch (IOException e) {
+               System.err.println("MARS server connection failed: "+e.getMessage());
+               exitCode = 1;
+            }
+         System.exit(exitCode);
+      }
+   
+      // Connect to the server named in the server file and send its token, or 
+      // return null if no server is running.
+       private static Socket connect() {
+         try {
+            BufferedReader reader = new BufferedReader(new FileReader(MarsServer.getServerFile()));
+            String[] portAndToken;
+            try {
+               portAndToken = reader.readLine().trim().split(" ");
+            } 
+            finally {
+               reader.close();
+            }
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(portAndToken[0]));
+            new DataOutputStream(socket.getOutputStream()).writeUTF(portAndToken[1]);
+            return socket;
+         } 
+             catch (Exception e) { // no server file, a stale one, or no server listening
+               return null;
+            }
+      }
+   
+      // Send the job, copy the output frames to standard output and error, and
+      // return the exit code.
+       private static int submit(Socket socket, String[] args) throws IOException {
+         DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+         request.writeUTF(new File("").getAbsolutePath());
+         request.writeInt(args.length);
+         for (int i = 0; i < args.length; i++) {
+            request.writeUTF(args[i]);
+         }
+         byte[] input = (System.console() == null) ? readAll(System.in) : new byte[0];
+         request.writeInt(input.length);
+         request.write(input);
+         request.flush();
+      
+         DataInputStream reply = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+         byte[] buffer = new byte[8192];
+         while (true) {
+            int kind = reply.readByte();
+            if (kind == MarsServer.EXIT) {
+               int exitCode = reply.readInt();
+               socket.close();
+               return exitCode;
+            }
+            int length = reply.readInt();
+            if (length > buffer.length) {
+               buffer = new byte[length];
+            }
+            reply.readFully(buffer, 0, length);
+            PrintStream stream = (kind == MarsServer.STANDARD_ERROR) ? System.err : System.out;
+            stream.write(buffer, 0, length);
+            stream.flush();
+         }
+      }
+   
+       private static byte[] readAll(InputStream in) throws IOException {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         byte[] buffer = new byte[8192];
+         int count;
+         while ((count = in.read(buffer)) > 0) {
+            bytes.write(buffer, 0, count);
+         }
+         return bytes.toByteArray();
+      }
+   }
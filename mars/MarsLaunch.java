@@ -4,6 +4,8 @@
    import mars.mips.dump.*;
    import mars.mips.hardware.*;
    import mars.simulator.*;
+   import mars.simulator.branch.*;
+   import mars.simulator.cache.*;
    import java.io.*;
    import java.util.*;
    import java.awt.*;
@@ -107,9 +109,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private boolean warningsAreErrors; // Whether assembler warnings should be considered errors.
       private boolean startAtMain; // Whether to start execution at statement labeled 'main' 
       private boolean countInstructions; // Whether to count and report number of instructions executed 
+      private boolean reportPerformance; // Whether to publish performance counters and report them in JSON
       private boolean selfModifyingCode; // Whether to allow self-modifying code (e.g. write to text segment)
+      private boolean translateHotCode; // Whether to run hot code translated to JVM bytecode
       private static final String rangeSeparator = "-";
-      private static final int splashDuration = 2000; // time in MS to show splash screen
+      private static final int splashDuration = 500; // minimum time in MS to show splash screen
       private static final int memoryWordsPerLine = 4; // display 4 memory words, tab separated, per line
       private static final int DECIMAL = 0; // memory and register display format
       private static final int HEXADECIMAL = 1;// memory and register display format
@@ -120,7 +124,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private MIPSprogram code;
       private int maxSteps;
       private int instructionCount;
+      private RetireListener instructionCounter;
+      private CacheHierarchy cacheHierarchy; // Cache simulation to run and report, if specified
+      private BranchPredictorEngine branchPredictors; // Branch predictors to evaluate and report, if specified
+      private String traceFileName; // File to record execution trace in, if specified
+      private String replayFileName; // Execution trace to replay instead of simulating, if specified
+      private TraceRecorder traceRecorder;
+      private FramebufferCapture framebufferCapture; // Display frames to capture, if specified
       private PrintStream out; // stream for display of command line output
+      private File workingDirectory; // directory for relative file names, if not the current one
       private ArrayList dumpTriples = null; // each element holds 3 arguments for dump option
       private ArrayList programArgumentList; // optional program args for MIPS program (becomes argc, argv)
       private int assembleErrorExitCode;  // MARS command exit code to return if assemble error occurs
@@ -135,39 +147,77 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          else { // running from command line.
             // assure command mode works in headless environment (generates exception if not)
             System.setProperty("java.awt.headless", "true"); 
-            simulate = true;
-            displayFormat = HEXADECIMAL;
-            verbose = true;  
-            assembleProject = false;
-            pseudo = true;
-            delayedBranching = false;
-            warningsAreErrors = false;
-            startAtMain = false;
-            countInstructions = false;
-				selfModifyingCode = false;
-            instructionCount = 0;
-            assembleErrorExitCode = 0;
-            simulateErrorExitCode = 0;
-            registerDisplayList = new ArrayList();
-            memoryDisplayList = new ArrayList();
-            filenameList = new ArrayList();
-            MemoryConfigurations.setCurrentConfiguration(MemoryConfigurations.getDefaultConfiguration());
-         	// do NOT use Globals.program for command line MARS -- it triggers 'backstep' log.
-            code = new MIPSprogram();  
-            maxSteps = -1;
-            out = System.out;  
-            if (parseCommandArgs(args)) {
-               if (runCommand()) {
-                  displayMiscellaneousPostMortem();
-                  displayRegistersPostMortem();
-                  displayMemoryPostMortem();
-               }
-               dumpSegments();
+            if (args[0].toLowerCase().equals("server")) {
+               MarsServer.serve(args);
+            } 
+            else {
+               runCommandLine(args);
             }
             System.exit(Globals.exitCode);
          }
+      }
+   
+      /**
+       * Run one job for the MARS server: carry out a command line, with file names 
+       * relative to the given directory, as MARS would if started with it.  The exit
+       * code is left in Globals.exitCode.
+       * @param args the command line arguments
+       * @param workingDirectory directory of the client that submitted the job
+       */
+      MarsLaunch(String[] args, File workingDirectory) {
+         this.workingDirectory = workingDirectory;
+         runCommandLine(args);
+      }
+   
+      /////////////////////////////////////////////////////////////
+   	// Carry out a command line: parse it, assemble and run, and display
+   	// the results requested.
+   	
+      private void runCommandLine(String[] args) {
+         simulate = true;
+         displayFormat = HEXADECIMAL;
+         verbose = true;  
+         assembleProject = false;
+         pseudo = true;
+         delayedBranching = false;
+         warningsAreErrors = false;
+         startAtMain = false;
+         countInstructions = false;
+         reportPerformance = false;
+         translateHotCode = false;
+				selfModifyingCode = false;
+         instructionCount = 0;
+         cacheHierarchy = null;
+         framebufferCapture = null;
+         assembleErrorExitCode = 0;
+         simulateErrorExitCode = 0;
+         registerDisplayList = new ArrayList();
+         memoryDisplayList = new ArrayList();
+         filenameList = new ArrayList();
+         MemoryConfigurations.setCurrentConfiguration(MemoryConfigurations.getDefaultConfiguration());
+      	// do NOT use Globals.program for command line MARS -- it triggers 'backstep' log.
+         code = new MIPSprogram();  
+         maxSteps = -1;
+         out = System.out;  
+         if (parseCommandArgs(args)) {
+            if (runCommand()) {
+               displayMiscellaneousPostMortem();
+               displayRegistersPostMortem();
+               displayMemoryPostMortem();
+            }
+            dumpSegments();
+         }
       }   		
    	
+      /////////////////////////////////////////////////////////////
+   	// Return the File for a file name given on the command line.  A relative 
+   	// name is relative to the working directory of the server client, if any.
+   	
+      private File commandFile(String name) {
+         File file = new File(name);
+         return (workingDirectory == null || file.isAbsolute()) ? file : new File(workingDirectory, name);
+      }
+   	
       /////////////////////////////////////////////////////////////
    	// Perform any specified dump operations.  See "dump" option.
    	//
@@ -179,10 +229,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          
          for (int i=0; i<dumpTriples.size(); i++) {
             String[] triple = (String[])dumpTriples.get(i);
-            File file = new File(triple[2]);
+            File file = commandFile(triple[2]);
             Integer[] segInfo = MemoryDump.getSegmentBounds(triple[0]);
+            boolean allSegments = MemoryDump.ALL_SEGMENTS.equals(triple[0]);
          	// If not segment name, see if it is address range instead.  DPS 14-July-2008
-            if (segInfo == null) {
+            if (segInfo == null && !allSegments) {
                try {
                   String[] memoryRange = checkMemoryAddressRange(triple[0]);
                   segInfo = new Integer[2];
@@ -196,7 +247,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      segInfo = null;
                   }
             }
-            if (segInfo == null) {
+            if (segInfo == null && !allSegments) {
                out.println("Error while attempting to save dump, segment/address-range " + triple[0] + " is invalid!");
                continue;
             }
@@ -208,6 +259,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                continue;
             }
             try {
+               if (allSegments) {
+                  // Segments are far apart, so only a format that records addresses can hold them all.
+                  if (!(format instanceof AbstractDumpFormat) || !((AbstractDumpFormat) format).preservesAddresses()) {
+                     out.println("Error while attempting to save dump, format " + triple[1] + " does not record addresses "
+                        + "so cannot dump all segments!  Use " + addressPreservingFormats(dumpFormats) + ".");
+                     continue;
+                  }
+                  dumpAllSegments((AbstractDumpFormat) format, file);
+                  continue;
+               }
                int highAddress = Globals.memory.getAddressOfFirstNull(segInfo[0].intValue(), segInfo[1].intValue())- Memory.WORD_LENGTH_BYTES;
                if (highAddress < segInfo[0].intValue()) {
                   out.println("This segment has not been written to, there is nothing to dump.");
@@ -229,6 +290,37 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                }
          }
       } 	
+   
+      /////////////////////////////////////////////////////////////
+   	// Dump every segment to one file, for the ".all" segment of the "dump" 
+   	// option.  The format preserves addresses, so it is given each whole 
+   	// segment and skips the unused parts itself.
+   	
+       private void dumpAllSegments(AbstractDumpFormat format, File file) 
+           throws AddressErrorException, IOException {
+         int[][] bounds = MemoryDump.getAllSegmentBounds();
+         OutputStream stream = AbstractDumpFormat.openDumpFile(file);
+         try {
+            for (int i=0; i<bounds.length; i++) {
+               format.dumpMemoryRange(stream, bounds[i][0], bounds[i][1]);
+            }
+         } 
+         finally {
+            stream.close();
+         }
+      }
+   
+      // Command descriptors of the dump formats that can dump all segments, for messages.
+       private static String addressPreservingFormats(ArrayList<?> dumpFormats) {
+         String names = "";
+         for (int i=0; i<dumpFormats.size(); i++) {
+            Object format = dumpFormats.get(i);
+            if (format instanceof AbstractDumpFormat && ((AbstractDumpFormat) format).preservesAddresses()) {
+               names += (names.length() == 0 ? "" : " or ") + ((DumpFormat) format).getCommandDescriptor();
+            }
+         }
+         return names;
+      }
    	
    		
    	/////////////////////////////////////////////////////////////////
@@ -237,13 +329,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
       private void launchIDE() {
          // System.setProperty("apple.laf.useScreenMenuBar", "true"); // Puts MARS menu on Mac OS menu bar
-         new MarsSplashScreen(splashDuration).showSplash();
+         // The splash screen is shown while the IDE is built instead of for a fixed time.
+         final MarsSplashScreen splash = new MarsSplashScreen(splashDuration);
+         splash.showSplash();
          SwingUtilities.invokeLater(
                new Runnable() {
                   public void run() {
                      //Turn off metal's use of bold fonts
                      //UIManager.put("swing.boldMetal", Boolean.FALSE);
                      new VenusUI("MARS "+Globals.version);
+                     splash.hideSplash();
                   }
                }); 
          return;					
@@ -311,6 +406,65 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                }
                continue;
             } 
+            if (args[i].toLowerCase().equals("bp")) {
+               if (args.length <= (i+1)) {
+                  out.println("Branch prediction command line argument requires a list of predictors.");
+                  argsOK = false;
+                  continue;
+               }
+               try {
+                  branchPredictors = new BranchPredictorEngine(args[++i]);
+               } 
+                   catch (IllegalArgumentException e) {
+                     out.println("Invalid branch predictor: "+e.getMessage());
+                     argsOK = false;
+                  }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("trace") || args[i].toLowerCase().equals("replay")) {
+               if (args.length <= (i+1)) {
+                  out.println("Trace command line argument requires a file name.");
+                  argsOK = false;
+                  continue;
+               }
+               if (args[i].toLowerCase().equals("trace")) {
+                  traceFileName = args[++i];
+               } 
+               else {
+                  replayFileName = args[++i];
+               }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("cache")) {
+               if (args.length <= (i+1)) {
+                  out.println("Cache command line argument requires a cache configuration.");
+                  argsOK = false;
+                  continue;
+               }
+               try {
+                  cacheHierarchy = new CacheHierarchy(args[++i]);
+               } 
+                   catch (IllegalArgumentException e) {
+                     out.println("Invalid cache configuration: "+e.getMessage());
+                     argsOK = false;
+                  }
+               continue;
+            }
+            if (args[i].toLowerCase().equals("fb")) {
+               if (args.length <= (i+1)) {
+                  out.println("Fb command line argument requires a framebuffer configuration.");
+                  argsOK = false;
+                  continue;
+               }
+               try {
+                  framebufferCapture = new FramebufferCapture(args[++i]);
+               } 
+                   catch (IllegalArgumentException e) {
+                     out.println("Invalid framebuffer configuration: "+e.getMessage());
+                     argsOK = false;
+                  }
+               continue;
+            }
             if (args[i].toLowerCase().equals("mc")) {
                String configName = args[++i];
                MemoryConfiguration config = MemoryConfigurations.getConfigurationByName(configName);
@@ -403,6 +557,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                countInstructions = true;
                continue;
             }
+            if (args[i].toLowerCase().equals("perf")) {
+               reportPerformance = true;
+               continue;
+            }
+            if (args[i].toLowerCase().equals("jit")) {
+               translateHotCode = true;
+               continue;
+            }
          
          
             if (args[i].indexOf("$") == 0) {
@@ -421,8 +583,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                registerDisplayList.add("$"+args[i]);
                continue;
             }
-            if (new File(args[i]).exists()) {  // is it a file name?
-               filenameList.add(args[i]);
+            if (commandFile(args[i]).exists()) {  // is it a file name?
+               filenameList.add(commandFile(args[i]).getPath());
                continue;
             }
             // Check for stand-alone integer, which is the max execution steps option
@@ -467,7 +629,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          try {
             Globals.getSettings().setBooleanSettingNonPersistent(Settings.DELAYED_BRANCHING_ENABLED, delayedBranching);
             Globals.getSettings().setBooleanSettingNonPersistent(Settings.SELF_MODIFYING_CODE_ENABLED, selfModifyingCode);
-            File mainFile = new File((String) filenameList.get(0)).getAbsoluteFile();// First file is "main" file
+            BlockTranslator.setEnabled(translateHotCode);
+            File mainFile = commandFile((String) filenameList.get(0)).getAbsoluteFile();// First file is "main" file
             ArrayList filesToAssemble;
             if (assembleProject) { 
                filesToAssemble = FilenameFinder.getFilenameList(mainFile.getParent(), Globals.fileExtensions);
@@ -501,7 +664,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                out.println("--------  ASSEMBLY BEGINS  -----------");
             }
          	// Added logic to check for warnings and print if any. DPS 11/28/06
-            ErrorList warnings = code.assemble(MIPSprogramsToAssemble, pseudo, warningsAreErrors);
+            ErrorList warnings = code.assemble(MIPSprogramsToAssemble, pseudo, warningsAreErrors, false);
             if (warnings != null && warnings.warningsOccurred()) {
                out.println(warnings.generateWarningReport());
             }
@@ -515,9 +678,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   out.println("--------  SIMULATION BEGINS  -----------");
                }
                programRan = true;
-               boolean done = code.simulate(maxSteps);
-               if (!done) {
-                  out.println("\nProgram terminated when maximum step limit "+maxSteps+" reached.");
+               if (replayFileName != null) {
+                  replayTrace(replayFileName);
+               } 
+               else {
+                  boolean done = code.simulate(maxSteps);
+                  if (!done) {
+                     out.println("\nProgram terminated when maximum step limit "+maxSteps+" reached.");
+                  }
                }
             }
             if (Globals.debug) {
@@ -563,41 +731,126 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// DPS 19 July 2012
       private void establishObserver() { 
          if (countInstructions) {
-            Observer instructionCounter = 
-               new Observer() {
-                  private int lastAddress = 0;
-                  public void update(Observable o, Object obj) { 
-                     if (obj instanceof AccessNotice) {
-                        AccessNotice notice = (AccessNotice) obj;
-                        if (!notice.accessIsFromMIPS()) 
-                           return;
-                        if (notice.getAccessType() != AccessNotice.READ) 
-                           return;
-                        MemoryAccessNotice m = (MemoryAccessNotice) notice;
-                        int a = m.getAddress();
-                        if (a == lastAddress) 
-                           return;
-                        lastAddress = a;
-                        instructionCount++;				  
+            // Counts instructions executed from the user text segment, including one 
+            // that raised an exception, as when ic counted instruction fetches there.
+            instructionCounter = 
+               new RetireListener() {
+                  public void instructionsRetired(RetireEvent[] events, int count) { 
+                     for (int i = 0; i < count; i++) {
+                        if (Memory.inTextSegment(events[i].getAddress())) {
+                           instructionCount++;
+                        }
                      }
                   }
                };
+            Simulator.getInstance().addRetireListener(instructionCounter, 1024);
+         }		
+         if (cacheHierarchy != null) {
+            Globals.memory.addAccessTracer(cacheHierarchy);
+         }
+         if (branchPredictors != null) {
+            Simulator.getInstance().addRetireListener(branchPredictors, 4096);
+         }
+         if (traceFileName != null && replayFileName == null) {
             try {
-               Globals.memory.addObserver(instructionCounter, Memory.textBaseAddress, Memory.textLimitAddress);
+               traceRecorder = new TraceRecorder(commandFile(traceFileName));
+               Simulator.getInstance().setTraceRecorder(traceRecorder);
             } 
-               catch (AddressErrorException aee) {
-                  out.println("Internal error: MarsLaunch uses incorrect text segment address for instruction observer");
+                catch (IOException e) {
+                  out.println("Unable to record trace to "+traceFileName+": "+e.getMessage());
                }
-         }		
+         }
+         if (framebufferCapture != null && replayFileName == null) {
+            try {
+               framebufferCapture.start(commandFile(framebufferCapture.getFileName()));
+               if (framebufferCapture.capturesAtSyscall()) {
+                  Simulator.getInstance().addRetireListener(framebufferCapture, 1);
+               }
+            } 
+                catch (IOException e) {
+                  out.println("Unable to capture frames to "+framebufferCapture.getFileName()+": "+e.getMessage());
+                  framebufferCapture = null;
+               }
+         }
+         if (reportPerformance) {
+            try {
+               Simulator.getInstance().getPerformanceCounters().publish();
+            } 
+                catch (javax.management.JMException e) {
+                  out.println("Unable to publish performance counters to JMX: "+e.getMessage());
+               }
+         }
+      }
+   	     		   	
+   	//////////////////////////////////////////////////////////////////////
+   	// Replays a recorded execution trace into the observers established above.
+   	// The replay thread is named like the simulator thread so that observers
+   	// accept its notices as coming from the MIPS program.
+      private void replayTrace(String fileName) {
+         final TraceReplayer replayer = new TraceReplayer(commandFile(fileName));
+         final IOException[] error = new IOException[1];
+         Thread replayThread = 
+            new Thread("MIPS trace replay") {
+               public void run() {
+                  try {
+                     replayer.replay();
+                  } 
+                      catch (IOException e) {
+                        error[0] = e;
+                     }
+               }
+            };
+         replayThread.start();
+         try {
+            replayThread.join();
+         } 
+             catch (InterruptedException e) {
+               replayer.stop();
+            }
+         if (error[0] != null) {
+            out.println("Unable to replay trace "+fileName+": "+error[0].getMessage());
+         }
       }
    	     		   	
    	//////////////////////////////////////////////////////////////////////
    	// Displays any specified runtime properties. Initially just instruction count 
    	// DPS 19 July 2012  	
       private void displayMiscellaneousPostMortem() {
+         if (traceRecorder != null) {
+            Simulator.getInstance().setTraceRecorder(null);
+            try {
+               traceRecorder.close();
+            } 
+                catch (IOException e) {
+                  out.println("Error writing trace to "+traceFileName+": "+e.getMessage());
+               }
+         }
+         if (framebufferCapture != null && replayFileName == null) {
+            Simulator.getInstance().deleteRetireListener(framebufferCapture);
+            try {
+               framebufferCapture.finish();
+            } 
+                catch (IOException e) {
+                  out.println("Error writing frames to "+framebufferCapture.getFileName()+": "+e.getMessage());
+               }
+         }
          if (countInstructions) {
+            Simulator.getInstance().deleteRetireListener(instructionCounter);
             out.println("\n"+instructionCount);
          }
+         if (cacheHierarchy != null) {
+            Globals.memory.deleteAccessTracer(cacheHierarchy);
+            cacheHierarchy.flush();
+            out.println("\n"+cacheHierarchy.getReport());
+         }
+         if (branchPredictors != null) {
+            Simulator.getInstance().deleteRetireListener(branchPredictors);
+            out.println("\n"+branchPredictors.getReport());
+         }
+         if (reportPerformance) {
+            Simulator.getInstance().getPerformanceCounters().withdraw();
+            out.println("\n"+Simulator.getInstance().getPerformanceCounters().getJson());
+         }
       }
    
    	     		   	
@@ -792,6 +1045,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          out.println("  ae<n>  -- terminate MARS with integer exit code <n> if an assemble error occurs.");
          out.println("  ascii  -- display memory or register contents interpreted as ASCII codes.");
          out.println("      b  -- brief - do not display register/memory address along with contents");
+         out.println("     bp <predictors>  -- evaluate branch predictors on the run and display their");
+         out.println("            accuracy and the branches they mispredict most.  <predictors> is a");
+         out.println("            comma separated list of taken, nottaken, btfn, bimodal:<entries>,");
+         out.println("            global:<bits>, gshare:<entries>:<bits>, local:<entries>:<bits>,");
+         out.println("            tournament:<entries>:<bits>.  e.g. bp btfn,bimodal:4K,gshare:4K:12");
+         out.println("  cache <config>  -- simulate caches during the run and display hit/miss statistics.");
+         out.println("            <config> is level=size:block:ways[:options], comma separated, where");
+         out.println("            level is l1i, l1d, l1 (unified) or l2, ways may be 'full', and");
+         out.println("            options are lru (default), plru or fifo; wb (default) or wt;");
+         out.println("            wa (default) or nwa.  e.g. cache l1i=32K:64:2,l1d=32K:64:4,l2=256K:64:8");
          out.println("      d  -- display MARS debugging statements");
          out.println("     db  -- MIPS delayed branching is enabled");
          out.println("    dec  -- display memory or register contents in decimal.");
@@ -799,11 +1062,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          out.println("            in specified format to specified file.  Option may be repeated."); 
          out.println("            Dump occurs at the end of simulation unless 'a' option is used.");
          out.println("            Segment and format are case-sensitive and possible values are:");
-         out.println("            <segment> = "+segments);
+         out.println("            <segment> = "+segments+", or "+MemoryDump.ALL_SEGMENTS+" to dump");
+         out.println("            every segment to one file (SegmentImage format only).");
          out.println("            <format> = "+formats);
+         out.println("            If <file> ends with .gz the dump is written gzip compressed.");
+         out.println("     fb <config>  -- capture the Bitmap Display's memory as image frames, without a GUI.");
+         out.println("            <config> is comma separated options: base=<address> (a number, or");
+         out.println("            global, gp, data (default), heap or mmio), width=<pixels> (512),");
+         out.println("            height=<pixels> (256), unit=<pixels>[x<pixels>] (1); when to capture:");
+         out.println("            at=<count>[:<count>...] and every=<count> instructions, syscall=<service>");
+         out.println("            before each such syscall, exit (default); format=png (default) or raw;");
+         out.println("            file=<name> without extension (frame).  e.g. fb base=gp,unit=8,syscall=32");
          out.println("      h  -- display this help.  Use by itself with no filename.");
          out.println("    hex  -- display memory or register contents in hexadecimal (default)");
          out.println("     ic  -- display count of MIPS basic instructions 'executed'");
+         out.println("    jit  -- run frequently executed code translated to Java bytecode, which is much");
+         out.println("            faster.  Not used with db or with the ic, bp, cache and trace options.");
          out.println("     mc <config>  -- set memory configuration.  Argument <config> is");
          out.println("            case-sensitive and possible values are: Default for the default");
          out.println("            32-bit address space, CompactDataAtZero for a 32KB memory with");
@@ -813,10 +1087,20 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          out.println("            Can separate messages from program output using redirection");
          out.println("     nc  -- do not display copyright notice (for cleaner redirected/piped output).");
          out.println("     np  -- use of pseudo instructions and formats not permitted");
+         out.println("   perf  -- display performance counters (instructions by format and category,");
+         out.println("            loads, stores, taken branches, syscalls, exceptions, time) in JSON");
+         out.println("            at end of run.  While running they are published as JMX MBean");
+         out.println("            "+PerformanceCounters.OBJECT_NAME);
          out.println("      p  -- Project mode - assemble all files in the same directory as given file.");
+         out.println("  replay <file>  -- replay the trace in <file>, recorded from the same program,");
+         out.println("            into the ic, cache and bp options instead of simulating.");
          out.println("  se<n>  -- terminate MARS with integer exit code <n> if a simulation (run) error occurs.");
+         out.println("  server [port]  -- keep running as a server on the loopback interface, with the MARS");
+         out.println("            engine warm, for jobs submitted by the client mars.MarsClient.  It takes");
+         out.println("            the same options as this command line.  Use by itself with no filename.");
          out.println("     sm  -- start execution at statement with global label main, if defined");
          out.println("    smc  -- Self Modifying Code - Program can write and branch to either text or data segment");
+         out.println("  trace <file>  -- record an execution trace of the run to <file>, for replay.");
          out.println("    <n>  -- where <n> is an integer maximum count of steps to simulate.");
          out.println("            If 0, negative or not specified, there is no maximum.");
          out.println(" $<reg>  -- where <reg> is number or name (e.g. 5, t3, f10) of register whose ");
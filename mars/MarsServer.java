@@ -0,0 +1,392 @@
+   package mars;
+   import mars.mips.hardware.*;
+   import mars.simulator.*;
+   import java.io.*;
+   import java.net.*;
+   import java.security.SecureRandom;
+
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * A long-running MARS that keeps one warm engine for repeated command line jobs, so
+ * that a grading harness or editor plugin pays JVM startup and JIT warm-up once
+ * instead of on every run.  Started with <tt>java -jar Mars.jar server [port]</tt>, it
+ * listens on the loopback interface and records its port and a random access token
+ * in the file SERVER_FILENAME in the user's home directory, readable only by the user.
+ * MarsClient reads that file to submit jobs.
+ * <p>
+ * A job is a MARS command line, the client's working directory, against which file 
+ * names in the command line are resolved, and the bytes of standard input for the
+ * MIPS program.  The server runs it exactly as MarsLaunch runs a command line, one job
+ * at a time, and streams back standard output and standard error as they are written,
+ * followed by the exit code.  Before each job the registers, performance counters and
+ * exit code are reset; assembling the program resets memory.  A job that runs longer
+ * than the server's time limit, or whose client closes the connection, is stopped
+ * so that it does not hold up the jobs after it.
+ * <p>
+ * Requests are, in DataOutputStream form: the token (UTF), the working directory (UTF),
+ * the argument count (int) and each argument (UTF), then the length of standard input
+ * (int) and its bytes.  Replies are frames starting with a kind byte: STANDARD_OUTPUT or
+ * STANDARD_ERROR followed by a length (int) and the bytes, and finally EXIT followed 
+ * by the exit code (int).
+ *
+ * @version October 2026
+ * @see MarsClient
+ */
+
+    public class MarsServer {
+   
+      /** Name of the file, in the user's home directory, holding the port and access
+       *  token of the running server. */
+      public static final String SERVER_FILENAME = ".mars-server";
+      static final int EXIT = 0;
+      static final int STANDARD_OUTPUT = 1;
+      static final int STANDARD_ERROR = 2;
+      private static final int REQUEST_TIMEOUT = 30000; // milliseconds allowed to receive a job
+      private static final int MAXIMUM_ARGUMENTS = 10000;
+      private static final int DEFAULT_TIME_LIMIT = 60; // seconds a job may run
+      private static final int MONITOR_INTERVAL = 200; // milliseconds between checks of a running job
+   
+      private final ServerSocket serverSocket;
+      private final String token;
+      private final PrintStream console; // the server's own messages
+      private final int timeLimit; // seconds
+   
+   	/**
+   	 * Run the server for the "server" command line option until the process is killed.
+   	 * Returns only if the server cannot start, with Globals.exitCode set.
+   	 * @param args the command line: "server", an optional port number and an optional
+   	 * time limit for each job in seconds.  Without a port number, any free port is used.
+   	 */
+       static void serve(String[] args) {
+         int port = 0;
+         int timeLimit = DEFAULT_TIME_LIMIT;
+         if (args.length > 1) {
+            try {
+               port = Integer.parseInt(args[1]);
+               if (args.length > 2) {
+                  timeLimit = Integer.parseInt(args[2]);
+               }
+            } 
+                catch (NumberFormatException e) {
+                  port = -1;
+               }
+            if (port < 0 || port > 65535 || timeLimit < 1 || args.length > 3) {
+               System.out.println("Usage: server [port [time limit in seconds]]");
+               Globals.exitCode = 1;
+               return;
+            }
+         }
+         try {
+            new MarsServer(port, timeLimit).run();
+         } 
+             catch (IOException e) {
+               System.out.println("Unable to start MARS server: "+e.getMessage());
+               Globals.exitCode = 1;
+            }
+      }
+   
+   	/**
+   	 * Return the file in which the running server records its port and token.
+   	 * @return the server file
+   	 */
+       public static File getServerFile() {
+         return new File(System.getProperty("user.home"), SERVER_FILENAME);
+      }
+   
+       private MarsServer(int port, int timeLimit) throws IOException {
+         console = System.out;
+         this.timeLimit = timeLimit;
+         serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+         byte[] random = new byte[16];
+         new SecureRandom().nextBytes(random);
+         StringBuffer hex = new StringBuffer();
+         for (int i = 0; i < random.length; i++) {
+            hex.append(Integer.toHexString((random[i] & 0xFF) | 0x100).substring(1));
+         }
+         token = hex.toString();
+         writeServerFile();
+      }
+   
+      // Create the server file readable only by the user, then write port and token.
+       private void writeServerFile() throws IOException {
+         File file = getServerFile();
+         file.delete();
+         new FileOutputStream(file).close();
+         file.deleteOnExit();
+         file.setReadable(false, false);
+         file.setWritable(false, false);
+         file.setReadable(true, true);
+         file.setWritable(true, true);
+         Writer writer = new FileWriter(file);
+         try {
+            writer.write(serverSocket.getLocalPort()+" "+token+"\n");
+         } 
+         finally {
+            writer.close();
+         }
+      }
+   
+      // Accept and run jobs, one at a time.
+       private void run() {
+         console.println("MARS server listening on port "+serverSocket.getLocalPort()+" of "
+                         +serverSocket.getInetAddress().getHostAddress()+", jobs limited to "+timeLimit+" seconds");
+         while (true) {
+            Socket socket;
+            try {
+               socket = serverSocket.accept();
+            } 
+                catch (IOException e) {
+                  console.println("MARS server: "+e.getMessage());
+                  continue;
+               }
+            try {
+               runJob(socket);
+            } 
+                catch (IOException e) {
+                  console.println("MARS server: job abandoned: "+e.getMessage());
+               }
+            finally {
+               try {
+                  socket.close();
+               } 
+                   catch (IOException e) {
+                  }
+            }
+         }
+      }
+   
+      // Receive a job, run it with the standard streams attached to the client, 
+      // and send the exit code.  The job is stopped if it runs out of time or the
+      // client goes away.
+       private void runJob(Socket socket) throws IOException {
+         socket.setSoTimeout(REQUEST_TIMEOUT);
+         DataInputStream request = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+         if (!token.equals(request.readUTF())) {
+            return;
+         }
+         File directory = new File(request.readUTF());
+         int argumentCount = request.readInt();
+         if (argumentCount < 1 || argumentCount > MAXIMUM_ARGUMENTS) {
+            return;
+         }
+         String[] args = new String[argumentCount];
+         for (int i = 0; i < args.length; i++) {
+            args[i] = request.readUTF();
+         }
+         byte[] input = new byte[request.readInt()];
+         request.readFully(input);
+         socket.setSoTimeout(0);
+      
+         DataOutputStream reply = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+         PrintStream jobOut = new PrintStream(new FrameOutputStream(reply, STANDARD_OUTPUT));
+         PrintStream jobErr = new PrintStream(new FrameOutputStream(reply, STANDARD_ERROR));
+         PrintStream savedOut = System.out;
+         PrintStream savedErr = System.err;
+         InputStream savedIn = System.in;
+         System.setOut(jobOut);
+         System.setErr(jobErr);
+         System.setIn(new ByteArrayInputStream(input));
+         JobMonitor monitor = new JobMonitor(socket, timeLimit);
+         monitor.start();
+         try {
+            resetEngine();
+            new MarsLaunch(args, directory);
+         } 
+             catch (RuntimeException e) {
+               jobErr.println("MARS server: job failed: "+e);
+               Globals.exitCode = 1;
+            }
+         finally {
+            String stopReason = monitor.finish();
+            if (stopReason != null) {
+               jobErr.println("MARS server: job stopped: "+stopReason);
+               Globals.exitCode = 1;
+            }
+            jobOut.flush();
+            jobErr.flush();
+            System.setOut(savedOut);
+            System.setErr(savedErr);
+            System.setIn(savedIn);
+         }
+         synchronized (reply) {
+            reply.writeByte(EXIT);
+            reply.writeInt(Globals.exitCode);
+            reply.flush();
+         }
+      }
+   
+      // Return the engine to the state of a newly started MARS, as far as the
+      // previous job could have changed it.  Assembly clears memory and symbols.
+       private static void resetEngine() {
+         Globals.exitCode = 0;
+         Globals.debug = false;
+         RegisterFile.resetRegisters();
+         Coprocessor1.resetRegisters();
+         Coprocessor0.resetRegisters();
+         Simulator.getInstance().getPerformanceCounters().reset();
+      }
+   
+   	/*
+   	 * Watches a running job and stops its simulation when the time limit passes or
+   	 * the client closes the connection.  The client sends nothing after the request,
+   	 * so the end of the connection's input means the client has gone.  Stopping is
+   	 * repeated until the job finishes, in case the simulation had not yet started.
+   	 */
+       private static class JobMonitor extends Thread {
+         private final Socket socket;
+         private final int timeLimit;
+         private final long deadline;
+         private boolean finished;
+         private String stopReason;
+      
+          JobMonitor(Socket socket, int timeLimit) {
+            super("MARS job monitor");
+            setDaemon(true);
+            this.socket = socket;
+            this.timeLimit = timeLimit;
+            this.deadline = System.currentTimeMillis() + timeLimit * 1000L;
+         }
+      
+          public void run() {
+            try {
+               socket.setSoTimeout(MONITOR_INTERVAL);
+               InputStream in = socket.getInputStream();
+               while (!isFinished()) {
+                  String reason = null;
+                  try {
+                     if (in.read() < 0) {
+                        reason = "client closed the connection";
+                     }
+                  } 
+                      catch (SocketTimeoutException e) {
+                        if (System.currentTimeMillis() >= deadline) {
+                           reason = "time limit of "+timeLimit+" seconds reached";
+                        }
+                     }
+                  if (reason != null) {
+                     stopJob(reason);
+                  }
+               }
+            } 
+                catch (IOException e) { // connection closed or failed
+                  stopJob("client connection failed");
+               }
+         }
+      
+         // Stop the simulation, repeatedly until the job finishes.
+          private void stopJob(String reason) {
+            synchronized (this) {
+               if (stopReason == null) {
+                  stopReason = reason;
+               }
+            }
+            while (stopSimulation()) {
+               try {
+                  Thread.sleep(MONITOR_INTERVAL);
+               } 
+                   catch (InterruptedException e) {
+                     return;
+                  }
+            }
+         }
+      
+         // Stop the simulation unless the job has finished; return false if it has.
+          private synchronized boolean stopSimulation() {
+            if (!finished) {
+               Simulator.getInstance().stopExecution(null);
+            }
+            return !finished;
+         }
+      
+          private synchronized boolean isFinished() {
+            return finished;
+         }
+      
+         /**
+          * Note that the job has finished; the simulation is not stopped after this.
+          * @return why the job was stopped, or null if it was not
+          */
+          synchronized String finish() {
+            finished = true;
+            return stopReason;
+         }
+      }
+   
+   	/*
+   	 * Output stream that sends what is written to it to the client as frames of one
+   	 * kind, buffering up to a frame's worth.  Standard output and standard error share
+   	 * the connection, so frames are written while holding its lock.
+   	 */
+       private static class FrameOutputStream extends OutputStream {
+         private final DataOutputStream connection;
+         private final int kind;
+         private final byte[] buffer = new byte[8192];
+         private int count;
+      
+          FrameOutputStream(DataOutputStream connection, int kind) {
+            this.connection = connection;
+            this.kind = kind;
+         }
+      
+          public void write(int b) throws IOException {
+            if (count == buffer.length) {
+               flush();
+            }
+            buffer[count++] = (byte) b;
+         }
+      
+          public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+               if (count == buffer.length) {
+                  flush();
+               }
+               int chunk = Math.min(length, buffer.length - count);
+               System.arraycopy(bytes, offset, buffer, count, chunk);
+               count += chunk;
+               offset += chunk;
+               length -= chunk;
+            }
+         }
+      
+          public void flush() throws IOException {
+            if (count == 0) {
+               return;
+            }
+            synchronized (connection) {
+               connection.writeByte(kind);
+               connection.writeInt(count);
+               connection.write(buffer, 0, count);
+               connection.flush();
+            }
+            count = 0;
+         }
+      }
+   }
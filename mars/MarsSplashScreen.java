@@ -1,5 +1,6 @@
    package mars;
    import java.awt.*;
+   import java.awt.event.*;
    import javax.swing.*;
 
 /*
@@ -38,14 +39,20 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     public class MarsSplashScreen extends JWindow {
       
       private int duration;
+      private long shownTime;
       
+      /**
+   	 * Create the splash screen.
+   	 * @param d minimum time in milliseconds that the splash screen is shown
+   	 */
        public MarsSplashScreen(int d) {
          duration = d;
       }
       
       /**
    	 * A simple little method to show a title screen in the center
-       * of the screen for the amount of time given in the constructor
+       * of the screen.  It stays up until hideSplash() is called, so it can cover
+       * the time taken to build the IDE.
    	 */
        public void showSplash() {
          ImageBackgroundPanel content = new ImageBackgroundPanel();
@@ -85,10 +92,27 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
          // Display it
          setVisible(true);
-         // Wait a little while, maybe while loading resources
-         try { Thread.sleep(duration); } 
-             catch (Exception e) {}
-         setVisible(false);
+         shownTime = System.currentTimeMillis();
+      }
+   	
+      /**
+   	 * Remove the splash screen, once it has been shown for at least the time given
+   	 * in the constructor.  Called on the event dispatch thread when the IDE is ready.
+   	 */
+       public void hideSplash() {
+         int remaining = (int) (shownTime + duration - System.currentTimeMillis());
+         if (remaining <= 0) {
+            dispose();
+            return;
+         }
+         Timer timer = new Timer(remaining, 
+               new ActionListener() {
+                  public void actionPerformed(ActionEvent e) {
+                     dispose();
+                  }
+               });
+         timer.setRepeats(false);
+         timer.start();
       }
    	
        class ImageBackgroundPanel extends JPanel
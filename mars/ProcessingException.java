@@ -34,6 +34,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 /**
  * Class to represent error that occurs while assembling or running a MIPS program.
+ * <p>
+ * During simulation it also signals program exit and every exception or interrupt
+ * trap, which the simulator may pass to a kernel exception handler and continue.
+ * So it does not capture a stack trace, and the message for a runtime exception 
+ * is not formatted until its errors are requested.
  * 
  * @author Pete Sanderson
  * @version August 2003
@@ -41,6 +46,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
     public class ProcessingException extends Exception {  
       private ErrorList errs;
+   // For a runtime exception, whose error list is created when first requested.
+      private ProgramStatement statement;
+      private String message;
+      private AddressErrorException addressError;
+      private int address;
    
    /**
     * Constructor for ProcessingException.
@@ -71,10 +81,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     * @param m a String containing specialized error message
     **/
        public ProcessingException(ProgramStatement ps, String m) {
-         errs = new ErrorList();
-         errs.add(new ErrorMessage(ps, "Runtime exception at "+
-            Binary.intToHexString(RegisterFile.getProgramCounter()-Instruction.INSTRUCTION_LENGTH)+ 
-            ": "+m));
+         statement = ps;
+         message = m;
+         address = RegisterFile.getProgramCounter()-Instruction.INSTRUCTION_LENGTH;
       		// Stopped using ps.getAddress() because of pseudo-instructions.  All instructions in
       		// the macro expansion point to the same ProgramStatement, and thus all will return the
       		// same value for getAddress(). But only the first such expanded instruction will 
@@ -104,7 +113,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     **/
    
        public ProcessingException(ProgramStatement ps, AddressErrorException aee) {
-         this(ps, aee.getMessage());
+         this(ps, (String) null);
+         addressError = aee;
          Exceptions.setRegisters(aee.getType(), aee.getAddress());
       }
    
@@ -127,7 +137,33 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     **/
     
        public ErrorList errors() {
+         if (errs == null && statement != null) {
+            errs = new ErrorList();
+            errs.add(new ErrorMessage(statement, "Runtime exception at "+Binary.intToHexString(address)+ 
+               ": "+((addressError == null) ? message : addressError.getMessage())));
+         }
          return errs;
       }
    
+   /**
+    * Determine whether this signals normal MIPS program termination, in which case 
+    * there is no error list.  Unlike errors(), does not create the error message of 
+    * a runtime exception.
+    * 
+    * @return true if normal termination, false if there are errors.
+    **/
+       public boolean isProgramExit() {
+         return errs == null && statement == null;
+      }
+   
+   /**
+    * Does not fill in the stack trace, which is never used and would cost a walk of
+    * the stack for each trap taken by the simulated program.
+    * 
+    * @return this exception
+    **/
+       public synchronized Throwable fillInStackTrace() {
+         return this;
+      }
+   
    }
@@ -54,6 +54,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private int textAddress;
       private int sourceLine;
       private int binaryStatement;
+      private boolean machineStatementEncoded; // machineStatement not yet made from binaryStatement
+      private boolean basicAssemblyStatementDerived; // basicAssemblyStatement made from basicStatementList
       private boolean altered;
       private static final String invalidOperator = "<INVALID>";
     
@@ -119,17 +121,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             this.numOperands = 0;
             this.instruction = instr;
          
-            String opandCodes = "fst";
-            String fmt = instr.getOperationMask();
             BasicInstructionFormat instrFormat = instr.getInstructionFormat();
             int numOps = 0;
-            for (int i = 0; i < opandCodes.length(); i++) {
-               int code = opandCodes.charAt(i);
-               int j = fmt.indexOf(code);
-               if (j >= 0) {
-                  int k0 = 31 - fmt.lastIndexOf(code);
-                  int k1 = 31 - j;
-                  int opand = (binaryStatement >> k0) & ((1 << (k1 - k0 + 1)) - 1);
+            for (int i = 0; i < Instruction.operandMask.length; i++) {
+               int width = instr.getOperandWidth(i);
+               if (width > 0) {
+                  int opand = (binaryStatement >> instr.getOperandShift(i)) & ((1 << width) - 1);
                   if (instrFormat.equals(BasicInstructionFormat.I_BRANCH_FORMAT) && numOps == 2) {
                      opand = opand << 16 >> 16;
                   } 
@@ -252,7 +249,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             else if (tokenType == TokenTypes.INTEGER_5 || tokenType == TokenTypes.INTEGER_16 ||
                      tokenType == TokenTypes.INTEGER_16U || tokenType == TokenTypes.INTEGER_32) {
             
-               int tempNumeric = Binary.stringToInt(tokenValue);
+               int tempNumeric = token.getIntValue();
             	
             /***************************************************************************
             *  MODIFICATION AND COMMENT, DPS 3-July-2008
@@ -331,9 +328,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      **/
        public void buildMachineStatementFromBasicStatement(ErrorList errors) {
       
+         BasicInstruction basicInstruction;
          try {
-               //mask indicates bit positions for 'f'irst, 's'econd, 't'hird operand
-            this.machineStatement = ((BasicInstruction)instruction).getOperationMask();
+               // Encoding starts with the constant bits of the operation mask, operand
+               // fields are then filled in.  The mask string itself is not needed.
+            basicInstruction = (BasicInstruction) instruction;
          }   // This means the pseudo-instruction expansion generated another
              // pseudo-instruction (expansion must be to all basic instructions).
          	 // This is an error on the part of the pseudo-instruction author.
@@ -342,7 +341,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                           "INTERNAL ERROR: pseudo-instruction expansion contained a pseudo-instruction"));
                return;            
             }        
-         BasicInstructionFormat format = ((BasicInstruction)instruction).getInstructionFormat();
+         BasicInstructionFormat format = basicInstruction.getInstructionFormat();
+         int binary = basicInstruction.getOpcodeMatch();
       
          if (format == BasicInstructionFormat.J_FORMAT) {
             if ((this.textAddress & 0xF0000000) != (this.operands[0] & 0xF0000000)) {
@@ -354,24 +354,46 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }
             // Note the  bit shift to make this a word address.
             this.operands[0] = this.operands[0] >>> 2;
-            this.insertBinaryCode(this.operands[0], Instruction.operandMask[0], errors);          
+            binary = this.insertBinaryCode(binary, basicInstruction, 0, errors);          
          } 
          else if (format == BasicInstructionFormat.I_BRANCH_FORMAT) { 
             for (int i=0; i<this.numOperands-1; i++) {
-               this.insertBinaryCode(this.operands[i], Instruction.operandMask[i], errors);
+               binary = this.insertBinaryCode(binary, basicInstruction, i, errors);
             }
-            this.insertBinaryCode(operands[this.numOperands-1], Instruction.operandMask[this.numOperands-1], errors);         
+            binary = this.insertBinaryCode(binary, basicInstruction, this.numOperands-1, errors);         
          } 
          else {  // R_FORMAT or I_FORMAT
             for (int i=0; i<this.numOperands; i++)
-               this.insertBinaryCode(this.operands[i], Instruction.operandMask[i], errors);
+               binary = this.insertBinaryCode(binary, basicInstruction, i, errors);
          }
-         this.binaryStatement = Binary.binaryStringToInt(this.machineStatement);
+         this.binaryStatement = binary;
+         this.machineStatement = null;
+         this.machineStatementEncoded = true; // string form produced on demand
          return;
       } // buildMachineStatementFromBasicStatement(
         
     
     
+    /////////////////////////////////////////////////////////////////////////////
+    /**
+     * Release what is needed only while assembling, once the machine code has been 
+     * generated and stored.  The token lists are dropped, so getOriginalTokenList() and 
+     * getStrippedTokenList() will return null, and the Basic Assembly statement is
+     * produced from the compact basic statement list when it is requested.  This keeps
+     * the memory needed by a program of a million or more statements manageable.
+     **/
+       public void compact() {
+         this.originalTokenList = null;
+         this.strippedTokenList = null;
+         this.basicStatementList.compact();
+         if (this.basicAssemblyStatement != null && this.basicAssemblyStatement.equals(
+             this.basicStatementList.toString(mars.venus.NumberDisplayBaseChooser.DECIMAL, 
+                                              mars.venus.NumberDisplayBaseChooser.DECIMAL))) {
+            this.basicAssemblyStatement = null;
+            this.basicAssemblyStatementDerived = true;
+         }
+      }
+   
     /////////////////////////////////////////////////////////////////////////////
     /**
      * Crude attempt at building String representation of this complex structure.
@@ -382,10 +404,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
         // a crude attempt at string formatting.  Where's C when you need it?
          String blanks = "                               ";
          String result = "["+this.textAddress+"]";
-         if (this.basicAssemblyStatement != null) {
-            int firstSpace = this.basicAssemblyStatement.indexOf(" ");
-            result += blanks.substring(0, 16-result.length()) + this.basicAssemblyStatement.substring(0,firstSpace);
-            result += blanks.substring(0, 24-result.length()) + this.basicAssemblyStatement.substring(firstSpace+1);;
+         String basicAssemblyStatement = getBasicAssemblyStatement();
+         if (basicAssemblyStatement != null) {
+            int firstSpace = basicAssemblyStatement.indexOf(" ");
+            result += blanks.substring(0, 16-result.length()) + basicAssemblyStatement.substring(0,firstSpace);
+            result += blanks.substring(0, 24-result.length()) + basicAssemblyStatement.substring(firstSpace+1);;
          } 
          else {
             result += blanks.substring(0, 16 - result.length()) + "0x" + Integer.toString(this.binaryStatement, 16);
@@ -396,11 +419,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             // result += operands[i] + " ";
                result += Integer.toString(operands[i], 16) + " ";
          }
-         if (this.machineStatement != null) {
-            result += "["+Binary.binaryStringToHexString(this.machineStatement)+"]";
-            result += "  "+this.machineStatement.substring(0,6)+"|" + this.machineStatement.substring(6,11)+"|"+
-               this.machineStatement.substring(11,16)+"|" + this.machineStatement.substring(16,21)+"|"+
-               this.machineStatement.substring(21,26)+"|" + this.machineStatement.substring(26,32);
+         String machineStatement = getMachineStatement();
+         if (machineStatement != null) {
+            result += "["+Binary.binaryStringToHexString(machineStatement)+"]";
+            result += "  "+machineStatement.substring(0,6)+"|" + machineStatement.substring(6,11)+"|"+
+               machineStatement.substring(11,16)+"|" + machineStatement.substring(16,21)+"|"+
+               machineStatement.substring(21,26)+"|" + machineStatement.substring(26,32);
          }
          return result;
       } // toString()
@@ -412,6 +436,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      
        public void setBasicAssemblyStatement(String statement) {
          basicAssemblyStatement = statement;
+         basicAssemblyStatementDerived = false;
       }
    
     /**
@@ -422,6 +447,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          
        public void setMachineStatement(String statement) {
          machineStatement = statement;
+         machineStatementEncoded = false;
       }
    
     /**
@@ -488,6 +514,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      **/
      
        public String getBasicAssemblyStatement() {
+         if (basicAssemblyStatement == null && basicAssemblyStatementDerived) {
+            return basicStatementList.toString(mars.venus.NumberDisplayBaseChooser.DECIMAL, 
+                                               mars.venus.NumberDisplayBaseChooser.DECIMAL);
+         }
          return basicAssemblyStatement;
       }
     
@@ -508,6 +538,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      **/
      
        public String getMachineStatement() {
+         if (machineStatement == null && machineStatementEncoded) {
+            machineStatement = Binary.intToBinaryString(binaryStatement);
+         }
          return machineStatement;
       }
     
@@ -520,7 +553,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
     /**
      * Produces token list generated from original source statement.
-     * @return The TokenList of Token objects generated from original source.
+     * @return The TokenList of Token objects generated from original source, or null
+     * once the statement has been compacted.
      **/
        public TokenList getOriginalTokenList() {
          return originalTokenList;
@@ -528,7 +562,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     /**
      * Produces token list stripped of all but operator and operand tokens.
      * @return The TokenList of Token objects generated by stripping original list of all
-     * except operator and operand tokens.
+     * except operator and operand tokens, or null once the statement has been compacted.
      **/
        public TokenList getStrippedTokenList() {
          return strippedTokenList;
@@ -571,22 +605,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
     
     //////////////////////////////////////////////////////////////////////////////
-    //  Given operand (register or integer) and mask character ('f', 's', or 't'),
-    //  generate the correct sequence of bits and replace the mask with them.
-       private void insertBinaryCode(int value, char mask, ErrorList errors) {
-         int startPos = this.machineStatement.indexOf(mask);
-         int endPos = this.machineStatement.lastIndexOf(mask);
-         if (startPos == -1 || endPos == -1) { // should NEVER occur
+    //  Given partially encoded machine instruction and operand position (0 for 'f', 1 for 's',
+    //  2 for 't'), place the operand's bits in its field of the instruction.
+       private int insertBinaryCode(int binary, BasicInstruction basicInstruction, int operand, ErrorList errors) {
+         if (basicInstruction.getOperandWidth(operand) == 0) { // should NEVER occur
             errors.add(new ErrorMessage(this.sourceMIPSprogram,this.sourceLine,0,
                    "INTERNAL ERROR: mismatch in number of operands in statement vs mask"));
-            return;
+            return binary;
          }
-         String bitString = Binary.intToBinaryString(value, endPos-startPos+1);
-         String state = this.machineStatement.substring(0, startPos) + bitString;
-         if (endPos < this.machineStatement.length()-1)
-            state = state + this.machineStatement.substring(endPos+1);
-         this.machineStatement = state;
-         return;
+         return basicInstruction.insertOperand(binary, operand, this.operands[operand]);
       } // insertBinaryCode()
    
    
@@ -666,65 +693,95 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 //  are relative to the PC.
    	 //
    	 //  DPS 29-July-2010
+   	 //
+   	 //  Stored as a single string with markers rather than a
+   	 //  list of element objects, to save memory.  October 2026
    	 
-       private class BasicStatementList {
+       private static class BasicStatementList {
       
-         private ArrayList list;
+         // The statement is held as one string in which each address or value is
+         // represented by a marker character, plus the addresses and values in order.
+         // This takes a fraction of the memory of a list of element objects, which
+         // matters for programs of a million or more statements.
+         private static final char ADDRESS = '\u0001', VALUE = '\u0002';
+         private static final int[] NO_VALUES = new int[0];
+         private StringBuffer buffer;  // while being built
+         private String pattern;       // once compacted
+         private int[] values;
+         private int numValues;
       
           BasicStatementList() {
-            list = new ArrayList();
+            buffer = new StringBuffer();
+            values = NO_VALUES;
          }
       
           void addString(String string) {
-            list.add(new ListElement(0, string, 0));
+            buffer.append(string);
          }
       
           void addAddress(int address) {
-            list.add(new ListElement(1, null, address));
+            buffer.append(ADDRESS);
+            addInt(address);
          }
       
           void addValue(int value) {
-            list.add(new ListElement(2, null, value));
+            buffer.append(VALUE);
+            addInt(value);
+         }
+      
+          private void addInt(int value) {
+            if (numValues == values.length) {
+               int[] larger = new int[numValues + 2];
+               System.arraycopy(values, 0, larger, 0, numValues);
+               values = larger;
+            }
+            values[numValues++] = value;
+         }
+      
+         // Free the space reserved for additions.  Nothing may be added afterwards.
+          void compact() {
+            if (buffer != null) {
+               pattern = buffer.toString();
+               buffer = null;
+               if (numValues < values.length) {
+                  int[] exact = (numValues == 0) ? NO_VALUES : new int[numValues];
+                  System.arraycopy(values, 0, exact, 0, numValues);
+                  values = exact;
+               }
+            }
          }
       
           public String toString() {
             int addressBase =  (Globals.getSettings().getBooleanSetting(Settings.DISPLAY_ADDRESSES_IN_HEX)) ? mars.venus.NumberDisplayBaseChooser.HEXADECIMAL : mars.venus.NumberDisplayBaseChooser.DECIMAL;
             int valueBase =  (Globals.getSettings().getBooleanSetting(Settings.DISPLAY_VALUES_IN_HEX)) ? mars.venus.NumberDisplayBaseChooser.HEXADECIMAL : mars.venus.NumberDisplayBaseChooser.DECIMAL;
-         	
+            return toString(addressBase, valueBase);
+         }
+      
+          String toString(int addressBase, int valueBase) {
+            String elements = (pattern != null) ? pattern : buffer.toString();
             StringBuffer result = new StringBuffer();
-            for (int i=0; i<list.size(); i++) {
-               ListElement e = (ListElement) list.get(i);
-               switch (e.type) {
-                  case 0 :  
-                     result.append(e.sValue);
-                     break;
-                  case 1 :  
-                     result.append(mars.venus.NumberDisplayBaseChooser.formatNumber(e.iValue, addressBase));
+            int value = 0;
+            for (int i=0; i<elements.length(); i++) {
+               char c = elements.charAt(i);
+               switch (c) {
+                  case ADDRESS :  
+                     result.append(mars.venus.NumberDisplayBaseChooser.formatNumber(values[value++], addressBase));
                      break;
-                  case 2 :  
+                  case VALUE :  
                      if (valueBase == mars.venus.NumberDisplayBaseChooser.HEXADECIMAL) {
-                        result.append(mars.util.Binary.intToHexString(e.iValue)); // 13-July-2011, was: intToHalfHexString()
+                        result.append(mars.util.Binary.intToHexString(values[value++])); // 13-July-2011, was: intToHalfHexString()
                      } 
                      else {
-                        result.append(mars.venus.NumberDisplayBaseChooser.formatNumber(e.iValue, valueBase));
+                        result.append(mars.venus.NumberDisplayBaseChooser.formatNumber(values[value++], valueBase));
                      }
+                     break;
                   default:  
+                     result.append(c);
                      break;
                } 
             }
             return result.toString();
          }
-      	
-          private class ListElement {
-            int type;
-            String sValue;
-            int iValue;
-             ListElement(int type, String sValue, int iValue) {
-               this.type = type;
-               this.sValue = sValue;
-               this.iValue = iValue;
-            }
-         }
       }
    
    }
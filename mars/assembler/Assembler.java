@@ -1,8 +1,14 @@
    package mars.assembler;
 
    import java.util.ArrayList;
+   import java.util.Arrays;
    import java.util.Collections;
    import java.util.Comparator;
+   import java.util.List;
+   import java.util.concurrent.Callable;
+   import java.util.concurrent.ExecutionException;
+   import java.util.concurrent.ForkJoinPool;
+   import java.util.concurrent.Future;
 
    import mars.ErrorList;
    import mars.ErrorMessage;
@@ -66,6 +72,10 @@
       private Directives currentDirective;
       private Directives dataDirective;
       private MIPSprogram fileCurrentlyBeingAssembled;
+      private boolean keepIntermediates; // keep token and parsed lists after assembly
+      // Smallest number of statements worth giving to another thread in the second pass
+      // and code generation.
+      private static final int MINIMUM_CHUNK_SIZE = 2048;
       private TokenList globalDeclarationList;
       private UserKernelAddressSpace textAddress;
       private UserKernelAddressSpace dataAddress;
@@ -181,9 +191,44 @@
     **/
       public ArrayList assemble(ArrayList tokenizedProgramFiles, boolean extendedAssemblerEnabled,
        	boolean warningsAreErrors) throws ProcessingException {
+         return assemble(tokenizedProgramFiles, extendedAssemblerEnabled, warningsAreErrors, true);
+      }
+   
+   /**
+    * Parse and generate machine code for the given MIPS program. All source
+    * files must have already been tokenized.
+    * 
+    * @param tokenizedProgramFiles
+    *            An ArrayList of MIPSprogram objects, each produced from a
+    *            different source code file, representing the program source.
+    * @param extendedAssemblerEnabled
+    *            A boolean value that if true permits use of extended (pseudo)
+    *            instructions in the source code. If false, these are flagged
+    *            as errors.
+    * @param warningsAreErrors
+    *            A boolean value - true means assembler warnings will be
+    *            considered errors and terminate the assemble; false means the
+    *            assembler will produce warning message but otherwise ignore
+    *            warnings.
+    * @param keepIntermediates
+    *            A boolean value - true means the token lists and parsed statements
+    *            of each file are kept, so it can be assembled again without being
+    *            tokenized again (the IDE's Reset does this); false means they are
+    *            released as soon as each file's code has been generated, so that
+    *            memory needed is not several times the size of the source.
+    * @return An ArrayList representing the assembled program. Each member of
+    *         the list is a ProgramStatement object containing the source,
+    *         intermediate, and machine binary representations of a program
+    *         statement. Returns null if incoming array list is null or empty.
+    * 
+    * @see ProgramStatement
+    **/
+      public ArrayList<?> assemble(ArrayList<?> tokenizedProgramFiles, boolean extendedAssemblerEnabled,
+       	boolean warningsAreErrors, boolean keepIntermediates) throws ProcessingException {
       	
          if (tokenizedProgramFiles == null || tokenizedProgramFiles.size() == 0)
             return null;
+         this.keepIntermediates = keepIntermediates;
          textAddress = new UserKernelAddressSpace(Memory.textBaseAddress,
             Memory.kernelTextBaseAddress);
          dataAddress = new UserKernelAddressSpace(Memory.dataBaseAddress,
@@ -280,119 +325,84 @@
             System.out.println("Assembler second pass begins");
       // SECOND PASS OF ASSEMBLER GENERATES BASIC ASSEMBLER THEN MACHINE CODE.
       // Generates basic assembler statements...
+      // Addresses and symbols are fixed by now so each statement can be done independently.
+      // Large files are divided into chunks done in parallel, and their results and messages
+      // are then added in source order, stopping where the sequential loop would have
+      // stopped at the first error.
+         boolean errorPending = errors.errorsOccurred(); // e.g. from expanding previous statement
          for (int fileIndex = 0; fileIndex < tokenizedProgramFiles.size(); fileIndex++) {
             if (errors.errorLimitExceeded())
                break;
             this.fileCurrentlyBeingAssembled = (MIPSprogram) tokenizedProgramFiles.get(fileIndex);
             ArrayList parsedList = fileCurrentlyBeingAssembled.getParsedList();
-            ProgramStatement statement;
-            for (int i = 0; i < parsedList.size(); i++) {
-               statement = (ProgramStatement) parsedList.get(i);
-               statement.buildBasicStatementFromBasicInstruction(errors);
-               if (errors.errorsOccurred()) {
+            SecondPassChunk[] chunks = new SecondPassChunk[numberOfChunks(parsedList.size())];
+            for (int c = 0; c < chunks.length; c++) {
+               chunks[c] = new SecondPassChunk(fileCurrentlyBeingAssembled, parsedList, 
+                  (int) ((long) parsedList.size() * c / chunks.length), 
+                  (int) ((long) parsedList.size() * (c + 1) / chunks.length));
+            }
+            runChunks(chunks);
+            for (int c = 0; c < chunks.length; c++) {
+               SecondPassChunk chunk = chunks[c];
+               if (errorPending) { // Sequentially, next statement would be done then assembly stopped.
+                  addMessages(chunk.errors, 0, chunk.firstStatementMessages);
                   throw new ProcessingException(errors);
                }
-               if (statement.getInstruction() instanceof BasicInstruction) {
-                  this.machineList.add(statement);
-               } 
-               else {
-               // It is a pseudo-instruction:
-               // 1. Fetch its basic instruction template list
-               // 2. For each template in the list,
-               // 2a. substitute operands from source statement
-               // 2b. tokenize the statement generated by 2a.
-               // 2d. call parseLine() to generate basic instrction
-               // 2e. add returned programStatement to the list
-               // The templates, and the instructions generated by filling
-               // in the templates, are specified
-               // in basic format (e.g. mnemonic register reference $zero
-               // already translated to $0).
-               // So the values substituted into the templates need to be
-               // in this format. Since those
-               // values come from the original source statement, they need
-               // to be translated before
-               // substituting. The next method call will perform this
-               // translation on the original
-               // source statement. Despite the fact that the original
-               // statement is a pseudo
-               // instruction, this method performs the necessary
-               // translation correctly.
-                  ExtendedInstruction inst = (ExtendedInstruction) statement.getInstruction();
-                  String basicAssembly = statement.getBasicAssemblyStatement();
-                  int sourceLine = statement.getSourceLine();
-                  TokenList theTokenList = new Tokenizer().tokenizeLine(sourceLine,
-                     basicAssembly, errors, false);
-               
-               // ////////////////////////////////////////////////////////////////////////////
-               // If we are using compact memory config and there is a compact expansion, use it
-                  ArrayList templateList;
-                  if (compactTranslationCanBeApplied(statement)) {
-                     templateList = inst.getCompactBasicIntructionTemplateList();
-                  } 
-                  else {
-                     templateList = inst.getBasicIntructionTemplateList();
-                  }
-               
-               // subsequent ProgramStatement constructor needs the correct text segment address.
-                  textAddress.set(statement.getAddress());
-               // Will generate one basic instruction for each template in the list.
-                  for (int instrNumber = 0; instrNumber < templateList.size(); instrNumber++) {
-                     String instruction = ExtendedInstruction.makeTemplateSubstitutions(
-                        this.fileCurrentlyBeingAssembled,
-                        (String) templateList.get(instrNumber), theTokenList);
-                  // 23 Jan 2008 by DPS. Template substitution may result in no instruction.
-                  // If this is the case, skip remainder of loop iteration. This should only
-                  // happen if template substitution was for "nop" instruction but delayed branching
-                  // is disabled so the "nop" is not generated.
-                     if (instruction == null || instruction == "") {
-                        continue;
-                     }
-                  
-                  // All substitutions have been made so we have generated
-                  // a valid basic instruction!
-                     if (Globals.debug)
-                        System.out.println("PSEUDO generated: " + instruction);
-                  // For generated instruction: tokenize, build program
-                  // statement, add to list.
-                     TokenList newTokenList = new Tokenizer().tokenizeLine(sourceLine,
-                        instruction, errors,false);
-                     ArrayList instrMatches = this.matchInstruction(newTokenList.get(0));
-                     Instruction instr = OperandFormat.bestOperandMatch(newTokenList,
-                        instrMatches);
-                  // Only first generated instruction is linked to original source
-                     ProgramStatement ps = new ProgramStatement(
-                        this.fileCurrentlyBeingAssembled,
-                        (instrNumber == 0) ? statement.getSource() : "", newTokenList,
-                        newTokenList, instr, textAddress.get(), statement.getSourceLine());
-                     textAddress.increment(Instruction.INSTRUCTION_LENGTH);
-                     ps.buildBasicStatementFromBasicInstruction(errors);
-                     this.machineList.add(ps);
-                  } // end of FOR loop, repeated for each template in list.
-               } // end of ELSE part for extended instruction.
-              	
-            } // end of assembler second pass.
+               addMessages(chunk.errors, 0, chunk.errors.getErrorMessages().size());
+               if (chunk.stoppedByError) {
+                  throw new ProcessingException(errors);
+               }
+               for (int i = 0; i < chunk.machineList.size(); i++) {
+                  this.machineList.add(chunk.machineList.get(i));
+               }
+               errorPending = errors.errorsOccurred();
+            }
+            if (!keepIntermediates) {
+               fileCurrentlyBeingAssembled.releaseIntermediates();
+            }
          }
          if (Globals.debug)
             System.out.println("Code generation begins");
       ///////////// THIRD MAJOR STEP IS PRODUCE MACHINE CODE FROM ASSEMBLY //////////
       // Generates machine code statements from the list of basic assembler statements
-      // and writes the statement to memory.
+      // and writes the statement to memory.  Machine code is generated in parallel
+      // chunks; writing to memory and adding any messages is done in order.
+         CodeGenerationChunk[] codeChunks = new CodeGenerationChunk[numberOfChunks(this.machineList.size())];
+         for (int c = 0; c < codeChunks.length; c++) {
+            codeChunks[c] = new CodeGenerationChunk(this.machineList, 
+               (int) ((long) this.machineList.size() * c / codeChunks.length), 
+               (int) ((long) this.machineList.size() * (c + 1) / codeChunks.length));
+         }
+         runChunks(codeChunks);
          ProgramStatement statement;
+         int chunkIndex = 0;
          for (int i = 0; i < this.machineList.size(); i++) {
             if (errors.errorLimitExceeded())
                break;
+            while (i >= codeChunks[chunkIndex].to) {
+               chunkIndex++;
+            }
+            CodeGenerationChunk chunk = codeChunks[chunkIndex];
+            int position = i - chunk.from;
+            addMessages(chunk.errors, (position == 0) ? 0 : chunk.messageCounts[position - 1], chunk.messageCounts[position]);
             statement = (ProgramStatement) this.machineList.get(i);
-            statement.buildMachineStatementFromBasicStatement(errors);
             if (Globals.debug)
                System.out.println(statement);
             try {
                Globals.memory.setStatement(statement.getAddress(), statement);
             } 
                catch (AddressErrorException e) {
-                  Token t = statement.getOriginalTokenList().get(0);
-                  errors.add(new ErrorMessage(t.getSourceMIPSprogram(), t.getSourceLine(), t
-                     .getStartPos(), "Invalid address for text segment: " + e.getAddress()));
+                  if (statement.getOriginalTokenList() != null) {
+                     Token t = statement.getOriginalTokenList().get(0);
+                     errors.add(new ErrorMessage(t.getSourceMIPSprogram(), t.getSourceLine(), t
+                        .getStartPos(), "Invalid address for text segment: " + e.getAddress()));
+                  } 
+                  else { // already compacted
+                     errors.add(new ErrorMessage(statement.getSourceMIPSprogram(), statement.getSourceLine(),
+                        0, "Invalid address for text segment: " + e.getAddress()));
+                  }
                }
+            statement.compact();
          }
       // Aug. 24, 2005 Ken Vollmar
       // Ensure that I/O "file descriptors" are initialized for a new program run
@@ -415,6 +425,205 @@
          return this.machineList;
       } // assemble()
    
+   // //////////////////////////////////////////////////////////////////////
+   // Second pass for one statement: build its basic assembler statement and, if it is
+   // a pseudo-instruction, generate and build its basic instructions.  Resulting basic
+   // statements are added to the given list.  Uses no assembler state other than the
+   // keepIntermediates option, so can be done in parallel with other statements.
+      private void generateBasicStatements(MIPSprogram program, ProgramStatement statement, 
+                                           ArrayList<ProgramStatement> machineStatements, ErrorList errors) {
+         if (statement.getInstruction() instanceof BasicInstruction) {
+            machineStatements.add(statement);
+            return;
+         }
+      // It is a pseudo-instruction:
+      // 1. Fetch its basic instruction template list
+      // 2. For each template in the list,
+      // 2a. substitute operands from source statement
+      // 2b. tokenize the statement generated by 2a.
+      // 2d. call parseLine() to generate basic instrction
+      // 2e. add returned programStatement to the list
+      // The templates, and the instructions generated by filling
+      // in the templates, are specified
+      // in basic format (e.g. mnemonic register reference $zero
+      // already translated to $0).
+      // So the values substituted into the templates need to be
+      // in this format. Since those
+      // values come from the original source statement, they need
+      // to be translated before
+      // substituting. The next method call will perform this
+      // translation on the original
+      // source statement. Despite the fact that the original
+      // statement is a pseudo
+      // instruction, this method performs the necessary
+      // translation correctly.
+         ExtendedInstruction inst = (ExtendedInstruction) statement.getInstruction();
+         String basicAssembly = statement.getBasicAssemblyStatement();
+         int sourceLine = statement.getSourceLine();
+         TokenList theTokenList = new Tokenizer().tokenizeLine(sourceLine,
+            basicAssembly, errors, false);
+      
+      // ////////////////////////////////////////////////////////////////////////////
+      // If we are using compact memory config and there is a compact expansion, use it
+         ArrayList templateList;
+         if (compactTranslationCanBeApplied(statement)) {
+            templateList = inst.getCompactBasicIntructionTemplateList();
+         } 
+         else {
+            templateList = inst.getBasicIntructionTemplateList();
+         }
+      
+      // subsequent ProgramStatement constructor needs the correct text segment address.
+         int address = statement.getAddress();
+      // Will generate one basic instruction for each template in the list.
+         for (int instrNumber = 0; instrNumber < templateList.size(); instrNumber++) {
+            String instruction = ExtendedInstruction.makeTemplateSubstitutions(
+               program, (String) templateList.get(instrNumber), theTokenList);
+         // 23 Jan 2008 by DPS. Template substitution may result in no instruction.
+         // If this is the case, skip remainder of loop iteration. This should only
+         // happen if template substitution was for "nop" instruction but delayed branching
+         // is disabled so the "nop" is not generated.
+            if (instruction == null || instruction == "") {
+               continue;
+            }
+         
+         // All substitutions have been made so we have generated
+         // a valid basic instruction!
+            if (Globals.debug)
+               System.out.println("PSEUDO generated: " + instruction);
+         // For generated instruction: tokenize, build program
+         // statement, add to list.
+            TokenList newTokenList = new Tokenizer().tokenizeLine(sourceLine,
+               instruction, errors,false);
+            ArrayList instrMatches = this.matchInstruction(newTokenList.get(0), errors);
+            Instruction instr = OperandFormat.bestOperandMatch(newTokenList,
+               instrMatches);
+         // Only first generated instruction is linked to original source
+            ProgramStatement ps = new ProgramStatement(
+               program, (instrNumber == 0) ? statement.getSource() : "", newTokenList,
+               newTokenList, instr, address, statement.getSourceLine());
+            address += Instruction.INSTRUCTION_LENGTH;
+            ps.buildBasicStatementFromBasicInstruction(errors);
+            if (!keepIntermediates) {
+               ps.compact(); // its tokens are no longer needed
+            }
+            machineStatements.add(ps);
+         } // end of FOR loop, repeated for each template in list.
+      } // generateBasicStatements()
+   
+   // //////////////////////////////////////////////////////////////////////
+   // Work on a range of statements for the second pass, with its own error list.
+   // As in a sequential loop, stops after building the basic statement if an error
+   // has occurred (including one from expanding the previous pseudo-instruction).
+      private class SecondPassChunk implements Callable<Void> {
+         private final MIPSprogram program;
+         private final ArrayList<?> parsedList;
+         private final int from, to;
+         private final ArrayList<ProgramStatement> machineList = new ArrayList<ProgramStatement>();
+         private final ErrorList errors = new ErrorList();
+         private int firstStatementMessages; // messages after building first statement
+         private boolean stoppedByError;
+      
+         private SecondPassChunk(MIPSprogram program, ArrayList<?> parsedList, int from, int to) {
+            this.program = program;
+            this.parsedList = parsedList;
+            this.from = from;
+            this.to = to;
+         }
+      
+         public Void call() {
+            for (int i = from; i < to; i++) {
+               ProgramStatement statement = (ProgramStatement) parsedList.get(i);
+               statement.buildBasicStatementFromBasicInstruction(errors);
+               if (i == from) {
+                  firstStatementMessages = errors.getErrorMessages().size();
+               }
+               if (errors.errorsOccurred()) {
+                  stoppedByError = true;
+                  break;
+               }
+               generateBasicStatements(program, statement, machineList, errors);
+            }
+            return null;
+         }
+      }
+   
+   // //////////////////////////////////////////////////////////////////////
+   // Generate machine code for a range of statements, with its own error list.  The
+   // number of messages after each statement is recorded so they can be merged in order.
+      private class CodeGenerationChunk implements Callable<Void> {
+         private final ArrayList<?> statements;
+         private final int from, to;
+         private final ErrorList errors = new ErrorList();
+         private final int[] messageCounts;
+      
+         private CodeGenerationChunk(ArrayList<?> statements, int from, int to) {
+            this.statements = statements;
+            this.from = from;
+            this.to = to;
+            this.messageCounts = new int[to - from];
+         }
+      
+         public Void call() {
+            for (int i = from; i < to; i++) {
+               ((ProgramStatement) statements.get(i)).buildMachineStatementFromBasicStatement(errors);
+               messageCounts[i - from] = errors.getErrorMessages().size();
+            }
+            return null;
+         }
+      }
+   
+   // Number of chunks to divide a list of statements into: one unless the list is
+   // large enough for parallel work to pay, several per processor so they balance.
+      private static int numberOfChunks(int statements) {
+         int processors = Runtime.getRuntime().availableProcessors();
+         if (statements < 2 * MINIMUM_CHUNK_SIZE || processors < 2 || Globals.debug) {
+            return 1;
+         }
+         return Math.min(4 * processors, statements / MINIMUM_CHUNK_SIZE);
+      }
+   
+   // Do the chunks, in parallel if there are several, and wait for all to finish.
+      private static void runChunks(Callable<Void>[] chunks) {
+         if (chunks.length == 1) {
+            try {
+               chunks[0].call();
+            } 
+               catch (RuntimeException e) {
+                  throw e;
+               }
+               catch (Exception e) { // call() declares none
+                  throw new RuntimeException(e);
+               }
+            return;
+         }
+         List<Future<Void>> futures;
+         try {
+            futures = ForkJoinPool.commonPool().invokeAll(Arrays.asList(chunks));
+            for (int i = 0; i < futures.size(); i++) {
+               futures.get(i).get();
+            }
+         } 
+            catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+               if (e.getCause() instanceof RuntimeException) {
+                  throw (RuntimeException) e.getCause();
+               }
+               throw new RuntimeException(e.getCause());
+            }
+      }
+   
+   // Add messages from a chunk's error list, in the range [from, to), to the assembler's.
+      private void addMessages(ErrorList chunkErrors, int from, int to) {
+         ArrayList<?> messages = chunkErrors.getErrorMessages();
+         for (int i = from; i < to; i++) {
+            errors.add((ErrorMessage) messages.get(i));
+         }
+      }
+   
    // //////////////////////////////////////////////////////////////////////
    // Will check for duplicate text addresses, which can happen inadvertantly when using
    // operand on .text directive. Will generate error message for each one that occurs.
@@ -515,11 +724,16 @@
             //                   if (statements != null)
             //                      ret.addAll(statements);
             //                }
+               Tokenizer tokenizer = fileCurrentlyBeingAssembled.getTokenizer();
                for (int i = macro.getFromLine() + 1; i < macro.getToLine(); i++) {
-                 
-                  String substituted = macro.getSubstitutedLine(i, tokens, counter, errors);
-                  TokenList tokenList2 = fileCurrentlyBeingAssembled.getTokenizer().tokenizeLine(
-                     i, substituted, errors);
+                  // Lines are expanded from the macro's compiled templates when possible,
+                  // otherwise substituted as text and tokenized again.
+                  String substituted = "";
+                  TokenList tokenList2 = macro.getExpandedLine(i, tokens, counter, tokenizer);
+                  if (tokenList2 == null) {
+                     substituted = macro.getSubstitutedLine(i, tokens, counter, errors);
+                     tokenList2 = tokenizer.tokenizeLine(i, substituted, errors);
+                  }
                
                   // If token list getProcessedLine() is not empty, then .eqv was performed and it contains the modified source.
                	// Put it into the line to be parsed, so it will be displayed properly in text segment display. DPS 23 Jan 2013
@@ -763,7 +977,7 @@
             this.dataAddress.setAddressSpace((direct == Directives.DATA) ? this.dataAddress.USER
                : this.dataAddress.KERNEL);
             if (tokens.size() > 1 && TokenTypes.isIntegerTokenType(tokens.get(1).getType())) {
-               this.dataAddress.set(Binary.stringToInt(tokens.get(1).getValue())); // KENV 1/6/05
+               this.dataAddress.set(tokens.get(1).getIntValue()); // KENV 1/6/05
             }
          } 
          else if (direct == Directives.TEXT || direct == Directives.KTEXT) {
@@ -771,7 +985,7 @@
             this.textAddress.setAddressSpace((direct == Directives.TEXT) ? this.textAddress.USER
                : this.textAddress.KERNEL);
             if (tokens.size() > 1 && TokenTypes.isIntegerTokenType(tokens.get(1).getType())) {
-               this.textAddress.set(Binary.stringToInt(tokens.get(1).getValue())); // KENV 1/6/05
+               this.textAddress.set(tokens.get(1).getIntValue()); // KENV 1/6/05
             }
          } 
          else if (direct == Directives.WORD || direct == Directives.HALF
@@ -798,13 +1012,13 @@
                   return;
                }
                if (!TokenTypes.isIntegerTokenType(tokens.get(1).getType())
-               	|| Binary.stringToInt(tokens.get(1).getValue()) < 0) {
+               	|| tokens.get(1).getIntValue() < 0) {
                   errors.add(new ErrorMessage(token.getSourceMIPSprogram(),
                      token.getSourceLine(), token.getStartPos(), "\"" + token.getValue()
                      		+ "\" requires a non-negative integer"));
                   return;
                }
-               int value = Binary.stringToInt(tokens.get(1).getValue()); // KENV 1/6/05
+               int value = tokens.get(1).getIntValue(); // KENV 1/6/05
                if (value == 0) {
                   this.autoAlign = false;
                } 
@@ -823,13 +1037,13 @@
                   return;
                }
                if (!TokenTypes.isIntegerTokenType(tokens.get(1).getType())
-               	|| Binary.stringToInt(tokens.get(1).getValue()) < 0) {
+               	|| tokens.get(1).getIntValue() < 0) {
                   errors.add(new ErrorMessage(token.getSourceMIPSprogram(),
                      token.getSourceLine(), token.getStartPos(), "\"" + token.getValue()
                      		+ "\" requires a non-negative integer"));
                   return;
                }
-               int value = Binary.stringToInt(tokens.get(1).getValue()); // KENV 1/6/05
+               int value = tokens.get(1).getIntValue(); // KENV 1/6/05
                this.dataAddress.increment(value);
             }
          } 
@@ -841,13 +1055,13 @@
                return;
             }
             if (!TokenTypes.isIntegerTokenType(tokens.get(2).getType())
-            	|| Binary.stringToInt(tokens.get(2).getValue()) < 0) {
+            	|| tokens.get(2).getIntValue() < 0) {
                errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token.getSourceLine(),
                   token.getStartPos(), "\"" + token.getValue()
                   		+ "\" requires a non-negative integer size"));
                return;
             }
-            int size = Binary.stringToInt(tokens.get(2).getValue());
+            int size = tokens.get(2).getIntValue();
          // If label already in global symtab, do nothing. If not, add it right now.
             if (Globals.symbolTable.getAddress(tokens.get(1).getValue()) == SymbolTable.NOT_FOUND) {
                Globals.symbolTable.addSymbol(tokens.get(1), this.externAddress,
@@ -941,21 +1155,26 @@
    // Given token, find the corresponding Instruction object. If token was not
    // recognized as OPERATOR, there is a problem.
       private ArrayList matchInstruction(Token token) { 
+         return matchInstruction(token, this.errors);
+      }
+   
+   // As above, reporting problems to the given error list.
+      private ArrayList<?> matchInstruction(Token token, ErrorList errors) { 
          if (token.getType() != TokenTypes.OPERATOR) {
             if (token.getSourceMIPSprogram().getLocalMacroPool()
             	.matchesAnyMacroName(token.getValue()))
-               this.errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token
+               errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token
                   .getSourceLine(), token.getStartPos(), "forward reference or invalid parameters for macro \""
                   + token.getValue() + "\""));
             else
-               this.errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token
+               errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token
                   .getSourceLine(), token.getStartPos(), "\"" + token.getValue()
                   + "\" is not a recognized operator"));
             return null;
          }
          ArrayList inst = Globals.instructionSet.matchOperator(token.getValue());
          if (inst == null) { // This should NEVER happen...
-            this.errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token.getSourceLine(),
+            errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token.getSourceLine(),
                token.getStartPos(), "Internal Assembler error: \"" + token.getValue()
                		+ "\" tokenized OPERATOR then not recognized"));
          }
@@ -1001,7 +1220,7 @@
                   "malformed expression"));
                return;
             }
-            int repetitions = Binary.stringToInt(repetitionsToken.getValue()); // KENV 1/6/05
+            int repetitions = repetitionsToken.getIntValue(); // KENV 1/6/05
             if (repetitions <= 0) {
                errors.add(new ErrorMessage(fileCurrentlyBeingAssembled, repetitionsToken
                   .getSourceLine(), repetitionsToken.getStartPos(),
@@ -1066,7 +1285,7 @@
       private void storeInteger(Token token, Directives directive, ErrorList errors) {
          int lengthInBytes = DataTypes.getLengthInBytes(directive);
          if (TokenTypes.isIntegerTokenType(token.getType())) {
-            int value = Binary.stringToInt(token.getValue()); 
+            int value = token.getIntValue(); 
             int fullvalue = value;
             // DPS 4-Jan-2013.  Overriding 6-Jan-2005 KENV changes.
          	// If value is out of range for the directive, will simply truncate
@@ -1148,7 +1367,8 @@
          if (TokenTypes.isIntegerTokenType(token.getType())
          	|| TokenTypes.isFloatingTokenType(token.getType())) {
             try {
-               value = Double.parseDouble(token.getValue());
+               value = TokenTypes.isFloatingTokenType(token.getType()) 
+                       ? token.getRealValue() : Double.parseDouble(token.getValue());
             } 
                catch (NumberFormatException nfe) {
                   errors.add(new ErrorMessage(token.getSourceMIPSprogram(), token.getSourceLine(),
@@ -57,6 +57,22 @@ public class Macro {
  */
    private ArrayList<String> args;
 
+/**
+ * body lines compiled by {@link #readyForCommit()}, so that expansions need
+ * not substitute into source text and tokenize it again
+ */
+   private LineTemplate[] templates;
+
+/**
+ * marks a template token that is a label defined in the macro body
+ */
+   private static final int LABEL_SLOT = -2;
+
+/**
+ * marks a template token that is copied unchanged
+ */
+   private static final int LITERAL = -1;
+
    public Macro() {
       name = "";
       program = null;
@@ -243,10 +259,181 @@ public class Macro {
    }
 
 /**
- * Operations to be done on this macro before it is committed in macro pool.
+ * Operations to be done on this macro before it is committed in macro pool:
+ * each line of its body is compiled into a template.
  */
    public void readyForCommit() {
       Collections.sort(labels);
+      templates = new LineTemplate[Math.max(0, toLine - fromLine - 1)];
+      for (int line = fromLine + 1; line < toLine; line++) {
+         templates[line - fromLine - 1] = compileLine(line);
+      }
+   }
+
+/**
+ * Expands a line of source code inside macro definition directly into tokens,
+ * giving the same tokens as tokenizing the result of
+ * {@link #getSubstitutedLine(int, TokenList, long, ErrorList)}.  The token
+ * list's processed line is the substituted source line.
+ * 
+ * @param line
+ *            source line number in macro definition to be expanded
+ * @param args
+ *            tokens of the macro expansion call
+ * @param counter
+ *            unique macro expansion id
+ * @param tokenizer
+ *            tokenizer of the program, whose .eqv symbols would be substituted
+ * @return tokens of the expanded line, or null if it cannot be expanded without
+ *         tokenizing, in which case getSubstitutedLine() is to be used
+ */
+   public TokenList getExpandedLine(int line, TokenList args, long counter, Tokenizer tokenizer) {
+      LineTemplate template = (templates == null || line <= fromLine || line >= toLine) 
+         ? null : templates[line - fromLine - 1];
+      if (template == null) {
+         return null;
+      }
+      String source = template.source;
+      StringBuffer expanded = new StringBuffer(source.length() + 16);
+      TokenList result = new TokenList();
+      int sourcePos = 0;
+      for (int i = 0; i < template.tokens.length; i++) {
+         Token token = template.tokens[i];
+         int tokenPos = token.getStartPos() - 1;
+         int slot = template.slots[i];
+         expanded.append(source, sourcePos, tokenPos);
+         int start = expanded.length() + 1;
+         Token newToken;
+         if (slot == LITERAL) {
+            newToken = token.copy(start);
+            expanded.append(token.getValue());
+         } 
+         else {
+            String substitute = (slot == LABEL_SLOT) ? token.getValue() + "_M" + counter 
+               : args.get(slot + 1).toString();
+            if (!tokenizesAlone(substitute, result)) {
+               return null;
+            }
+            newToken = new Token(null, substitute, token.getSourceMIPSprogram(), line, start);
+            TokenTypes type = TokenTypes.matchTokenType(substitute, newToken);
+            if (type == TokenTypes.ERROR) {
+               return null;
+            }
+            newToken.setType(type);
+            expanded.append(substitute);
+         }
+         if (newToken.getType() == TokenTypes.IDENTIFIER && tokenizer != null 
+            && tokenizer.isEquivalentSymbol(newToken.getValue())) {
+            return null;
+         }
+         result.add(newToken);
+         sourcePos = tokenPos + token.getValue().length();
+      }
+      expanded.append(source, sourcePos, source.length());
+      if (expanded.length() > 0) {
+         result.setProcessedLine(expanded.toString());
+      }
+      return result;
+   }
+
+/**
+ * Compiles a line of the macro body into a template of its tokens, noting which are 
+ * parameters and labels to be substituted.  Returns null if the line has to be
+ * substituted as text and tokenized on each expansion: it has an error, an .eqv
+ * directive, a sign next to a substitution (which may join it when tokenized), or
+ * a substitution that getSubstitutedLine() would not make at the token's position.
+ */
+   private LineTemplate compileLine(int line) {
+      if (program == null || program.getTokenList() == null) {
+         return null;
+      }
+      TokenList tokens = (TokenList) program.getTokenList().get(line - 1);
+      String source = program.getSourceLine(line);
+      if (source == null) {
+         return null;
+      }
+      LineTemplate template = new LineTemplate();
+      template.source = source;
+      template.tokens = new Token[tokens.size()];
+      template.slots = new int[tokens.size()];
+      int previousEnd = -1;
+      for (int i = 0; i < tokens.size(); i++) {
+         Token token = tokens.get(i);
+         String value = token.getValue();
+         int tokenPos = token.getStartPos() - 1;
+         if (token.getType() == TokenTypes.ERROR || tokenPos < previousEnd
+            || !source.startsWith(value, tokenPos)
+            || (token.getType() == TokenTypes.DIRECTIVE 
+               && Directives.matchDirective(value) == Directives.EQV)) {
+            return null;
+         }
+         int slot = LITERAL;
+         if (tokenIsMacroParameter(value, true)) {
+            slot = this.args.indexOf(value);
+            if (slot < 0) {
+               return null; // unknown parameter, reported when substituted
+            }
+         } 
+         else if (tokenIsMacroLabel(value)) {
+            slot = LABEL_SLOT;
+         }
+         if (slot != LITERAL && source.indexOf(value) != tokenPos) {
+            return null;
+         }
+         template.tokens[i] = token;
+         template.slots[i] = slot;
+         previousEnd = tokenPos + value.length();
+      }
+      for (int i = 0; i < tokens.size(); i++) {
+         if (template.slots[i] != LITERAL 
+            && (i > 0 && startsWithSign(template.tokens[i - 1].getValue()) 
+               || i + 1 < tokens.size() && startsWithSign(template.tokens[i + 1].getValue()))) {
+            return null;
+         }
+      }
+      return template;
+   }
+
+   private static boolean startsWithSign(String value) {
+      return value.length() > 0 && (value.charAt(0) == '+' || value.charAt(0) == '-');
+   }
+
+/**
+ * returns true if the Tokenizer would make a single token of <code>value</code> in
+ * place of a token following those in <code>previous</code>: it has no delimiters,
+ * and a sign is either leading (unary, which needs a digit next and no preceding
+ * identifier) or the sign of an exponent.
+ */
+   private static boolean tokenizesAlone(String value, TokenList previous) {
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c == '+' || c == '-') {
+            boolean digitFollows = i + 1 < value.length() && Character.isDigit(value.charAt(i + 1));
+            if (i == 0) {
+               if (!digitFollows || !previous.isEmpty() 
+                  && previous.get(previous.size() - 1).getType() == TokenTypes.IDENTIFIER) {
+                  return false;
+               }
+            } 
+            else if (!digitFollows || (value.charAt(i - 1) != 'e' && value.charAt(i - 1) != 'E')) {
+               return false;
+            }
+         } 
+         else if (" \t,#():\"'".indexOf(c) >= 0) {
+            return false;
+         }
+      }
+      return value.length() > 0;
+   }
+
+/**
+ * A compiled line of the macro body: its source, tokens, and for each token
+ * {@link #LITERAL}, {@link #LABEL_SLOT} or the index of the parameter it names.
+ */
+   private static class LineTemplate {
+      private String source;
+      private Token[] tokens;
+      private int[] slots;
    }
 
 
@@ -148,7 +148,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             	(specType == TokenTypes.INTEGER_32 && candType == TokenTypes.INTEGER_16))
                continue;
             if (candType == TokenTypes.INTEGER_16U || candType == TokenTypes.INTEGER_16) {
-               int temp = Binary.stringToInt(candToken.getValue());
+               int temp = candToken.getIntValue();
                if (specType == TokenTypes.INTEGER_16 && candType == TokenTypes.INTEGER_16U &&   
                    temp>=DataTypes.MIN_HALF_VALUE && temp<=DataTypes.MAX_HALF_VALUE) 
                   continue;
@@ -40,6 +40,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static String startLabel = "main";
       private String filename;
       private ArrayList table;
+      private HashMap<String, Symbol> index;  // symbol name -> Symbol, so lookups need not search the table
    	// Note -1 is legal 32 bit address (0xFFFFFFFF) but it is the high address in 
    	// kernel address space so highly unlikely that any symbol will have this as 
    	// its associated address!
@@ -53,6 +54,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public SymbolTable(String filename) {
          this.filename = filename;
          this.table = new ArrayList();
+         this.index = new HashMap<String, Symbol>();
       }    
    	/**
    	  *  Adds a Symbol object into the array of Symbols.
@@ -70,6 +72,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          else {
             Symbol s= new Symbol(label, address, b);
             table.add(s);
+            index.put(label, s);
             if (Globals.debug) System.out.println("The symbol " + label + " with address " + address + " has been added to the "+this.filename+" symbol table.");
          }
       }
@@ -87,6 +90,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          for (int i=0; i < table.size(); i++) {
             if (((Symbol)(table.get(i))).getName().equals(label)){
                table.remove(i);
+               index.remove(label);
                if (Globals.debug) System.out.println("The symbol " + label + " has been removed from the "+this.filename+" symbol table.");
                break;
             }
@@ -101,12 +105,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  *   @return The memory address of the label given, or NOT_FOUND if not found in symbol table.
    	  **/
        public int getAddress(String s){
-         for(int i=0; i < table.size(); i++){
-            if (((Symbol)(table.get(i))).getName().equals(s)){
-               return((Symbol) table.get(i)).getAddress();
-            }
-         }
-         return NOT_FOUND;
+         Symbol symbol = index.get(s);
+         return (symbol == null) ? NOT_FOUND : symbol.getAddress();
       }
       
    	/**
@@ -129,12 +129,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        **/
        
        public Symbol getSymbol(String s){
-         for(int i=0; i < table.size(); i++){
-            if (((Symbol)(table.get(i))).getName().equals(s)){
-               return (Symbol) table.get(i);
-            }
-         }
-         return null;
+         return index.get(s);
       }
    
       /**
@@ -231,6 +226,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 
        public void clear(){
          table= new ArrayList();
+         index= new HashMap<String, Symbol>();
       }
    	
    /**
@@ -1,5 +1,7 @@
    package mars.assembler;
    import mars.*;
+   import mars.util.*;
+   import mars.util.*;
 
 /*
 Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
@@ -46,6 +48,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    // original program and line will differ from the above if token was defined in an included file
       private MIPSprogram originalMIPSprogram;
       private int originalSourceLine;  
+   // value of a numeric literal, cached when the token is classified
+      private boolean hasIntValue, hasRealValue;
+      private int intValue;
+      private double realValue;
    /**
     * Constructor for Token class.
     * 
@@ -131,6 +137,50 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return value;
       }
    
+   /**
+    * Produces the value of an integer token, as Binary.stringToInt() would.  For a token 
+    * created by the Tokenizer it was computed when the token was classified.
+    * 
+    * @return int value of this token.
+    * @throws NumberFormatException if the token is not an integer.
+    **/
+       public int getIntValue() throws NumberFormatException {
+         return hasIntValue ? intValue : Binary.stringToInt(value);
+      }
+   
+   /**
+    * Produces the value of a real number token, as Double.parseDouble() would.  For a 
+    * REAL_NUMBER token created by the Tokenizer it was computed when the token was classified.
+    * 
+    * @return double value of this token.
+    * @throws NumberFormatException if the token is not a real number.
+    **/
+       public double getRealValue() throws NumberFormatException {
+         return hasRealValue ? realValue : Double.parseDouble(value);
+      }
+   
+      // Called by TokenTypes when it has parsed the token's value during classification.
+       void setIntValue(int intValue) {
+         this.intValue = intValue;
+         this.hasIntValue = true;
+      }
+   
+       void setRealValue(double realValue) {
+         this.realValue = realValue;
+         this.hasRealValue = true;
+      }
+   
+      // Copy of this token at another position in its line, as if the line had been tokenized
+      // again.  Used by macro expansion.
+       Token copy(int start) {
+         Token copy = new Token(type, value, sourceMIPSprogram, sourceLine, start);
+         copy.intValue = intValue;
+         copy.hasIntValue = hasIntValue;
+         copy.realValue = realValue;
+         copy.hasRealValue = hasRealValue;
+         return copy;
+      }
+   
    /**
     * Get a String representing the token.  This method is
     * equivalent to getValue().
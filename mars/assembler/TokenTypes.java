@@ -100,6 +100,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
        public static TokenTypes matchTokenType(String value)
       {
+         return matchTokenType(value, null);
+      }
+   
+   /**
+    * Classifies the given token into one of the MIPS types, as matchTokenType(String).
+    * Numbers are recognized without exceptions and, if a token is given, the value 
+    * of a numeric literal is saved in it so it need not be parsed again.
+    * 
+    * @param value String containing candidate language element, extracted from MIPS program.
+    * @param token the Token whose value this is, or null.
+    * 
+    * @return Returns the corresponding TokenTypes object if the parameter matches a
+    * defined MIPS token type, else returns <tt>null</tt>.
+    **/
+    
+       static TokenTypes matchTokenType(String value, Token token)
+      {
       
          TokenTypes type = null;
 		 // If it starts with single quote ('), it is a mal-formed character literal
@@ -150,9 +167,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        // Classify based on # bits needed to represent in binary
        // This is needed because most immediate operands limited to 16 bits
        // others limited to 5 bits unsigned (shift amounts) others 32 bits.
-         try {
+         long number = Binary.decodeInt(value);   // KENV 1/6/05
+         if (number != Binary.NOT_AN_INT) {
 
-            int i = Binary.stringToInt(value);   // KENV 1/6/05
+            int i = (int) number;
+            if (token != null) {
+               token.setIntValue(i);
+            }
 				
 		/***************************************************************************
 		 *  MODIFICATION AND COMMENT, DPS 3-July-2008
@@ -205,21 +226,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             }			  
             return TokenTypes.INTEGER_32;  // default when no other type is applicable
          }
-             catch(NumberFormatException e)
-            {
-            // NO ACTION -- exception suppressed
-            }
       
        // See if it is a real (fixed or floating point) number.  Note that parseDouble()
        // accepts integer values but if it were an integer literal we wouldn't get this far.
-         try {
-            Double.parseDouble(value);
+         if (isRealNumber(value)) {
+            if (token != null) {
+               token.setRealValue(Double.parseDouble(value));
+            }
             return TokenTypes.REAL_NUMBER;
          }
-             catch (NumberFormatException e)
-            {
-            // NO ACTION -- exception suppressed
-            }
       	 
        // See if it is an instruction operator
          if (Globals.instructionSet.matchOperator(value) != null)
@@ -270,6 +285,74 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }	
    
    
+    // Character classes and transition table of the automaton that recognizes the
+    // decimal strings accepted by Double.parseDouble(): optional sign, digits with an
+    // optional decimal point (at least one digit before or after it), optional
+    // exponent (e or E, optional sign, digits) and optional type suffix (f, F, d or D).
+      private static final byte DIGIT = 0, SIGN = 1, POINT = 2, EXPONENT = 3, SUFFIX = 4, OTHER = 5;
+      private static final byte[] CHARACTER_CLASS = new byte[128];
+      static {
+         java.util.Arrays.fill(CHARACTER_CLASS, OTHER);
+         for (char c = '0'; c <= '9'; c++) {
+            CHARACTER_CLASS[c] = DIGIT;
+         }
+         CHARACTER_CLASS['+'] = CHARACTER_CLASS['-'] = SIGN;
+         CHARACTER_CLASS['.'] = POINT;
+         CHARACTER_CLASS['e'] = CHARACTER_CLASS['E'] = EXPONENT;
+         CHARACTER_CLASS['f'] = CHARACTER_CLASS['F'] = CHARACTER_CLASS['d'] = CHARACTER_CLASS['D'] = SUFFIX;
+      }
+      private static final int[][] REAL_TRANSITIONS = {
+         //digit sign point exp suffix
+         {  2,   1,   3,  -1,  -1 },  // 0: start
+         {  2,  -1,   3,  -1,  -1 },  // 1: after sign
+         {  2,  -1,   4,   5,   8 },  // 2: integer digits (accepting)
+         {  4,  -1,  -1,  -1,  -1 },  // 3: point, no digits yet
+         {  4,  -1,  -1,   5,   8 },  // 4: fraction digits (accepting)
+         {  7,   6,  -1,  -1,  -1 },  // 5: after e
+         {  7,  -1,  -1,  -1,  -1 },  // 6: exponent sign
+         {  7,  -1,  -1,  -1,   8 },  // 7: exponent digits (accepting)
+         { -1,  -1,  -1,  -1,  -1 }   // 8: after suffix (accepting)
+         };
+      private static final boolean[] REAL_ACCEPTING = { false, false, true, false, true, false, false, true, true };
+   
+    // Determine whether Double.parseDouble() would accept the value, without the cost
+    // of the exception it throws when it would not.
+       private static boolean isRealNumber(String value) {
+         int length = value.length();
+         int state = 0;
+         for (int i = 0; i < length && state >= 0; i++) {
+            char c = value.charAt(i);
+            int characterClass = (c < 128) ? CHARACTER_CLASS[c] : OTHER;
+            state = (characterClass == OTHER) ? -1 : REAL_TRANSITIONS[state][characterClass];
+         }
+         if (state >= 0 && REAL_ACCEPTING[state]) {
+            return true;
+         }
+         if (length == 0) {
+            return false;
+         }
+         // The rare forms: NaN, Infinity, hexadecimal (which requires a p exponent), and
+         // values with leading or trailing control characters, which parseDouble() trims.
+         char first = value.charAt(0);
+         String unsigned = (first == '+' || first == '-') ? value.substring(1) : value;
+         if (unsigned.equals("NaN") || unsigned.equals("Infinity")) {
+            return true;
+         }
+         if ((unsigned.startsWith("0x") || unsigned.startsWith("0X")) && (value.indexOf('p') >= 0 || value.indexOf('P') >= 0)
+             || first <= ' ' || value.charAt(length - 1) <= ' ') {
+            try {
+               Double.parseDouble(value);
+               return true;
+            }
+                catch (NumberFormatException e)
+               {
+               // NO ACTION -- exception suppressed
+               }
+         }
+         return false;
+      }
+   
+   
        // COD2, A-51:  "Identifiers are a sequence of alphanumeric characters,
        //               underbars (_), and dots (.) that do not begin with a number."
    	 // Ideally this would be in a separate Identifier class but I did not see an immediate
@@ -518,6 +518,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
 	
    
+   /**
+    * Determine whether a symbol has been defined by an .eqv directive, so that tokenizing
+    * a line containing it as an identifier would substitute its equivalent.
+    *
+    * @param symbol the symbol
+    * @return true if an .eqv directive has defined the symbol, false otherwise
+    **/
+       public boolean isEquivalentSymbol(String symbol) {
+         return equivalents != null && equivalents.containsKey(symbol);
+      }
+   
    /** 
     * Fetch this Tokenizer's error list.
     *
@@ -533,12 +544,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        int tokenPos, int tokenStartPos, TokenList tokenList) {
          String value = new String(token, 0, tokenPos);
          if (value.length() > 0 && value.charAt(0)=='\'') value = preprocessCharacterLiteral(value);
-         TokenTypes type = TokenTypes.matchTokenType(value);
+         Token toke = new Token(null, value, program, line, tokenStartPos);
+         TokenTypes type = TokenTypes.matchTokenType(value, toke);
          if (type == TokenTypes.ERROR) {
             errors.add(new ErrorMessage(program, line, tokenStartPos, 
                        theLine+"\nInvalid language element: "+value));
          }
-         Token toke = new Token(type, value, program, line, tokenStartPos);
+         toke.setType(type);
          tokenList.add(toke);
          return;
       }
@@ -1,7 +1,9 @@
    package mars.mips.dump;
 
+   import mars.Globals;
    import mars.mips.hardware.*;
    import java.io.*;
+   import java.util.zip.GZIPOutputStream;
 /*
 Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
 
@@ -33,6 +35,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 /**
  * Abstract class for memory dump file formats.  Provides constructors and
  * defaults for everything except the dumpMemoryRange method itself.
+ * Subclasses write to an output stream, which this class opens on the dump
+ * file with buffering and, if the file name ends with ".gz", gzip compression.
+ * Memory should be read in bulk using Memory.getRawWords().
  * 
  * @author Pete Sanderson 
  * @version December 2007
@@ -41,6 +46,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
     public abstract class AbstractDumpFormat implements DumpFormat {
    
+      /** Number of words to read from memory per call to Memory.getRawWords(). */
+      protected static final int WORDS_PER_READ = 4096;
+      private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+      private static final String GZIP_EXTENSION = ".gz";
       private String name, commandDescriptor, description,  extension;
    	
    	/**
@@ -100,9 +109,20 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return commandDescriptor;
       }
    	    
+   /**
+    * Whether this format records the address of each word dumped, so that a range
+    * containing unused memory, or several ranges, can be dumped meaningfully.  
+    * Default is false; the format is a plain sequence of words.
+    * @return true if addresses are preserved, false otherwise.
+    */
+       public boolean preservesAddresses() {
+         return false;
+      }
+   	    
    /**
    *  Write MIPS memory contents according to the
-   *  specification for this format. 
+   *  specification for this format.  Opens the file using openDumpFile() and
+   *  delegates to dumpMemoryRange(OutputStream, int, int).
    *
    *  @param  file  File in which to store MIPS memory contents.  
    *  @param firstAddress first (lowest) memory address to dump.  In bytes but
@@ -112,7 +132,70 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
    *  @throws IOException if error occurs during file output.
    */
-       public abstract void dumpMemoryRange(File file, int firstAddress, int lastAddress)
+       public void dumpMemoryRange(File file, int firstAddress, int lastAddress)
+		    throws AddressErrorException, IOException {
+         OutputStream out = openDumpFile(file);
+         try {
+            dumpMemoryRange(out, firstAddress, lastAddress);
+         } 
+         finally {
+            out.close();
+         }
+      }
+   
+   /**
+   *  Write MIPS memory contents according to the specification for this format
+   *  to the given stream, which is not closed.  Several ranges may be written 
+   *  to the same stream one after another.
+   *
+   *  @param  out  Stream to which to write MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to dump.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to dump.  In bytes but
+   *  must be on word boundary.  Will dump the word that starts at this address.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during output.
+   */
+       public abstract void dumpMemoryRange(OutputStream out, int firstAddress, int lastAddress)
 		    throws AddressErrorException, IOException;
    
+   /**
+   *  Open a file for writing a memory dump.  Output is buffered, and gzip compressed 
+   *  if the file name ends with ".gz".
+   *
+   *  @param  file  File in which to store MIPS memory contents.  
+   *  @return stream for writing to the file.
+   *  @throws IOException if the file cannot be opened.
+   */
+       public static OutputStream openDumpFile(File file) throws IOException {
+         OutputStream out = new FileOutputStream(file);
+         if (file.getName().toLowerCase().endsWith(GZIP_EXTENSION)) {
+            return new GZIPOutputStream(out, OUTPUT_BUFFER_SIZE);
+         }
+         return new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+      }
+   
+   /**
+   *  Create a buffered writer for a text dump format.  The writer must be flushed, 
+   *  but not closed, when done.
+   *
+   *  @param out Stream passed to dumpMemoryRange().
+   *  @return writer for the text.
+   */
+       protected static BufferedWriter openTextWriter(OutputStream out) {
+         return new BufferedWriter(new OutputStreamWriter(out), OUTPUT_BUFFER_SIZE);
+      }
+   
+   /**
+   *  Number of words to request from Memory.getRawWords() to read at the given
+   *  address without passing the last address of the range being dumped.
+   *
+   *  @param address next address to read
+   *  @param lastAddress last (highest) memory address to dump.
+   *  @return number of words to read, at most WORDS_PER_READ.
+   */
+       protected static int wordsToRead(int address, int lastAddress) {
+         return (int) Math.min(WORDS_PER_READ, ((lastAddress - (long) address) >> 2) + 1);
+      }
+   
    }
\ No newline at end of file
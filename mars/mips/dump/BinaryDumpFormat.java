@@ -34,7 +34,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 /**
  * Class that represents the "binary" memory dump format.  The output 
  * is a binary file containing the memory words as a byte stream.  Output
- * is produced using PrintStream's write() method.
+ * is produced a chunk of words at a time.
  * @author Pete Sanderson 
  * @version December 2007
  */
@@ -51,33 +51,35 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    
    /**
-   *  Write MIPS memory contents in pure binary format.  One byte at a time
-	*  using PrintStream's write() method.  Adapted by Pete Sanderson from
+   *  Write MIPS memory contents in pure binary format.  Each word is written
+	*  least significant byte first, a chunk of words at a time.  Adapted by Pete Sanderson from
 	*  code written by Greg Gibeling.
 	*
-   *  @param  file  File in which to store MIPS memory contents.  
+   *  @param  stream  Stream to which to write MIPS memory contents.  
    *  @param firstAddress first (lowest) memory address to dump.  In bytes but
    *  must be on word boundary.
    *  @param lastAddress last (highest) memory address to dump.  In bytes but
    *  must be on word boundary.  Will dump the word that starts at this address.
 	*  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
-	*  @throws IOException if error occurs during file output.
+	*  @throws IOException if error occurs during output.
    */
-       public void dumpMemoryRange(File file, int firstAddress, int lastAddress) 
+       public void dumpMemoryRange(OutputStream stream, int firstAddress, int lastAddress) 
         throws AddressErrorException, IOException {
-         PrintStream out = new PrintStream(new FileOutputStream(file));
-         try {
-            for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
-               if (temp == null) 
-                  break;
-               int word = temp.intValue();
-               for (int i = 0; i < 4; i++) 
-                  out.write((word >>> (i << 3)) & 0xFF);
+         byte[] bytes = new byte[WORDS_PER_READ * Memory.WORD_LENGTH_BYTES];
+         int[] words = new int[WORDS_PER_READ];
+         int address = firstAddress;
+         while (address <= lastAddress) {
+            int wanted = wordsToRead(address, lastAddress);
+            int count = Globals.memory.getRawWords(address, words, 0, wanted);
+            for (int i = 0; i < count; i++) {
+               int word = words[i];
+               for (int b = 0; b < 4; b++) 
+                  bytes[(i << 2) + b] = (byte) (word >>> (b << 3));
             }
-         } 
-         finally { 
-            out.close(); 
+            stream.write(bytes, 0, count * Memory.WORD_LENGTH_BYTES);
+            if (count < wanted) 
+               break;
+            address += count * Memory.WORD_LENGTH_BYTES;
          }
       }
    
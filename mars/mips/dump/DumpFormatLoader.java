@@ -60,8 +60,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          if (formatList == null) {
             formatList = new ArrayList();
          // grab all class files in the dump directory
-            ArrayList candidates = FilenameFinder.getFilenameList(this.getClass( ).getClassLoader(),
-                                              DUMP_DIRECTORY_PATH, CLASS_EXTENSION);
+            ArrayList candidates = FilenameFinder.getClassFilenameList(this.getClass( ).getClassLoader(),
+                                             DUMP_DIRECTORY_PATH);
             for( int i = 0; i < candidates.size(); i++) {
                String file = (String) candidates.get(i);
                try {
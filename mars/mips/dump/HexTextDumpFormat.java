@@ -53,36 +53,34 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    /**
    *  Write MIPS memory contents in hexadecimal text format.  Each line of
    *  text contains one memory word written in hexadecimal characters.  Written
-	*  using PrintStream's println() method.
+	*  using a buffered writer, reading memory in bulk.
    *  Adapted by Pete Sanderson from code written by Greg Gibeling.
    *
-   *  @param  file  File in which to store MIPS memory contents.  
+   *  @param  stream  Stream to which to write MIPS memory contents.  
    *  @param firstAddress first (lowest) memory address to dump.  In bytes but
    *  must be on word boundary.
    *  @param lastAddress last (highest) memory address to dump.  In bytes but
    *  must be on word boundary.  Will dump the word that starts at this address.
    *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
-   *  @throws IOException if error occurs during file output.
+   *  @throws IOException if error occurs during output.
    */
-       public void dumpMemoryRange(File file, int firstAddress, int lastAddress) 
+       public void dumpMemoryRange(OutputStream stream, int firstAddress, int lastAddress) 
         throws AddressErrorException, IOException {
-         PrintStream out = new PrintStream(new FileOutputStream(file));
-         String string = null;
-         try {
-            for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               Integer temp = Globals.memory.getRawWordOrNull(address);
-               if (temp == null) 
-                  break;
-               string = Integer.toHexString(temp.intValue());
-               while (string.length() < 8) {
-                  string = '0' + string;
-               }
-               out.println(string);
+         BufferedWriter out = openTextWriter(stream);
+         int[] words = new int[WORDS_PER_READ];
+         int address = firstAddress;
+         while (address <= lastAddress) {
+            int wanted = wordsToRead(address, lastAddress);
+            int count = Globals.memory.getRawWords(address, words, 0, wanted);
+            for (int i = 0; i < count; i++) {
+               out.write(Long.toHexString(0x100000000L | (words[i] & 0xFFFFFFFFL)).substring(1));
+               out.newLine();
             }
-         } 
-         finally { 
-            out.close(); 
+            if (count < wanted) 
+               break;
+            address += count * Memory.WORD_LENGTH_BYTES;
          }
+         out.flush();
       }
    
    }
\ No newline at end of file
@@ -0,0 +1,108 @@
+   package mars.mips.dump;
+
+   import mars.Globals;
+   import mars.mips.hardware.*;
+   import java.io.*;
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining 
+a copy of this software and associated documentation files (the 
+"Software"), to deal in the Software without restriction, including 
+without limitation the rights to use, copy, modify, merge, publish, 
+distribute, sublicense, and/or sell copies of the Software, and to 
+permit persons to whom the Software is furnished to do so, subject 
+to the following conditions:
+
+The above copyright notice and this permission notice shall be 
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, 
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF 
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. 
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR 
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION 
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Class that represents the "segment image" memory dump format.  The output is
+ * a binary file of records, each giving the address of a run of populated
+ * memory followed by its contents.  Unused memory is not written, so a whole 
+ * segment, or several segments, can be dumped compactly and later restored to 
+ * the same addresses.  Each record is a 32-bit address, a 32-bit word count, then 
+ * that many 32-bit words.  All values are written least significant byte first.
+ * There is no header; records follow one another until end of file.
+ * @version October 2026
+ */
+
+
+    public class SegmentImageDumpFormat extends AbstractDumpFormat {
+   
+   /**
+   *  Constructor.  There is no standard file extension for this format.
+   */
+       public SegmentImageDumpFormat() {
+         super("Segment Image", "SegmentImage", "Populated memory with addresses, written to binary file", null);
+      }
+   
+   /**
+    * This format records the address of each run of words.
+    * @return true
+    */
+       public boolean preservesAddresses() {
+         return true;
+      }
+   
+   /**
+   *  Write MIPS memory contents in segment image format.  Memory is scanned for 
+   *  populated runs of words, skipping unallocated blocks, and each run is written 
+   *  as one or more records.
+   *
+   *  @param  stream  Stream to which to write MIPS memory contents.  
+   *  @param firstAddress first (lowest) memory address to dump.  In bytes but
+   *  must be on word boundary.
+   *  @param lastAddress last (highest) memory address to dump.  In bytes but
+   *  must be on word boundary.  Will dump the word that starts at this address.
+   *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
+   *  @throws IOException if error occurs during output.
+   */
+       public void dumpMemoryRange(OutputStream stream, int firstAddress, int lastAddress) 
+        throws AddressErrorException, IOException {
+         int[] words = new int[WORDS_PER_READ];
+         byte[] bytes = new byte[(WORDS_PER_READ + 2) * Memory.WORD_LENGTH_BYTES];
+         int address = firstAddress;
+         boolean more = true;
+         while (more) {
+            address = Globals.memory.getAddressOfFirstNonNull(address, lastAddress);
+            int count = Globals.memory.getRawWords(address, words, 0, wordsToRead(address, lastAddress));
+            if (count == 0) {
+               break;
+            }
+            putWord(bytes, 0, address);
+            putWord(bytes, 1, count);
+            for (int i = 0; i < count; i++) {
+               putWord(bytes, i + 2, words[i]);
+            }
+            stream.write(bytes, 0, (count + 2) * Memory.WORD_LENGTH_BYTES);
+            // Compare distances rather than addresses, since the range may end at the
+            // top of the stack or of the address space.
+            more = lastAddress - address >= count * Memory.WORD_LENGTH_BYTES;
+            address += count * Memory.WORD_LENGTH_BYTES;
+         }
+      }
+   
+      // Store word at the given word index of the byte array, least significant byte first.
+       private static void putWord(byte[] bytes, int index, int word) {
+         for (int b = 0; b < 4; b++) {
+            bytes[(index << 2) + b] = (byte) (word >>> (b << 3));
+         }
+      }
+   
+   }
@@ -38,7 +38,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  * Dump MIPS memory contents in Segment Window format.  Each line of
  * text output resembles the Text Segment Window or Data Segment Window
  * depending on which segment is selected for the dump.  Written
- * using PrintStream's println() method.  Each line of Text Segment
+ * using a buffered writer.  Each line of Text Segment
  * Window represents one word of text segment memory.  The line
  * includes (1) address, (2) machine code in hex, (3) basic instruction,
  * (4) source line.  Each line of Data Segment Window represents 8
@@ -67,20 +67,21 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    *  Write MIPS memory contents in Segment Window format.  Each line of
 	*  text output resembles the Text Segment Window or Data Segment Window
 	*  depending on which segment is selected for the dump.  Written
-   *  using PrintStream's println() method.
+   *  using a buffered writer.
    *
-   *  @param  file  File in which to store MIPS memory contents.  
+   *  @param  stream  Stream to which to write MIPS memory contents.  
    *  @param firstAddress first (lowest) memory address to dump.  In bytes but
    *  must be on word boundary.
    *  @param lastAddress last (highest) memory address to dump.  In bytes but
    *  must be on word boundary.  Will dump the word that starts at this address.
    *  @throws AddressErrorException if firstAddress is invalid or not on a word boundary.
-   *  @throws IOException if error occurs during file output.
+   *  @throws IOException if error occurs during output.
    */
-       public void dumpMemoryRange(File file, int firstAddress, int lastAddress) 
+       public void dumpMemoryRange(OutputStream stream, int firstAddress, int lastAddress) 
         throws AddressErrorException, IOException {
       
-         PrintStream out = new PrintStream(new FileOutputStream(file));
+         BufferedWriter out = openTextWriter(stream);
+         int[] words = new int[WORDS_PER_READ];
       
          boolean hexAddresses = Globals.getSettings().getDisplayAddressesInHex();
       	
@@ -88,29 +89,34 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          if (Memory.inDataSegment(firstAddress)) {
             boolean hexValues = Globals.getSettings().getDisplayValuesInHex();
             int offset = 0;
-            String string="";
-            try {
-               for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
+            StringBuffer string = new StringBuffer();
+            int address = firstAddress;
+            while (address <= lastAddress) {
+               int wanted = wordsToRead(address, lastAddress);
+               int count = Globals.memory.getRawWords(address, words, 0, wanted);
+               for (int i = 0; i < count; i++, address += Memory.WORD_LENGTH_BYTES) {
                   if (offset % 8 == 0) {
-                     string = ((hexAddresses) ? Binary.intToHexString(address) : Binary.unsignedIntToIntString(address))  + "    ";
+                     string.setLength(0);
+                     string.append((hexAddresses) ? Binary.intToHexString(address) : Binary.unsignedIntToIntString(address)).append("    ");
                   }
                   offset++;
-                  Integer temp = Globals.memory.getRawWordOrNull(address);
-                  if (temp == null) 
-                     break;
-                  string += ((hexValues) 
-                             ? Binary.intToHexString(temp.intValue()) 
-                     		  : ("           "+temp).substring(temp.toString().length()) 
-                     		 ) + " ";
+                  if (hexValues) {
+                     string.append(Binary.intToHexString(words[i]));
+                  } 
+                  else {
+                     String value = Integer.toString(words[i]);
+                     string.append("           ".substring(Math.min(value.length(), 11))).append(value);
+                  }
+                  string.append(' ');
                   if (offset % 8 == 0) {
-                     out.println(string);
-                     string = "";
+                     out.write(string.toString());
+                     out.newLine();
                   }
                }
-            } 
-            finally { 
-               out.close(); 
-            }       
+               if (count < wanted) 
+                  break;
+            }
+            out.flush();
             return;
          }
       	
@@ -118,18 +124,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return;
          }
       	// If address in text segment, print in same format as Text Segment Window
-         out.println(" Address    Code        Basic                     Source");
+         out.write(" Address    Code        Basic                     Source");
+         out.newLine();
       	//           12345678901234567890123456789012345678901234567890
       	//                    1         2         3         4         5
-         out.println();
-         String string = null;
-         try {
-            for (int address = firstAddress; address <= lastAddress; address += Memory.WORD_LENGTH_BYTES) {
-               string = ((hexAddresses) ? Binary.intToHexString(address) : Binary.unsignedIntToIntString(address))  + "  ";
-               Integer temp = Globals.memory.getRawWordOrNull(address);
-               if (temp == null) 
-                  break;
-               string += Binary.intToHexString(temp.intValue()) + "  ";
+         out.newLine();
+         int address = firstAddress;
+         while (address <= lastAddress) {
+            int wanted = wordsToRead(address, lastAddress);
+            int count = Globals.memory.getRawWords(address, words, 0, wanted);
+            for (int i = 0; i < count; i++, address += Memory.WORD_LENGTH_BYTES) {
+               String string = ((hexAddresses) ? Binary.intToHexString(address) : Binary.unsignedIntToIntString(address))  + "  ";
+               string += Binary.intToHexString(words[i]) + "  ";
                try {
                   ProgramStatement ps = Globals.memory.getStatement(address);
                   string += (ps.getPrintableBasicAssemblyStatement()+"                      ").substring(0,22);
@@ -138,12 +144,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                } 
                    catch (AddressErrorException aee) {
                   }
-               out.println(string);
+               out.write(string);
+               out.newLine();
             }
-         } 
-         finally { 
-            out.close(); 
+            if (count < wanted) 
+               break;
          }
+         out.flush();
       }
    
    
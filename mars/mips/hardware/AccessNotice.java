@@ -80,7 +80,7 @@ public abstract class AccessNotice {
 	/** Query whether the access originated from executing MIPS program
 	 * @return true if this access originated from executing MIPS program, false otherwise
 	 */
-	 // Thread to execute the MIPS program is instantiated in SwingWorker.java.
+	 // Thread to execute the MIPS program is instantiated in SimulationWorker.java.
 	 // There it is given the name "MIPS" to replace the default "Thread-x". 
 	public boolean accessIsFromMIPS() {
 	   return thread.getName().startsWith("MIPS");
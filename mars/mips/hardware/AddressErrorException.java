@@ -39,6 +39,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 public class AddressErrorException extends Exception {  
    private int address;
 	private int type;  // Exceptions.ADDRESS_EXCEPTION_LOAD,Exceptions.ADDRESS_EXCEPTION_STORE 
+   private String message; // without the address, which is appended when message is requested
 
 
    /**
@@ -48,7 +49,7 @@ public class AddressErrorException extends Exception {
     **/
     
    public AddressErrorException(String message, int exceptType, int addr) {
-	   super(message+Binary.intToHexString(addr));
+      this.message = message;
       address = addr;
 		type = exceptType;
    }
@@ -70,4 +71,25 @@ public class AddressErrorException extends Exception {
    public int getType() {
       return type;
    }
+
+   /**
+    * Get the message, which ends with the erroneous address.  It is formatted 
+    * here rather than when the exception is created, since the simulated program
+    * may handle the exception itself.
+    * 
+    * @return The message.
+    **/
+   public String getMessage() {
+      return message+Binary.intToHexString(address);
+   }
+
+   /**
+    * Does not fill in the stack trace, which is never used and would cost a walk of
+    * the stack for each address error.
+    * 
+    * @return This exception.
+    **/
+   public synchronized Throwable fillInStackTrace() {
+      return this;
+   }
 }
@@ -385,14 +385,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static Register getRegister(String rName) {
          Register reg = null;
          if (rName.charAt(0) == '$' && rName.length() > 1 && rName.charAt(1) == 'f') {
-            try {
-                   // check for register number 0-31.
-               reg = registers[Binary.stringToInt(rName.substring(2))];    // KENV 1/6/05
+                // check for register number 0-31.
+            long number = Binary.decodeInt(rName.substring(2));    // KENV 1/6/05
+            if (number >= 0 && number < registers.length) {
+               reg = registers[(int) number];
             }
-                catch (Exception e) {
-                   // handles both NumberFormat and ArrayIndexOutOfBounds
-                  reg = null; 
-               }
          }
          return reg;
       }
@@ -105,6 +105,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
       Collection observables = getNewMemoryObserversCollection();
    
+    // Optional receivers of a trace of every MIPS memory access.  Unlike observers they
+    // are called with primitive values only, so they cost nothing per access but this 
+    // null check when none is installed.
+      private MemoryAccessTracer[] accessTracers = null;
+   
     // The data segment is allocated in blocks of 1024 ints (4096 bytes).  Each block is
     // referenced by a "block table" entry, and the table has 1024 entries.  The capacity
     // is thus 1024 entries * 4096 bytes = 4 MB.  Should be enough to cover most
@@ -163,6 +168,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
       private static final int MMIO_TABLE_LENGTH = 16; // Each entry of table points to a 4K block.
       private int[][] memoryMapBlockTable;
+   
+    // Memory-mapped devices registered through addDevice().  Each registration is kept
+    // in deviceRegistrations so it survives clear(); the page-indexed deviceBlockTable
+    // is rebuilt from them.  It parallels memoryMapBlockTable: one entry per word, and
+    // a block is allocated only if some device occupies part of it.  An MMIO access
+    // whose entry is null goes to memoryMapBlockTable as usual.
+      private Vector<DeviceRegistration> deviceRegistrations = new Vector<DeviceRegistration>();
+      private MemoryMappedDevice[][] deviceBlockTable;
    	    
     // I use a similar scheme for storing instructions.  MIPS text segment ranges from
     // 0x00400000 all the way to data segment (0x10000000) a range of about 250 MB!  So
@@ -292,6 +305,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          kernelDataBlockTable  = new int[BLOCK_TABLE_LENGTH][];      
          stackBlockTable = new int[BLOCK_TABLE_LENGTH][];
          memoryMapBlockTable = new int[MMIO_TABLE_LENGTH][];
+         rebuildDeviceBlockTable();
+         BlockTranslator.reset();
          System.gc(); // call garbage collector on any Table memory just deallocated. 	  
       }  
      
@@ -356,6 +371,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     
    // Allocates blocks if necessary.
        public int set(int address, int value, int length) throws AddressErrorException {
+         return set(address, value, length, true);
+      }
+   
+   	// Does the real work, but includes option to NOT notify observers and tracers.
+       private int set(int address, int value, int length, boolean notify) throws AddressErrorException {
          int oldValue = 0;
          if (Globals.debug) System.out.println("memory["+address+"] set to "+value+"("+length+" bytes)");
          int relativeByteAddress;
@@ -389,8 +409,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relativeByteAddress = address - memoryMapBaseAddress;
-            oldValue = storeBytesInTable(memoryMapBlockTable, relativeByteAddress, length, value);
+            MemoryMappedDevice device = deviceAt(address);
+            if (device != null) {
+               oldValue = device.peek(address, length);
+               device.write(address, value, length);
+            } 
+            else {
+               relativeByteAddress = address - memoryMapBaseAddress;
+               oldValue = storeBytesInTable(memoryMapBlockTable, relativeByteAddress, length, value);
+            }
          }
          else if (inKernelDataSegment(address)) {
            // in kernel data segment.  Will write one byte at a time, w/o regard to boundaries.
@@ -408,7 +435,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             throw new AddressErrorException("address out of range ",
                Exceptions.ADDRESS_EXCEPTION_STORE, address);
          }
-         notifyAnyObservers(AccessNotice.WRITE, address, length, value);
+         if (notify) {
+            if (accessTracers != null) traceDataWritten(address, length, value);
+            notifyAnyObservers(AccessNotice.WRITE, address, length, value);
+         }
          return oldValue;
       }
    	
@@ -458,8 +488,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relative = (address - memoryMapBaseAddress) >> 2; // convert byte address to word
-            oldValue = storeWordInTable(memoryMapBlockTable, relative, value);
+            MemoryMappedDevice device = deviceAt(address);
+            if (device != null) {
+               oldValue = device.peek(address, WORD_LENGTH_BYTES);
+               device.write(address, value, WORD_LENGTH_BYTES);
+            } 
+            else {
+               relative = (address - memoryMapBaseAddress) >> 2; // convert byte address to word
+               oldValue = storeWordInTable(memoryMapBlockTable, relative, value);
+            }
          }
          else if (inKernelDataSegment(address)) {
            // in data segment
@@ -477,6 +514,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             throw new AddressErrorException("store address out of range ",
                Exceptions.ADDRESS_EXCEPTION_STORE,	address);
          }
+         if (accessTracers != null) traceDataWritten(address, WORD_LENGTH_BYTES, value);
          notifyAnyObservers(AccessNotice.WRITE, address, WORD_LENGTH_BYTES, value);
          if (Globals.getSettings().getBackSteppingEnabled()) {
             Globals.program.getBackStepper().addMemoryRestoreRawWord(address,oldValue);
@@ -558,6 +596,69 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          oldLowOrder  = set(address, Binary.lowOrderLongToInt(longValue),4);
          return Double.longBitsToDouble(Binary.twoIntsToLong(oldHighOrder, oldLowOrder)); 
       }
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Writes bytes from an array into consecutive Memory bytes, for syscalls that copy
+     *  buffers and strings into MIPS memory.  Ranges within the data and kernel data
+     *  segments are copied directly into the block tables; elsewhere it goes a byte at a 
+     *  time.  Observers receive a single notice for the range, tracers one access per word 
+     *  touched, and if back-stepping is enabled a single entry restores the whole range.
+     *  If the range includes an invalid address, the bytes before it are written and 
+     *  the exception is thrown for it.
+     * 
+     * @param address Address of first Memory byte to be set.
+     * @param bytes array holding the values to be stored.
+     * @param offset index in bytes of the first value.
+     * @param length number of bytes to write.
+     * @throws AddressErrorException If any address in the range is invalid.
+     **/
+       public void writeBytes(int address, byte[] bytes, int offset, int length) throws AddressErrorException {
+         if (length <= 0) {
+            return;
+         }
+         byte[] oldBytes = null;
+         if (Globals.getSettings().getBackSteppingEnabled()) {
+            oldBytes = new byte[length];
+            try {
+               transferBytes(address, oldBytes, 0, length, FETCH);
+            } 
+                catch (AddressErrorException e) {
+                  // The write will fail at the same address, so only the bytes before it change.
+                  byte[] prefix = new byte[e.getAddress() - address];
+                  System.arraycopy(oldBytes, 0, prefix, 0, prefix.length);
+                  oldBytes = prefix;
+               }
+         }
+         try {
+            transferBytes(address, bytes, offset, length, STORE);
+         } 
+         finally {
+            if (oldBytes != null && oldBytes.length > 0) {
+               Globals.program.getBackStepper().addMemoryRestoreBytes(address, oldBytes);
+            }
+         }
+         if (accessTracers != null) traceByteRange(AccessNotice.WRITE, address, bytes, offset, length);
+         notifyAnyObserversOfRange(AccessNotice.WRITE, address, length, bytes[offset] & 0xFF);
+      }
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Writes the low order 8 bits of the given value into consecutive Memory bytes.
+     *  Notices, tracing and back-stepping are as for writeBytes().
+     * 
+     * @param address Address of first Memory byte to be set.
+     * @param value Value to be stored.  Only low order 8 bits used.
+     * @param length number of bytes to write.
+     * @throws AddressErrorException If any address in the range is invalid.
+     **/
+       public void fill(int address, int value, int length) throws AddressErrorException {
+         if (length > 0) {
+            byte[] bytes = new byte[length];
+            Arrays.fill(bytes, (byte) value);
+            writeBytes(address, bytes, 0, length);
+         }
+      }
    	 
    
    ////////////////////////////////////////////////////////////////////////////////
@@ -579,6 +680,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          if (Globals.debug) System.out.println("memory["+address+"] set to "+statement.getBinaryStatement());
          if (inTextSegment(address)) {
             storeProgramStatement(address, statement, textBaseAddress, textBlockTable);
+            BlockTranslator.textWritten(address);
          } 
          else {
             storeProgramStatement(address, statement, kernelTextBaseAddress, kernelTextBlockTable);
@@ -619,9 +721,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 
          
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
-           // memory mapped I/O.
-            relativeByteAddress = address - memoryMapBaseAddress;
-            value = fetchBytesFromTable(memoryMapBlockTable, relativeByteAddress, length);
+           // memory mapped I/O.  Only a read by the MIPS program may have device side effects.
+            MemoryMappedDevice device = deviceAt(address);
+            if (device != null) {
+               value = notify ? device.read(address, length) : device.peek(address, length);
+            } 
+            else {
+               relativeByteAddress = address - memoryMapBaseAddress;
+               value = fetchBytesFromTable(memoryMapBlockTable, relativeByteAddress, length);
+            }
          }
          else if (inTextSegment(address)) {
            // Burch Mod (Jan 2013): replace throw with calls to getStatementNoNotify & getBinaryStatement 
@@ -652,7 +760,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             throw new AddressErrorException("address out of range ",
                Exceptions.ADDRESS_EXCEPTION_LOAD, address);
          }
-         if (notify) notifyAnyObservers(AccessNotice.READ, address, length, value);
+         if (notify) {
+            if (accessTracers != null) traceDataRead(address, length, value);
+            notifyAnyObservers(AccessNotice.READ, address, length, value);
+         }
          return value;
       }
    
@@ -692,8 +803,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
            // memory mapped I/O.
-            relative = (address - memoryMapBaseAddress) >> 2;
-            value = fetchWordFromTable(memoryMapBlockTable, relative);
+            MemoryMappedDevice device = deviceAt(address);
+            if (device != null) {
+               // Not a load by the MIPS program (the GUI reads this way), so no side effects.
+               value = device.peek(address, WORD_LENGTH_BYTES);
+            } 
+            else {
+               relative = (address - memoryMapBaseAddress) >> 2;
+               value = fetchWordFromTable(memoryMapBlockTable, relative);
+            }
          }
          else if (inTextSegment(address)) {
            // Burch Mod (Jan 2013): replace throw with calls to getStatementNoNotify & getBinaryStatement 
@@ -724,6 +842,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             throw new AddressErrorException("address out of range ", 
                Exceptions.ADDRESS_EXCEPTION_LOAD, address);
          }
+         if (accessTracers != null) traceDataRead(address, WORD_LENGTH_BYTES, value);
          notifyAnyObservers(AccessNotice.READ, address, Memory.WORD_LENGTH_BYTES,value);
          return value;
       } 
@@ -767,6 +886,17 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             relative = (stackBaseAddress - address) >> 2; // convert byte address to words
             value = fetchWordOrNullFromTable(stackBlockTable, relative);
          }
+         else if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
+              // memory mapped I/O; devices are peeked so the read has no side effects
+            MemoryMappedDevice device = deviceAt(address);
+            if (device != null) {
+               value = Integer.valueOf(device.peek(address, WORD_LENGTH_BYTES));
+            } 
+            else {
+               relative = (address - memoryMapBaseAddress) >> 2;
+               value = fetchWordOrNullFromTable(memoryMapBlockTable, relative);
+            }
+         }
          else if (inTextSegment(address) || inKernelTextSegment(address)) {
             try { 
                value = (getStatementNoNotify(address) == null) ? null : new Integer(getStatementNoNotify(address).getBinaryStatement());
@@ -801,6 +931,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	*/
        public int getAddressOfFirstNull(int baseAddress, int limitAddress) throws AddressErrorException {
          int address = baseAddress;
+         if (baseAddress % WORD_LENGTH_BYTES == 0 && inDataSegment(baseAddress)) {
+            // Words of an allocated block are never null, so check only the blocks.
+            address = firstNullBlockAddress(dataBlockTable, baseAddress, dataSegmentBaseAddress, Math.min(limitAddress, dataSegmentLimitAddress));
+         } 
+         else if (baseAddress % WORD_LENGTH_BYTES == 0 && inKernelDataSegment(baseAddress)) {
+            address = firstNullBlockAddress(kernelDataBlockTable, baseAddress, kernelDataBaseAddress, Math.min(limitAddress, kernelDataSegmentLimitAddress));
+         }
          for (; address < limitAddress; address += Memory.WORD_LENGTH_BYTES) {
             if (getRawWordOrNull(address) == null) {
                break;
@@ -809,6 +946,103 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return address;
       }
    
+     /**
+      *  Look for first non-"null" memory value in an address range; the counterpart of 
+      *  getAddressOfFirstNull().  Unallocated blocks of simulated memory are skipped as
+      *  a whole, so this is an efficient way to find the next populated part of a sparsely 
+      *  used segment.
+   	*
+   	*  @param baseAddress lowest MIPS address to be searched; the starting point
+   	*  @param limitAddress search stops before reaching this address
+   	*  @return lowest address within specified range that does not contain "null" value, 
+   	*  or limitAddress if there is none.
+   	*  @throws AddressErrorException if the base address is not on a word boundary
+   	*/
+       public int getAddressOfFirstNonNull(int baseAddress, int limitAddress) throws AddressErrorException {
+         int address = baseAddress;
+         while (address < limitAddress) {
+            if (getRawWordOrNull(address) != null) {
+               return address;
+            }
+            // Skip the remainder of an unallocated block.  Stack blocks are allocated
+         	// downward from the stack base, so the remainder lies below the address.
+            int blockBytes = BLOCK_LENGTH_WORDS * WORD_LENGTH_BYTES;
+            int next = address + WORD_LENGTH_BYTES;
+            if (inDataSegment(address)) {
+               next = dataSegmentBaseAddress + ((address - dataSegmentBaseAddress) / blockBytes + 1) * blockBytes;
+            } 
+            else if (inKernelDataSegment(address)) {
+               next = kernelDataBaseAddress + ((address - kernelDataBaseAddress) / blockBytes + 1) * blockBytes;
+            } 
+            else if (inTextSegment(address) && textBlockTable[(address - textBaseAddress) / blockBytes] == null) {
+               next = textBaseAddress + ((address - textBaseAddress) / blockBytes + 1) * blockBytes;
+            } 
+            else if (inKernelTextSegment(address) && kernelTextBlockTable[(address - kernelTextBaseAddress) / blockBytes] == null) {
+               next = kernelTextBaseAddress + ((address - kernelTextBaseAddress) / blockBytes + 1) * blockBytes;
+            } 
+            else if (address > stackLimitAddress && address <= stackBaseAddress) {
+               int block = (stackBaseAddress - address) / blockBytes;
+               if (block == 0) {
+                  return limitAddress;
+               }
+               next = stackBaseAddress - block * blockBytes + WORD_LENGTH_BYTES;
+            }
+            if (next <= address) { // wrapped around the top of the address space
+               return limitAddress;
+            }
+            address = next;
+         }
+         return limitAddress;
+      }
+   
+     /**
+      *  Bulk counterpart of getRawWordOrNull(), for reading large ranges of memory such as
+      *  when dumping it to a file.  Reads consecutive words, starting at the given address, 
+      *  into the given array.  Reading stops at the first "null" word, as defined by 
+      *  getRawWordOrNull(), or at the end of the segment containing the address.  Allocated
+      *  data blocks are copied as a whole.  Observers are not notified.
+      *
+      *  @param address Starting address of words to be read.
+      *  @param words array into which the words are read.
+      *  @param offset index in words of the first word read.
+      *  @param maxWords maximum number of words to read.
+      *  @return number of words read, which may be less than maxWords; 0 if the word at the
+      *  starting address is "null".
+      *  @throws AddressErrorException If address is not on word boundary or is out of range.
+      */
+       public int getRawWords(int address, int[] words, int offset, int maxWords) throws AddressErrorException {
+         if (address % WORD_LENGTH_BYTES != 0) {
+            throw new AddressErrorException("address for fetch not aligned on word boundary",
+                  Exceptions.ADDRESS_EXCEPTION_LOAD, address);
+         }
+         if (inDataSegment(address)) {
+            return fetchWordsFromTable(dataBlockTable, (address - dataSegmentBaseAddress) >> 2, 
+                                       (dataSegmentLimitAddress - address) >> 2, words, offset, maxWords);
+         } 
+         else if (inKernelDataSegment(address)) {
+            return fetchWordsFromTable(kernelDataBlockTable, (address - kernelDataBaseAddress) >> 2, 
+                                       (kernelDataSegmentLimitAddress - address) >> 2, words, offset, maxWords);
+         }
+         // Everything else one word at a time, staying within the starting segment.
+         boolean inStack = address > stackLimitAddress && address <= stackBaseAddress;
+         boolean inText = inTextSegment(address);
+         boolean inKernelText = inKernelTextSegment(address);
+         int count = 0;
+         while (count < maxWords) {
+            Integer word = getRawWordOrNull(address);
+            if (word == null) {
+               break;
+            }
+            words[offset + count++] = word.intValue();
+            address += WORD_LENGTH_BYTES;
+            if (!(inStack && address > stackLimitAddress && address <= stackBaseAddress || 
+                  inText && inTextSegment(address) || inKernelText && inKernelTextSegment(address))) {
+               break;
+            }
+         }
+         return count;
+      }
+   
    
     ///////////////////////////////////////////////////////////////////////////////////////
     /** 
@@ -876,6 +1110,67 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return get(address, 1);
       }
    
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Reads consecutive Memory bytes into an array, for syscalls that copy buffers 
+     *  out of MIPS memory.  Ranges within the data and kernel data segments are copied
+     *  directly from the block tables.  Observers receive a single notice for the range 
+     *  and tracers one access per word touched.
+     * 
+     * @param address Address of first Memory byte to be read.
+     * @param bytes array into which the bytes are read.
+     * @param offset index in bytes of the first byte read.
+     * @param length number of bytes to read.
+     * @throws AddressErrorException If any address in the range is invalid.
+     **/
+       public void readBytes(int address, byte[] bytes, int offset, int length) throws AddressErrorException {
+         if (length <= 0) {
+            return;
+         }
+         transferBytes(address, bytes, offset, length, FETCH);
+         if (accessTracers != null) traceByteRange(AccessNotice.READ, address, bytes, offset, length);
+         notifyAnyObserversOfRange(AccessNotice.READ, address, length, bytes[offset] & 0xFF);
+      }
+   
+    ///////////////////////////////////////////////////////////////////////////////////////
+    /** 
+     *  Reads a null-terminated string starting at the given address, for syscalls
+     *  that take a string argument.  Each byte becomes one character (ISO-8859-1). 
+     *  The read, including the terminating null byte, is reported to observers and
+     *  tracers as by readBytes().
+     * 
+     * @param address Address of first character of the string.
+     * @return the string, not including the terminating null
+     * @throws AddressErrorException If an address is invalid before the null is reached.
+     **/
+       public String readCString(int address) throws AddressErrorException {
+         byte[] bytes = new byte[64];
+         int length = 0;
+         while (true) {
+            if (length == bytes.length) {
+               bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            // Read up to the end of the current word, then look for the null.
+            int count = Math.min(bytes.length - length, WORD_LENGTH_BYTES - ((address + length) & 3));
+            transferBytes(address + length, bytes, length, count, FETCH);
+            int end = length + count;
+            while (length < end && bytes[length] != 0) {
+               length++;
+            }
+            if (length < end) {
+               break;
+            }
+         }
+         if (accessTracers != null) traceByteRange(AccessNotice.READ, address, bytes, 0, length + 1);
+         notifyAnyObserversOfRange(AccessNotice.READ, address, length + 1, bytes[0] & 0xFF);
+         try {
+            return new String(bytes, 0, length, "ISO-8859-1");
+         } 
+             catch (java.io.UnsupportedEncodingException e) {
+               throw new IllegalStateException(e.toString()); // every JVM supports ISO-8859-1
+            }
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    /**
     * Gets ProgramStatement from Text Segment.  
@@ -1052,6 +1347,105 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    
    	
+   ///////////////////////////////////////////////////////////////////////////
+   //  MEMORY-MAPPED DEVICE REGISTRATION.  A DEVICE OCCUPIES A RANGE OF THE MMIO
+   //  SEGMENT AND RECEIVES EVERY ACCESS TO IT DIRECTLY, INSTEAD OF OBSERVING
+   //  MEMORY AND REACTING AFTER THE FACT.
+   
+   /**
+    *  Register a memory-mapped device for the specified address range.  Each subsequent 
+    *  MIPS access to an address in the range is routed to the device's read(), peek() or
+    *  write() method instead of to memory.  The last byte included in the address range 
+    *  is the last byte of the word specified by the ending address.  The registration
+    *  remains in effect, across clear(), until deleteDevice() is called.
+    *
+    *  @param device the device
+    *  @param startAddr the low end of address range, must be on word boundary
+    *  @param endAddr the high end of address range, must be on word boundary
+    *  @throws AddressErrorException if an address is not on a word boundary, the range
+    *  is not within the memory-mapped I/O segment, or it overlaps that of another device.
+    */	
+       public void addDevice(MemoryMappedDevice device, int startAddr, int endAddr) throws AddressErrorException {
+         if (startAddr % WORD_LENGTH_BYTES != 0 || endAddr % WORD_LENGTH_BYTES != 0) {
+            throw new AddressErrorException("address not aligned on word boundary ",
+               Exceptions.ADDRESS_EXCEPTION_STORE, startAddr);
+         }
+         if (startAddr < memoryMapBaseAddress || endAddr >= memoryMapLimitAddress || endAddr < startAddr) {
+            throw new AddressErrorException("device range not within memory mapped I/O segment ",
+               Exceptions.ADDRESS_EXCEPTION_STORE, startAddr);
+         }
+         for (int address = startAddr; address <= endAddr; address += WORD_LENGTH_BYTES) {
+            if (deviceAt(address) != null) {
+               throw new AddressErrorException("device range overlaps that of another device ",
+                  Exceptions.ADDRESS_EXCEPTION_STORE, address);
+            }
+         }
+         deviceRegistrations.add(new DeviceRegistration(device, startAddr, endAddr));
+         rebuildDeviceBlockTable();
+      }
+   
+   	/**
+   	 *  Remove all registrations of the specified memory-mapped device.  Subsequent accesses 
+   	 *  to its addresses go to memory.
+   	 *  @param device  device to be removed
+   	 */   		
+       public void deleteDevice(MemoryMappedDevice device) {
+         Iterator<DeviceRegistration> it = deviceRegistrations.iterator();
+         while (it.hasNext()) {
+            if (it.next().device == device) {
+               it.remove();
+            }
+         }	
+         rebuildDeviceBlockTable();
+      }
+   
+   	/**
+   	 *  Return the memory-mapped device registered for the specified address.
+   	 *  @param address  the address
+   	 *  @return the device, or null if no device is registered for that address.
+   	 */   		
+       public MemoryMappedDevice getDevice(int address) {
+         if (address >= memoryMapBaseAddress && address < memoryMapLimitAddress) {
+            return deviceAt(address);
+         }
+         return null;
+      }
+   
+    /**
+     *  Utility for memory-mapped devices that hold registers as words.  Returns the value
+     *  of the specified bytes of a register word, as Memory.get() would return them had
+     *  the word been stored at the enclosing word boundary.  Honors current byte order.
+     *  @param word the register value
+     *  @param address address of the first byte to extract
+     *  @param length number of bytes: 1, 2 or 4
+     *  @return the bytes, in the low order length bytes of the result
+     */
+       public static int extractBytesFromWord(int word, int address, int length) {
+         int value = 0;
+         for (int i = 0; i < length && ((address + i) & 3) >= (address & 3); i++) {
+            value |= ((word >>> byteShiftInWord(address + i)) & 0xFF) << (i << 3);
+         }
+         return value;
+      }
+   
+    /**
+     *  Utility for memory-mapped devices that hold registers as words.  Returns the register
+     *  word with the specified bytes replaced, as Memory.set() would replace them had the word
+     *  been stored at the enclosing word boundary.  Honors current byte order.
+     *  @param word the register value
+     *  @param address address of the first byte to replace
+     *  @param value the replacement bytes, in the low order length bytes
+     *  @param length number of bytes: 1, 2 or 4
+     *  @return the updated register value
+     */
+       public static int insertBytesIntoWord(int word, int address, int value, int length) {
+         for (int i = 0; i < length && ((address + i) & 3) >= (address & 3); i++) {
+            int shift = byteShiftInWord(address + i);
+            word = (word & ~(0xFF << shift)) | (((value >>> (i << 3)) & 0xFF) << shift);
+         }
+         return word;
+      }
+   
    ///////////////////////////////////////////////////////////////////////////
    //  ALL THE OBSERVABLE STUFF GOES HERE.  FOR COMPATIBILITY, Memory IS STILL 
    //  EXTENDING OBSERVABLE, BUT WILL NOT USE INHERITED METHODS.  WILL INSTEAD
@@ -1146,6 +1540,71 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          // just drop the collection
          observables = getNewMemoryObserversCollection();
       }
+   
+   	/**
+   	 *  Install a tracer to receive every instruction fetch and data access made by 
+   	 *  the MIPS program.  Tracers are called in the order they were added.
+   	 *  @param tracer  MemoryAccessTracer to install
+   	 */
+       public synchronized void addAccessTracer(MemoryAccessTracer tracer) {
+         int count = (accessTracers == null) ? 0 : accessTracers.length;
+         MemoryAccessTracer[] tracers = new MemoryAccessTracer[count + 1];
+         if (count > 0) {
+            System.arraycopy(accessTracers, 0, tracers, 0, count);
+         }
+         tracers[count] = tracer;
+         accessTracers = tracers;
+      }
+   
+   	/**
+   	 *  Tell whether any memory access tracer is installed.
+   	 *  @return true if there is at least one tracer
+   	 */
+       public boolean hasAccessTracers() {
+         return accessTracers != null;
+      }
+   
+   	/**
+   	 *  Remove a memory access tracer.  Has no effect if it is not installed.
+   	 *  @param tracer  MemoryAccessTracer to be removed
+   	 */
+       public synchronized void deleteAccessTracer(MemoryAccessTracer tracer) {
+         if (accessTracers == null) {
+            return;
+         }
+         ArrayList<MemoryAccessTracer> remaining = new ArrayList<MemoryAccessTracer>(Arrays.asList(accessTracers));
+         remaining.remove(tracer);
+         accessTracers = remaining.isEmpty() ? null 
+                         : remaining.toArray(new MemoryAccessTracer[remaining.size()]);
+      }
+   
+   	/**
+   	 *  Report a recorded instruction fetch to the installed tracers, as if the MIPS
+   	 *  program had just made it.  Used to replay an execution trace.
+   	 *  @param address the address of the instruction
+   	 */
+       public void replayInstructionFetched(int address) {
+         if (accessTracers != null) traceInstructionFetched(address);
+      }
+   
+   	/**
+   	 *  Report a recorded data access to the installed tracers and to the observers of 
+   	 *  its address, as if the MIPS program had just made it.  Memory contents are not 
+   	 *  changed and memory-mapped devices are not involved.  Used to replay an execution trace.
+   	 *  @param type  AccessNotice.READ or AccessNotice.WRITE
+   	 *  @param address the address accessed
+   	 *  @param length the number of bytes accessed: 1, 2 or 4
+   	 *  @param value the value read or written, in the low order length bytes
+   	 */
+       public void replayDataAccess(int type, int address, int length, int value) {
+         if (type == AccessNotice.WRITE) {
+            if (accessTracers != null) traceDataWritten(address, length, value);
+         } 
+         else {
+            if (accessTracers != null) traceDataRead(address, length, value);
+         }
+         notifyAnyObservers(type, address, length, value);
+      }
    	
    	/**
    	 * Overridden to be unavailable.  The notice that an Observer
@@ -1188,6 +1647,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return (address >= lowAddress && address <= highAddress-1+WORD_LENGTH_BYTES);
          }
       	
+      	
+          public boolean overlaps(int firstAddress, int lastAddress) {
+            return (firstAddress <= highAddress-1+WORD_LENGTH_BYTES && lastAddress >= lowAddress);
+         }
+      	
           public void notifyObserver(MemoryAccessNotice notice) {
             this.setChanged();
             this.notifyObservers(notice);
@@ -1212,8 +1676,100 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
    
    /*********************************  THE HELPERS  *************************************/
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Return the memory-mapped device registered for the given MMIO segment address,
+   // or null if none.  Caller has verified the address is within the segment.  Costs
+   // one size check when no devices are registered.
+   
+       private MemoryMappedDevice deviceAt(int address) {
+         if (deviceRegistrations.size() == 0) {
+            return null;
+         }
+         int relative = (address - memoryMapBaseAddress) >> 2; // convert byte address to words
+         MemoryMappedDevice[] block = deviceBlockTable[relative / BLOCK_LENGTH_WORDS];
+         return (block == null) ? null : block[relative % BLOCK_LENGTH_WORDS];
+      }
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Rebuild the device table from the registrations.  Needed when a device is added
+   // or deleted, and when memory is re-initialized since the memory map base address 
+   // may have changed.  Registrations outside the current MMIO segment are ignored.
+   
+       private synchronized void rebuildDeviceBlockTable() {
+         MemoryMappedDevice[][] table = new MemoryMappedDevice[MMIO_TABLE_LENGTH][];
+         Iterator<DeviceRegistration> it = deviceRegistrations.iterator();
+         while (it.hasNext()) {
+            DeviceRegistration registration = it.next();
+            for (int address = registration.lowAddress; address <= registration.highAddress; address += WORD_LENGTH_BYTES) {
+               if (address < memoryMapBaseAddress || address >= memoryMapLimitAddress) {
+                  continue;
+               }
+               int relative = (address - memoryMapBaseAddress) >> 2;
+               int block = relative / BLOCK_LENGTH_WORDS;
+               if (table[block] == null) {
+                  table[block] = new MemoryMappedDevice[BLOCK_LENGTH_WORDS];
+               }
+               table[block][relative % BLOCK_LENGTH_WORDS] = registration.device;
+            }
+         }
+         deviceBlockTable = table;
+      }
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Position (bit shift) within its word of the byte at the given address, consistent 
+   // with storeOrFetchBytesInTable().  For little endian, the byte at the lowest address
+   // is least significant.
+   
+       private static int byteShiftInWord(int address) {
+         return (byteOrder == LITTLE_ENDIAN) ? (address & 3) << 3 : (3 - (address & 3)) << 3;
+      }
+   
+       /////////////////////////////////////////////////////////////////////////
+       // Private class whose objects represent a device registered for an
+   	 // address range.
+       private static class DeviceRegistration {
+         private MemoryMappedDevice device;
+         private int lowAddress, highAddress;
+      
+          public DeviceRegistration(MemoryMappedDevice device, int startAddr, int endAddr) {
+            this.device = device;
+            lowAddress = startAddr;
+            highAddress = endAddr;
+         }
+      }
      
    
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Methods to pass an access on to each installed tracer.  The tracer array is
+   // replaced, never modified, when tracers are added or removed, so a local copy 
+   // of the reference is safe to iterate.
+   
+       private void traceInstructionFetched(int address) {
+         MemoryAccessTracer[] tracers = accessTracers;
+         for (int i = 0; tracers != null && i < tracers.length; i++) {
+            tracers[i].instructionFetched(address);
+         }
+      }
+   
+       private void traceDataRead(int address, int length, int value) {
+         MemoryAccessTracer[] tracers = accessTracers;
+         for (int i = 0; tracers != null && i < tracers.length; i++) {
+            tracers[i].dataRead(address, length, value);
+         }
+      }
+   
+       private void traceDataWritten(int address, int length, int value) {
+         MemoryAccessTracer[] tracers = accessTracers;
+         for (int i = 0; tracers != null && i < tracers.length; i++) {
+            tracers[i].dataWritten(address, length, value);
+         }
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    //
    // Method to notify any observers of memory operation that has just occurred.
@@ -1233,6 +1789,45 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          } 		
       }
    
+   // Notify observers of a bulk access to length bytes.  Each observer whose range overlaps
+   // receives one notice, addressed at the first byte of the overlap, with value being
+   // the first byte of the whole range.
+       private void notifyAnyObserversOfRange(int type, int address, int length, int value) {
+         if ((Globals.program != null || Globals.getGui()==null) && this.observables.size() > 0) {
+            int lastAddress = address + length - 1;
+            Iterator<?> it = this.observables.iterator();
+            MemoryObservable mo;
+            while (it.hasNext()) {
+               mo = (MemoryObservable)it.next();
+               if (mo.overlaps(address, lastAddress)) {
+                  int first = Math.max(address, mo.lowAddress);
+                  mo.notifyObserver(new MemoryAccessNotice(type, first, lastAddress - first + 1, value));
+               }
+            }
+         } 		
+      }
+   
+   // Report a bulk access to the tracers as one access per word touched, each with
+   // its bytes in the low order bits as get() would return them.
+       private void traceByteRange(int type, int address, byte[] bytes, int offset, int length) {
+         int end = offset + length;
+         while (offset < end) {
+            int count = Math.min(end - offset, WORD_LENGTH_BYTES - (address & 3));
+            int value = 0;
+            for (int i = 0; i < count; i++) {
+               value |= (bytes[offset + i] & 0xFF) << (i << 3);
+            }
+            if (type == AccessNotice.WRITE) {
+               traceDataWritten(address, count, value);
+            } 
+            else {
+               traceDataRead(address, count, value);
+            }
+            address += count;
+            offset += count;
+         }
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    //
    // Helper method to store 1, 2 or 4 byte value in table that represents MIPS
@@ -1314,6 +1909,70 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return (op == STORE)	? oldValue : value;
       }	
    
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Helper method for the bulk byte operations.  Copies length bytes between memory, 
+   // starting at address, and the array, starting at offset.  Runs of bytes within the data
+   // or kernel data segment are copied directly to or from its block table; any other byte
+   // goes through get() or set() without notifying observers or tracers.  Bytes before an
+   // invalid address are transferred before the exception is thrown.
+   
+       private void transferBytes(int address, byte[] bytes, int offset, int length, boolean op) 
+                                   throws AddressErrorException {
+         int end = offset + length;
+         while (offset < end) {
+            int count;
+            if (inDataSegment(address)) {
+               count = (int) Math.min(end - offset, (long) dataSegmentLimitAddress - address);
+               transferBytesInTable(dataBlockTable, address - dataSegmentBaseAddress, bytes, offset, count, op);
+            } 
+            else if (inKernelDataSegment(address)) {
+               count = (int) Math.min(end - offset, (long) kernelDataSegmentLimitAddress - address);
+               transferBytesInTable(kernelDataBlockTable, address - kernelDataBaseAddress, bytes, offset, count, op);
+            } 
+            else {
+               count = 1;
+               if (op == STORE) {
+                  set(address, bytes[offset], 1, false);
+               } 
+               else {
+                  bytes[offset] = (byte) get(address, 1, false);
+               }
+            }
+            address += count;
+            offset += count;
+         }
+      }
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Helper's helper: copy a run of bytes, all in one segment, to or from its block table.
+   // Same byte placement as storeOrFetchBytesInTable(), without the per-call overhead.
+   
+       private synchronized void transferBytesInTable(int[][] blockTable, int relativeByteAddress,
+                                   byte[] bytes, int offset, int length, boolean op) {
+         for (int i = 0; i < length; i++, relativeByteAddress++) {
+            int relativeWordAddress = relativeByteAddress >> 2;
+            int block = relativeWordAddress / BLOCK_LENGTH_WORDS;
+            int word = relativeWordAddress % BLOCK_LENGTH_WORDS;
+            int shift = (byteOrder == LITTLE_ENDIAN) ? (relativeByteAddress & 3) << 3 
+                                                     : 24 - ((relativeByteAddress & 3) << 3);
+            if (blockTable[block] == null) {
+               if (op == FETCH) {
+                  bytes[offset + i] = 0;
+                  continue;
+               }
+               blockTable[block] = new int[BLOCK_LENGTH_WORDS];
+            }
+            if (op == STORE) {
+               blockTable[block][word] = (blockTable[block][word] & ~(0xFF << shift)) | ((bytes[offset + i] & 0xFF) << shift);
+            } 
+            else {
+               bytes[offset + i] = (byte) (blockTable[block][word] >> shift);
+            }
+         }
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////
    //
    // Helper method to store 4 byte value in table that represents MIPS memory.
@@ -1385,6 +2044,49 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return new Integer(value);
       }
    	   
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Helper method to copy consecutive words from table that represents MIPS memory, 
+   // one block at a time.  Stops at the first unallocated block, after maxWords words, or
+   // after wordsInSegment words (the end of the segment).  Returns number of words copied.
+   // Assumes address is word aligned, no endian processing.
+       
+       private synchronized int fetchWordsFromTable(int[][] blockTable, int relative, int wordsInSegment, 
+                                                    int[] words, int offset, int maxWords) {
+         int count = 0;
+         int limit = Math.min(maxWords, wordsInSegment);
+         while (count < limit) {
+            int[] block = blockTable[relative / BLOCK_LENGTH_WORDS];
+            if (block == null) {
+               break;
+            }
+            int blockOffset = relative % BLOCK_LENGTH_WORDS;
+            int length = Math.min(BLOCK_LENGTH_WORDS - blockOffset, limit - count);
+            System.arraycopy(block, blockOffset, words, offset + count, length);
+            count += length;
+            relative += length;
+         }
+         return count;
+      }
+   
+   ////////////////////////////////////////////////////////////////////////////////
+   //
+   // Helper method to find the address of the first word, at or above the given address
+   // and below the limit, that lies in an unallocated block of the table.  Returns the
+   // limit address if there is none.
+   
+       private synchronized int firstNullBlockAddress(int[][] blockTable, int address, int segmentBaseAddress, int limitAddress) {
+         int blockBytes = BLOCK_LENGTH_WORDS * WORD_LENGTH_BYTES;
+         while (address < limitAddress) {
+            int block = (address - segmentBaseAddress) / blockBytes;
+            if (blockTable[block] == null) {
+               return address;
+            }
+            address = segmentBaseAddress + (block + 1) * blockBytes;
+         }
+         return limitAddress;
+      }
+   
    ////////////////////////////////////////////////////////////////////////////////////
    // Returns result of substituting specified byte of source value into specified byte 
    // of destination value. Byte positions are 0-1-2-3, listed from most to least 
@@ -1434,6 +2136,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    // Returns associated ProgramStatement or null if none. 
    // Last parameter controls whether or not observers will be notified.
        private ProgramStatement readProgramStatement(int address, int baseAddress, ProgramStatement[][] blockTable, boolean notify) {
+         if (notify && accessTracers != null) traceInstructionFetched(address);
          int relative = (address - baseAddress) >> 2; // convert byte address to words
          int block = relative / TEXT_BLOCK_LENGTH_WORDS;
          int offset = relative % TEXT_BLOCK_LENGTH_WORDS; 
@@ -63,7 +63,8 @@ public class MemoryAccessNotice extends AccessNotice {
   public int getAddress() {
      return address;
   }
-  /** Fetch the length in bytes of the access operation (4,2,1). */
+  /** Fetch the length in bytes of the access operation (4,2,1), or of the whole
+   *  range for a bulk access such as Memory.readBytes(), whose value is its first byte. */
   public int getLength() {
      return length;
   }
@@ -0,0 +1,71 @@
+   package mars.mips.hardware;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Receives a trace of the memory accesses made by the executing MIPS program:
+ * each instruction fetch and each data load or store, including those made on 
+ * behalf of the program by syscalls.  Unlike a memory Observer, no AccessNotice 
+ * object is created per access, so a tracer can follow programs that make tens
+ * of millions of accesses.  Tracers are installed using Memory.addAccessTracer().
+ * <p>
+ * Methods are called by the thread performing the access, usually the simulator
+ * thread while it holds Globals.memoryAndRegistersLock.  They must not access memory.
+ *
+ * @version October 2026
+ * @see Memory#addAccessTracer(MemoryAccessTracer)
+ */
+
+    public interface MemoryAccessTracer {
+
+   	/**
+   	 * Called when an instruction is fetched for execution.
+   	 *
+   	 * @param address the address of the instruction
+   	 */
+       public void instructionFetched(int address);
+
+   	/**
+   	 * Called when data is read (loaded) from memory.
+   	 *
+   	 * @param address the address being read
+   	 * @param length the number of bytes being read: 1, 2 or 4
+   	 * @param value the value read, in the low order length bytes
+   	 */
+       public void dataRead(int address, int length, int value);
+
+   	/**
+   	 * Called when data is written (stored) to memory.
+   	 *
+   	 * @param address the address being written
+   	 * @param length the number of bytes being written: 1, 2 or 4
+   	 * @param value the value written, in the low order length bytes
+   	 */
+       public void dataWritten(int address, int length, int value);
+   }
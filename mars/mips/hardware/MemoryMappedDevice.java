@@ -0,0 +1,81 @@
+   package mars.mips.hardware;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Interface for a device whose registers occupy a range of the memory-mapped
+ * I/O (MMIO) segment.  Once registered with Memory.addDevice(), every MIPS load
+ * or store within the range is delivered to the device instead of to ordinary
+ * memory, so the device can compute register values when they are read and
+ * react to a store at the moment it occurs.  Accesses outside any registered
+ * range are handled by memory as before.
+ * <p>
+ * Values are passed as they would be by Memory.get() and Memory.set(): a 1 or 2 byte
+ * value is in the low order bits.  The Memory helpers extractBytesFromWord() and
+ * insertBytesIntoWord() convert between such a value and a word-sized register,
+ * honoring the current byte order.
+ * <p>
+ * Methods are called by the thread performing the access, usually the simulator
+ * thread while it holds Globals.memoryAndRegistersLock.
+ *
+ * @version October 2026
+ * @see Memory#addDevice(MemoryMappedDevice, int, int)
+ */
+
+    public interface MemoryMappedDevice {
+
+   	/**
+   	 * Called when the executing MIPS program reads (loads) from a device address.
+   	 * The device may have side effects, such as clearing a Ready bit.
+   	 *
+   	 * @param address the address being read
+   	 * @param length the number of bytes being read: 1, 2 or 4
+   	 * @return the value read, in the low order length bytes
+   	 */
+       public int read(int address, int length);
+
+   	/**
+   	 * Called to read a device address without side effects, for example when the
+   	 * MARS GUI displays the Data Segment or the memory is dumped.
+   	 *
+   	 * @param address the address being read
+   	 * @param length the number of bytes being read: 1, 2 or 4
+   	 * @return the value read, in the low order length bytes
+   	 */
+       public int peek(int address, int length);
+
+   	/**
+   	 * Called when a device address is written (stored).
+   	 *
+   	 * @param address the address being written
+   	 * @param value the value being written, in the low order length bytes
+   	 * @param length the number of bytes being written: 1, 2 or 4
+   	 */
+       public void write(int address, int value, int length);
+   }
@@ -69,6 +69,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static Register programCounter= new Register("pc", 32, Memory.textBaseAddress); 
       private static Register hi= new Register("hi", 33, 0);//this is an internal register with arbitrary number
       private static Register lo= new Register("lo", 34, 0);// this is an internal register with arbitrary number
+      
+      // Bit n is set when register number n is written by updateRegister, until cleared.
+      // Lets an execution trace recorder find the registers written by an instruction.
+      private static long registersWritten = 0;
    		 
    
    	/**
@@ -94,6 +98,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  
        public static int updateRegister(int num, int val){
          int old = 0;
+         registersWritten |= 1L << num;
          if(num == 0){
             //System.out.println("You can not change the value of the zero register.");
          }
@@ -193,22 +198,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static Register getUserRegister(String Rname) {
          Register reg = null;
          if (Rname.charAt(0) == '$') {
-            try {
-                   // check for register number 0-31.
-               reg = regFile[Binary.stringToInt(Rname.substring(1))];    // KENV 1/6/05
-            }
-                catch (Exception e) {
-                   // handles both NumberFormat and ArrayIndexOutOfBounds
+             // check for register number 0-31.  Tested without exceptions since
+             // the assembler asks about every token that starts with $.
+            long number = Binary.decodeInt(Rname.substring(1));    // KENV 1/6/05
+            if (number >= 0 && number < regFile.length) {
+               reg = regFile[(int) number];
+            } 
+            else {
                    // check for register mnemonic $zero thru $ra
-                  reg = null; // just to be sure
                    // just do linear search; there aren't that many registers
-                  for (int i=0; i < regFile.length; i++) {
-                     if (Rname.equals(regFile[i].getName())) {
-                        reg = regFile[i];
-                        break;
-                     }
+               for (int i=0; i < regFile.length; i++) {
+                  if (Rname.equals(regFile[i].getName())) {
+                     reg = regFile[i];
+                     break;
                   }
                }
+            }
          }
          return reg;
       }
@@ -275,6 +280,39 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static Register getProgramCounterRegister() {
          return programCounter;
       }
+   
+     /**
+      *  Returns the set of registers written by updateRegister() since the set was last
+      *  cleared, as a bit mask: bit n is set if register number n was written.  Numbers
+      *  are 0 to 31, 33 for hi and 34 for lo.
+   	*  @return bit mask of registers written
+   	*/
+       public static long getRegistersWritten() {
+         return registersWritten;
+      }
+   
+     /**
+      *  Empties the set of registers written, see getRegistersWritten().
+   	*/
+       public static void clearRegistersWritten() {
+         registersWritten = 0;
+      }
+   
+     /**
+      *  Returns Register object for hi.  Use with caution.
+   	*  @return hi's Register object.
+   	*/
+       public static Register getHiRegister() {
+         return hi;
+      }
+   
+     /**
+      *  Returns Register object for lo.  Use with caution.
+   	*  @return lo's Register object.
+   	*/
+       public static Register getLoRegister() {
+         return lo;
+      }
    	
      /**
       *  For returning the program counter's initial (reset) value.
@@ -45,6 +45,13 @@ public class BasicInstruction extends Instruction {
 
 	private int opcodeMask;  // integer with 1's where constants required (0/1 become 1, f/s/t become 0)
 	private int opcodeMatch; // integer matching constants required (0/1 become 0/1, f/s/t become 0)
+	private final int serialNumber; // distinct for each basic instruction, numbered from 0
+	// Bit field of each operand ('f', 's', 't'): position of its low order bit and number of
+	// bits, width 0 if the mask has no such operand.  Used to encode without the mask string.
+	private final int[] operandShift = new int[Instruction.operandMask.length];
+	private final int[] operandWidth = new int[Instruction.operandMask.length];
+
+	private static int basicInstructionsCreated = 0;
 	/**
 	 * BasicInstruction constructor.
 	 * 
@@ -74,14 +81,33 @@ public class BasicInstruction extends Instruction {
         this.mnemonic = this.extractOperator(example);
         this.description = description;
         this.instructionFormat = instrFormat;
-        this.operationMask = operMask.replaceAll(" ",""); // squeeze out any/all spaces
+        this.operationMask = operMask.replace(" ",""); // squeeze out any/all spaces
 		  if (operationMask.length() != Instruction.INSTRUCTION_LENGTH_BITS) {
 		        System.out.println(example+" mask not "+Instruction.INSTRUCTION_LENGTH_BITS+" bits!");
 				 }
         this.simulationCode = simCode;
 
-		this.opcodeMask = (int) Long.parseLong(this.operationMask.replaceAll("[01]", "1").replaceAll("[^01]", "0"), 2);
-		this.opcodeMatch = (int) Long.parseLong(this.operationMask.replaceAll("[^1]", "0"), 2);
+		// Opcode bits are the 0s and 1s of the mask; scanned directly rather than with
+		// regular expressions since every instruction is built at startup.
+		int mask = 0, match = 0;
+		for (int i = 0; i < operationMask.length(); i++) {
+			char bit = operationMask.charAt(i);
+			mask = (mask << 1) | ((bit == '0' || bit == '1') ? 1 : 0);
+			match = (match << 1) | ((bit == '1') ? 1 : 0);
+		}
+		this.opcodeMask = mask;
+		this.opcodeMatch = match;
+		for (int i = 0; i < Instruction.operandMask.length; i++) {
+			int first = operationMask.indexOf(Instruction.operandMask[i]);
+			if (first >= 0) {
+				int last = operationMask.lastIndexOf(Instruction.operandMask[i]);
+				this.operandShift[i] = operationMask.length() - 1 - last;
+				this.operandWidth[i] = last - first + 1;
+			}
+		}
+		synchronized (BasicInstruction.class) {
+			this.serialNumber = basicInstructionsCreated++;
+		}
 	}
 	
 	  // Temporary constructor so that instructions without description yet will compile.
@@ -139,4 +165,62 @@ public class BasicInstruction extends Instruction {
 	public int getOpcodeMatch() {
 		return this.opcodeMatch;
 	}
+
+	/**
+	 * Gets the number of the low order bit of an operand's field in the machine
+	 * instruction, that is, how far the operand value is shifted left.
+	 *
+	 * @param operand operand position, 0 for the first ('f') operand
+	 * @return the bit number, 0 if the instruction has no such operand
+	 */
+	public int getOperandShift(int operand) {
+		return this.operandShift[operand];
+	}
+
+	/**
+	 * Gets the number of bits in an operand's field in the machine instruction.
+	 *
+	 * @param operand operand position, 0 for the first ('f') operand
+	 * @return the field width, 0 if the instruction has no such operand
+	 */
+	public int getOperandWidth(int operand) {
+		return this.operandWidth[operand];
+	}
+
+	/**
+	 * Produces a machine instruction with an operand value placed in its field, as
+	 * the operand codes of the operation mask specify.  Only the low order bits of the 
+	 * value that fit the field are used.
+	 *
+	 * @param binary the machine instruction, initially getOpcodeMatch()
+	 * @param operand operand position, 0 for the first ('f') operand
+	 * @param value the operand value
+	 * @return the machine instruction with the field replaced
+	 */
+	public int insertOperand(int binary, int operand, int value) {
+		int width = this.operandWidth[operand];
+		int field = ((width == 32) ? -1 : (1 << width) - 1) << this.operandShift[operand];
+		return (binary & ~field) | ((value << this.operandShift[operand]) & field);
+	}
+
+	/**
+	 * Gets the serial number of this basic instruction.  Each basic instruction
+	 * has a different serial number, starting at 0 and below getNumberCreated(),
+	 * so it can be used to index an array of per-instruction values.
+	 *
+	 * @return the serial number
+	 */
+	public int getSerialNumber() {
+		return this.serialNumber;
+	}
+
+	/**
+	 * Gets the number of basic instructions created, which is one more than
+	 * the highest serial number.
+	 *
+	 * @return the number of BasicInstruction objects created
+	 */
+	public static synchronized int getNumberCreated() {
+		return basicInstructionsCreated;
+	}
 }
@@ -64,7 +64,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.exampleFormat = example;
          this.description = description;
          this.mnemonic = this.extractOperator(example);
-         this.createExampleTokenList();
          this.translationStrings = buildTranslationList(translation);
          this.compactTranslationStrings = buildTranslationList(compactTranslation);
       }
@@ -82,7 +81,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          this.exampleFormat = example;
          this.description = description;
          this.mnemonic = this.extractOperator(example);
-         this.createExampleTokenList();
          this.translationStrings = buildTranslationList(translation);
          this.compactTranslationStrings = null;
       }
@@ -55,8 +55,9 @@ public abstract class Instruction {
 	protected String exampleFormat;
 	/** Description of instruction for display to user **/
 	protected String description;
-	/** List of tokens generated by tokenizing example usage (see <tt>exampleFormat</tt>). **/
-	protected TokenList tokenList;
+	/** List of tokens generated by tokenizing example usage (see <tt>exampleFormat</tt>).
+	    Created on first use by getTokenList(). **/
+	protected volatile TokenList tokenList;
 
 
     /**
@@ -95,11 +96,16 @@ public abstract class Instruction {
      * Get TokenList corresponding to correct instruction syntax.
      * For example, the instruction with format "sw $1,100($2)" yields token list
      * <operator><register_number><integer><left_paren><register_number><right_parent>
+     * The list is created the first time it is requested, once the instruction set
+     * is complete, rather than for every instruction at startup.
      *
      * @return TokenList object representing correct instruction usage.
      */
 
     public TokenList getTokenList() {
+        if (tokenList == null) {
+            createExampleTokenList();
+        }
         return tokenList;
     }
     
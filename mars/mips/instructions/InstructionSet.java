@@ -47,6 +47,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    {
       private ArrayList instructionList;
 	  private ArrayList opcodeMatchMaps;
+      private volatile HashMap<String, ArrayList<Instruction>> operatorMap; // lower case mnemonic -> ArrayList of Instruction, built on demand
+      private int operatorMapSize = -1; // size of instructionList when operatorMap was built
       private SyscallLoader syscallLoader;
     /**
      * Creates a new InstructionSet object.
@@ -89,6 +91,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
       // String before = Integer.toString(instructionList.size());
       instructionList.clear();
+      operatorMap = null;
       /* // Yet more debug
       JLabel debugLabel = new JLabel();
       debugLabel.setPreferredSize(new Dimension(175, 100));
@@ -102,16 +105,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       LanguageLoader.mergeCustomInstructions(instructionList);
 
         ////////////// GET AND CREATE LIST OF SYSCALL FUNCTION OBJECTS ////////////////////
+        // Syscalls are loaded by the first findSyscall(), so a run that makes no
+        // syscall never loads them.
          syscallLoader = new SyscallLoader();
-         syscallLoader.loadSyscalls();
       	
-        // Initialization step.  Create token list for each instruction example.  This is
-        // used by parser to determine user program correct syntax.
-         for (int i = 0; i < instructionList.size(); i++)
-         {
-            Instruction inst = (Instruction) instructionList.get(i);
-            inst.createExampleTokenList();
-         }
+        // The token list for each instruction example, used by the parser to determine
+        // user program correct syntax, is created when the parser first asks for it.
 
 		 HashMap maskMap = new HashMap();
 		 ArrayList matchMaps = new ArrayList();
@@ -221,12 +220,22 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	
     /**
      *  Given an operator mnemonic, will return the corresponding Instruction object(s)
-     *  from the instruction set.  Uses straight linear search technique.
+     *  from the instruction set.  Case-insensitive.  Uses a hash table keyed by lower case
+     *  mnemonic, rebuilt whenever the instruction list changes size.  The list returned 
+     *  is shared and must not be modified.
      *  @param name operator mnemonic (e.g. addi, sw,...)
      *  @return list of corresponding Instruction object(s), or null if not found.
      */
        public ArrayList matchOperator(String name)
       {
+         String key = toLowerCaseASCII(name);
+         if (key != null) {
+            HashMap<String, ArrayList<Instruction>> map = operatorMap;
+            if (map == null || operatorMapSize != instructionList.size()) {
+               map = buildOperatorMap();
+            }
+            return map.get(key);
+         }
          ArrayList matchingInstructions = null;
         // Linear search for now....
          for (int i = 0; i < instructionList.size(); i++)
@@ -241,6 +250,46 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return matchingInstructions;
       }
    
+    // Group the instructions by lower case mnemonic, keeping instruction list order within
+    // each group.  Mnemonics containing non-ASCII characters are left to the linear search.
+    // Synchronized because the assembler may look up operators from several threads.
+       private synchronized HashMap<String, ArrayList<Instruction>> buildOperatorMap()
+      {
+         if (operatorMap != null && operatorMapSize == instructionList.size())
+            return operatorMap;
+         HashMap<String, ArrayList<Instruction>> map = new HashMap<String, ArrayList<Instruction>>();
+         for (int i = 0; i < instructionList.size(); i++)
+         {
+            Instruction instruction = (Instruction) instructionList.get(i);
+            String key = toLowerCaseASCII(instruction.getName());
+            if (key != null)
+            {
+               ArrayList<Instruction> matchingInstructions = map.get(key);
+               if (matchingInstructions == null)
+               {
+                  matchingInstructions = new ArrayList<Instruction>();
+                  map.put(key, matchingInstructions);
+               }
+               matchingInstructions.add(instruction);
+            }
+         }
+         operatorMapSize = instructionList.size();
+         operatorMap = map;
+         return map;
+      }
+   
+    // Lower case version of the name, or null if it contains a non-ASCII character, for
+    // which toLowerCase() and equalsIgnoreCase() need not agree.
+       private static String toLowerCaseASCII(String name)
+      {
+         for (int i = 0; i < name.length(); i++)
+         {
+            if (name.charAt(i) >= 128)
+               return null;
+         }
+         return name.toLowerCase(Locale.ENGLISH);
+      }
+   
    
     /**
      *  Given a string, will return the Instruction object(s) from the instruction
@@ -277,6 +326,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                                                         throws ProcessingException {
          Syscall service = syscallLoader.findSyscall(number);
          if (service != null) {
+            Simulator.getInstance().getPerformanceCounters().syscallExecuted(number);
             service.simulate(statement);
             return;
          }
@@ -60,8 +60,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        void loadSyscalls() {
          syscallList = new ArrayList();
          // grab all class files in the same directory as Syscall
-         ArrayList candidates = FilenameFinder.getFilenameList(this.getClass( ).getClassLoader(),
-                                              SYSCALLS_DIRECTORY_PATH, CLASS_EXTENSION);
+         ArrayList candidates = FilenameFinder.getClassFilenameList(this.getClass( ).getClassLoader(),
+                                             SYSCALLS_DIRECTORY_PATH);
 		   HashMap syscalls = new HashMap();
          for( int i = 0; i < candidates.size(); i++) {
             String file = (String) candidates.get(i); 
@@ -58,16 +58,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
          String message = new String(); // = "";
          int byteAddress = RegisterFile.getValue(4);
-         char ch[] = { ' '}; // Need an array to convert to String
          try
          {
-            ch[0] = (char) Globals.memory.getByte(byteAddress);
-            while (ch[0] != 0) // only uses single location ch[0]
-            {
-               message = message.concat(new String(ch)); // parameter to String constructor is a char[] array
-               byteAddress++;
-               ch[0] = (char) Globals.memory.getByte(byteAddress);
-            }
+            message = Globals.memory.readCString(byteAddress);
          }
              catch (AddressErrorException e)
             {
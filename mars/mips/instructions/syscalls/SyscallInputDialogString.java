@@ -64,16 +64,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
          String message = new String(); // = "";
          int byteAddress = RegisterFile.getValue(4); // byteAddress of string is in $a0
-         char ch[] = { ' '}; // Need an array to convert to String
          try
          {
-            ch[0] = (char) Globals.memory.getByte(byteAddress);
-            while (ch[0] != 0) // only uses single location ch[0]
-            {
-               message = message.concat(new String(ch)); // parameter to String constructor is a char[] array
-               byteAddress++;
-               ch[0] = (char) Globals.memory.getByte(byteAddress);
-            }
+            message = Globals.memory.readCString(byteAddress);
          }
              catch (AddressErrorException e)
             {
@@ -102,17 +95,25 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             else
             {
                     // The buffer will contain characters, a '\n' character, and the null character
-                    // Copy the input data to buffer as space permits
-               for (int index = 0; (index < inputString.length()) && (index < maxLength - 1); index++)
+                    // Copy the input data to buffer as space permits, in one operation
+               if (maxLength > 0)
                {
-                  Globals.memory.setByte(byteAddress + index,
-                                       inputString.charAt(index));
+                  int length = Math.min(inputString.length(), maxLength - 1);
+                  byte[] bytes = new byte[length + 2];
+                  for (int index = 0; index < length; index++)
+                  {
+                     bytes[index] = (byte) inputString.charAt(index);
+                  }
+                  if (inputString.length() < maxLength-1) 
+                  {
+                     bytes[length++] = '\n';  // newline at string end
+                  }
+                  Globals.memory.writeBytes(byteAddress, bytes, 0, length + 1);  // null char to end string
                }
-               if (inputString.length() < maxLength-1) 
-					{
-                  Globals.memory.setByte(byteAddress + (int)Math.min(inputString.length(), maxLength-2), '\n');  // newline at string end
+               else
+               {
+                  Globals.memory.setByte(byteAddress + maxLength - 1, 0);  // null char to end string
                }
-               Globals.memory.setByte(byteAddress + (int)Math.min((inputString.length()+1), maxLength-1), 0);  // null char to end string
                     
                if (inputString.length() > maxLength - 1)
                {
@@ -67,17 +67,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          int stringLength = Math.min(maxLength, inputString.length());
          try
          {
+            // Characters, then newline if there is room, then null, stored in one operation.
+            byte[] bytes = new byte[stringLength + 2];
             for (int index = 0; index < stringLength; index++)
             {
-               Globals.memory.setByte(buf + index,
-                                       inputString.charAt(index));
+               bytes[index] = (byte) inputString.charAt(index);
             }            
             if (stringLength < maxLength)
             {
-               Globals.memory.setByte(buf + stringLength, '\n');
+               bytes[stringLength] = '\n';
                stringLength++;
             }
-            if (addNullByte) Globals.memory.setByte(buf + stringLength, 0);
+            if (addNullByte) stringLength++; // the null is already in place
+            Globals.memory.writeBytes(buf, bytes, 0, stringLength);
          } 
              catch (AddressErrorException e)
             {
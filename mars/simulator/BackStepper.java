@@ -53,6 +53,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final int COPROC1_CONDITION_CLEAR = 8;
       private static final int COPROC1_CONDITION_SET = 9;
       private static final int DO_NOTHING = 10;  // instruction does not write anything.
+      private static final int MEMORY_RESTORE_BYTES = 11;
    
       // Flag to mark BackStep object as prepresenting specific situation: user manipulates
    	// memory/register value via GUI after assembling program but before running it.
@@ -153,6 +154,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      case MEMORY_RESTORE_BYTE :
                         Globals.memory.setByte(step.param1, step.param2);
                         break;
+                     case MEMORY_RESTORE_BYTES :
+                        Globals.memory.writeBytes(step.param1, step.bytes, 0, step.bytes.length);
+                        break;
                      case REGISTER_RESTORE :
                         RegisterFile.updateRegister(step.param1, step.param2);
                         break;
@@ -243,6 +247,18 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          return value;
       }   
    
+       /**
+   	  * Add a new "back step" (the undo action) to the stack.  The action here
+   	  * is to restore a range of memory bytes, as written by Memory.writeBytes().
+   	  * @param address The first affected memory address.
+   	  * @param values The "restore" values to be stored there, one per byte.  Not copied.
+   	  * @return the argument values
+   	  */
+       public byte[] addMemoryRestoreBytes(int address, byte[] values) {
+         backSteps.push(MEMORY_RESTORE_BYTES, pc(), address, values);
+         return values;
+      }   
+   
        /**
    	  * Add a new "back step" (the undo action) to the stack.  The action here
    	  * is to restore a register file register value.
@@ -338,6 +354,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          private ProgramStatement ps;   // statement whose action is being "undone" here
          private int param1;  // first parameter required by that action
          private int param2;  // optional second parameter required by that action
+         private byte[] bytes;  // restore values for MEMORY_RESTORE_BYTES
          private boolean inDelaySlot; // true if instruction executed in "delay slot" (delayed branching enabled)
       
          // it is critical that BackStep object get its values by calling this method
@@ -363,6 +380,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                } 
             param1 = parm1;
             param2 = parm2;
+            bytes = null;
             inDelaySlot = Simulator.inDelaySlot(); // ADDED 25 June 2007
          /*				
             System.out.println("backstep PUSH: action "+action+" pc "+mars.util.Binary.intToHexString(pc)+
@@ -426,6 +444,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             stack[top].assign(act, programCounter, parm1, parm2);
          }
       	
+          private synchronized void push(int act, int programCounter, int parm1, byte[] values) {
+            push(act, programCounter, parm1, 0);
+            stack[top].bytes = values;
+         }
+      	
           private synchronized void push(int act, int programCounter, int parm1) {
             push(act, programCounter, parm1, 0);
          }
@@ -0,0 +1,748 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import java.io.*;
+   import java.util.*;
+
+/**
+ * Translates a basic block of MIPS code into a JVM class extending TranslatedBlock,
+ * for BlockTranslator.  A block is a run of integer instructions from the basic MIPS
+ * instruction set, ending with a branch or jump, before an instruction that is not
+ * translated (syscall, floating point, coprocessor 0, traps and a few others), or at
+ * MAX_BLOCK_LENGTH instructions.  When self-modifying code is enabled a store also ends
+ * its block, so a store into translated code takes effect with the next instruction.
+ * <p>
+ * Each instruction becomes a few bytecodes operating on the register array, following
+ * the simulation code in MipsAssembly.  Registers are accessed through the array rather
+ * than held in locals, which leaves the JVM's compiler to allocate them.  The class file
+ * is version 49, so it needs no stack map frames and is small enough to write directly.
+ *
+ * @version October 2026
+ * @see BlockTranslator
+ */
+
+    class BlockCompiler {
+   
+      static final int MAX_BLOCK_LENGTH = 64;
+   
+      private static final String BLOCK_CLASS = "mars/simulator/TranslatedMipsBlock";
+      private static final String BASE_CLASS = "mars/simulator/TranslatedBlock";
+      private static final int MAX_STACK = 8;
+   
+      // Translated instructions.  Those from BRANCH on end a block.
+      private static final int NOP = 0, ADD = 1, ADDI = 2, SUB = 3, ADDU = 4, ADDIU = 5, SUBU = 6, 
+         AND = 7, ANDI = 8, OR = 9, ORI = 10, XOR = 11, XORI = 12, NOR = 13, 
+         SLL = 14, SLLV = 15, SRL = 16, SRLV = 17, SRA = 18, SRAV = 19, 
+         SLT = 20, SLTI = 21, SLTU = 22, SLTIU = 23, LUI = 24, MOVN = 25, MOVZ = 26, CLO = 27, CLZ = 28,
+         MULT = 29, MULTU = 30, MUL = 31, DIV = 32, DIVU = 33, MFHI = 34, MFLO = 35, MTHI = 36, MTLO = 37,
+         LW = 38, LH = 39, LHU = 40, LB = 41, LBU = 42, SW = 43, SH = 44, SB = 45,
+         BRANCH = 46, BEQ = 46, BNE = 47, BGEZ = 48, BGEZAL = 49, BGTZ = 50, BLEZ = 51, BLTZ = 52, BLTZAL = 53,
+         J = 54, JAL = 55, JR = 56, JALR = 57, JALR_RA = 58;
+      private static final String[] FORMATS = {
+         "nop", "add $t1,$t2,$t3", "addi $t1,$t2,-100", "sub $t1,$t2,$t3", "addu $t1,$t2,$t3", 
+         "addiu $t1,$t2,-100", "subu $t1,$t2,$t3", "and $t1,$t2,$t3", "andi $t1,$t2,100", 
+         "or $t1,$t2,$t3", "ori $t1,$t2,100", "xor $t1,$t2,$t3", "xori $t1,$t2,100", "nor $t1,$t2,$t3",
+         "sll $t1,$t2,10", "sllv $t1,$t2,$t3", "srl $t1,$t2,10", "srlv $t1,$t2,$t3", "sra $t1,$t2,10",
+         "srav $t1,$t2,$t3", "slt $t1,$t2,$t3", "slti $t1,$t2,-100", "sltu $t1,$t2,$t3", 
+         "sltiu $t1,$t2,-100", "lui $t1,100", "movn $t1,$t2,$t3", "movz $t1,$t2,$t3", "clo $t1,$t2", 
+         "clz $t1,$t2", "mult $t1,$t2", "multu $t1,$t2", "mul $t1,$t2,$t3", "div $t1,$t2", "divu $t1,$t2",
+         "mfhi $t1", "mflo $t1", "mthi $t1", "mtlo $t1", "lw $t1,-100($t2)", "lh $t1,-100($t2)", 
+         "lhu $t1,-100($t2)", "lb $t1,-100($t2)", "lbu $t1,-100($t2)", "sw $t1,-100($t2)", 
+         "sh $t1,-100($t2)", "sb $t1,-100($t2)", "beq $t1,$t2,label", "bne $t1,$t2,label", 
+         "bgez $t1,label", "bgezal $t1,label", "bgtz $t1,label", "blez $t1,label", "bltz $t1,label", 
+         "bltzal $t1,label", "j target", "jal target", "jr $t1", "jalr $t1,$t2", "jalr $t1"};
+      private static final HashMap<String, Integer> operations = new HashMap<String, Integer>();
+      static {
+         for (int i = 0; i < FORMATS.length; i++) {
+            operations.put(FORMATS[i], Integer.valueOf(i));
+         }
+      }
+   
+      // JVM opcodes used.
+      private static final int ICONST_M1 = 2, ICONST_0 = 3, ICONST_1 = 4, BIPUSH = 16, SIPUSH = 17, LDC_W = 19,
+         ALOAD_0 = 42, ALOAD_1 = 43, IALOAD = 46, IASTORE = 79, POP = 87, IADD = 96, ISUB = 100,
+         ISHL = 120, ISHR = 122, IUSHR = 124, IAND = 126, IOR = 128, IXOR = 130,
+         IFEQ = 153, IFNE = 154, IFLT = 155, IFGE = 156, IFGT = 157, IFLE = 158, 
+         IF_ICMPEQ = 159, IF_ICMPNE = 160, IF_ICMPGE = 162, GOTO = 167, IRETURN = 172, RETURN = 177, 
+         PUTFIELD = 181, INVOKESPECIAL = 183, INVOKESTATIC = 184;
+      private static final int ACC_PUBLIC = 0x0001, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+   
+      private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+      private final DataOutputStream constants = new DataOutputStream(constantBytes);
+      private final HashMap<String, Integer> constantIndexes = new HashMap<String, Integer>();
+      private int constantCount = 1;
+      private byte[] code = new byte[1024];
+      private int codeLength = 0;
+   
+   	/**
+   	 * Find the instructions of the block starting at the given address.
+   	 *
+   	 * @param address address of the first instruction, in the text segment
+   	 * @return the statements of the block, or null if the instruction at address is not translated
+   	 * @throws AddressErrorException if address is not a valid text address
+   	 */
+       static ProgramStatement[] findBlock(int address) throws AddressErrorException {
+         boolean storesEndBlock = Globals.getSettings().getBooleanSetting(Settings.SELF_MODIFYING_CODE_ENABLED);
+         ArrayList<ProgramStatement> statements = new ArrayList<ProgramStatement>();
+         while (statements.size() < MAX_BLOCK_LENGTH && Memory.inTextSegment(address)) {
+            ProgramStatement statement = Globals.memory.getStatementNoNotify(address);
+            int operation = operationOf(statement);
+            if (operation < 0) {
+               break;
+            }
+            statements.add(statement);
+            if (operation >= BRANCH || (storesEndBlock && operation >= SW && operation <= SB)) {
+               break;
+            }
+            address += Instruction.INSTRUCTION_LENGTH;
+         }
+         if (statements.isEmpty()) {
+            return null;
+         }
+         return statements.toArray(new ProgramStatement[statements.size()]);
+      }
+   
+      // The translated operation performed by the statement, or -1 if it is not translated.
+      // Instruction sets other than MIPS may reuse the same formats with other meanings.
+       private static int operationOf(ProgramStatement statement) {
+         if (statement == null || !(statement.getInstruction() instanceof BasicInstruction)) {
+            return -1;
+         }
+         BasicInstruction instruction = (BasicInstruction) statement.getInstruction();
+         if (instruction.getSimulationCode().getClass().getEnclosingClass() != MipsAssembly.class) {
+            return -1;
+         }
+         Integer operation = operations.get(instruction.getExampleFormat());
+         return (operation == null) ? -1 : operation.intValue();
+      }
+   
+   	/**
+   	 * Generate the class file for a block.
+   	 *
+   	 * @param statements the statements of the block, as returned by findBlock
+   	 * @param address address of the first statement
+   	 * @return the class file bytes
+   	 * @throws IOException not expected, as the class is written to memory
+   	 */
+       byte[] compile(ProgramStatement[] statements, int address) throws IOException {
+         int thisClass = classConstant(BLOCK_CLASS);
+         int superClass = classConstant(BASE_CLASS);
+         int codeName = utf8Constant("Code");
+         int constructorName = utf8Constant("<init>");
+         int constructorType = utf8Constant("()V");
+         int executeName = utf8Constant("execute");
+         int executeType = utf8Constant("([I)I");
+      
+         emit(ALOAD_0);
+         emit(INVOKESPECIAL);
+         emitShort(methodConstant(BASE_CLASS, "<init>", "()V"));
+         emit(RETURN);
+         byte[] constructorCode = takeCode();
+      
+         boolean ended = false;
+         for (int i = 0; i < statements.length; i++) {
+            ended = translate(statements[i], i, address + i * Instruction.INSTRUCTION_LENGTH);
+         }
+         if (!ended) {
+            pushInt(address + statements.length * Instruction.INSTRUCTION_LENGTH);
+            emit(IRETURN);
+         }
+         byte[] executeCode = takeCode();
+      
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         DataOutputStream out = new DataOutputStream(bytes);
+         out.writeInt(0xCAFEBABE);
+         out.writeShort(0);
+         out.writeShort(49);
+         out.writeShort(constantCount);
+         constants.flush();
+         constantBytes.writeTo(out);
+         out.writeShort(ACC_FINAL | ACC_SUPER);
+         out.writeShort(thisClass);
+         out.writeShort(superClass);
+         out.writeShort(0); // interfaces
+         out.writeShort(0); // fields
+         out.writeShort(2); // methods
+         writeMethod(out, ACC_PUBLIC, constructorName, constructorType, codeName, 1, 1, constructorCode);
+         writeMethod(out, 0, executeName, executeType, codeName, MAX_STACK, 2, executeCode);
+         out.writeShort(0); // attributes
+         out.flush();
+         return bytes.toByteArray();
+      }
+   
+       private static void writeMethod(DataOutputStream out, int access, int name, int type, int codeName,
+                                       int maxStack, int maxLocals, byte[] code) throws IOException {
+         out.writeShort(access);
+         out.writeShort(name);
+         out.writeShort(type);
+         out.writeShort(1); // attributes
+         out.writeShort(codeName);
+         out.writeInt(12 + code.length);
+         out.writeShort(maxStack);
+         out.writeShort(maxLocals);
+         out.writeInt(code.length);
+         out.write(code);
+         out.writeShort(0); // exception table
+         out.writeShort(0); // attributes
+      }
+   
+      // Emit the code for one statement.  Returns true if it ends the block with a return.
+       private boolean translate(ProgramStatement statement, int index, int address) {
+         int[] operands = statement.getOperands();
+         int next = address + Instruction.INSTRUCTION_LENGTH;
+         switch (operationOf(statement)) {
+            case NOP:
+               break;
+            case ADD:
+               setPosition(index);
+               binary(operands, "addExact");
+               break;
+            case ADDI:
+               setPosition(index);
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               pushInt(operands[2] << 16 >> 16);
+               invokeStatic("java/lang/Math", "addExact", "(II)I");
+               endWrite(operands[0]);
+               break;
+            case SUB:
+               setPosition(index);
+               binary(operands, "subtractExact");
+               break;
+            case ADDU:
+               binary(operands, IADD);
+               break;
+            case ADDIU:
+               immediate(operands, operands[2] << 16 >> 16, IADD);
+               break;
+            case SUBU:
+               binary(operands, ISUB);
+               break;
+            case AND:
+               binary(operands, IAND);
+               break;
+            case ANDI:
+               immediate(operands, operands[2] & 0x0000FFFF, IAND);
+               break;
+            case OR:
+               binary(operands, IOR);
+               break;
+            case ORI:
+               immediate(operands, operands[2] & 0x0000FFFF, IOR);
+               break;
+            case XOR:
+               binary(operands, IXOR);
+               break;
+            case XORI:
+               immediate(operands, operands[2] & 0x0000FFFF, IXOR);
+               break;
+            case NOR:
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               readRegister(operands[2]);
+               emit(IOR);
+               emit(ICONST_M1);
+               emit(IXOR);
+               endWrite(operands[0]);
+               break;
+            // The JVM shift instructions use only the low 5 bits of the shift amount, as MIPS does.
+            case SLL:
+               immediate(operands, operands[2], ISHL);
+               break;
+            case SLLV:
+               binary(operands, ISHL);
+               break;
+            case SRL:
+               immediate(operands, operands[2], IUSHR);
+               break;
+            case SRLV:
+               binary(operands, IUSHR);
+               break;
+            case SRA:
+               immediate(operands, operands[2], ISHR);
+               break;
+            case SRAV:
+               binary(operands, ISHR);
+               break;
+            case SLT:
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               readRegister(operands[2]);
+               lessThan();
+               endWrite(operands[0]);
+               break;
+            case SLTI:
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               pushInt(operands[2] << 16 >> 16);
+               lessThan();
+               endWrite(operands[0]);
+               break;
+            // Unsigned comparison is signed comparison with the sign bits flipped.
+            case SLTU:
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               pushInt(Integer.MIN_VALUE);
+               emit(IXOR);
+               readRegister(operands[2]);
+               pushInt(Integer.MIN_VALUE);
+               emit(IXOR);
+               lessThan();
+               endWrite(operands[0]);
+               break;
+            case SLTIU:
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               pushInt(Integer.MIN_VALUE);
+               emit(IXOR);
+               pushInt((operands[2] << 16 >> 16) ^ Integer.MIN_VALUE);
+               lessThan();
+               endWrite(operands[0]);
+               break;
+            case LUI:
+               beginWrite(operands[0]);
+               pushInt(operands[1] << 16);
+               endWrite(operands[0]);
+               break;
+            case MOVN:
+            case MOVZ:
+               readRegister(operands[2]);
+               int skip = branch(operationOf(statement) == MOVN ? IFEQ : IFNE);
+               copyRegister(operands[0], operands[1]);
+               land(skip);
+               break;
+            case CLO:
+            case CLZ:
+               beginWrite(operands[0]);
+               readRegister(operands[1]);
+               if (operationOf(statement) == CLO) {
+                  emit(ICONST_M1);
+                  emit(IXOR);
+               }
+               invokeStatic("java/lang/Integer", "numberOfLeadingZeros", "(I)I");
+               endWrite(operands[0]);
+               break;
+            case MULT:
+               multiplyOrDivide(operands, "mult");
+               break;
+            case MULTU:
+               multiplyOrDivide(operands, "multu");
+               break;
+            case DIV:
+               multiplyOrDivide(operands, "div");
+               break;
+            case DIVU:
+               multiplyOrDivide(operands, "divu");
+               break;
+            case MUL:
+               emit(ALOAD_1);
+               pushInt(operands[0]);
+               pushInt(operands[1]);
+               pushInt(operands[2]);
+               invokeStatic(BASE_CLASS, "mul", "([IIII)V");
+               break;
+            case MFHI:
+               copyRegister(operands[0], TranslatedBlock.HI);
+               break;
+            case MFLO:
+               copyRegister(operands[0], TranslatedBlock.LO);
+               break;
+            case MTHI:
+               copyRegister(TranslatedBlock.HI, operands[0]);
+               break;
+            case MTLO:
+               copyRegister(TranslatedBlock.LO, operands[0]);
+               break;
+            // lw and sw use the offset operand as is, lh, lhu, lb, lbu, sh and sb sign-extend it.
+            case LW:
+               load(index, operands, operands[1], "loadWord");
+               endWrite(operands[0]);
+               break;
+            case LH:
+               load(index, operands, operands[1] << 16 >> 16, "loadHalf");
+               pushInt(16);
+               emit(ISHL);
+               pushInt(16);
+               emit(ISHR);
+               endWrite(operands[0]);
+               break;
+            case LHU:
+               load(index, operands, operands[1] << 16 >> 16, "loadHalf");
+               pushInt(0x0000ffff);
+               emit(IAND);
+               endWrite(operands[0]);
+               break;
+            case LB:
+               load(index, operands, operands[1] << 16 >> 16, "loadByte");
+               pushInt(24);
+               emit(ISHL);
+               pushInt(24);
+               emit(ISHR);
+               endWrite(operands[0]);
+               break;
+            case LBU:
+               load(index, operands, operands[1] << 16 >> 16, "loadByte");
+               pushInt(0x000000ff);
+               emit(IAND);
+               endWrite(operands[0]);
+               break;
+            case SW:
+               store(index, operands, operands[1], 0, "storeWord");
+               break;
+            case SH:
+               store(index, operands, operands[1] << 16 >> 16, 0x0000ffff, "storeHalf");
+               break;
+            case SB:
+               store(index, operands, operands[1] << 16 >> 16, 0x000000ff, "storeByte");
+               break;
+            case BEQ:
+               readRegister(operands[0]);
+               readRegister(operands[1]);
+               conditionalBranch(IF_ICMPNE, next + (operands[2] << 2), next, false);
+               return true;
+            case BNE:
+               readRegister(operands[0]);
+               readRegister(operands[1]);
+               conditionalBranch(IF_ICMPEQ, next + (operands[2] << 2), next, false);
+               return true;
+            case BGEZ:
+            case BGEZAL:
+               readRegister(operands[0]);
+               conditionalBranch(IFLT, next + (operands[1] << 2), next, operationOf(statement) == BGEZAL);
+               return true;
+            case BGTZ:
+               readRegister(operands[0]);
+               conditionalBranch(IFLE, next + (operands[1] << 2), next, false);
+               return true;
+            case BLEZ:
+               readRegister(operands[0]);
+               conditionalBranch(IFGT, next + (operands[1] << 2), next, false);
+               return true;
+            case BLTZ:
+            case BLTZAL:
+               readRegister(operands[0]);
+               conditionalBranch(IFGE, next + (operands[1] << 2), next, operationOf(statement) == BLTZAL);
+               return true;
+            case JAL:
+               writeRegister(31, next);
+               pushInt((next & 0xF0000000) | (operands[0] << 2));
+               emit(IRETURN);
+               return true;
+            case J:
+               pushInt((next & 0xF0000000) | (operands[0] << 2));
+               emit(IRETURN);
+               return true;
+            case JR:
+               readRegister(operands[0]);
+               emit(IRETURN);
+               return true;
+            // The return address is written first, so jalr with both registers the same jumps to it.
+            case JALR:
+               writeRegister(operands[0], next);
+               readRegister(operands[1]);
+               emit(IRETURN);
+               return true;
+            case JALR_RA:
+               writeRegister(31, next);
+               readRegister(operands[0]);
+               emit(IRETURN);
+               return true;
+         }
+         return false;
+      }
+   
+      // registers[operands[0]] = registers[operands[1]] op registers[operands[2]]
+       private void binary(int[] operands, int opcode) {
+         beginWrite(operands[0]);
+         readRegister(operands[1]);
+         readRegister(operands[2]);
+         emit(opcode);
+         endWrite(operands[0]);
+      }
+   
+      // As above, with a Math method that throws ArithmeticException on overflow.
+       private void binary(int[] operands, String mathMethod) {
+         beginWrite(operands[0]);
+         readRegister(operands[1]);
+         readRegister(operands[2]);
+         invokeStatic("java/lang/Math", mathMethod, "(II)I");
+         endWrite(operands[0]);
+      }
+   
+      // registers[operands[0]] = registers[operands[1]] op value
+       private void immediate(int[] operands, int value, int opcode) {
+         beginWrite(operands[0]);
+         readRegister(operands[1]);
+         pushInt(value);
+         emit(opcode);
+         endWrite(operands[0]);
+      }
+   
+       private void multiplyOrDivide(int[] operands, String method) {
+         emit(ALOAD_1);
+         pushInt(operands[0]);
+         pushInt(operands[1]);
+         invokeStatic(BASE_CLASS, method, "([III)V");
+      }
+   
+      // Leaves the value loaded on the stack, above the destination pushed by beginWrite.
+       private void load(int index, int[] operands, int offset, String method) {
+         setPosition(index);
+         beginWrite(operands[0]);
+         readRegister(operands[2]);
+         pushInt(offset);
+         emit(IADD);
+         invokeStatic(BASE_CLASS, method, "(I)I");
+      }
+   
+       private void store(int index, int[] operands, int offset, int mask, String method) {
+         setPosition(index);
+         readRegister(operands[2]);
+         pushInt(offset);
+         emit(IADD);
+         readRegister(operands[0]);
+         if (mask != 0) {
+            pushInt(mask);
+            emit(IAND);
+         }
+         invokeStatic(BASE_CLASS, method, "(II)V");
+      }
+   
+      // With the operands of a condition on the stack, return the branch target if it holds
+      // and the next address if it does not.  skipOpcode branches if the condition does not hold.
+       private void conditionalBranch(int skipOpcode, int target, int next, boolean link) {
+         int skip = branch(skipOpcode);
+         if (link) {
+            writeRegister(31, next);
+         }
+         pushInt(target);
+         emit(IRETURN);
+         land(skip);
+         pushInt(next);
+         emit(IRETURN);
+      }
+   
+      // Replace the two values on the stack by 1 if the first is less than the second, else 0.
+       private void lessThan() {
+         int notLess = branch(IF_ICMPGE);
+         emit(ICONST_1);
+         int end = branch(GOTO);
+         land(notLess);
+         emit(ICONST_0);
+         land(end);
+      }
+   
+       private void setPosition(int index) {
+         emit(ALOAD_0);
+         pushInt(index);
+         emit(PUTFIELD);
+         emitShort(memberConstant(9, BASE_CLASS, "position", "I"));
+      }
+   
+       private void readRegister(int number) {
+         if (number == 0) {
+            emit(ICONST_0);
+         } 
+         else {
+            emit(ALOAD_1);
+            pushInt(number);
+            emit(IALOAD);
+         }
+      }
+   
+      // Writes to register 0 are discarded, but the value is still computed as it may fault.
+       private void beginWrite(int number) {
+         if (number != 0) {
+            emit(ALOAD_1);
+            pushInt(number);
+         }
+      }
+   
+       private void endWrite(int number) {
+         emit((number != 0) ? IASTORE : POP);
+      }
+   
+       private void copyRegister(int destination, int source) {
+         beginWrite(destination);
+         readRegister(source);
+         endWrite(destination);
+      }
+   
+       private void writeRegister(int number, int value) {
+         beginWrite(number);
+         pushInt(value);
+         endWrite(number);
+      }
+   
+       private void invokeStatic(String owner, String name, String type) {
+         emit(INVOKESTATIC);
+         emitShort(methodConstant(owner, name, type));
+      }
+   
+       private void pushInt(int value) {
+         if (value >= -1 && value <= 5) {
+            emit(ICONST_0 + value);
+         } 
+         else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            emit(BIPUSH);
+            emit(value);
+         } 
+         else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            emit(SIPUSH);
+            emitShort(value);
+         } 
+         else {
+            emit(LDC_W);
+            emitShort(integerConstant(value));
+         }
+      }
+   
+      // Emit a forward branch, returning its position for land().
+       private int branch(int opcode) {
+         int position = codeLength;
+         emit(opcode);
+         emitShort(0);
+         return position;
+      }
+   
+      // Make the branch at the given position jump to the current position.
+       private void land(int branch) {
+         int offset = codeLength - branch;
+         code[branch + 1] = (byte) (offset >> 8);
+         code[branch + 2] = (byte) offset;
+      }
+   
+       private void emit(int value) {
+         if (codeLength == code.length) {
+            byte[] larger = new byte[code.length * 2];
+            System.arraycopy(code, 0, larger, 0, codeLength);
+            code = larger;
+         }
+         code[codeLength++] = (byte) value;
+      }
+   
+       private void emitShort(int value) {
+         emit(value >> 8);
+         emit(value);
+      }
+   
+       private byte[] takeCode() {
+         byte[] result = new byte[codeLength];
+         System.arraycopy(code, 0, result, 0, codeLength);
+         codeLength = 0;
+         return result;
+      }
+   
+      // Constant pool entries, each added once.  The DataOutputStream writes to memory, 
+      // so its IOException cannot occur.
+   
+       private int utf8Constant(String value) {
+         Integer index = constantIndexes.get("U" + value);
+         if (index == null) {
+            try {
+               constants.writeByte(1);
+               constants.writeUTF(value);
+            } 
+                catch (IOException e) {
+               }
+            index = newConstant("U" + value);
+         }
+         return index.intValue();
+      }
+   
+       private int classConstant(String name) {
+         Integer index = constantIndexes.get("C" + name);
+         if (index == null) {
+            int nameIndex = utf8Constant(name);
+            writeConstant(7, nameIndex, -1);
+            index = newConstant("C" + name);
+         }
+         return index.intValue();
+      }
+   
+       private int methodConstant(String owner, String name, String type) {
+         return memberConstant(10, owner, name, type);
+      }
+   
+      // A field (tag 9) or method (tag 10) reference.
+       private int memberConstant(int tag, String owner, String name, String type) {
+         String key = tag + owner + "." + name + type;
+         Integer index = constantIndexes.get(key);
+         if (index == null) {
+            int ownerIndex = classConstant(owner);
+            Integer nameAndType = constantIndexes.get("N" + name + type);
+            if (nameAndType == null) {
+               int nameIndex = utf8Constant(name);
+               int typeIndex = utf8Constant(type);
+               writeConstant(12, nameIndex, typeIndex);
+               nameAndType = newConstant("N" + name + type);
+            }
+            writeConstant(tag, ownerIndex, nameAndType.intValue());
+            index = newConstant(key);
+         }
+         return index.intValue();
+      }
+   
+       private int integerConstant(int value) {
+         Integer index = constantIndexes.get("I" + value);
+         if (index == null) {
+            try {
+               constants.writeByte(3);
+               constants.writeInt(value);
+            } 
+                catch (IOException e) {
+               }
+            index = newConstant("I" + value);
+         }
+         return index.intValue();
+      }
+   
+      // Write a constant made of a tag and one or two constant pool indexes.
+       private void writeConstant(int tag, int first, int second) {
+         try {
+            constants.writeByte(tag);
+            constants.writeShort(first);
+            if (second >= 0) {
+               constants.writeShort(second);
+            }
+         } 
+             catch (IOException e) {
+            }
+      }
+   
+       private Integer newConstant(String key) {
+         Integer index = Integer.valueOf(constantCount++);
+         constantIndexes.put(key, index);
+         return index;
+      }
+   }
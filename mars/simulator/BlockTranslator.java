@@ -0,0 +1,268 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import mars.util.*;
+   import java.lang.invoke.*;
+
+/**
+ * Tiered execution of the text segment.  The simulator interprets instructions one at
+ * a time, and after each one asks the translator to run from the new program counter.
+ * The translator counts how often each address is reached this way, and once an address
+ * has been reached TRANSLATION_THRESHOLD times, translates the basic block starting there
+ * into a JVM class with BlockCompiler and defines it as a hidden class.  From then on the
+ * block runs as JVM bytecode, which the JVM's own compiler turns into machine code,
+ * and blocks that follow one another are run without returning to the interpreter.
+ * <p>
+ * While translated code runs, registers are held in an int array; they are copied from 
+ * the register file on entry and changed values copied back on exit.  Instructions that
+ * raise exceptions, and accesses to memory-mapped I/O, are left to the interpreter, so
+ * exceptions, interrupts and device behavior are exactly as without translation.  Blocks
+ * stop short of scheduled device events and of the step limit, and execution counts are
+ * added to the performance counters.  A write into the text segment discards any block
+ * containing the address written.
+ * <p>
+ * Translation is used only for command mode runs without delayed branching, backstepping,
+ * breakpoints, retire listeners or memory observers and tracers, as those need to see each
+ * instruction.  Otherwise the simulator interprets as before.
+ * <p>
+ * As with DelayedBranch, there is only one simulated processor so everything here is done
+ * with statics.  Methods are called by the simulator thread holding Globals.memoryAndRegistersLock,
+ * except when the simulator is not running.
+ *
+ * @version October 2026
+ * @see BlockCompiler
+ * @see TranslatedBlock
+ */
+
+    public class BlockTranslator {
+   
+      /** Number of times an address is reached by the interpreter before its block is translated. */
+      public static final int TRANSLATION_THRESHOLD = 50;
+      // Most instructions run per call to run(), so the simulator regularly checks for a stop request.
+      private static final int RUN_LIMIT = 1 << 20;
+      private static final int PAGE_BITS = 10;
+      private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+      // Profile count given to addresses whose block cannot be translated, so they are not tried again.
+      private static final int NOT_TRANSLATED = Integer.MIN_VALUE;
+   
+      private static boolean enabled = false;
+      private static boolean selfModifyingCode = false;
+      // Blocks and profile counts by word index in the text segment, in pages allocated on demand.
+      private static TranslatedBlock[][] blocks;
+      private static int[][] counts;
+      private static int blockCount = 0;
+      private static final int[] registers = new int[TranslatedBlock.LO + 1];
+      private static final int[] savedRegisters = new int[TranslatedBlock.LO + 1];
+   
+   	/**
+   	 * Turn translation on or off.  It is off by default.
+   	 *
+   	 * @param enable true to translate hot code in command mode runs
+   	 */
+       public static void setEnabled(boolean enable) {
+         enabled = enable;
+      }
+   
+   	/**
+   	 * Tell whether translation is on.
+   	 *
+   	 * @return true if translation is on
+   	 */
+       public static boolean isEnabled() {
+         return enabled;
+      }
+   
+   	/**
+   	 * Discard all blocks and profile counts.  Called by Memory when it is cleared.
+   	 */
+       public static void reset() {
+         int pages = ((Memory.textLimitAddress - Memory.textBaseAddress) >>> (PAGE_BITS + 2)) + 1;
+         blocks = new TranslatedBlock[pages][];
+         counts = new int[pages][];
+         blockCount = 0;
+      }
+   
+   	/**
+   	 * Discard any block containing the given address.  Called by Memory when a statement is
+   	 * stored in the text segment.
+   	 *
+   	 * @param address the text segment address written
+   	 */
+       public static void textWritten(int address) {
+         if (blockCount == 0) {
+            return;
+         }
+         for (int i = 0; i < BlockCompiler.MAX_BLOCK_LENGTH; i++) {
+            int start = address - i * Instruction.INSTRUCTION_LENGTH;
+            int index = indexOf(start);
+            if (index >= 0 && blocks[index >>> PAGE_BITS] != null) {
+               TranslatedBlock block = blocks[index >>> PAGE_BITS][index & PAGE_MASK];
+               if (block != null && block.endAddress > address) {
+                  blocks[index >>> PAGE_BITS][index & PAGE_MASK] = null;
+                  counts[index >>> PAGE_BITS][index & PAGE_MASK] = 0;
+                  blockCount--;
+               }
+            }
+         }
+      }
+   
+      // Called by the simulator when a run starts.  Returns false if the settings rule out
+      // translation.  Blocks end differently with self-modifying code, so they are discarded
+      // when that setting changes.
+       static boolean runStarting() {
+         if (!enabled || Globals.getSettings().getDelayedBranchingEnabled() 
+             || Globals.getSettings().getBackSteppingEnabled()) {
+            return false;
+         }
+         boolean selfModifying = Globals.getSettings().getBooleanSetting(Settings.SELF_MODIFYING_CODE_ENABLED);
+         if (selfModifying != selfModifyingCode) {
+            selfModifyingCode = selfModifying;
+            reset();
+         }
+         return true;
+      }
+   
+      // Called by the simulator after an instruction, holding the lock.  Runs translated blocks
+      // starting at the program counter for as long as possible, up to maxInstructions, and 
+      // returns the number of instructions executed.  The register file and program counter are
+      // up to date on return.
+       static int run(int maxInstructions, PerformanceCounters counters) {
+         int pc = RegisterFile.getProgramCounter();
+         TranslatedBlock block = lookup(pc);
+         if (block == null || Globals.memory.countObservers() > 0 || Globals.memory.hasAccessTracers()) {
+            return 0;
+         }
+         Register[] registerFile = RegisterFile.getRegisters();
+         for (int i = 1; i < 32; i++) {
+            registers[i] = registerFile[i].getValueNoNotify();
+         }
+         registers[TranslatedBlock.HI] = RegisterFile.getHiRegister().getValueNoNotify();
+         registers[TranslatedBlock.LO] = RegisterFile.getLoRegister().getValueNoNotify();
+         System.arraycopy(registers, 0, savedRegisters, 0, registers.length);
+         int limit = Math.min(maxInstructions, RUN_LIMIT);
+         int executed = 0;
+         while (block != null && block.length <= limit - executed 
+                && block.length < EventScheduler.instructionsBeforeNextEvent()
+                && Simulator.externalInterruptingDevice == Simulator.NO_DEVICE) {
+            int completed = block.length;
+            try {
+               pc = block.execute(registers);
+            } 
+            // The instruction at position did not complete.  The interpreter will perform it.
+                catch (AddressErrorException e) {
+                  completed = block.position;
+               } 
+                catch (RuntimeException e) {
+                  completed = block.position;
+               }
+            counters.instructionsRetired(block.serialNumbers, completed, 
+               completed == block.length && pc != block.endAddress);
+            EventScheduler.instructionsExecuted(completed);
+            executed += completed;
+            if (completed < block.length) {
+               pc = block.address + completed * Instruction.INSTRUCTION_LENGTH;
+               break;
+            }
+            block = lookup(pc);
+         }
+         for (int i = 1; i < registers.length; i++) {
+            if (registers[i] != savedRegisters[i]) {
+               // hi and lo are numbered 33 and 34 in the register file.
+               RegisterFile.updateRegister((i < TranslatedBlock.HI) ? i : i + 1, registers[i]);
+            }
+         }
+         RegisterFile.setProgramCounter(pc);
+         return executed;
+      }
+   
+      // Get the block starting at the address, counting the visit and translating the block
+      // if the address has become hot.  Returns null if there is no block yet.
+       private static TranslatedBlock lookup(int address) {
+         int index = indexOf(address);
+         if (index < 0) {
+            return null;
+         }
+         int page = index >>> PAGE_BITS;
+         if (blocks[page] == null) {
+            blocks[page] = new TranslatedBlock[PAGE_MASK + 1];
+            counts[page] = new int[PAGE_MASK + 1];
+         }
+         TranslatedBlock block = blocks[page][index & PAGE_MASK];
+         if (block == null && ++counts[page][index & PAGE_MASK] == TRANSLATION_THRESHOLD) {
+            block = translate(address);
+            if (block == null) {
+               counts[page][index & PAGE_MASK] = NOT_TRANSLATED;
+            } 
+            else {
+               blocks[page][index & PAGE_MASK] = block;
+               blockCount++;
+            }
+         }
+         return block;
+      }
+   
+      // Word index of a text segment address, or -1 if it is not an aligned text segment address.
+       private static int indexOf(int address) {
+         if (!Memory.inTextSegment(address) || (address & 3) != 0) {
+            return -1;
+         }
+         return (address - Memory.textBaseAddress) >>> 2;
+      }
+   
+       private static TranslatedBlock translate(int address) {
+         try {
+            ProgramStatement[] statements = BlockCompiler.findBlock(address);
+            if (statements == null) {
+               return null;
+            }
+            byte[] classBytes = new BlockCompiler().compile(statements, address);
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classBytes, true);
+            TranslatedBlock block = (TranslatedBlock) lookup.findConstructor(lookup.lookupClass(), 
+               MethodType.methodType(void.class)).invoke();
+            block.address = address;
+            block.length = statements.length;
+            block.endAddress = address + statements.length * Instruction.INSTRUCTION_LENGTH;
+            block.serialNumbers = new int[statements.length];
+            for (int i = 0; i < statements.length; i++) {
+               block.serialNumbers[i] = ((BasicInstruction) statements[i].getInstruction()).getSerialNumber();
+            }
+            return block;
+         } 
+             catch (Throwable e) {
+               if (Globals.debug) {
+                  System.out.println("block at " + Binary.intToHexString(address) + " not translated: " + e);
+               }
+               return null;
+            }
+      }
+   }
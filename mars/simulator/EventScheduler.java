@@ -0,0 +1,162 @@
+package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import java.util.*;
+
+/**
+ * Discrete-event scheduler keyed on MIPS instruction count.  Simulated devices
+ * schedule a ScheduledEvent to fire a given number of instructions in the 
+ * future, for instance to set a Ready bit when a transmit delay expires, or to 
+ * raise a timer interrupt.  Pending events are kept in a min-heap ordered by the
+ * instruction count at which they fire.  The simulator compares the running 
+ * instruction count against a single value, the count of the earliest pending 
+ * event, so any number of timer devices add no per-instruction cost beyond that
+ * one comparison.  Events due at the same count fire in the order scheduled, 
+ * which makes interrupt-driven programs repeatable from run to run.
+ *
+ * As with DelayedBranch, there is only one simulated processor so everything
+ * here is done with statics.
+ *
+ * @version October 2026
+ **/
+
+public class EventScheduler {
+
+   private static long instructionCount = 0;
+   private static volatile long nextEventCount = Long.MAX_VALUE;
+   private static long sequence = 0; // breaks ties between events due at the same count
+   private static PriorityQueue<PendingEvent> pending = new PriorityQueue<PendingEvent>();
+	
+   /**
+    *  Schedule an event to fire after the given number of instructions have executed.
+    *  When called during execution of an instruction, that instruction is included in 
+    *  the count.  May be called from any thread.
+    *
+    *  @param event the event to fire
+    *  @param delay number of instructions to execute before firing, at least 1
+    */
+   public static synchronized void schedule(ScheduledEvent event, long delay) {
+      pending.add(new PendingEvent(event, instructionCount + Math.max(delay, 1), sequence++));
+      nextEventCount = pending.peek().fireAt;
+   }
+	
+   /**
+    *  Cancel all pending occurrences of the given event.  May be called from any thread.
+    *
+    *  @param event the event to cancel
+    */
+   public static synchronized void cancel(ScheduledEvent event) {
+      Iterator<PendingEvent> it = pending.iterator();
+      while (it.hasNext()) {
+         if (it.next().event == event) {
+            it.remove();
+         }
+      }
+      nextEventCount = pending.isEmpty() ? Long.MAX_VALUE : pending.peek().fireAt;
+   }
+	
+   /**
+    *  Return the number of MIPS instructions executed since MARS started.
+    *
+    *  @return instruction count
+    */
+   public static long getInstructionCount() {
+      return instructionCount;
+   }
+
+   /**
+    *  Count one executed instruction and fire any events that are now due.  Called 
+    *  by the simulator at the end of each instruction cycle.  This method has package
+    *  visibility.
+    */
+   static void instructionExecuted() {
+      if (++instructionCount >= nextEventCount) {
+         fireDueEvents();
+      }
+   }
+	
+   /**
+    *  Return the number of instructions that will execute before the next event is due,
+    *  counting the one at which it fires.  This method has package visibility.
+    *
+    *  @return instruction count, very large if no event is pending
+    */
+   static long instructionsBeforeNextEvent() {
+      return nextEventCount - instructionCount;
+   }
+
+   /**
+    *  Count a number of executed instructions and fire any events that are now due.  Called
+    *  by BlockTranslator for the instructions of translated blocks.  This method has package
+    *  visibility.
+    *
+    *  @param count number of instructions executed
+    */
+   static void instructionsExecuted(int count) {
+      instructionCount += count;
+      if (instructionCount >= nextEventCount) {
+         fireDueEvents();
+      }
+   }
+	
+   // Events are removed from the heap before any is fired, so an event 
+   // may schedule or cancel events (including itself) when fired.
+   private static void fireDueEvents() {
+      ArrayList<PendingEvent> due = new ArrayList<PendingEvent>();
+      synchronized (EventScheduler.class) {
+         while (!pending.isEmpty() && pending.peek().fireAt <= instructionCount) {
+            due.add(pending.poll());
+         }
+         nextEventCount = pending.isEmpty() ? Long.MAX_VALUE : pending.peek().fireAt;
+      }
+      for (int i = 0; i < due.size(); i++) {
+         due.get(i).event.fire(instructionCount);
+      }
+   }
+	
+   // An event together with the instruction count at which it is to fire.
+   private static class PendingEvent implements Comparable<PendingEvent> {
+      private ScheduledEvent event;
+      private long fireAt, sequence;
+   	
+      public PendingEvent(ScheduledEvent event, long fireAt, long sequence) {
+         this.event = event;
+         this.fireAt = fireAt;
+         this.sequence = sequence;
+      }
+   	
+      public int compareTo(PendingEvent other) {
+         if (fireAt != other.fireAt) {
+            return (fireAt < other.fireAt) ? -1 : 1;
+         }
+         return (sequence < other.sequence) ? -1 : (sequence > other.sequence) ? 1 : 0;
+      }
+   }
+}
@@ -0,0 +1,436 @@
+package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import mars.*;
+import mars.mips.hardware.*;
+import mars.util.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.imageio.*;
+
+/**
+ * A headless counterpart of the Bitmap Display tool: captures the display's region
+ * of memory as image frames while the MIPS program runs, so programs that draw can
+ * be checked without a GUI.  As in the tool, each memory word starting at the base
+ * address is one display unit, in row-major order, whose color is the 24-bit RGB
+ * value in its low order bytes.
+ * <p>
+ * Frames are captured after given numbers of instructions, just before the program
+ * performs a given syscall service, and at exit.  The simulator thread only copies
+ * the region's words; a background thread encodes and writes the frames, so it is
+ * stalled only if frames are captured faster than they can be written.  Frames are
+ * written either as PNG images, one file per frame, or to one raw file:
+ * the four bytes <tt>MFB1</tt>, the number of columns and of rows (4-byte integers),
+ * then for each frame the instruction count (8-byte integer) and 3 bytes, red, green
+ * and blue, per unit.  All numbers are big-endian.
+ * <p>
+ * It is used by the "fb" command line option.
+ *
+ * @version October 2026
+ */
+
+    public class FramebufferCapture implements ScheduledEvent, RetireListener {
+
+      private static final int FRAMES_QUEUED = 8; // frames copied but not yet written before capture waits
+      private static final int SYSCALL_OPERATION = 0x0000000C;
+      private static final int SYSCALL_MASK = 0xFC00003F; // opcode and function fields
+
+      private String base = "data";  // resolved when capture starts, once the memory configuration is set
+      private int baseAddress;
+      private int width = 512, height = 256;  // display size in pixels
+      private int unitWidth = 1, unitHeight = 1;  // unit size in pixels
+      private int columns, rows;
+      private long[] captureCounts = new long[0]; // sorted instruction counts at which to capture
+      private int nextCapture;
+      private long interval;  // capture every interval instructions if more than 0
+      private long nextIntervalCapture;
+      private long startCount;  // EventScheduler instruction count when the program started
+      private int syscallMarker = -1;  // capture before this syscall service, if 0 or more
+      private boolean captureAtExit;
+      private boolean raw;
+      private String fileName = "frame";
+
+      private File file;
+      private DataOutputStream rawOutput;
+      private int framesCaptured;
+      private BlockingQueue<Frame> frames;
+      private Thread encoder;
+      private volatile IOException error;
+      private static final Frame END = new Frame(0, null);
+
+   	/**
+   	 * Create a framebuffer capture from a specification of comma separated options:
+   	 * <tt>base=</tt> the display's base address, a number or one of <tt>global</tt>,
+   	 * <tt>gp</tt>, <tt>data</tt> (default), <tt>heap</tt> or <tt>mmio</tt>, as in the
+   	 * Bitmap Display tool; <tt>width=</tt> and <tt>height=</tt> in pixels (default 512 
+   	 * and 256); <tt>unit=</tt> the unit width, or width and height separated by <tt>x</tt>,
+   	 * in pixels (default 1); <tt>at=</tt> instruction counts, separated by <tt>:</tt>;
+   	 * <tt>every=</tt> an instruction count; <tt>syscall=</tt> a syscall service number;
+   	 * <tt>exit</tt>; <tt>format=png</tt> (default) or <tt>raw</tt>; and <tt>file=</tt>
+   	 * the file name without extension (default <tt>frame</tt>).  PNG frames are numbered
+   	 * from 1, e.g. <tt>frame-0001.png</tt>.  If no capture point is given, a frame is
+   	 * captured at exit.  For example, <tt>base=gp,unit=8,syscall=32,exit,file=out/f</tt>.
+   	 *
+   	 * @param specification the specification
+   	 * @throws IllegalArgumentException if the specification is invalid
+   	 */
+       public FramebufferCapture(String specification) {
+         StringTokenizer options = new StringTokenizer(specification, ",");
+         while (options.hasMoreTokens()) {
+            String option = options.nextToken();
+            int equals = option.indexOf('=');
+            String name = ((equals < 0) ? option : option.substring(0, equals)).toLowerCase();
+            String value = (equals < 0) ? "" : option.substring(equals + 1);
+            if (name.equals("exit") && equals < 0) {
+               captureAtExit = true;
+            }
+            else if (equals < 0) {
+               throw new IllegalArgumentException("missing '=' in " + option);
+            }
+            else if (name.equals("base")) {
+               parseBaseAddress(value); // checked now, resolved in start()
+               base = value;
+            }
+            else if (name.equals("width")) {
+               width = parsePositive(name, value);
+            }
+            else if (name.equals("height")) {
+               height = parsePositive(name, value);
+            }
+            else if (name.equals("unit")) {
+               int x = value.toLowerCase().indexOf('x');
+               unitWidth = parsePositive(name, (x < 0) ? value : value.substring(0, x));
+               unitHeight = (x < 0) ? unitWidth : parsePositive(name, value.substring(x + 1));
+            }
+            else if (name.equals("at")) {
+               String[] counts = value.split(":");
+               captureCounts = new long[counts.length];
+               for (int i = 0; i < counts.length; i++) {
+                  captureCounts[i] = parsePositive(name, counts[i]);
+               }
+               Arrays.sort(captureCounts);
+            }
+            else if (name.equals("every")) {
+               interval = parsePositive(name, value);
+            }
+            else if (name.equals("syscall")) {
+               syscallMarker = parsePositive(name, value);
+            }
+            else if (name.equals("format") && (value.equalsIgnoreCase("png") || value.equalsIgnoreCase("raw"))) {
+               raw = value.equalsIgnoreCase("raw");
+            }
+            else if (name.equals("file") && value.length() > 0) {
+               fileName = value;
+            }
+            else {
+               throw new IllegalArgumentException("unknown option " + option);
+            }
+         }
+         columns = width / unitWidth;
+         rows = height / unitHeight;
+         if (columns == 0 || rows == 0) {
+            throw new IllegalArgumentException("unit is larger than the display");
+         }
+         if (captureCounts.length == 0 && interval == 0 && syscallMarker < 0) {
+            captureAtExit = true;
+         }
+      }
+
+   	/**
+   	 * Return the file name given in the specification, without extension.
+   	 * @return the file name
+   	 */
+       public String getFileName() {
+         return fileName;
+      }
+
+   	/**
+   	 * Return whether frames are to be captured when the program performs a syscall, 
+   	 * in which case this must be added as a retire listener with batch size 1.
+   	 * @return true if capturing at a syscall service
+   	 */
+       public boolean capturesAtSyscall() {
+         return syscallMarker >= 0;
+      }
+
+   	/**
+   	 * Start the background thread that writes frames, and schedule the captures after 
+   	 * given instruction counts.  Call before the program runs.
+   	 *
+   	 * @param file the file name, without extension, to write frames to
+   	 * @throws IOException if the raw file cannot be created
+   	 */
+       public void start(File file) throws IOException {
+         this.file = file;
+         baseAddress = parseBaseAddress(base);
+         if (raw) {
+            rawOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.getPath() + ".raw")));
+            rawOutput.writeBytes("MFB1");
+            rawOutput.writeInt(columns);
+            rawOutput.writeInt(rows);
+         }
+         frames = new ArrayBlockingQueue<Frame>(FRAMES_QUEUED);
+         encoder = 
+            new Thread("MARS framebuffer encoder") {
+               public void run() {
+                  writeFrames();
+               }
+            };
+         encoder.setDaemon(true);
+         encoder.start();
+         startCount = EventScheduler.getInstructionCount();
+         nextIntervalCapture = interval;
+         scheduleNext(0);
+      }
+
+   	/**
+   	 * Capture the frame at exit if requested, then wait for all frames to be written.
+   	 * Call when the program has finished.
+   	 *
+   	 * @throws IOException if a frame could not be written
+   	 */
+       public void finish() throws IOException {
+         EventScheduler.cancel(this);
+         if (captureAtExit) {
+            capture();
+         }
+         put(END);
+         try {
+            encoder.join();
+         } 
+             catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         if (rawOutput != null) {
+            rawOutput.close();
+         }
+         if (error != null) {
+            throw error;
+         }
+      }
+
+   	/**
+   	 * Called by the EventScheduler after the scheduled numbers of instructions.
+   	 * @param instructionCount the number of instructions executed since MARS started
+   	 */
+       public void fire(long instructionCount) {
+         capture();
+         scheduleNext(instructionCount - startCount);
+      }
+
+      // Schedule one event for the earliest capture point after the given count, if any.
+       private void scheduleNext(long instructionCount) {
+         while (nextCapture < captureCounts.length && captureCounts[nextCapture] <= instructionCount) {
+            nextCapture++;
+         }
+         long next = (nextCapture < captureCounts.length) ? captureCounts[nextCapture] : Long.MAX_VALUE;
+         if (interval > 0) {
+            while (nextIntervalCapture <= instructionCount) {
+               nextIntervalCapture += interval;
+            }
+            next = Math.min(next, nextIntervalCapture);
+         }
+         if (next != Long.MAX_VALUE) {
+            EventScheduler.schedule(this, next - instructionCount);
+         }
+      }
+
+   	/**
+   	 * Called by the simulator after each instruction.  Captures a frame if the next 
+   	 * instruction is a syscall for the marker service, before it is performed.
+   	 * @param events array holding the events; only the first count elements are valid
+   	 * @param count number of events delivered
+   	 */
+       public void instructionsRetired(RetireEvent[] events, int count) {
+         if (RegisterFile.getValue(2) != syscallMarker) {
+            return;
+         }
+         try {
+            ProgramStatement next = Globals.memory.getStatementNoNotify(RegisterFile.getProgramCounter());
+            if (next != null && (next.getBinaryStatement() & SYSCALL_MASK) == SYSCALL_OPERATION) {
+               capture();
+            }
+         } 
+             catch (AddressErrorException e) {
+            }
+      }
+
+      // Copy the display's words and queue them to be written.
+       private void capture() {
+         int[] words = new int[columns * rows];
+         int offset = 0;
+         while (offset < words.length) {
+            int address = baseAddress + offset * Memory.WORD_LENGTH_BYTES;
+            try {
+               int count = Globals.memory.getRawWords(address, words, offset, words.length - offset);
+               if (count == 0) {
+                  // Unallocated (reads as 0) or outside the segments read in bulk.
+                  words[offset] = Globals.memory.getWordNoNotify(address);
+                  count = 1;
+               }
+               offset += count;
+            } 
+                catch (AddressErrorException e) {
+                  offset++; // not a valid address; leave the unit black
+               }
+         }
+         put(new Frame(EventScheduler.getInstructionCount() - startCount, words));
+      }
+
+       private void put(Frame frame) {
+         try {
+            frames.put(frame);
+         } 
+             catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+      }
+
+      // Body of the encoder thread: write queued frames until the end is reached.
+      // After an error, frames are taken but no longer written.
+       private void writeFrames() {
+         while (true) {
+            Frame frame;
+            try {
+               frame = frames.take();
+            } 
+                catch (InterruptedException e) {
+                  return;
+               }
+            if (frame == END) {
+               return;
+            }
+            if (error == null) {
+               try {
+                  writeFrame(frame);
+               } 
+                   catch (IOException e) {
+                     error = e;
+                  }
+            }
+         }
+      }
+
+       private void writeFrame(Frame frame) throws IOException {
+         framesCaptured++;
+         if (raw) {
+            byte[] rgb = new byte[frame.words.length * 3];
+            for (int i = 0; i < frame.words.length; i++) {
+               int word = frame.words[i];
+               rgb[3 * i] = (byte) (word >> 16);
+               rgb[3 * i + 1] = (byte) (word >> 8);
+               rgb[3 * i + 2] = (byte) word;
+            }
+            rawOutput.writeLong(frame.instructionCount);
+            rawOutput.write(rgb);
+            return;
+         }
+         BufferedImage image = new BufferedImage(columns * unitWidth, rows * unitHeight, BufferedImage.TYPE_INT_RGB);
+         int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+         int imageWidth = columns * unitWidth;
+         for (int row = 0; row < rows; row++) {
+            int line = row * unitHeight * imageWidth;
+            for (int column = 0; column < columns; column++) {
+               Arrays.fill(pixels, line + column * unitWidth, line + (column + 1) * unitWidth, 
+                           frame.words[row * columns + column] & 0xFFFFFF);
+            }
+            for (int i = 1; i < unitHeight; i++) {
+               System.arraycopy(pixels, line, pixels, line + i * imageWidth, imageWidth);
+            }
+         }
+         String number = "000" + framesCaptured;
+         File frameFile = new File(file.getPath() + "-" + number.substring(Math.min(number.length() - 4, 3)) + ".png");
+         OutputStream output = new BufferedOutputStream(new FileOutputStream(frameFile));
+         try {
+            if (!ImageIO.write(image, "png", output)) {
+               throw new IOException("no PNG writer available");
+            }
+         } 
+         finally {
+            output.close();
+         }
+      }
+
+       private static int parseBaseAddress(String value) {
+         String name = value.toLowerCase();
+         if (name.startsWith("$")) {
+            name = name.substring(1);
+         }
+         if (name.equals("global")) {
+            return Memory.dataSegmentBaseAddress;
+         }
+         else if (name.equals("gp")) {
+            return Memory.globalPointer;
+         }
+         else if (name.equals("data")) {
+            return Memory.dataBaseAddress;
+         }
+         else if (name.equals("heap")) {
+            return Memory.heapBaseAddress;
+         }
+         else if (name.equals("mmio")) {
+            return Memory.memoryMapBaseAddress;
+         }
+         try {
+            int address = Binary.stringToInt(value);
+            if (Memory.wordAligned(address)) {
+               return address;
+            }
+         }
+             catch (NumberFormatException e) {
+            }
+         throw new IllegalArgumentException("invalid base address " + value);
+      }
+
+       private static int parsePositive(String name, String value) {
+         try {
+            int number = Binary.stringToInt(value);
+            if (number > 0) {
+               return number;
+            }
+         }
+             catch (NumberFormatException e) {
+            }
+         throw new IllegalArgumentException("invalid " + name + " " + value);
+      }
+
+      // The display's words at an instruction count.
+       private static class Frame {
+         private final long instructionCount;
+         private final int[] words;
+
+          private Frame(long instructionCount, int[] words) {
+            this.instructionCount = instructionCount;
+            this.words = words;
+         }
+      }
+   }
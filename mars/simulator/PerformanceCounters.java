@@ -0,0 +1,472 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.Globals;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import java.lang.management.ManagementFactory;
+   import java.util.*;
+   import javax.management.*;
+
+/**
+ * Execution counters maintained by the simulator core for every run: instructions
+ * retired, by instruction, format and category; loads and stores; taken branches;
+ * syscalls by service number; exceptions and interrupts; and wall time.
+ * <p>
+ * The simulator counts each retired instruction with a single array increment, indexed
+ * by BasicInstruction serial number, plus a test for taken branches.  Everything else is
+ * derived from those counts when it is read, so the counters stay on for every run.
+ * They accumulate across pauses and steps until reset, which is done when a program is 
+ * assembled or reset.
+ * <p>
+ * The counters are updated by the simulator thread without synchronization, so values read
+ * by another thread during a run, for instance through JMX, may lag slightly behind.
+ *
+ * @version October 2026
+ * @see Simulator#getPerformanceCounters()
+ */
+
+    public class PerformanceCounters implements PerformanceCountersMBean {
+   
+      /** Name under which the counters are published by publish(). */
+      public static final String OBJECT_NAME = "mars:type=PerformanceCounters";
+   
+      /** Instruction categories, used as indexes into getCategoryCounts(). */
+      public static final int CATEGORY_ALU = 0;
+      public static final int CATEGORY_FLOATING_POINT = 1;
+      public static final int CATEGORY_LOAD = 2;
+      public static final int CATEGORY_STORE = 3;
+      public static final int CATEGORY_BRANCH = 4;
+      public static final int CATEGORY_JUMP = 5;
+      public static final int CATEGORY_SYSTEM = 6;
+      private static final String[] categoryNames = 
+         {"alu", "floatingPoint", "load", "store", "branch", "jump", "system"};
+      private static final String[] formatNames = {"R", "I", "I-branch", "J"};
+   
+      private static final Set<String> loadNames = new HashSet<String>(Arrays.asList(new String[] 
+         {"lb", "lbu", "lh", "lhu", "lw", "lwl", "lwr", "ll", "lwc1", "ldc1"}));
+      private static final Set<String> storeNames = new HashSet<String>(Arrays.asList(new String[] 
+         {"sb", "sh", "sw", "swl", "swr", "sc", "swc1", "sdc1"}));
+      private static final Set<String> systemNames = new HashSet<String>(Arrays.asList(new String[] 
+         {"syscall", "break", "eret", "mfc0", "mtc0", "teq", "teqi", "tne", "tnei", "tge", "tgei", 
+          "tgeu", "tgeiu", "tlt", "tlti", "tltu", "tltiu"}));
+   
+      // Indexed by BasicInstruction serial number.
+      private long[] instructionCounts = new long[0];
+      private boolean[] isBranch = new boolean[0];
+      private long takenBranches;
+      private long[] syscallCounts = new long[64]; // indexed by service number
+      private long exceptions;
+      private long interrupts;
+      private long wallTimeNanos;
+      private volatile long runStartNanos; // 0 when not running
+      private ObjectName publishedName;
+   
+   	/**
+   	 * Set all counters to zero.
+   	 */
+       public synchronized void reset() {
+         Arrays.fill(instructionCounts, 0);
+         takenBranches = 0;
+         Arrays.fill(syscallCounts, 0);
+         exceptions = 0;
+         interrupts = 0;
+         wallTimeNanos = 0;
+         if (runStartNanos != 0) {
+            runStartNanos = System.nanoTime();
+         }
+      }
+   
+      // Called by the simulator thread when execution starts or resumes.
+       void runStarted() {
+         runStartNanos = System.nanoTime();
+      }
+   
+      // Called by the simulator thread when execution stops for any reason.
+       void runStopped() {
+         long started = runStartNanos;
+         if (started != 0) {
+            wallTimeNanos += System.nanoTime() - started;
+            runStartNanos = 0;
+         }
+      }
+   
+      // Called by the simulator thread, holding the lock, for each instruction that completes.
+      // The program counter has already been advanced, so a taken branch is one that did not
+      // go on to the next instruction or registered a delayed branch.
+       void instructionRetired(BasicInstruction instruction, int address) {
+         int index = instruction.getSerialNumber();
+         if (index >= instructionCounts.length) {
+            sizeToInstructionSet();
+         }
+         instructionCounts[index]++;
+         if (isBranch[index] && 
+             (RegisterFile.getProgramCounter() != address + Instruction.INSTRUCTION_LENGTH || DelayedBranch.isRegistered())) {
+            takenBranches++;
+         }
+      }
+   
+      // Called by BlockTranslator, holding the lock, for the first count instructions of a 
+      // translated block, which completed.  taken tells whether the last of them changed the flow
+      // of control, so counts as a taken branch if it is a branch.
+       void instructionsRetired(int[] serialNumbers, int count, boolean taken) {
+         for (int i = 0; i < count; i++) {
+            int index = serialNumbers[i];
+            if (index >= instructionCounts.length) {
+               sizeToInstructionSet();
+            }
+            instructionCounts[index]++;
+         }
+         if (taken && count > 0 && isBranch[serialNumbers[count - 1]]) {
+            takenBranches++;
+         }
+      }
+   
+      // Called by the simulator thread when an exception or interrupt transfers control
+      // to the exception handler or terminates the program.
+       void exceptionRaised(boolean interrupt) {
+         if (interrupt) {
+            interrupts++;
+         } 
+         else {
+            exceptions++;
+         }
+      }
+   
+   	/**
+   	 * Count a syscall about to be performed.  Called by the instruction set
+   	 * for each valid syscall service executed.
+   	 *
+   	 * @param number the syscall service number
+   	 */
+       public void syscallExecuted(int number) {
+         if (number < 0) {
+            return;
+         }
+         if (number >= syscallCounts.length) {
+            long[] counts = new long[number + 1];
+            System.arraycopy(syscallCounts, 0, counts, 0, syscallCounts.length);
+            syscallCounts = counts;
+         }
+         syscallCounts[number]++;
+      }
+   
+   	/**
+   	 * Get the number of instructions retired.
+   	 *
+   	 * @return number of basic instructions that completed execution
+   	 */
+       public long getInstructionsRetired() {
+         long[] counts = instructionCounts;
+         long total = 0;
+         for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+         }
+         return total;
+      }
+   
+   	/**
+   	 * Get the number of instructions retired in each format: R, I, I-branch and J.
+   	 *
+   	 * @return map from format name to count, in that order
+   	 */
+       public Map<String, Long> getFormatCounts() {
+         long[] totals = new long[formatNames.length];
+         long[] counts = instructionCounts;
+         BasicInstruction[] instructions = getBasicInstructions();
+         for (int i = 0; i < instructions.length; i++) {
+            int index = instructions[i].getSerialNumber();
+            if (index < counts.length) {
+               totals[formatIndex(instructions[i].getInstructionFormat())] += counts[index];
+            }
+         }
+         return namedCounts(formatNames, totals);
+      }
+   
+   	/**
+   	 * Get the number of instructions retired in each category.
+   	 *
+   	 * @return array of counts, indexed by the CATEGORY_ constants
+   	 */
+       public long[] getCategoryCounts() {
+         long[] totals = new long[categoryNames.length];
+         long[] counts = instructionCounts;
+         BasicInstruction[] instructions = getBasicInstructions();
+         for (int i = 0; i < instructions.length; i++) {
+            int index = instructions[i].getSerialNumber();
+            if (index < counts.length) {
+               totals[categoryOf(instructions[i])] += counts[index];
+            }
+         }
+         return totals;
+      }
+   
+   	/**
+   	 * Get the number of times each instruction was retired, by mnemonic.  Instructions
+   	 * that were not executed are omitted.
+   	 *
+   	 * @return map from mnemonic to count, sorted by mnemonic
+   	 */
+       public Map<String, Long> getInstructionCounts() {
+         TreeMap<String, Long> totals = new TreeMap<String, Long>();
+         long[] counts = instructionCounts;
+         BasicInstruction[] instructions = getBasicInstructions();
+         for (int i = 0; i < instructions.length; i++) {
+            int index = instructions[i].getSerialNumber();
+            if (index < counts.length && counts[index] > 0) {
+               String name = instructions[i].getName();
+               Long total = totals.get(name);
+               totals.put(name, Long.valueOf(counts[index] + ((total == null) ? 0 : total.longValue())));
+            }
+         }
+         return totals;
+      }
+   
+       public long getLoads() {
+         return getCategoryCounts()[CATEGORY_LOAD];
+      }
+   
+       public long getStores() {
+         return getCategoryCounts()[CATEGORY_STORE];
+      }
+   
+       public long getTakenBranches() {
+         return takenBranches;
+      }
+   
+       public long getSyscalls() {
+         long[] counts = syscallCounts;
+         long total = 0;
+         for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+         }
+         return total;
+      }
+   
+   	/**
+   	 * Get the number of times each syscall service was performed.  Services that were
+   	 * not used are omitted.
+   	 *
+   	 * @return map from service number (Integer) to count, in service number order
+   	 */
+       public Map<Integer, Long> getSyscallCounts() {
+         TreeMap<Integer, Long> totals = new TreeMap<Integer, Long>();
+         long[] counts = syscallCounts;
+         for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+               totals.put(Integer.valueOf(i), Long.valueOf(counts[i]));
+            }
+         }
+         return totals;
+      }
+   
+       public long getExceptions() {
+         return exceptions;
+      }
+   
+       public long getInterrupts() {
+         return interrupts;
+      }
+   
+       public long getWallTimeMillis() {
+         long nanos = wallTimeNanos;
+         long started = runStartNanos;
+         if (started != 0) {
+            nanos += System.nanoTime() - started;
+         }
+         return nanos / 1000000;
+      }
+   
+       public double getMipsPerSecond() {
+         long millis = getWallTimeMillis();
+         if (millis == 0) {
+            return 0;
+         }
+         return getInstructionsRetired() / (millis * 1000.0);
+      }
+   
+   	/**
+   	 * Produce all counters as a JSON object.
+   	 *
+   	 * @return the counters in JSON
+   	 */
+       public String getJson() {
+         long[] categories = getCategoryCounts();
+         StringBuffer json = new StringBuffer();
+         json.append("{\n");
+         json.append("  \"instructions\": ").append(getInstructionsRetired()).append(",\n");
+         json.append("  \"byFormat\": ");
+         appendObject(json, getFormatCounts());
+         json.append(",\n  \"byCategory\": ");
+         appendObject(json, namedCounts(categoryNames, categories));
+         json.append(",\n  \"byInstruction\": ");
+         appendObject(json, getInstructionCounts());
+         json.append(",\n  \"loads\": ").append(categories[CATEGORY_LOAD]);
+         json.append(",\n  \"stores\": ").append(categories[CATEGORY_STORE]);
+         json.append(",\n  \"takenBranches\": ").append(takenBranches);
+         json.append(",\n  \"syscalls\": ").append(getSyscalls());
+         json.append(",\n  \"syscallsByNumber\": ");
+         appendObject(json, getSyscallCounts());
+         json.append(",\n  \"exceptions\": ").append(exceptions);
+         json.append(",\n  \"interrupts\": ").append(interrupts);
+         long millis = getWallTimeMillis();
+         json.append(",\n  \"wallTimeMillis\": ").append(millis);
+         // Millions of instructions per second, to three decimal places.
+         long thousandths = (millis == 0) ? 0 : Math.round(getInstructionsRetired() / (double) millis);
+         String decimals = "00" + (thousandths % 1000);
+         json.append(",\n  \"mipsPerSecond\": ").append(thousandths / 1000).append('.')
+             .append(decimals.substring(decimals.length() - 3));
+         json.append("\n}");
+         return json.toString();
+      }
+   
+   	/**
+   	 * Publish the counters as an MBean of the platform MBean server, so they can be
+   	 * watched with JConsole or another JMX client while a program runs.
+   	 *
+   	 * @throws JMException if the MBean cannot be registered
+   	 */
+       public synchronized void publish() throws JMException {
+         if (publishedName == null) {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            publishedName = name;
+         }
+      }
+   
+   	/**
+   	 * Remove the MBean registered by publish(), if any.
+   	 */
+       public synchronized void withdraw() {
+         if (publishedName != null) {
+            try {
+               ManagementFactory.getPlatformMBeanServer().unregisterMBean(publishedName);
+            } 
+                catch (JMException e) {
+                  // not registered after all
+               }
+            publishedName = null;
+         }
+      }
+   
+   	/**
+   	 * Determine the category of a basic instruction.
+   	 *
+   	 * @param instruction the instruction
+   	 * @return one of the CATEGORY_ constants
+   	 */
+       public static int categoryOf(BasicInstruction instruction) {
+         String name = instruction.getName();
+         if (loadNames.contains(name)) {
+            return CATEGORY_LOAD;
+         }
+         if (storeNames.contains(name)) {
+            return CATEGORY_STORE;
+         }
+         if (systemNames.contains(name)) {
+            return CATEGORY_SYSTEM;
+         }
+         if (instruction.getInstructionFormat() == BasicInstructionFormat.I_BRANCH_FORMAT) {
+            return CATEGORY_BRANCH;
+         }
+         if (instruction.getInstructionFormat() == BasicInstructionFormat.J_FORMAT || 
+             name.equals("jr") || name.equals("jalr")) {
+            return CATEGORY_JUMP;
+         }
+         if (name.indexOf('.') >= 0 || name.endsWith("c1")) {
+            return CATEGORY_FLOATING_POINT;
+         }
+         return CATEGORY_ALU;
+      }
+   
+      // Grow the per-instruction arrays to cover every basic instruction created so far.
+       private synchronized void sizeToInstructionSet() {
+         int size = BasicInstruction.getNumberCreated();
+         long[] counts = new long[size];
+         System.arraycopy(instructionCounts, 0, counts, 0, instructionCounts.length);
+         boolean[] branches = new boolean[size];
+         BasicInstruction[] instructions = getBasicInstructions();
+         for (int i = 0; i < instructions.length; i++) {
+            int index = instructions[i].getSerialNumber();
+            if (index < size) {
+               int category = categoryOf(instructions[i]);
+               branches[index] = category == CATEGORY_BRANCH || category == CATEGORY_JUMP;
+            }
+         }
+         isBranch = branches;
+         instructionCounts = counts;
+      }
+   
+       private static BasicInstruction[] getBasicInstructions() {
+         List<?> list = Globals.instructionSet.getInstructionList();
+         ArrayList<BasicInstruction> basic = new ArrayList<BasicInstruction>(list.size());
+         for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) instanceof BasicInstruction) {
+               basic.add((BasicInstruction) list.get(i));
+            }
+         }
+         return basic.toArray(new BasicInstruction[basic.size()]);
+      }
+   
+       private static int formatIndex(BasicInstructionFormat format) {
+         if (format == BasicInstructionFormat.R_FORMAT) {
+            return 0;
+         }
+         if (format == BasicInstructionFormat.I_FORMAT) {
+            return 1;
+         }
+         if (format == BasicInstructionFormat.I_BRANCH_FORMAT) {
+            return 2;
+         }
+         return 3;
+      }
+   
+       private static Map<String, Long> namedCounts(String[] names, long[] counts) {
+         LinkedHashMap<String, Long> map = new LinkedHashMap<String, Long>();
+         for (int i = 0; i < names.length; i++) {
+            map.put(names[i], Long.valueOf(counts[i]));
+         }
+         return map;
+      }
+   
+      // Append a map of names or numbers to counts as a JSON object on one line.
+       private static void appendObject(StringBuffer json, Map<?, Long> map) {
+         json.append('{');
+         Iterator<? extends Map.Entry<?, Long>> entries = map.entrySet().iterator();
+         while (entries.hasNext()) {
+            Map.Entry<?, Long> entry = entries.next();
+            json.append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            if (entries.hasNext()) {
+               json.append(", ");
+            }
+         }
+         json.append('}');
+      }
+   }
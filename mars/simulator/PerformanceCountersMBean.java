@@ -0,0 +1,90 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Management interface through which PerformanceCounters are published to JMX.
+ *
+ * @version October 2026
+ * @see PerformanceCounters#publish()
+ */
+
+    public interface PerformanceCountersMBean {
+   
+   	/**
+   	 * @return number of basic instructions that completed execution
+   	 */
+       public long getInstructionsRetired();
+   
+   	/**
+   	 * @return number of load instructions retired
+   	 */
+       public long getLoads();
+   
+   	/**
+   	 * @return number of store instructions retired
+   	 */
+       public long getStores();
+   
+   	/**
+   	 * @return number of branch and jump instructions that transferred control
+   	 */
+       public long getTakenBranches();
+   
+   	/**
+   	 * @return number of syscalls performed
+   	 */
+       public long getSyscalls();
+   
+   	/**
+   	 * @return number of exceptions raised, not counting interrupts
+   	 */
+       public long getExceptions();
+   
+   	/**
+   	 * @return number of external interrupts taken
+   	 */
+       public long getInterrupts();
+   
+   	/**
+   	 * @return time spent executing, in milliseconds
+   	 */
+       public long getWallTimeMillis();
+   
+   	/**
+   	 * @return millions of instructions retired per second of execution time
+   	 */
+       public double getMipsPerSecond();
+   
+   	/**
+   	 * @return all counters, including the breakdowns by instruction, format, 
+   	 * category and syscall number, as a JSON object
+   	 */
+       public String getJson();
+   }
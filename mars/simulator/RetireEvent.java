@@ -0,0 +1,143 @@
+package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import mars.ProgramStatement;
+
+/**
+ * Describes one MIPS instruction retired by the simulator, for delivery to a
+ * RetireListener.  An instruction that raised an exception, or was interrupted,
+ * is also delivered, marked by isException().  Event objects are reused by the 
+ * simulator, so a listener that needs to keep the information must copy it.
+ *
+ * @version October 2026
+ * @see RetireListener
+ */
+
+    public class RetireEvent {
+
+      private int address;
+      private ProgramStatement statement;
+      private boolean branchTaken;
+      private boolean exception;
+      private boolean memoryAccess;
+      private boolean memoryWrite;
+      private int memoryAddress;
+
+      /** @return the address of the instruction, which was the program counter when it executed */
+       public int getAddress() {
+         return address;
+      }
+
+      /** @return the ProgramStatement executed */
+       public ProgramStatement getStatement() {
+         return statement;
+      }
+
+   	/**
+   	 * Whether the instruction transferred control to somewhere other than the next
+   	 * instruction: a taken branch, or a jump.  With delayed branching, the branch or
+   	 * jump itself is reported as taken, not the instruction in its delay slot.
+   	 *
+   	 * @return true if the branch was taken or the instruction was a jump
+   	 */
+       public boolean isBranchTaken() {
+         return branchTaken;
+      }
+
+   	/**
+   	 * Whether the instruction raised an exception or was interrupted instead of 
+   	 * completing.  Control then went to the exception handler, or the program
+   	 * terminated.  Such an event reports no branch or memory access, and its 
+   	 * statement may have no instruction (an undefined instruction).
+   	 *
+   	 * @return true if the instruction did not complete
+   	 */
+       public boolean isException() {
+         return exception;
+      }
+
+   	/**
+   	 * Whether the instruction read or wrote data memory.  This is true for loads
+   	 * and stores, and for syscalls that accessed memory on behalf of the program.
+   	 *
+   	 * @return true if the instruction accessed data memory
+   	 */
+       public boolean isMemoryAccess() {
+         return memoryAccess;
+      }
+
+      /** @return true if the memory access reported by getMemoryAddress() was a write */
+       public boolean isMemoryWrite() {
+         return memoryWrite;
+      }
+
+   	/**
+   	 * The effective address of the first data memory access made by the instruction.
+   	 * Only meaningful if isMemoryAccess() is true.
+   	 *
+   	 * @return the effective memory address
+   	 */
+       public int getMemoryAddress() {
+         return memoryAddress;
+      }
+
+      // Copy the description of the given event into this one.
+       void copy(RetireEvent event) {
+         address = event.address;
+         statement = event.statement;
+         branchTaken = event.branchTaken;
+         exception = event.exception;
+         memoryAccess = event.memoryAccess;
+         memoryWrite = event.memoryWrite;
+         memoryAddress = event.memoryAddress;
+      }
+
+      // Set the description of the instruction, except for memory access.
+       void set(int address, ProgramStatement statement, boolean branchTaken, boolean exception) {
+         this.address = address;
+         this.statement = statement;
+         this.branchTaken = branchTaken;
+         this.exception = exception;
+      }
+
+      // Set the memory access; only the first access of each instruction is recorded.
+       void setMemoryAccess(int memoryAddress, boolean memoryWrite) {
+         if (!memoryAccess) {
+            this.memoryAccess = true;
+            this.memoryAddress = memoryAddress;
+            this.memoryWrite = memoryWrite;
+         }
+      }
+
+      // Clear the memory access before the next instruction executes.
+       void clearMemoryAccess() {
+         memoryAccess = false;
+      }
+   }
@@ -0,0 +1,61 @@
+package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Receives an event for each MIPS instruction retired (completed) by the simulator.
+ * This is the preferred way for a tool to follow program execution: events come
+ * directly from the simulator rather than being inferred from instruction fetches
+ * observed in the text segment, and the RetireEvent objects are reused so nothing
+ * is allocated per instruction.  An instruction that raises an exception instead
+ * of completing is also delivered, marked by RetireEvent.isException().
+ * <p>
+ * A listener registered with a batch size greater than one receives events in
+ * batches.  A partial batch is delivered when execution stops or pauses, and after
+ * each instruction while running at less than unlimited speed, so a tool displaying
+ * the events stays current in stepped and timed execution.
+ * <p>
+ * Events are delivered on the simulator thread while it holds 
+ * Globals.memoryAndRegistersLock.  The events, and the array holding them, are only
+ * valid for the duration of the call.
+ *
+ * @version October 2026
+ * @see Simulator#addRetireListener(RetireListener, int)
+ */
+
+    public interface RetireListener {
+
+   	/**
+   	 * Called with one or more instructions that have been retired, in execution order.
+   	 *
+   	 * @param events array holding the events; only the first count elements are valid
+   	 * @param count number of events delivered, at least 1
+   	 */
+       public void instructionsRetired(RetireEvent[] events, int count);
+   }
@@ -0,0 +1,54 @@
+package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * An action to be performed after a given number of MIPS instructions have
+ * executed.  Devices that simulate timers or processing delays schedule these
+ * with EventScheduler rather than counting instruction executions themselves.
+ *
+ * @version October 2026
+ * @see EventScheduler
+ */
+
+public interface ScheduledEvent {
+
+   /**
+    *  Perform the event.  Called by the simulator thread, while it holds
+    *  Globals.memoryAndRegistersLock, at the end of the instruction that
+    *  brings the instruction count to the scheduled value.  The event may
+    *  schedule itself again, for example to implement a periodic timer.  To
+    *  raise an interrupt, set Simulator.externalInterruptingDevice; it will
+    *  be taken before the next instruction executes.
+    *
+    *  @param instructionCount the number of instructions executed so far, 
+    *  as returned by EventScheduler.getInstructionCount()
+    */
+   public void fire(long instructionCount);
+}
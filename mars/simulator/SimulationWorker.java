@@ -0,0 +1,169 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.Globals;
+   import java.util.concurrent.*;
+   import javax.swing.*;
+
+/**
+ * The long-lived thread on which the Simulator executes MIPS programs.  Each call
+ * to Simulator.simulate() becomes a command -- step some number of instructions,
+ * run to an address or run until a condition holds -- that is queued here and
+ * executed in turn by a single thread named "MIPS".  The thread is created on first
+ * use and kept for the rest of the session, so a Step costs a queue hand-off rather
+ * than the creation, start and reprioritizing of a new thread.  This matters most
+ * when the Step button is held down and steps arrive many times a second.
+ * <p>
+ * The GUI is updated once per command: when a command finishes, its finished()
+ * method is run on the Swing event dispatch thread, or directly when there is no GUI.
+ * This replaces the one-shot SwingWorker formerly used for each simulate() call.
+ *
+ * @version October 2026
+ */
+
+    final class SimulationWorker {
+   
+      private static final LinkedBlockingQueue<Command> commands = new LinkedBlockingQueue<Command>();
+      private static Thread thread = null;
+   
+       private SimulationWorker() {
+      }
+   
+   	/**
+   	 * A unit of work for the worker.  construct() does the work on the worker thread
+   	 * and finished() reports the result, as in SwingWorker.
+   	 */
+       abstract static class Command {
+         private boolean complete = false;
+         private Object value = null;
+      
+      	/**
+      	 * Performs the command on the worker thread.
+      	 * @return the result, returned later by get()
+      	 */
+          abstract Object construct();
+      
+      	/**
+      	 * Called after construct() returns, on the event dispatch thread if there is a GUI.
+      	 */
+          abstract void finished();
+      
+      	/**
+      	 * Queue the command for execution by the worker thread.
+      	 */
+          final void start() {
+            submit(this);
+         }
+      
+      	/**
+      	 * Wait for the command to complete.
+      	 * @return the value returned by construct(), or null if it failed or
+      	 * the waiting thread was interrupted
+      	 */
+          final synchronized Object get() {
+            while (!complete) {
+               try {
+                  wait();
+               } 
+                   catch (InterruptedException e) {
+                     Thread.currentThread().interrupt(); // propagate
+                     return null;
+                  }
+            }
+            return value;
+         }
+      
+          private synchronized void complete(Object value) {
+            this.value = value;
+            this.complete = true;
+            notifyAll();
+         }
+      }
+   
+      // Add a command to the queue, starting the worker thread if it is not running.
+       private static synchronized void submit(Command command) {
+         if (thread == null) {
+            thread = new Thread(
+                   new Runnable() {
+                      public void run() {
+                        serve();
+                     }
+                  }, "MIPS");
+            // A notch below the GUI so the interface stays responsive during long runs.
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            // Do not keep the JVM alive once the GUI or command-line run is finished.
+            thread.setDaemon(true);
+            thread.start();
+         }
+         commands.add(command);
+      }
+   
+      // Body of the worker thread: execute queued commands forever.
+       private static void serve() {
+         while (true) {
+            Command command;
+            try {
+               command = commands.take();
+            } 
+                catch (InterruptedException e) {
+                  continue;
+               }
+            execute(command);
+         }
+      }
+   
+       private static void execute(final Command command) {
+         Object value = null;
+         try {
+            value = command.construct();
+         } 
+             catch (Throwable t) {
+               // Report as an uncaught exception would have been, but keep the worker alive.
+               // As before, finished() is not called for a failed command.
+               Thread current = Thread.currentThread();
+               current.getUncaughtExceptionHandler().uncaughtException(current, t);
+               return;
+            }
+            finally {
+               command.complete(value);
+            }
+         if (Globals.getGui() != null) {
+            SwingUtilities.invokeLater(
+                   new Runnable() {
+                      public void run() {
+                        command.finished();
+                     }
+                  });
+         } 
+         else {
+            command.finished();
+         }
+      }
+   }
@@ -43,9 +43,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  **/
 
     public class Simulator extends Observable {
-      private SimThread simulatorThread;
+      private volatile SimThread simulatorThread; // stopExecution may be called from another thread
       private static Simulator simulator = null;  // Singleton object
-      private static Runnable interactiveGUIUpdater = null;
+      private static DirtyRegionTracker interactiveGUIUpdater = null;
       // Others can set this true to indicate external interrupt.  Initially used
    	// to simulate keyboard and display interrupts.  The device is identified
    	// by the address of its MMIO control register.  keyboard 0xFFFF0000 and
@@ -79,7 +79,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private Simulator() {
          simulatorThread = null;
          if (Globals.getGui() != null) {
-            interactiveGUIUpdater = new UpdateGUI();
+            interactiveGUIUpdater = DirtyRegionTracker.getInstance();
          } 
       }
    
@@ -112,15 +112,34 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     **/
     
        public boolean simulate(MIPSprogram p, int pc, int maxSteps, int[] breakPoints, AbstractAction actor) throws ProcessingException {
-         simulatorThread = new SimThread(p,pc,maxSteps,breakPoints,actor);
-         simulatorThread.start();
+         return simulate(p, pc, maxSteps, breakPoints, null, actor);
+      }
+   
+   /**
+    * Simulate execution of given MIPS program until a condition holds.  The condition is
+    * tested after each instruction and, when true, execution pauses as it does at a
+    * breakpoint.  The command is queued for the simulator's worker thread like any other.
+    * @param p The MIPSprogram to be simulated.
+    * @param pc address of first instruction to simulate; this goes into program counter
+    * @param maxSteps maximum number of steps to perform before returning false (0 or less means no max)
+    * @param breakPoints array of breakpoint program counter values, use null if none
+    * @param until condition at which to pause, use null if none
+    * @param actor the GUI component responsible for this call, usually GO or STEP.  null if none.
+    * @return true if execution completed, false otherwise
+    * @throws ProcessingException Throws exception if run-time exception occurs.
+    **/
+    
+       public boolean simulate(MIPSprogram p, int pc, int maxSteps, int[] breakPoints, StopCondition until, AbstractAction actor) throws ProcessingException {
+         SimThread thread = new SimThread(p,pc,maxSteps,breakPoints,until,actor);
+         simulatorThread = thread;
+         thread.start();
       	
       	// Condition should only be true if run from command-line instead of GUI.
       	// If so, just stick around until execution thread is finished.
          if (actor == null) {
-            Object dun = simulatorThread.get(); // this should emulate join()
-            ProcessingException pe = simulatorThread.pe;
-            boolean done = simulatorThread.done;
+            Object dun = thread.get(); // this should emulate join()
+            ProcessingException pe = thread.pe;
+            boolean done = thread.done;
             if (done) SystemIO.resetFiles(); // close any files opened in MIPS progra
             this.simulatorThread = null;
             if (pe != null) {
@@ -130,6 +149,33 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          return true;
       }
+   
+   /**
+    * Simulate execution of given MIPS program until the instruction at the given address
+    * is about to be executed, as if a breakpoint were set there.  At least one instruction
+    * is executed, so running to the current address runs until it is reached again.
+    * This is the basis for "run to cursor".
+    * @param p The MIPSprogram to be simulated.
+    * @param pc address of first instruction to simulate; this goes into program counter
+    * @param address address of the instruction at which to pause
+    * @param breakPoints array of other breakpoint program counter values, use null if none
+    * @param actor the GUI component responsible for this call, usually GO.  null if none.
+    * @return true if execution completed, false otherwise
+    * @throws ProcessingException Throws exception if run-time exception occurs.
+    **/
+    
+       public boolean runToAddress(MIPSprogram p, int pc, int address, int[] breakPoints, AbstractAction actor) throws ProcessingException {
+         int[] points;
+         if (breakPoints == null) {
+            points = new int[] { address };
+         } 
+         else {
+            points = new int[breakPoints.length + 1];
+            System.arraycopy(breakPoints, 0, points, 0, breakPoints.length);
+            points[breakPoints.length] = address;
+         }
+         return simulate(p, pc, -1, points, null, actor);
+      }
    		
    
        /**
@@ -140,9 +186,9 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	  *  This is used by both STOP and PAUSE features.
    	  */     		
        public void stopExecution(AbstractAction actor) {
-      
-         if (simulatorThread != null) {
-            simulatorThread.setStop(actor);
+         SimThread thread = simulatorThread;
+         if (thread != null) {
+            thread.setStop(actor);
             for (StopListener l : stopListeners) {
                l.stopped(this);
             }
@@ -158,6 +204,16 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
           void stopped(Simulator s);
       }
    
+      /**
+       * A condition at which a running program is paused, for "run until" commands.
+       * It is tested by the simulator thread after each instruction, with the program
+       * counter already addressing the next instruction, so it must be quick and must
+       * not wait on the GUI.
+       */
+       public interface StopCondition {
+          boolean isSatisfied(Simulator s);
+      }
+   
       private ArrayList<StopListener> stopListeners = new ArrayList<StopListener>(1);
        public void addStopListener(StopListener l) {
          stopListeners.add(l);
@@ -167,6 +223,202 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          stopListeners.remove(l);
       }
    
+      private final PerformanceCounters performanceCounters = new PerformanceCounters();
+   
+      /**
+   	 * Get the performance counters, which count the instructions, syscalls, exceptions
+   	 * and so on of every run.
+   	 *
+   	 * @return the PerformanceCounters
+   	 */
+       public PerformanceCounters getPerformanceCounters() {
+         return performanceCounters;
+      }
+   
+      // Retire listeners, each with its own batch of events.  The array is replaced,
+      // never modified, so the simulator thread can read it without locking.  It is 
+      // null when there are no listeners, which is all the simulator checks per instruction.
+      private volatile RetireBatch[] retireBatches = null;
+      private volatile TraceRecorder traceRecorder = null;
+      // Describes the instruction being executed, before it is copied into the batches.
+      private final RetireEvent retiringInstruction = new RetireEvent();
+      // Records the first data access of each instruction while there are retire listeners.
+      private final MemoryAccessTracer retireMemoryRecorder = 
+         new MemoryAccessTracer() {
+            public void instructionFetched(int address) {
+            }
+            public void dataRead(int address, int length, int value) {
+               retiringInstruction.setMemoryAccess(address, false);
+            }
+            public void dataWritten(int address, int length, int value) {
+               retiringInstruction.setMemoryAccess(address, true);
+            }
+         };
+   
+      /**
+   	 * Register a listener to receive an event for each instruction retired, one at a time.
+   	 *
+   	 * @param listener the RetireListener
+   	 */
+       public void addRetireListener(RetireListener listener) {
+         addRetireListener(listener, 1);
+      }
+   
+      /**
+   	 * Register a listener to receive an event for each instruction retired, in batches
+   	 * of up to the given size.  Larger batches reduce the cost per instruction for 
+   	 * listeners that do not need to act on each instruction as it is executed.
+   	 *
+   	 * @param listener the RetireListener
+   	 * @param batchSize maximum number of events delivered per call, at least 1
+   	 */
+       public void addRetireListener(RetireListener listener, int batchSize) {
+         synchronized (Globals.memoryAndRegistersLock) {
+            RetireBatch[] batches = retireBatches;
+            int count = (batches == null) ? 0 : batches.length;
+            RetireBatch[] newBatches = new RetireBatch[count + 1];
+            if (count == 0) {
+               Globals.memory.addAccessTracer(retireMemoryRecorder);
+            } 
+            else {
+               System.arraycopy(batches, 0, newBatches, 0, count);
+            }
+            newBatches[count] = new RetireBatch(listener, Math.max(1, batchSize));
+            retireBatches = newBatches;
+         }
+      }
+   
+      /**
+   	 * Remove a retire listener.  Any events not yet delivered to it are discarded.
+   	 *
+   	 * @param listener the RetireListener to be removed
+   	 */
+       public void deleteRetireListener(RetireListener listener) {
+         synchronized (Globals.memoryAndRegistersLock) {
+            RetireBatch[] batches = retireBatches;
+            if (batches == null) {
+               return;
+            }
+            ArrayList<RetireBatch> remaining = new ArrayList<RetireBatch>(batches.length);
+            for (int i = 0; i < batches.length; i++) {
+               if (batches[i].listener != listener) {
+                  remaining.add(batches[i]);
+               }
+            }
+            if (remaining.isEmpty()) {
+               Globals.memory.deleteAccessTracer(retireMemoryRecorder);
+               retireBatches = null;
+            } 
+            else {
+               retireBatches = remaining.toArray(new RetireBatch[remaining.size()]);
+            }
+         }
+      }
+   
+      /**
+   	 * Start or stop recording an execution trace.  The recorder is installed as a
+   	 * memory access tracer and receives every instruction that completes until 
+   	 * recording is stopped.  It is not closed when recording stops.
+   	 *
+   	 * @param recorder the TraceRecorder to use, or null to stop recording
+   	 */
+       public void setTraceRecorder(TraceRecorder recorder) {
+         synchronized (Globals.memoryAndRegistersLock) {
+            if (traceRecorder != null) {
+               Globals.memory.deleteAccessTracer(traceRecorder);
+            }
+            if (recorder != null) {
+               Globals.memory.addAccessTracer(recorder);
+            }
+            traceRecorder = recorder;
+         }
+      }
+   
+      // Called by the simulator thread, holding the lock, before each instruction executes.
+       void instructionStarting() {
+         retiringInstruction.clearMemoryAccess();
+         TraceRecorder recorder = traceRecorder;
+         if (recorder != null) {
+            recorder.instructionStarting();
+         }
+      }
+   
+      // Called by the simulator thread, holding the lock, after an instruction completes.
+      // Also called by TraceReplayer for each instruction replayed.
+       void instructionRetired(int address, ProgramStatement statement, boolean branchTaken) {
+         TraceRecorder recorder = traceRecorder;
+         if (recorder != null) {
+            recorder.instructionRetired(address, branchTaken);
+         }
+         RetireBatch[] batches = retireBatches;
+         if (batches == null) {
+            return;
+         }
+         retiringInstruction.set(address, statement, branchTaken, false);
+         for (int i = 0; i < batches.length; i++) {
+            batches[i].add(retiringInstruction);
+         }
+      }
+   
+      // Called by the simulator thread, holding the lock, when an instruction raises an
+      // exception or is interrupted instead of completing.  Not recorded in traces.
+       void instructionRaisedException(int address, ProgramStatement statement) {
+         RetireBatch[] batches = retireBatches;
+         if (batches == null) {
+            return;
+         }
+         retiringInstruction.clearMemoryAccess();
+         retiringInstruction.set(address, statement, false, true);
+         for (int i = 0; i < batches.length; i++) {
+            batches[i].add(retiringInstruction);
+         }
+      }
+   
+      // True if any retire listener is registered.
+       boolean hasRetireListeners() {
+         return retireBatches != null;
+      }
+   
+      // Deliver any partial batches.  Called when execution pauses or stops.
+       void flushRetireListeners() {
+         synchronized (Globals.memoryAndRegistersLock) {
+            RetireBatch[] batches = retireBatches;
+            for (int i = 0; batches != null && i < batches.length; i++) {
+               batches[i].flush();
+            }
+         }
+      }
+   
+      // A retire listener and the events waiting to be delivered to it.
+       private static class RetireBatch {
+         private final RetireListener listener;
+         private final RetireEvent[] events;
+         private int count = 0;
+      
+          RetireBatch(RetireListener listener, int batchSize) {
+            this.listener = listener;
+            this.events = new RetireEvent[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+               events[i] = new RetireEvent();
+            }
+         }
+      
+          void add(RetireEvent event) {
+            events[count++].copy(event);
+            if (count == events.length) {
+               flush();
+            }
+         }
+      
+          void flush() {
+            if (count > 0) {
+               int delivered = count;
+               count = 0;
+               listener.instructionsRetired(events, delivered);
+            }
+         }
+      }
+   
    	 // The Simthread object will call this method when it enters and returns from
    	 // its construct() method.  These signal start and stop, respectively, of
    	 // simulation execution.  The observer can then adjust its own state depending
@@ -174,33 +426,45 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 // "stop" just means it is leaving execution state; this could be triggered
    	 // by Stop button, by Pause button, by Step button, by runtime exception, by
    	 // instruction count limit, by breakpoint, or by end of simulation (truly done).
+   	 // The GUI updater is started for the same runs in which the Execute pane windows
+   	 // observe registers and memory: timed or stepped execution.
        private void notifyObserversOfExecutionStart(int maxSteps, int programCounter) {
+         performanceCounters.runStarted();
          this.setChanged();
          this.notifyObservers(new SimulatorNotice(SimulatorNotice.SIMULATOR_START,
             maxSteps, RunSpeedPanel.getInstance().getRunSpeed(), programCounter) );
+         if (interactiveGUIUpdater != null && (maxSteps == 1 ||
+                RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED)) {
+            interactiveGUIUpdater.simulationStarted();
+         }
       }
    
        private void notifyObserversOfExecutionStop(int maxSteps, int programCounter) {
+         performanceCounters.runStopped();
+         flushRetireListeners();
          this.setChanged();
          this.notifyObservers(new SimulatorNotice(SimulatorNotice.SIMULATOR_STOP,
             maxSteps, RunSpeedPanel.getInstance().getRunSpeed(), programCounter) );
+         if (interactiveGUIUpdater != null) {
+            interactiveGUIUpdater.simulationStopped();
+         }
       }
    	 
    	 
    	/**
-   	 * SwingWorker subclass to perform the simulated execution in background thread.
+   	 * Command to perform the simulated execution on the simulator's worker thread.
    	 * It is "interrupted" when main thread sets the "stop" variable to true.
    	 * The variable is tested before the next MIPS instruction is simulated.  Thus
    	 * interruption occurs in a tightly controlled fashion.
    	 *
-   	 * See SwingWorker.java for more details on its functionality and usage.  It is
-   	 * provided by Sun Microsystems for download and is not part of the Swing library.
+   	 * See SimulationWorker.java for more details on how commands are executed.
    	 */ 	
    		
-       class SimThread extends SwingWorker {
+       class SimThread extends SimulationWorker.Command {
          private MIPSprogram p;
          private int pc, maxSteps;
          private int[] breakPoints;
+         private StopCondition until;
          private boolean done;
          private ProcessingException pe;
          private volatile boolean stop = false;
@@ -216,14 +480,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       	 *  @param pc address in text segment of first instruction to simulate
       	 *  @param maxSteps  maximum number of instruction steps to simulate.  Default of -1 means no maximum
       	 *  @param breakPoints  array of breakpoints (instruction addresses) specified by user
+      	 *  @param until  condition at which to pause, null if none
       	 *  @param starter the GUI component responsible for this call, usually GO or STEP.  null if none.
       	 */
-          SimThread(MIPSprogram p, int pc, int maxSteps, int[] breakPoints, AbstractAction starter) {
-            super(Globals.getGui()!=null);  
+          SimThread(MIPSprogram p, int pc, int maxSteps, int[] breakPoints, StopCondition until, AbstractAction starter) {
             this.p = p;
             this.pc = pc;
             this.maxSteps = maxSteps;
             this.breakPoints = breakPoints;
+            this.until = until;
             this.done = false;
             this.pe = null;
             this.starter = starter;
@@ -245,18 +510,28 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       
       	/**
       	 *  This is comparable to the Runnable "run" method (it is called by
-      	 *  SwingWorker's "run" method).  It simulates the program
+      	 *  the SimulationWorker thread).  It simulates the program
       	 *  execution in the backgorund.
       	 *
       	 *  @return  boolean value true if execution done, false otherwise
       	 */
       	
-          public Object construct() {
-            // The next two statements are necessary for GUI to be consistently updated
-         	// before the simulation gets underway.  Without them, this happens only intermittently,
+          Object construct() {
+            try {
+               return simulateProgram();
+            } 
+            finally {
+               // Deliver any events still batched if the simulation failed with an internal error.
+               flushRetireListeners();
+            }
+         }
+      
+          private Object simulateProgram() {
+            // The next statement is necessary for GUI to be consistently updated
+         	// before the simulation gets underway.  Without it, this happens only intermittently,
          	// with a consequence that some simulations are interruptable using PAUSE/STOP and others
-         	// are not (because one or the other or both is not yet enabled).
-            Thread.currentThread().setPriority(Thread.NORM_PRIORITY-1);
+         	// are not (because one or the other or both is not yet enabled).  The worker thread
+         	// already runs at slightly below normal priority; see SimulationWorker.
             Thread.yield();  // let the main thread run a bit to finish updating the GUI
          	
             if (breakPoints == null || breakPoints.length == 0) {
@@ -321,6 +596,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          	// *********************************************************************
          	
             int pc = 0;  // added: 7/26/06 (explanation above)
+            PerformanceCounters counters = Simulator.getInstance().getPerformanceCounters();
+            boolean interrupted = false;
+            // Hot code may be run translated to JVM bytecode in command mode; see BlockTranslator.
+            boolean translating = Globals.getGui() == null && breakPoints == null && until == null && maxSteps != 1
+                  && RunSpeedPanel.getInstance().getRunSpeed() >= RunSpeedPanel.UNLIMITED_SPEED
+                  && BlockTranslator.runStarting();
          
             while (statement != null) {
                pc = RegisterFile.getProgramCounter(); // added: 7/26/06 (explanation above)
@@ -334,8 +615,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      if (Simulator.externalInterruptingDevice != NO_DEVICE) {
                         int deviceInterruptCode = externalInterruptingDevice;
                         Simulator.externalInterruptingDevice = NO_DEVICE;
+                        interrupted = true;
                         throw new ProcessingException(statement, "External Interrupt", deviceInterruptCode);
                      }
+                     if (retireBatches != null || traceRecorder != null) {
+                        instructionStarting();
+                     }
                      BasicInstruction instruction = (BasicInstruction)statement.getInstruction();
                      if (instruction == null) {
                         throw new ProcessingException(statement,
@@ -349,9 +634,19 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                      if (Globals.getSettings().getBackSteppingEnabled()) {
                         Globals.program.getBackStepper().addDoNothing(pc);
                      }
+                     counters.instructionRetired(instruction, pc);
+                     if (retireBatches != null || traceRecorder != null) {
+                        instructionRetired(pc, statement, 
+                           RegisterFile.getProgramCounter() != pc + Instruction.INSTRUCTION_LENGTH || DelayedBranch.isRegistered());
+                     }
                   } 
                       catch (ProcessingException pe) {
-                        if (pe.errors() == null) {
+                        if (pe.isProgramExit()) {
+                           // The program exited normally, so the exit syscall did complete.
+                           counters.instructionRetired((BasicInstruction) statement.getInstruction(), pc);
+                           if (retireBatches != null || traceRecorder != null) {
+                              instructionRetired(pc, statement, false);
+                           }
                            this.constructReturnReason = NORMAL_TERMINATION;
                            this.done = true;
                            SystemIO.resetFiles(); // close any files opened in MIPS program
@@ -359,6 +654,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                            return new Boolean(done); // execution completed without error.
                         } 
                         else {
+                           counters.exceptionRaised(interrupted);
+                           interrupted = false;
+                           if (retireBatches != null) {
+                              instructionRaisedException(pc, statement);
+                           }
                            // See if an exception handler is present.  Assume this is the case
                         	// if and only if memory location Memory.exceptionHandlerAddress
                         	// (e.g. 0x80000180) contains an instruction.  If so, then set the
@@ -382,6 +682,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                            }
                         }
                      }
+                  // Fire any device events scheduled for this point in the instruction count.
+                  EventScheduler.instructionExecuted();
                }// end synchronized block
             	
             	///////// DPS 15 June 2007.  Handle delayed branching if it occurs./////
@@ -408,6 +710,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   this.done = false;
                   Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
                   return new Boolean(done); // false;
+               }
+            	// Return if the "run until" condition holds.  This is reported as a breakpoint.
+               if (until != null && until.isSatisfied(Simulator.getInstance())) {
+                  this.constructReturnReason = BREAKPOINT;
+                  this.done = false;
+                  Simulator.getInstance().notifyObserversOfExecutionStop(maxSteps, pc);
+                  return Boolean.valueOf(done);
                }
             	// Check number of MIPS instructions executed.  Return if at limit (-1 is no limit).
                if (maxSteps > 0) {
@@ -420,23 +729,36 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                   }
                }
             	
-            	// schedule GUI update only if: there is in fact a GUI! AND
-            	//                              using Run,  not Step (maxSteps > 1) AND
-            	//                              running slowly enough for GUI to keep up
+            	// request GUI update only if: there is in fact a GUI! AND
+            	//                             using Run,  not Step (maxSteps > 1) AND
+            	//                             running slowly enough for GUI to keep up
+            	// The update itself is performed by the GUI updater's timer, which coalesces
+            	// any number of completed steps into one update per display frame.
                //if (Globals.getGui() != null && maxSteps != 1 &&             
                if (interactiveGUIUpdater != null && maxSteps != 1 && 
                           RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED) {
-                  SwingUtilities.invokeLater(interactiveGUIUpdater);
+                  interactiveGUIUpdater.markStepCompleted();
                }
                if (Globals.getGui() != null || Globals.runSpeedPanelExists) { // OR added by DPS 24 July 2008 to enable speed control by stand-alone tool
                   if (maxSteps != 1 && 
                           RunSpeedPanel.getInstance().getRunSpeed() < RunSpeedPanel.UNLIMITED_SPEED) {
+                     if (retireBatches != null) {
+                        flushRetireListeners();
+                     }
                      try { Thread.sleep((int)(1000/RunSpeedPanel.getInstance().getRunSpeed())); // make sure it's never zero!
                      } 
                          catch (InterruptedException e) {}
                   }
                }
-               
+               if (translating && retireBatches == null && traceRecorder == null) {
+                  synchronized (Globals.memoryAndRegistersLock) {
+                     // Leave at least one step to the interpreter, which checks the step limit.
+                     int executed = BlockTranslator.run((maxSteps > 0) ? maxSteps - steps - 1 : Integer.MAX_VALUE, counters);
+                     if (maxSteps > 0) {
+                        steps += executed;
+                     }
+                  }
+               }
             
                // Get next instruction in preparation for next iteration.
             
@@ -478,16 +800,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          
       	
       	/**
-      	 *   This method is invoked by the SwingWorker when the "construct" method returns.  
-      	 *   It will update the GUI appropriately.  According to Sun's documentation, it 
-      	 *   is run in the main thread so should work OK with Swing components (which are 
-      	 *   not thread-safe).
+      	 *   This method is invoked by the SimulationWorker when the "construct" method returns.  
+      	 *   It will update the GUI appropriately.  It is run on the event dispatch thread 
+      	 *   so should work OK with Swing components (which are not thread-safe).
       	 *
       	 *   Its action depends on what caused the return from construct() and what
       	 *   action led to the call of construct() in the first place.
       	 */
       	 
-          public void finished() {
+          void finished() {
            // If running from the command-line, then there is no GUI to update.
             if (Globals.getGui() == null) {
                return;
@@ -517,20 +838,5 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          }
          
       }
-   	
-       private class UpdateGUI implements Runnable {
-          public void run() {
-            if (Globals.getGui().getRegistersPane().getSelectedComponent() == 
-                                                     Globals.getGui().getMainPane().getExecutePane().getRegistersWindow()) {
-               Globals.getGui().getMainPane().getExecutePane().getRegistersWindow().updateRegisters();
-            } 
-            else {
-               Globals.getGui().getMainPane().getExecutePane().getCoprocessor1Window().updateRegisters();
-            }
-            Globals.getGui().getMainPane().getExecutePane().getDataSegmentWindow().updateValues();
-            Globals.getGui().getMainPane().getExecutePane().getTextSegmentWindow().setCodeHighlighting(true);
-            Globals.getGui().getMainPane().getExecutePane().getTextSegmentWindow().highlightStepAtPC();   
-         }
-      }
    
    }
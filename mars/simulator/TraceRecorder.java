@@ -0,0 +1,346 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import java.io.*;
+   import java.nio.channels.*;
+   import java.util.concurrent.*;
+   import java.util.zip.*;
+
+/**
+ * Records an execution trace of the MIPS program to a file while it runs, so the run
+ * can be analyzed later, any number of times, by replaying the trace into tools with
+ * TraceReplayer.  For each instruction that completes, the trace holds its address,
+ * whether it branched, the data it read and wrote in memory (including accesses made
+ * by syscalls, so syscall input is captured) and the new values of the general purpose,
+ * hi and lo registers it changed.
+ * <p>
+ * Records are delta encoded: an instruction that follows its predecessor takes no
+ * address bytes, and addresses and register values are stored as variable-length
+ * differences from the previous ones.  The simulator thread only encodes records into
+ * a buffer.  Full buffers are handed to a background thread, which compresses them
+ * with gzip and writes them through a file channel, so recording adds little to the
+ * run time.
+ * <p>
+ * The format is the header "MARSTRC" and version byte, the initial program counter and
+ * the values of registers 0 to 31, hi and lo, then one record per instruction.  A record
+ * starts with a tag byte of flags: NEXT_ADDRESS_CHANGED followed by the difference
+ * from the address after the previous instruction; BRANCH_TAKEN; MEMORY followed by a
+ * count and, per access, a byte holding the length and the WRITE flag, the difference
+ * from the previous access address and the value; and REGISTERS followed by a count
+ * and, per register, its number and the difference from its previous value.  All
+ * numbers are zigzag encoded variable-length integers.  The tag END_OF_TRACE is
+ * followed by the number of instructions recorded.
+ *
+ * @version October 2026
+ * @see TraceReplayer
+ * @see Simulator#setTraceRecorder(TraceRecorder)
+ */
+
+    public class TraceRecorder implements MemoryAccessTracer {
+   
+      static final byte[] MAGIC = {'M', 'A', 'R', 'S', 'T', 'R', 'C', 1};
+      static final int NEXT_ADDRESS_CHANGED = 0x01;
+      static final int BRANCH_TAKEN = 0x02;
+      static final int MEMORY = 0x04;
+      static final int REGISTERS = 0x08;
+      static final int END_OF_TRACE = 0xFF;
+      static final int WRITE = 0x80;
+      // Registers traced: 0-31, then hi and lo.
+      static final int REGISTER_COUNT = 34;
+      static final int HI = 32, LO = 33;
+   
+      private static final int BUFFER_SIZE = 1 << 16;
+      private static final int BUFFERS = 4;
+      // Maximum length of a variable-length number.
+      private static final int NUMBER_SPACE = 5;
+      private static final byte[] END_OF_BUFFERS = new byte[0];
+   
+      private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<byte[]>(BUFFERS);
+      private final BlockingQueue<Object[]> fullBuffers = new ArrayBlockingQueue<Object[]>(BUFFERS + 1);
+      private final Thread writer;
+      private volatile IOException writeError = null;
+      private byte[] buffer;
+      private int position = 0;
+      private boolean closed = false;
+   
+      private final int[] registers = new int[REGISTER_COUNT];
+      private final Register[] registerObjects = new Register[REGISTER_COUNT];
+      private int nextAddress;
+      private int lastMemoryAddress = 0;
+      private long instructions = 0;
+      // Data accesses of the instruction being executed.
+      private int accessCount = 0;
+      private int[] accessAddresses = new int[16];
+      private int[] accessValues = new int[16];
+      private byte[] accessKinds = new byte[16];
+   
+   	/**
+   	 * Create the trace file and write its header, which records the current
+   	 * program counter and register values.  Start recording by passing the
+   	 * recorder to Simulator.setTraceRecorder().
+   	 *
+   	 * @param file the file to write
+   	 * @throws IOException if the file cannot be created
+   	 */
+       public TraceRecorder(File file) throws IOException {
+         final FileChannel channel = new FileOutputStream(file).getChannel();
+         final OutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+         for (int i = 0; i < BUFFERS; i++) {
+            freeBuffers.add(new byte[BUFFER_SIZE]);
+         }
+         buffer = takeBuffer();
+         writer = 
+            new Thread("MARS trace writer") {
+               public void run() {
+                  writeBuffers(out);
+               }
+            };
+         writer.setDaemon(true);
+         writer.start();
+         System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+         position = MAGIC.length;
+         nextAddress = RegisterFile.getProgramCounter();
+         writeNumber(nextAddress);
+         System.arraycopy(RegisterFile.getRegisters(), 0, registerObjects, 0, HI);
+         registerObjects[HI] = RegisterFile.getHiRegister();
+         registerObjects[LO] = RegisterFile.getLoRegister();
+         for (int i = 0; i < REGISTER_COUNT; i++) {
+            registers[i] = registerObjects[i].getValueNoNotify();
+            writeNumber(registers[i]);
+         }
+      }
+   
+   	/**
+   	 * @return number of instructions recorded so far
+   	 */
+       public long getInstructionCount() {
+         return instructions;
+      }
+   
+   	/**
+   	 * Finish the trace and close the file.  Waits until everything recorded
+   	 * has been written.  Stop recording with Simulator.setTraceRecorder(null) first.
+   	 *
+   	 * @throws IOException if the trace could not be written
+   	 */
+       public synchronized void close() throws IOException {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         ensureSpace(1 + 2 * NUMBER_SPACE);
+         buffer[position++] = (byte) END_OF_TRACE;
+         writeNumber((int) instructions);
+         writeNumber((int) (instructions >>> 32));
+         handOff(buffer, position);
+         handOff(END_OF_BUFFERS, 0);
+         try {
+            writer.join();
+         } 
+             catch (InterruptedException e) {
+               throw new InterruptedIOException("trace not completely written");
+            }
+         if (writeError != null) {
+            throw writeError;
+         }
+      }
+   
+   	/**
+   	 * Instruction fetches are implied by the instruction addresses recorded.
+   	 */
+       public void instructionFetched(int address) {
+      }
+   
+   	/**
+   	 * Note a data read by the current instruction.
+   	 */
+       public void dataRead(int address, int length, int value) {
+         addAccess(address, length, value);
+      }
+   
+   	/**
+   	 * Note a data write by the current instruction.
+   	 */
+       public void dataWritten(int address, int length, int value) {
+         addAccess(address, length | WRITE, value);
+      }
+   
+      // Called by the simulator thread, holding the lock, before each instruction executes.
+       void instructionStarting() {
+         accessCount = 0;
+         RegisterFile.clearRegistersWritten();
+      }
+   
+      // Called by the simulator thread, holding the lock, when an instruction completes.
+       synchronized void instructionRetired(int address, boolean branchTaken) {
+         if (closed) {
+            return;
+         }
+         ensureSpace(1 + 2 * NUMBER_SPACE + accessCount * (1 + 2 * NUMBER_SPACE) 
+                     + NUMBER_SPACE + REGISTER_COUNT * (1 + NUMBER_SPACE));
+         int tagPosition = position++;
+         int tag = branchTaken ? BRANCH_TAKEN : 0;
+         if (address != nextAddress) {
+            tag |= NEXT_ADDRESS_CHANGED;
+            writeNumber(address - nextAddress);
+         }
+         nextAddress = address + Instruction.INSTRUCTION_LENGTH;
+         if (accessCount > 0) {
+            tag |= MEMORY;
+            writeNumber(accessCount);
+            for (int i = 0; i < accessCount; i++) {
+               buffer[position++] = accessKinds[i];
+               writeNumber(accessAddresses[i] - lastMemoryAddress);
+               lastMemoryAddress = accessAddresses[i];
+               writeNumber(accessValues[i]);
+            }
+            accessCount = 0;
+         }
+         // Registers written by the instruction, as register numbers 1-31 then hi and lo
+         // in bits 32 and 33.  Only those whose value changed are recorded.
+         long written = RegisterFile.getRegistersWritten();
+         written = (written & 0xFFFFFFFEL) | ((written >>> 1) & (3L << HI));
+         int changed = 0;
+         for (long bits = written; bits != 0; bits &= bits - 1) {
+            int register = Long.numberOfTrailingZeros(bits);
+            if (registerObjects[register].getValueNoNotify() != registers[register]) {
+               changed++;
+            } 
+            else {
+               written &= ~(1L << register);
+            }
+         }
+         if (changed > 0) {
+            tag |= REGISTERS;
+            writeNumber(changed);
+            for (long bits = written; bits != 0; bits &= bits - 1) {
+               int register = Long.numberOfTrailingZeros(bits);
+               int value = registerObjects[register].getValueNoNotify();
+               buffer[position++] = (byte) register;
+               writeNumber(value - registers[register]);
+               registers[register] = value;
+            }
+         }
+         buffer[tagPosition] = (byte) tag;
+         instructions++;
+      }
+   
+       private void addAccess(int address, int kind, int value) {
+         if (accessCount == accessAddresses.length) {
+            int size = accessCount * 2;
+            int[] addresses = new int[size];
+            int[] values = new int[size];
+            byte[] kinds = new byte[size];
+            System.arraycopy(accessAddresses, 0, addresses, 0, accessCount);
+            System.arraycopy(accessValues, 0, values, 0, accessCount);
+            System.arraycopy(accessKinds, 0, kinds, 0, accessCount);
+            accessAddresses = addresses;
+            accessValues = values;
+            accessKinds = kinds;
+         }
+         accessAddresses[accessCount] = address;
+         accessValues[accessCount] = value;
+         accessKinds[accessCount] = (byte) kind;
+         accessCount++;
+      }
+   
+      // Write an int as a zigzag encoded variable-length number, 1 to 5 bytes.
+       private void writeNumber(int number) {
+         int bits = (number << 1) ^ (number >> 31);
+         while ((bits & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((bits & 0x7F) | 0x80);
+            bits >>>= 7;
+         }
+         buffer[position++] = (byte) bits;
+      }
+   
+      // Make room for a record of up to the given length, handing off the current buffer
+      // if it is too full.  A record longer than a buffer, such as one for a syscall that
+      // reads a long string, gets a larger buffer of its own.
+       private void ensureSpace(int length) {
+         if (position + length > buffer.length) {
+            handOff(buffer, position);
+            buffer = takeBuffer();
+            position = 0;
+            if (length > buffer.length) {
+               buffer = new byte[length];
+            }
+         }
+      }
+   
+       private byte[] takeBuffer() {
+         try {
+            return freeBuffers.take();
+         } 
+             catch (InterruptedException e) {
+               return new byte[BUFFER_SIZE];
+            }
+      }
+   
+       private void handOff(byte[] data, int length) {
+         try {
+            fullBuffers.put(new Object[] {data, Integer.valueOf(length)});
+         } 
+             catch (InterruptedException e) {
+            }
+      }
+   
+      // Run by the writer thread: compress and write buffers until the end marker arrives.
+       private void writeBuffers(OutputStream out) {
+         try {
+            while (true) {
+               Object[] full = fullBuffers.take();
+               byte[] data = (byte[]) full[0];
+               if (data == END_OF_BUFFERS) {
+                  break;
+               }
+               if (writeError == null) {
+                  try {
+                     out.write(data, 0, ((Integer) full[1]).intValue());
+                  } 
+                      catch (IOException e) {
+                        writeError = e;
+                     }
+               }
+               freeBuffers.offer(data);
+            }
+            out.close();
+         } 
+             catch (IOException e) {
+               if (writeError == null) {
+                  writeError = e;
+               }
+            } 
+             catch (InterruptedException e) {
+            }
+      }
+   }
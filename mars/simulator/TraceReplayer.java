@@ -0,0 +1,211 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.*;
+   import mars.mips.hardware.*;
+   import mars.mips.instructions.*;
+   import java.io.*;
+   import java.nio.channels.*;
+   import java.util.zip.*;
+
+/**
+ * Replays an execution trace written by TraceRecorder into the tools and other
+ * observers of the current MARS session, without executing the program.  For each
+ * recorded instruction the replayer reports the instruction fetch and data accesses
+ * to memory access tracers and memory observers, sets the registers the instruction
+ * changed, which notifies register observers, and delivers the instruction to retire
+ * listeners.  Tools such as the Data Cache Simulator, Memory Reference Visualization
+ * and BHT Simulator therefore see the recorded run as if it were executing, but at
+ * the speed of reading the trace.
+ * <p>
+ * The program that was traced must be assembled, so that retire listeners can be
+ * given its statements; memory contents are not changed by the replay.  Replay from a
+ * thread whose name starts with "MIPS", so that tools accept the accesses as coming from
+ * the MIPS program.
+ *
+ * @version October 2026
+ * @see TraceRecorder
+ */
+
+    public class TraceReplayer {
+   
+      // Records replayed per acquisition of the memory and registers lock.
+      private static final int RECORDS_PER_LOCK = 4096;
+   
+      private final File file;
+      private volatile boolean stop = false;
+      private InputStream in;
+      private final byte[] buffer = new byte[1 << 16];
+      private int position = 0;
+      private int limit = 0;
+   
+   	/**
+   	 * @param file the trace file to replay
+   	 */
+       public TraceReplayer(File file) {
+         this.file = file;
+      }
+   
+   	/**
+   	 * Ask a replay in progress on another thread to stop after the current group of records.
+   	 */
+       public void stop() {
+         stop = true;
+      }
+   
+   	/**
+   	 * Replay the trace on the current thread.
+   	 *
+   	 * @return the number of instructions replayed
+   	 * @throws IOException if the trace cannot be read or is not a valid trace
+   	 */
+       public long replay() throws IOException {
+         in = new GZIPInputStream(Channels.newInputStream(new FileInputStream(file).getChannel()), buffer.length);
+         try {
+            return replayRecords();
+         } 
+         finally {
+            in.close();
+         }
+      }
+   
+       private long replayRecords() throws IOException {
+         for (int i = 0; i < TraceRecorder.MAGIC.length; i++) {
+            if (readByte() != (TraceRecorder.MAGIC[i] & 0xFF)) {
+               throw new IOException(file.getName() + " is not a MARS execution trace");
+            }
+         }
+         Simulator simulator = Simulator.getInstance();
+         Memory memory = Memory.getInstance();
+         Register[] registerObjects = new Register[TraceRecorder.REGISTER_COUNT];
+         System.arraycopy(RegisterFile.getRegisters(), 0, registerObjects, 0, TraceRecorder.HI);
+         registerObjects[TraceRecorder.HI] = RegisterFile.getHiRegister();
+         registerObjects[TraceRecorder.LO] = RegisterFile.getLoRegister();
+         int[] registers = new int[TraceRecorder.REGISTER_COUNT];
+         long instructions = 0;
+         int memoryAddress = 0;
+         boolean done = false;
+         int nextAddress = readNumber();
+         for (int i = 0; i < registers.length; i++) {
+            registers[i] = readNumber();
+         }
+         synchronized (Globals.memoryAndRegistersLock) {
+            RegisterFile.setProgramCounter(nextAddress);
+            for (int i = 1; i < registers.length; i++) {
+               registerObjects[i].setValue(registers[i]);
+            }
+         }
+         // Hold the lock for a group of records at a time, so the GUI can get in between.
+         while (!done && !stop) {
+            synchronized (Globals.memoryAndRegistersLock) {
+               for (int record = 0; record < RECORDS_PER_LOCK; record++) {
+                  int tag = readByte();
+                  if (tag == TraceRecorder.END_OF_TRACE) {
+                     long recorded = (readNumber() & 0xFFFFFFFFL) | ((long) readNumber() << 32);
+                     if (recorded != instructions) {
+                        throw new IOException(file.getName() + " is damaged: " + instructions 
+                                              + " instructions replayed of " + recorded + " recorded");
+                     }
+                     done = true;
+                     break;
+                  }
+                  int address = nextAddress;
+                  if ((tag & TraceRecorder.NEXT_ADDRESS_CHANGED) != 0) {
+                     address += readNumber();
+                  }
+                  nextAddress = address + Instruction.INSTRUCTION_LENGTH;
+                  simulator.instructionStarting();
+                  memory.replayInstructionFetched(address);
+                  if ((tag & TraceRecorder.MEMORY) != 0) {
+                     for (int count = readNumber(); count > 0; count--) {
+                        int kind = readByte();
+                        memoryAddress += readNumber();
+                        int value = readNumber();
+                        memory.replayDataAccess(
+                           ((kind & TraceRecorder.WRITE) != 0) ? AccessNotice.WRITE : AccessNotice.READ,
+                           memoryAddress, kind & ~TraceRecorder.WRITE, value);
+                     }
+                  }
+                  if ((tag & TraceRecorder.REGISTERS) != 0) {
+                     for (int count = readNumber(); count > 0; count--) {
+                        int register = readByte();
+                        if (register <= 0 || register >= registers.length) {
+                           throw new IOException(file.getName() + " is damaged: invalid register number");
+                        }
+                        registers[register] += readNumber();
+                        registerObjects[register].setValue(registers[register]);
+                     }
+                  }
+                  if (simulator.hasRetireListeners()) {
+                     ProgramStatement statement = null;
+                     try {
+                        statement = memory.getStatementNoNotify(address);
+                     } 
+                         catch (AddressErrorException e) {
+                        }
+                     if (statement != null) {
+                        simulator.instructionRetired(address, statement, 
+                                                     (tag & TraceRecorder.BRANCH_TAKEN) != 0);
+                     }
+                  }
+                  instructions++;
+               }
+               RegisterFile.setProgramCounter(nextAddress);
+            }
+         }
+         simulator.flushRetireListeners();
+         return instructions;
+      }
+   
+       private int readByte() throws IOException {
+         if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+               limit = 0;
+               throw new EOFException(file.getName() + " ends unexpectedly");
+            }
+         }
+         return buffer[position++] & 0xFF;
+      }
+   
+      // Read a zigzag encoded variable-length number written by TraceRecorder.
+       private int readNumber() throws IOException {
+         int bits = 0;
+         for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            bits |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+               return (bits >>> 1) ^ -(bits & 1);
+            }
+         }
+         throw new IOException(file.getName() + " is damaged: invalid number");
+      }
+   }
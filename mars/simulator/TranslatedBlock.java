@@ -0,0 +1,166 @@
+   package mars.simulator;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import mars.Globals;
+   import mars.mips.hardware.*;
+
+/**
+ * Base class of the JVM classes generated by BlockCompiler from basic blocks of MIPS
+ * code.  The generated execute() method performs the block's instructions on an array
+ * holding registers 0 to 31, hi and lo, and returns the address of the next instruction.
+ * The static methods here are called by the generated code for memory accesses and
+ * for the multiply and divide instructions.
+ * <p>
+ * Before each instruction that can raise an exception, the generated code stores the
+ * instruction's index in the block in position.  If the instruction fails, the exception
+ * propagates out of execute() having changed nothing, and BlockTranslator leaves that
+ * instruction to the simulator so the MIPS exception is raised exactly as if the block
+ * had not been translated.  Accesses to memory-mapped I/O are left to the simulator
+ * in the same way.
+ *
+ * @version October 2026
+ * @see BlockTranslator
+ */
+
+    abstract class TranslatedBlock {
+   
+      static final int HI = 32, LO = 33;
+   
+      // Thrown to leave an instruction to the simulator.  Shared and without stack trace, as
+      // it only unwinds to BlockTranslator.
+      static final RuntimeException DEFER = new DeferredInstruction();
+   
+      /** Index in the block of the instruction being performed, set before any that may fault. */
+      int position;
+      /** Address of the first instruction. */
+      int address;
+      /** Address following the last instruction. */
+      int endAddress;
+      /** Number of instructions. */
+      int length;
+      /** BasicInstruction serial numbers of the instructions, for the performance counters. */
+      int[] serialNumbers;
+   
+   	/**
+   	 * Perform the instructions of the block.
+   	 *
+   	 * @param registers registers 0 to 31, then hi and lo
+   	 * @return address of the next instruction to execute
+   	 * @throws AddressErrorException if a memory access fails
+   	 */
+       abstract int execute(int[] registers) throws AddressErrorException;
+   
+       static int loadWord(int address) throws AddressErrorException {
+         checkNotMemoryMapped(address);
+         return Globals.memory.getWord(address);
+      }
+   
+       static int loadHalf(int address) throws AddressErrorException {
+         checkNotMemoryMapped(address);
+         return Globals.memory.getHalf(address);
+      }
+   
+       static int loadByte(int address) throws AddressErrorException {
+         checkNotMemoryMapped(address);
+         return Globals.memory.getByte(address);
+      }
+   
+       static void storeWord(int address, int value) throws AddressErrorException {
+         checkNotMemoryMapped(address);
+         Globals.memory.setWord(address, value);
+      }
+   
+       static void storeHalf(int address, int value) throws AddressErrorException {
+         checkNotMemoryMapped(address);
+         Globals.memory.setHalf(address, value);
+      }
+   
+       static void storeByte(int address, int value) throws AddressErrorException {
+         checkNotMemoryMapped(address);
+         Globals.memory.setByte(address, value);
+      }
+   
+      // Device accesses have side effects and may schedule events, so they are simulated
+      // one instruction at a time.
+       private static void checkNotMemoryMapped(int address) {
+         if (address >= Memory.memoryMapBaseAddress && address < Memory.memoryMapLimitAddress) {
+            throw DEFER;
+         }
+      }
+   
+      // The following match the simulation code of the instructions in MipsAssembly.
+   
+       static void mult(int[] registers, int s, int t) {
+         long product = (long) registers[s] * (long) registers[t];
+         registers[HI] = (int) (product >> 32);
+         registers[LO] = (int) product;
+      }
+   
+       static void multu(int[] registers, int s, int t) {
+         long product = (((long) registers[s]) << 32 >>> 32) * (((long) registers[t]) << 32 >>> 32);
+         registers[HI] = (int) (product >> 32);
+         registers[LO] = (int) product;
+      }
+   
+       static void mul(int[] registers, int d, int s, int t) {
+         long product = (long) registers[s] * (long) registers[t];
+         if (d != 0) {
+            registers[d] = (int) product;
+         }
+         registers[HI] = (int) (product >> 32);
+         registers[LO] = (int) product;
+      }
+   
+       static void div(int[] registers, int s, int t) {
+         if (registers[t] == 0) {
+            return; // no exception and undefined results for zero divide
+         }
+         registers[HI] = registers[s] % registers[t];
+         registers[LO] = registers[s] / registers[t];
+      }
+   
+       static void divu(int[] registers, int s, int t) {
+         if (registers[t] == 0) {
+            return;
+         }
+         long dividend = ((long) registers[s]) << 32 >>> 32;
+         long divisor = ((long) registers[t]) << 32 >>> 32;
+         registers[HI] = (int) (dividend % divisor);
+         registers[LO] = (int) (dividend / divisor);
+      }
+   
+       private static class DeferredInstruction extends RuntimeException {
+          private static final long serialVersionUID = 1L;
+      
+          DeferredInstruction() {
+            super("instruction deferred to simulator", null, false, false);
+         }
+      }
+   }
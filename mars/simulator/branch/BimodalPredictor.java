@@ -0,0 +1,62 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Bimodal predictor: a table of 2-bit counters indexed by branch address.  This is
+ * the scheme of the Branch History Table Simulator tool with a 2-bit history.
+ *
+ * @version October 2026
+ */
+
+    public class BimodalPredictor extends BranchPredictor {
+   
+      private final byte[] counters;
+   
+   	/**
+   	 * @param name the name of the predictor
+   	 * @param entries number of counters, a power of two
+   	 */
+       public BimodalPredictor(String name, int entries) {
+         super(name);
+         counters = newCounterTable(entries);
+      }
+   
+       public boolean predict(int address, int target) {
+         return predictsTaken(counters, addressIndex(address, counters.length));
+      }
+   
+       public void update(int address, boolean taken) {
+         train(counters, addressIndex(address, counters.length), taken);
+      }
+   
+       public String getDescription() {
+         return "bimodal, " + counters.length + " 2-bit counters";
+      }
+   }
@@ -0,0 +1,139 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import java.util.Arrays;
+
+/**
+ * A dynamic or static conditional branch predictor.  For each conditional branch
+ * executed, the predictor is first asked for a prediction and then told the actual
+ * outcome, in program order.  Subclasses keep their tables in primitive arrays so
+ * that predictors can follow runs of hundreds of millions of branches.
+ * <p>
+ * Most dynamic predictors use tables of 2-bit saturating counters, values 0 to 3,
+ * where 2 and 3 predict taken.  The helpers here implement those counters.
+ *
+ * @version October 2026
+ * @see BranchPredictorEngine
+ */
+
+    public abstract class BranchPredictor {
+   
+      /** Initial value of 2-bit counters: weakly not taken. */
+      protected static final byte WEAKLY_NOT_TAKEN = 1;
+   
+      private final String name;
+   
+   	/**
+   	 * @param name the name of the predictor, as it was specified
+   	 */
+       protected BranchPredictor(String name) {
+         this.name = name;
+      }
+   
+   	/**
+   	 * Predict the outcome of a conditional branch.
+   	 *
+   	 * @param address the address of the branch instruction
+   	 * @param target the address the branch goes to if taken
+   	 * @return true if the branch is predicted taken
+   	 */
+       public abstract boolean predict(int address, int target);
+   
+   	/**
+   	 * Update the predictor with the actual outcome of the branch last predicted.
+   	 *
+   	 * @param address the address of the branch instruction
+   	 * @param taken true if the branch was taken
+   	 */
+       public abstract void update(int address, boolean taken);
+   
+   	/**
+   	 * @return description of the predictor and its configuration
+   	 */
+       public abstract String getDescription();
+   
+   	/**
+   	 * @return the name of the predictor, as it was specified
+   	 */
+       public String getName() {
+         return name;
+      }
+   
+   	/**
+   	 * Create a table of 2-bit counters, all weakly not taken.
+   	 *
+   	 * @param entries the number of counters
+   	 * @return the table
+   	 */
+       protected static byte[] newCounterTable(int entries) {
+         byte[] counters = new byte[entries];
+         Arrays.fill(counters, WEAKLY_NOT_TAKEN);
+         return counters;
+      }
+   
+   	/**
+   	 * Move a 2-bit counter toward the actual outcome.
+   	 *
+   	 * @param counters the table of counters
+   	 * @param index index of the counter to update
+   	 * @param taken true if the branch was taken
+   	 */
+       protected static void train(byte[] counters, int index, boolean taken) {
+         byte counter = counters[index];
+         if (taken) {
+            if (counter < 3) {
+               counters[index] = (byte) (counter + 1);
+            }
+         } 
+         else if (counter > 0) {
+            counters[index] = (byte) (counter - 1);
+         }
+      }
+   
+   	/**
+   	 * @param counters the table of counters
+   	 * @param index index of the counter to consult
+   	 * @return true if the counter predicts taken
+   	 */
+       protected static boolean predictsTaken(byte[] counters, int index) {
+         return counters[index] >= 2;
+      }
+   
+   	/**
+   	 * Index into a table of the given size, a power of two, by branch address.
+   	 *
+   	 * @param address the address of the branch instruction
+   	 * @param entries the table size
+   	 * @return the word address modulo the table size
+   	 */
+       protected static int addressIndex(int address, int entries) {
+         return (address >>> 2) & (entries - 1);
+      }
+   }
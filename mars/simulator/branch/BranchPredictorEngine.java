@@ -0,0 +1,418 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import java.util.*;
+import mars.ProgramStatement;
+import mars.mips.hardware.AddressErrorException;
+import mars.mips.hardware.Memory;
+import mars.mips.instructions.BasicInstruction;
+import mars.mips.instructions.BasicInstructionFormat;
+import mars.simulator.RetireEvent;
+import mars.simulator.RetireListener;
+import mars.util.Binary;
+
+/**
+ * Evaluates one or more branch predictors side by side on the conditional branches
+ * of a running MIPS program.  Each predictor predicts every branch, in program order,
+ * and is then updated with its actual outcome.  Mispredictions are counted per
+ * predictor and per branch site (branch instruction address), so the report can show
+ * which branches each predictor handles poorly.
+ * <p>
+ * The engine is a RetireListener, so it sees only instructions that completed, and
+ * runs without a GUI at a cost of a few array operations per branch.  It is used by
+ * the "bp" command line option.  Other sources of branch outcomes can call
+ * branchExecuted() directly.
+ *
+ * @version October 2026
+ * @see BranchPredictor
+ */
+
+    public class BranchPredictorEngine implements RetireListener {
+   
+      /** Number of branch sites listed in the report unless set otherwise. */
+      public static final int DEFAULT_SITES_REPORTED = 20;
+   
+      private final BranchPredictor[] predictors;
+      private final long[] mispredictions;
+      private long instructions = 0;
+      private long branches = 0;
+      private long takenBranches = 0;
+      private int sitesReported = DEFAULT_SITES_REPORTED;
+   
+      // Branch sites, in order of first execution.
+      private int siteCount = 0;
+      private int[] siteAddresses = new int[64];
+      private long[] siteExecutions = new long[64];
+      private long[] siteTaken = new long[64];
+      private long[][] siteMispredictions; // by predictor, then site
+      // Open addressing hash table from branch address to site number + 1, 0 if empty.
+      private int[] siteTable = new int[128];
+   
+   	/**
+   	 * Create an engine from a specification listing the predictors to compare,
+   	 * separated by commas.  Each predictor is one of:
+   	 * <tt>taken</tt>, <tt>nottaken</tt>, <tt>btfn</tt> (static predictors);
+   	 * <tt>bimodal:entries</tt>; <tt>global:historyBits</tt>; <tt>gshare:entries:historyBits</tt>;
+   	 * <tt>local:histories:historyBits</tt>; or <tt>tournament:entries:historyBits</tt>.
+   	 * Table sizes must be powers of two.  For example, <tt>btfn,bimodal:4096,gshare:4096:12</tt>.
+   	 *
+   	 * @param specification the specification
+   	 * @throws IllegalArgumentException if the specification is invalid
+   	 */
+       public BranchPredictorEngine(String specification) {
+         StringTokenizer tokens = new StringTokenizer(specification, ",");
+         ArrayList<BranchPredictor> list = new ArrayList<BranchPredictor>();
+         while (tokens.hasMoreTokens()) {
+            list.add(parsePredictor(tokens.nextToken()));
+         }
+         if (list.isEmpty()) {
+            throw new IllegalArgumentException("no branch predictors specified");
+         }
+         predictors = list.toArray(new BranchPredictor[list.size()]);
+         mispredictions = new long[predictors.length];
+         siteMispredictions = new long[predictors.length][64];
+      }
+   
+   	/**
+   	 * Set the number of branch sites listed by getReport().
+   	 *
+   	 * @param sites number of sites with the most mispredictions to list, 0 for none
+   	 */
+       public void setSitesReported(int sites) {
+         sitesReported = sites;
+      }
+   
+   	/**
+   	 * Receive retired instructions from the simulator and evaluate the conditional branches.
+   	 *
+   	 * @param events the retired instructions
+   	 * @param count the number of events
+   	 */
+       public void instructionsRetired(RetireEvent[] events, int count) {
+         for (int i = 0; i < count; i++) {
+            if (events[i].isException()) {
+               continue;
+            }
+            instructions++;
+            ProgramStatement statement = events[i].getStatement();
+            if (((BasicInstruction) statement.getInstruction()).getInstructionFormat() 
+                  == BasicInstructionFormat.I_BRANCH_FORMAT) {
+               int address = events[i].getAddress();
+               // The 16 bit offset is in words, relative to the following instruction.
+               int target = address + 4 + (((short) statement.getBinaryStatement()) << 2);
+               branchExecuted(address, target, events[i].isBranchTaken());
+            }
+         }
+      }
+   
+   	/**
+   	 * Evaluate every predictor on one execution of a conditional branch.
+   	 *
+   	 * @param address the address of the branch instruction
+   	 * @param target the address the branch goes to if taken
+   	 * @param taken true if the branch was taken
+   	 */
+       public void branchExecuted(int address, int target, boolean taken) {
+         int site = findSite(address);
+         branches++;
+         siteExecutions[site]++;
+         if (taken) {
+            takenBranches++;
+            siteTaken[site]++;
+         }
+         for (int p = 0; p < predictors.length; p++) {
+            BranchPredictor predictor = predictors[p];
+            if (predictor.predict(address, target) != taken) {
+               mispredictions[p]++;
+               siteMispredictions[p][site]++;
+            }
+            predictor.update(address, taken);
+         }
+      }
+   
+   	/**
+   	 * @return the predictors being evaluated, in the order specified
+   	 */
+       public BranchPredictor[] getPredictors() {
+         return predictors.clone();
+      }
+   
+   	/**
+   	 * @return number of conditional branches executed
+   	 */
+       public long getBranches() {
+         return branches;
+      }
+   
+   	/**
+   	 * @param predictor index of the predictor, in the order specified
+   	 * @return number of branches that predictor mispredicted
+   	 */
+       public long getMispredictions(int predictor) {
+         return mispredictions[predictor];
+      }
+   
+   	/**
+   	 * Produce a report of the accuracy of each predictor, followed by the branch sites
+   	 * with the most mispredictions summed over all predictors.
+   	 *
+   	 * @return the report, one line per item
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         report.append("Branches: ").append(branches).append(" conditional branches at ").append(siteCount)
+               .append(" sites, ").append(percent(takenBranches, branches)).append(" taken");
+         for (int p = 0; p < predictors.length; p++) {
+            report.append("\n").append(predictors[p].getName()).append(": ").append(predictors[p].getDescription());
+            report.append("\n    mispredictions ").append(mispredictions[p])
+                  .append("  accuracy ").append(percent(branches - mispredictions[p], branches));
+            if (instructions > 0) {
+               report.append("  per 1000 instructions ").append(thousandths(mispredictions[p] * 1000000 / instructions));
+            }
+         }
+         int listed = Math.min(sitesReported, siteCount);
+         if (listed > 0) {
+            report.append("\nBranch sites with the most mispredictions (").append(listed).append(" of ")
+                  .append(siteCount).append("):\n");
+            report.append(pad("address", 10)).append(pad("line", 7)).append(pad("executed", 12)).append(pad("taken", 9));
+            for (int p = 0; p < predictors.length; p++) {
+               report.append(pad(predictors[p].getName(), Math.max(12, predictors[p].getName().length() + 2)));
+            }
+            Integer[] sites = sitesByMispredictions();
+            for (int i = 0; i < listed; i++) {
+               int site = sites[i].intValue();
+               report.append("\n").append(Binary.intToHexString(siteAddresses[site]))
+                     .append(pad(sourceLine(siteAddresses[site]), 7))
+                     .append(pad(Long.toString(siteExecutions[site]), 12))
+                     .append(pad(percent(siteTaken[site], siteExecutions[site]), 9));
+               for (int p = 0; p < predictors.length; p++) {
+                  report.append(pad(Long.toString(siteMispredictions[p][site]), 
+                                    Math.max(12, predictors[p].getName().length() + 2)));
+               }
+            }
+         }
+         return report.toString();
+      }
+   
+      // Return the site number of a branch address, adding a site if it is new.
+       private int findSite(int address) {
+         int mask = siteTable.length - 1;
+         int slot = ((address >>> 2) * 0x9E3779B1) & mask;
+         while (siteTable[slot] != 0) {
+            int site = siteTable[slot] - 1;
+            if (siteAddresses[site] == address) {
+               return site;
+            }
+            slot = (slot + 1) & mask;
+         }
+         if (siteCount == siteAddresses.length) {
+            growSites();
+         }
+         int site = siteCount++;
+         siteAddresses[site] = address;
+         if (siteCount * 2 > siteTable.length) {
+            rehashSites();
+         } 
+         else {
+            siteTable[slot] = site + 1;
+         }
+         return site;
+      }
+   
+       private void growSites() {
+         int size = siteAddresses.length * 2;
+         int[] addresses = new int[size];
+         System.arraycopy(siteAddresses, 0, addresses, 0, siteCount);
+         siteAddresses = addresses;
+         siteExecutions = grow(siteExecutions, size);
+         siteTaken = grow(siteTaken, size);
+         for (int p = 0; p < predictors.length; p++) {
+            siteMispredictions[p] = grow(siteMispredictions[p], size);
+         }
+      }
+   
+       private static long[] grow(long[] values, int size) {
+         long[] grown = new long[size];
+         System.arraycopy(values, 0, grown, 0, values.length);
+         return grown;
+      }
+   
+       private void rehashSites() {
+         siteTable = new int[siteTable.length * 2];
+         int mask = siteTable.length - 1;
+         for (int site = 0; site < siteCount; site++) {
+            int slot = ((siteAddresses[site] >>> 2) * 0x9E3779B1) & mask;
+            while (siteTable[slot] != 0) {
+               slot = (slot + 1) & mask;
+            }
+            siteTable[slot] = site + 1;
+         }
+      }
+   
+      // Site numbers ordered by total mispredictions, then executions, most first.
+       private Integer[] sitesByMispredictions() {
+         final long[] totals = new long[siteCount];
+         Integer[] sites = new Integer[siteCount];
+         for (int site = 0; site < siteCount; site++) {
+            sites[site] = Integer.valueOf(site);
+            for (int p = 0; p < predictors.length; p++) {
+               totals[site] += siteMispredictions[p][site];
+            }
+         }
+         Arrays.sort(sites, 
+            new Comparator<Integer>() {
+               public int compare(Integer a, Integer b) {
+                  int siteA = a.intValue();
+                  int siteB = b.intValue();
+                  if (totals[siteA] != totals[siteB]) {
+                     return (totals[siteA] > totals[siteB]) ? -1 : 1;
+                  }
+                  if (siteExecutions[siteA] != siteExecutions[siteB]) {
+                     return (siteExecutions[siteA] > siteExecutions[siteB]) ? -1 : 1;
+                  }
+                  return siteA - siteB;
+               }
+            });
+         return sites;
+      }
+   
+      // Source line of the branch at the given address, or "" if not known.
+       private static String sourceLine(int address) {
+         try {
+            ProgramStatement statement = Memory.getInstance().getStatementNoNotify(address);
+            if (statement != null && statement.getSourceLine() > 0) {
+               return Integer.toString(statement.getSourceLine());
+            }
+         } 
+             catch (AddressErrorException e) {
+            }
+         return "";
+      }
+   
+      // Right-justify a value in a field of the given width, with at least one space before it.
+       private static String pad(String value, int width) {
+         StringBuffer padded = new StringBuffer(" ");
+         for (int i = value.length() + 1; i < width; i++) {
+            padded.append(' ');
+         }
+         return padded.append(value).toString();
+      }
+   
+      // Format part / whole as a percentage with two decimal places.
+       private static String percent(long part, long whole) {
+         long hundredths = (whole == 0) ? 0 : Math.round(part * 10000.0 / whole);
+         String decimals = "0" + (hundredths % 100);
+         return (hundredths / 100) + "." + decimals.substring(decimals.length() - 2) + "%";
+      }
+   
+      // Format a count of thousandths with three decimal places.
+       private static String thousandths(long value) {
+         String decimals = "00" + (value % 1000);
+         return (value / 1000) + "." + decimals.substring(decimals.length() - 3);
+      }
+   
+      // Parse one predictor of the specification.
+       private static BranchPredictor parsePredictor(String specification) {
+         String[] fields = specification.split(":");
+         String kind = fields[0].toLowerCase();
+         if (kind.equals("taken") || kind.equals("nottaken") || kind.equals("btfn")) {
+            checkFields(specification, fields, 0);
+            int rule = kind.equals("taken") ? StaticPredictor.ALWAYS_TAKEN
+                     : kind.equals("nottaken") ? StaticPredictor.NEVER_TAKEN 
+                     : StaticPredictor.BACKWARD_TAKEN;
+            return new StaticPredictor(specification, rule);
+         }
+         if (kind.equals("bimodal")) {
+            checkFields(specification, fields, 1);
+            return new BimodalPredictor(specification, parseEntries(specification, fields[1]));
+         }
+         if (kind.equals("global")) {
+            checkFields(specification, fields, 1);
+            int historyBits = parseHistoryBits(specification, fields[1]);
+            return new GlobalHistoryPredictor(specification, 1 << historyBits, historyBits, false);
+         }
+         if (kind.equals("gshare")) {
+            checkFields(specification, fields, 2);
+            return new GlobalHistoryPredictor(specification, parseEntries(specification, fields[1]), 
+                                              parseHistoryBits(specification, fields[2]), true);
+         }
+         if (kind.equals("local")) {
+            checkFields(specification, fields, 2);
+            return new LocalHistoryPredictor(specification, parseEntries(specification, fields[1]), 
+                                             parseHistoryBits(specification, fields[2]));
+         }
+         if (kind.equals("tournament")) {
+            checkFields(specification, fields, 2);
+            return new TournamentPredictor(specification, parseEntries(specification, fields[1]), 
+                                           parseHistoryBits(specification, fields[2]));
+         }
+         throw new IllegalArgumentException("unknown branch predictor " + fields[0]);
+      }
+   
+       private static void checkFields(String specification, String[] fields, int parameters) {
+         if (fields.length != parameters + 1) {
+            throw new IllegalArgumentException(specification + " requires " + parameters + " parameter" 
+                                               + ((parameters == 1) ? "" : "s"));
+         }
+      }
+   
+      // Parse a table size, a power of two up to 2^26 with optional K suffix.
+       private static int parseEntries(String specification, String value) {
+         String digits = value.toUpperCase();
+         int multiplier = 1;
+         if (digits.endsWith("K")) {
+            multiplier = 1024;
+            digits = digits.substring(0, digits.length() - 1);
+         }
+         try {
+            long entries = Long.parseLong(digits) * multiplier;
+            if (entries > 0 && entries <= (1 << 26) && (entries & (entries - 1)) == 0) {
+               return (int) entries;
+            }
+         } 
+             catch (NumberFormatException e) {
+            }
+         throw new IllegalArgumentException(specification + " has invalid table size " + value 
+                                            + ", must be a power of two");
+      }
+   
+       private static int parseHistoryBits(String specification, String value) {
+         try {
+            int bits = Integer.parseInt(value);
+            if (bits >= 1 && bits <= 26) {
+               return bits;
+            }
+         } 
+             catch (NumberFormatException e) {
+            }
+         throw new IllegalArgumentException(specification + " has invalid history length " + value 
+                                            + ", must be 1 to 26 bits");
+      }
+   }
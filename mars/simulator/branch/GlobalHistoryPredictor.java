@@ -0,0 +1,81 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Two-level predictor with a global history register: the outcomes of the most
+ * recent conditional branches, one bit each, index a table of 2-bit counters.
+ * As "global" (GAg) the history alone forms the index; as "gshare" it is
+ * exclusive-ORed with the branch address, which spreads the branches that share
+ * a history over the table.
+ *
+ * @version October 2026
+ */
+
+    public class GlobalHistoryPredictor extends BranchPredictor {
+   
+      private final byte[] counters;
+      private final int historyBits;
+      private final int historyMask;
+      private final boolean shareWithAddress;
+      private int history = 0;
+   
+   	/**
+   	 * @param name the name of the predictor
+   	 * @param entries number of counters, a power of two
+   	 * @param historyBits number of branch outcomes kept in the history, 1 to 30
+   	 * @param shareWithAddress true for gshare, false to index by history alone
+   	 */
+       public GlobalHistoryPredictor(String name, int entries, int historyBits, boolean shareWithAddress) {
+         super(name);
+         this.counters = newCounterTable(entries);
+         this.historyBits = historyBits;
+         this.historyMask = (1 << historyBits) - 1;
+         this.shareWithAddress = shareWithAddress;
+      }
+   
+       public boolean predict(int address, int target) {
+         return predictsTaken(counters, index(address));
+      }
+   
+       public void update(int address, boolean taken) {
+         train(counters, index(address), taken);
+         history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+      }
+   
+       public String getDescription() {
+         return (shareWithAddress ? "gshare, " : "global history, ") + historyBits 
+              + " history bits, " + counters.length + " 2-bit counters";
+      }
+   
+       private int index(int address) {
+         int index = shareWithAddress ? history ^ (address >>> 2) : history;
+         return index & (counters.length - 1);
+      }
+   }
@@ -0,0 +1,76 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Two-level predictor with local histories (PAg): a table indexed by branch address
+ * holds the recent outcomes of each branch, and that history indexes a shared table
+ * of 2-bit counters.  It learns repeating patterns of individual branches, such as
+ * the exit of a loop with a fixed trip count.
+ *
+ * @version October 2026
+ */
+
+    public class LocalHistoryPredictor extends BranchPredictor {
+   
+      private final int[] histories;
+      private final byte[] counters;
+      private final int historyBits;
+      private final int historyMask;
+   
+   	/**
+   	 * @param name the name of the predictor
+   	 * @param historyEntries number of local history registers, a power of two
+   	 * @param historyBits number of outcomes in each history, 1 to 30; the
+   	 * table of counters has 2 to the power historyBits entries
+   	 */
+       public LocalHistoryPredictor(String name, int historyEntries, int historyBits) {
+         super(name);
+         this.histories = new int[historyEntries];
+         this.counters = newCounterTable(1 << historyBits);
+         this.historyBits = historyBits;
+         this.historyMask = (1 << historyBits) - 1;
+      }
+   
+       public boolean predict(int address, int target) {
+         return predictsTaken(counters, histories[addressIndex(address, histories.length)]);
+      }
+   
+       public void update(int address, boolean taken) {
+         int entry = addressIndex(address, histories.length);
+         int history = histories[entry];
+         train(counters, history, taken);
+         histories[entry] = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+      }
+   
+       public String getDescription() {
+         return "local history, " + histories.length + " histories of " + historyBits 
+              + " bits, " + counters.length + " 2-bit counters";
+      }
+   }
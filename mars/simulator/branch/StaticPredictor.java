@@ -0,0 +1,81 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Static branch prediction, which needs no table: always taken, never taken, or
+ * backward taken and forward not taken (BTFN), which suits loops that close with
+ * a backward branch.
+ *
+ * @version October 2026
+ */
+
+    public class StaticPredictor extends BranchPredictor {
+   
+      /** Predict every branch taken. */
+      public static final int ALWAYS_TAKEN = 0;
+      /** Predict every branch not taken. */
+      public static final int NEVER_TAKEN = 1;
+      /** Predict backward branches taken and forward branches not taken. */
+      public static final int BACKWARD_TAKEN = 2;
+   
+      private final int rule;
+   
+   	/**
+   	 * @param name the name of the predictor
+   	 * @param rule ALWAYS_TAKEN, NEVER_TAKEN or BACKWARD_TAKEN
+   	 */
+       public StaticPredictor(String name, int rule) {
+         super(name);
+         this.rule = rule;
+      }
+   
+       public boolean predict(int address, int target) {
+         if (rule == ALWAYS_TAKEN) {
+            return true;
+         }
+         if (rule == NEVER_TAKEN) {
+            return false;
+         }
+         return target - address <= 0;
+      }
+   
+       public void update(int address, boolean taken) {
+      }
+   
+       public String getDescription() {
+         if (rule == ALWAYS_TAKEN) {
+            return "static, always taken";
+         }
+         if (rule == NEVER_TAKEN) {
+            return "static, never taken";
+         }
+         return "static, backward taken forward not taken";
+      }
+   }
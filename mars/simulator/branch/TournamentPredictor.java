@@ -0,0 +1,79 @@
+package mars.simulator.branch;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Tournament predictor after McFarling: a bimodal and a gshare predictor both
+ * predict every branch, and a table of 2-bit choice counters indexed by branch
+ * address selects the one that has recently been right more often for that branch.
+ *
+ * @version October 2026
+ */
+
+    public class TournamentPredictor extends BranchPredictor {
+   
+      private final BimodalPredictor bimodal;
+      private final GlobalHistoryPredictor gshare;
+      // 2 and 3 choose gshare, 0 and 1 choose bimodal.
+      private final byte[] choosers;
+      private boolean bimodalPrediction, gsharePrediction;
+   
+   	/**
+   	 * @param name the name of the predictor
+   	 * @param entries number of entries of each table, a power of two
+   	 * @param historyBits number of global history bits of the gshare component
+   	 */
+       public TournamentPredictor(String name, int entries, int historyBits) {
+         super(name);
+         this.bimodal = new BimodalPredictor(name, entries);
+         this.gshare = new GlobalHistoryPredictor(name, entries, historyBits, true);
+         this.choosers = newCounterTable(entries);
+      }
+   
+       public boolean predict(int address, int target) {
+         bimodalPrediction = bimodal.predict(address, target);
+         gsharePrediction = gshare.predict(address, target);
+         return predictsTaken(choosers, addressIndex(address, choosers.length)) 
+              ? gsharePrediction : bimodalPrediction;
+      }
+   
+       public void update(int address, boolean taken) {
+         // Train the chooser only when the components disagree.
+         if (bimodalPrediction != gsharePrediction) {
+            train(choosers, addressIndex(address, choosers.length), gsharePrediction == taken);
+         }
+         bimodal.update(address, taken);
+         gshare.update(address, taken);
+      }
+   
+       public String getDescription() {
+         return "tournament of " + bimodal.getDescription() + " and " + gshare.getDescription() 
+              + ", " + choosers.length + " choice counters";
+      }
+   }
@@ -0,0 +1,456 @@
+package mars.simulator.cache;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import java.util.Arrays;
+
+/**
+ * One level of a simulated cache hierarchy.  Only tags are simulated, not data.
+ * The cache is set associative with a configurable number of sets, ways and block
+ * size, a replacement policy of LRU, pseudo-LRU (PLRU) or FIFO, and write-back or
+ * write-through, write-allocate or no-write-allocate policies.  Misses, and
+ * writes that pass through this level, are forwarded to the next level, which is
+ * another Cache or, if none, main memory.
+ * <p>
+ * All state is kept in primitive arrays indexed by line number, where the lines of
+ * set s are numbered s*ways through s*ways+ways-1.  Choosing and updating the
+ * replacement victim takes constant time for all policies: LRU keeps a doubly
+ * linked recency list per set, PLRU a tree of bits per set, FIFO a round-robin
+ * pointer per set.  Looking up a tag scans the ways of its set, except in highly
+ * associative caches, which use a hash index from block number to line.
+ *
+ * @version October 2026
+ */
+
+    public class Cache {
+
+      /** Least recently used replacement. */
+      public static final int LRU = 0;
+      /** Tree pseudo-LRU replacement.  Requires a power of two number of ways, at most 64. */
+      public static final int PLRU = 1;
+      /** First in, first out replacement. */
+      public static final int FIFO = 2;
+
+      private static final String[] POLICY_NAMES = { "LRU", "PLRU", "FIFO" };
+
+      // Above this number of ways, lookups use the hash index instead of scanning the set.
+      private static final int MAXIMUM_WAYS_SCANNED = 16;
+      private static final int INVALID = -1;
+
+      private final String name;
+      private final int sizeInBytes, blockSizeInBytes, ways, sets;
+      private final int policy;
+      private final boolean writeBack, writeAllocate;
+      private final int offsetBits, setMask;
+      private Cache nextLevel;
+
+      // Block number (address >>> offsetBits) held by each line, or INVALID.
+      private final int[] blocks;
+      private final boolean[] dirty;
+      // LRU: recency list per set, most recent at head, as line numbers.
+      private int[] newer, older, mostRecent, leastRecent;
+      // PLRU: tree bits per set; bit i is node i of the tree, 1 meaning "go right".
+      private long[] treeBits;
+      // FIFO: next line of each set to be replaced, as an offset within the set.
+      private int[] nextVictim;
+      // Hash index for highly associative caches: open addressing, linear probing.
+      private int[] indexKeys, indexLines;
+      private int indexMask, indexShift;
+
+      private long reads, writes, readMisses, writeMisses, writeBacks;
+      private long memoryReads, memoryWrites;
+
+   	/**
+   	 * Create a cache.
+   	 *
+   	 * @param name name used in reports, e.g. "L1D"
+   	 * @param sizeInBytes capacity in bytes
+   	 * @param blockSizeInBytes block (line) size in bytes; a power of two, at least 4
+   	 * @param ways associativity; 0 for fully associative
+   	 * @param policy replacement policy: LRU, PLRU or FIFO
+   	 * @param writeBack true for write-back, false for write-through
+   	 * @param writeAllocate true to allocate a block on a write miss
+   	 * @throws IllegalArgumentException if the geometry or policy is invalid
+   	 */
+       public Cache(String name, int sizeInBytes, int blockSizeInBytes, int ways, int policy,
+                    boolean writeBack, boolean writeAllocate) {
+         if (blockSizeInBytes < 4 || Integer.bitCount(blockSizeInBytes) != 1) {
+            throw new IllegalArgumentException(name+" block size must be a power of two, at least 4");
+         }
+         if (sizeInBytes < blockSizeInBytes || sizeInBytes % blockSizeInBytes != 0) {
+            throw new IllegalArgumentException(name+" size must be a multiple of the block size");
+         }
+         int lines = sizeInBytes / blockSizeInBytes;
+         if (ways == 0) {
+            ways = lines;
+         }
+         if (ways < 0 || lines % ways != 0 || Integer.bitCount(lines / ways) != 1) {
+            throw new IllegalArgumentException(name+" must have a power of two number of sets");
+         }
+         if (policy == PLRU && (Integer.bitCount(ways) != 1 || ways > 64)) {
+            throw new IllegalArgumentException(name+" PLRU replacement requires a power of two number of ways, at most 64");
+         }
+         if (policy < LRU || policy > FIFO) {
+            throw new IllegalArgumentException(name+" has unknown replacement policy");
+         }
+         this.name = name;
+         this.sizeInBytes = sizeInBytes;
+         this.blockSizeInBytes = blockSizeInBytes;
+         this.ways = ways;
+         this.sets = lines / ways;
+         this.policy = policy;
+         this.writeBack = writeBack;
+         this.writeAllocate = writeAllocate;
+         this.offsetBits = Integer.numberOfTrailingZeros(blockSizeInBytes);
+         this.setMask = sets - 1;
+         blocks = new int[lines];
+         dirty = new boolean[lines];
+         switch (policy) {
+            case LRU :
+               newer = new int[lines];
+               older = new int[lines];
+               mostRecent = new int[sets];
+               leastRecent = new int[sets];
+               break;
+            case PLRU :
+               treeBits = new long[sets];
+               break;
+            default :
+               nextVictim = new int[sets];
+               break;
+         }
+         if (ways > MAXIMUM_WAYS_SCANNED) {
+            int capacity = Integer.highestOneBit(lines) << 2;
+            indexKeys = new int[capacity];
+            indexLines = new int[capacity];
+            indexMask = capacity - 1;
+            indexShift = 32 - Integer.numberOfTrailingZeros(capacity);
+         }
+         reset();
+      }
+
+   	/**
+   	 * Set the level that misses and write-throughs are forwarded to.
+   	 *
+   	 * @param nextLevel next cache level, or null for main memory
+   	 */
+       public void setNextLevel(Cache nextLevel) {
+         this.nextLevel = nextLevel;
+      }
+
+   	/**
+   	 * Empty the cache and clear its statistics.
+   	 */
+       public void reset() {
+         Arrays.fill(blocks, INVALID);
+         Arrays.fill(dirty, false);
+         if (policy == LRU) {
+            // Link the lines of each set in order; the last is least recent.
+            for (int set = 0; set < sets; set++) {
+               int first = set * ways;
+               for (int line = first; line < first + ways; line++) {
+                  newer[line] = line - 1;
+                  older[line] = line + 1;
+               }
+               newer[first] = INVALID;
+               older[first + ways - 1] = INVALID;
+               mostRecent[set] = first;
+               leastRecent[set] = first + ways - 1;
+            }
+         }
+         else if (policy == PLRU) {
+            Arrays.fill(treeBits, 0L);
+         }
+         else {
+            Arrays.fill(nextVictim, 0);
+         }
+         if (indexKeys != null) {
+            Arrays.fill(indexKeys, INVALID);
+         }
+         reads = writes = readMisses = writeMisses = writeBacks = 0;
+         memoryReads = memoryWrites = 0;
+      }
+
+   	/**
+   	 * Simulate an access to this cache.
+   	 *
+   	 * @param address byte address accessed; the access must lie within one block
+   	 * @param write true for a write, false for a read
+   	 * @return true if the access hit, false if it missed
+   	 */
+       public boolean access(int address, boolean write) {
+         int block = address >>> offsetBits;
+         int set = block & setMask;
+         int line = find(block, set);
+         if (write) {
+            writes++;
+         }
+         else {
+            reads++;
+         }
+         if (line != INVALID) {
+            touch(line, set);
+            if (write) {
+               if (writeBack) {
+                  dirty[line] = true;
+               }
+               else {
+                  forward(address, true);
+               }
+            }
+            return true;
+         }
+         if (write) {
+            writeMisses++;
+            if (!writeAllocate) {
+               forward(address, true);
+               return false;
+            }
+         }
+         else {
+            readMisses++;
+         }
+         line = victim(set);
+         if (blocks[line] != INVALID) {
+            if (dirty[line]) {
+               writeBacks++;
+               forward(blocks[line] << offsetBits, true);
+            }
+            unindex(blocks[line]);
+         }
+         forward(address, false);
+         blocks[line] = block;
+         dirty[line] = write && writeBack;
+         index(block, line);
+         touch(line, set);
+         if (write && !writeBack) {
+            forward(address, true);
+         }
+         return false;
+      }
+
+   	/**
+   	 * Write back all dirty blocks, as at the end of a run, so that memory
+   	 * traffic includes them.  Write-backs are counted in the statistics.
+   	 */
+       public void flush() {
+         for (int line = 0; line < blocks.length; line++) {
+            if (blocks[line] != INVALID && dirty[line]) {
+               writeBacks++;
+               forward(blocks[line] << offsetBits, true);
+               dirty[line] = false;
+            }
+         }
+      }
+
+      /** @return name of this cache as used in reports */
+       public String getName() {
+         return name;
+      }
+
+      /** @return a description of the geometry and policies, e.g. "32KB 4-way 64B blocks LRU write-back write-allocate" */
+       public String getDescription() {
+         String size = (sizeInBytes % 1024 == 0) ? (sizeInBytes / 1024) + "KB" : sizeInBytes + "B";
+         String associativity = (sets == 1) ? "fully associative" : (ways == 1) ? "direct mapped" : ways + "-way";
+         return size + " " + associativity + " " + blockSizeInBytes + "B blocks " + POLICY_NAMES[policy]
+                + (writeBack ? " write-back" : " write-through")
+                + (writeAllocate ? " write-allocate" : " no-write-allocate");
+      }
+
+      /** @return number of read accesses */
+       public long getReads() {
+         return reads;
+      }
+
+      /** @return number of write accesses */
+       public long getWrites() {
+         return writes;
+      }
+
+      /** @return number of read accesses that missed */
+       public long getReadMisses() {
+         return readMisses;
+      }
+
+      /** @return number of write accesses that missed */
+       public long getWriteMisses() {
+         return writeMisses;
+      }
+
+      /** @return number of dirty blocks written back to the next level */
+       public long getWriteBacks() {
+         return writeBacks;
+      }
+
+      /** @return number of reads forwarded to main memory, if this is the last level */
+       public long getMemoryReads() {
+         return memoryReads;
+      }
+
+      /** @return number of writes forwarded to main memory, if this is the last level */
+       public long getMemoryWrites() {
+         return memoryWrites;
+      }
+
+      /** @return fraction of all accesses that hit, 0 if there were none */
+       public double getHitRate() {
+         long accesses = reads + writes;
+         return (accesses == 0) ? 0.0 : (double) (accesses - readMisses - writeMisses) / accesses;
+      }
+
+      // Pass an access on to the next level, or count it as a memory access.
+       private void forward(int address, boolean write) {
+         if (nextLevel != null) {
+            nextLevel.access(address, write);
+         }
+         else if (write) {
+            memoryWrites++;
+         }
+         else {
+            memoryReads++;
+         }
+      }
+
+      // Return the line of the given set holding the block, or INVALID.
+       private int find(int block, int set) {
+         if (indexKeys != null) {
+            for (int slot = hash(block); indexKeys[slot] != INVALID; slot = (slot + 1) & indexMask) {
+               if (indexKeys[slot] == block) {
+                  return indexLines[slot];
+               }
+            }
+            return INVALID;
+         }
+         int first = set * ways;
+         for (int line = first; line < first + ways; line++) {
+            if (blocks[line] == block) {
+               return line;
+            }
+         }
+         return INVALID;
+      }
+
+      // Record an access to the line for the replacement policy.
+       private void touch(int line, int set) {
+         if (policy == LRU) {
+            if (mostRecent[set] == line) {
+               return;
+            }
+            // Unlink, then insert at the head.  The line is not the head, so it has a newer line.
+            int newerLine = newer[line];
+            int olderLine = older[line];
+            older[newerLine] = olderLine;
+            if (olderLine == INVALID) {
+               leastRecent[set] = newerLine;
+            }
+            else {
+               newer[olderLine] = newerLine;
+            }
+            newer[line] = INVALID;
+            older[line] = mostRecent[set];
+            newer[mostRecent[set]] = line;
+            mostRecent[set] = line;
+         }
+         else if (policy == PLRU) {
+            // Walk from the root to the leaf for this way, pointing each node away from it.
+            int way = line - set * ways;
+            long bits = treeBits[set];
+            int node = 0;
+            for (int half = ways >> 1; half > 0; half >>= 1) {
+               if ((way & half) != 0) {
+                  bits &= ~(1L << node);
+                  node = 2 * node + 2;
+               }
+               else {
+                  bits |= 1L << node;
+                  node = 2 * node + 1;
+               }
+            }
+            treeBits[set] = bits;
+         }
+      }
+
+      // Choose the line of the set to be replaced.
+       private int victim(int set) {
+         int first = set * ways;
+         if (policy == LRU) {
+            return leastRecent[set];
+         }
+         else if (policy == PLRU) {
+            long bits = treeBits[set];
+            int node = 0;
+            int way = 0;
+            for (int half = ways >> 1; half > 0; half >>= 1) {
+               if ((bits & (1L << node)) != 0) {
+                  way |= half;
+                  node = 2 * node + 2;
+               }
+               else {
+                  node = 2 * node + 1;
+               }
+            }
+            return first + way;
+         }
+         int line = first + nextVictim[set];
+         nextVictim[set] = (nextVictim[set] + 1) % ways;
+         return line;
+      }
+
+       private int hash(int block) {
+         return (block * 0x9E3779B9) >>> indexShift;
+      }
+
+       private void index(int block, int line) {
+         if (indexKeys != null) {
+            int slot = hash(block);
+            while (indexKeys[slot] != INVALID) {
+               slot = (slot + 1) & indexMask;
+            }
+            indexKeys[slot] = block;
+            indexLines[slot] = line;
+         }
+      }
+
+      // Remove a block from the hash index.  Following entries of the probe run are
+      // reinserted so that lookups do not stop early at the emptied slot.
+       private void unindex(int block) {
+         if (indexKeys != null) {
+            int slot = hash(block);
+            while (indexKeys[slot] != block) {
+               slot = (slot + 1) & indexMask;
+            }
+            indexKeys[slot] = INVALID;
+            for (slot = (slot + 1) & indexMask; indexKeys[slot] != INVALID; slot = (slot + 1) & indexMask) {
+               int key = indexKeys[slot];
+               indexKeys[slot] = INVALID;
+               index(key, indexLines[slot]);
+            }
+         }
+      }
+   }
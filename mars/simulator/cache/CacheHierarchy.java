@@ -0,0 +1,292 @@
+package mars.simulator.cache;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+import mars.mips.hardware.*;
+import java.util.*;
+
+/**
+ * A simulated cache hierarchy driven by the memory access trace of the executing
+ * MIPS program.  Instruction fetches go to the level 1 instruction cache and data
+ * accesses to the level 1 data cache, or both to a unified level 1 cache, with
+ * misses going to an optional shared level 2 cache and then to main memory.
+ * Accesses to memory-mapped I/O are not cached.
+ * <p>
+ * Unlike the Data Cache Simulator tool, this runs without a GUI and costs only a
+ * few array operations per access, so it can follow runs of many millions of
+ * accesses.  It is used by the "cache" command line option.
+ *
+ * @version October 2026
+ * @see Cache
+ */
+
+    public class CacheHierarchy implements MemoryAccessTracer {
+
+      private Cache instructionCache, dataCache, level2Cache;
+      private final ArrayList<Cache> levels = new ArrayList<Cache>();
+
+   	/**
+   	 * Create a cache hierarchy from a specification of the form
+   	 * <tt>level=size:block:ways[:option...][,level=...]</tt>.
+   	 * The level is <tt>l1i</tt>, <tt>l1d</tt>, <tt>l1</tt> (unified level 1) or <tt>l2</tt>.
+   	 * Size and block size are in bytes, with an optional K or M suffix.  Ways is a number,
+   	 * or <tt>full</tt> for fully associative.  Options are a replacement policy,
+   	 * <tt>lru</tt> (default), <tt>plru</tt> or <tt>fifo</tt>; <tt>wb</tt> (default) for
+   	 * write-back or <tt>wt</tt> for write-through; and <tt>wa</tt> (default) for
+   	 * write-allocate or <tt>nwa</tt> for no-write-allocate.
+   	 * For example, <tt>l1i=32K:64:2,l1d=32K:64:4:plru,l2=256K:64:8</tt>.
+   	 *
+   	 * @param specification the specification
+   	 * @throws IllegalArgumentException if the specification is invalid
+   	 */
+       public CacheHierarchy(String specification) {
+         Cache unifiedCache = null;
+         StringTokenizer levelTokens = new StringTokenizer(specification, ",");
+         while (levelTokens.hasMoreTokens()) {
+            String levelSpecification = levelTokens.nextToken();
+            int equals = levelSpecification.indexOf('=');
+            if (equals < 0) {
+               throw new IllegalArgumentException("missing '=' in " + levelSpecification);
+            }
+            String level = levelSpecification.substring(0, equals).toLowerCase();
+            String levelParameters = levelSpecification.substring(equals + 1);
+            if (level.equals("l1i") && instructionCache == null) {
+               instructionCache = parseCache("L1I", levelParameters);
+            }
+            else if (level.equals("l1d") && dataCache == null) {
+               dataCache = parseCache("L1D", levelParameters);
+            }
+            else if (level.equals("l1") && unifiedCache == null) {
+               unifiedCache = parseCache("L1", levelParameters);
+            }
+            else if (level.equals("l2") && level2Cache == null) {
+               level2Cache = parseCache("L2", levelParameters);
+            }
+            else {
+               throw new IllegalArgumentException("unknown or repeated cache level " + level);
+            }
+         }
+         if (unifiedCache != null) {
+            if (instructionCache != null || dataCache != null) {
+               throw new IllegalArgumentException("l1 cannot be combined with l1i or l1d");
+            }
+            instructionCache = dataCache = unifiedCache;
+         }
+         addLevel(instructionCache);
+         if (dataCache != instructionCache) {
+            addLevel(dataCache);
+         }
+         addLevel(level2Cache);
+         if (levels.isEmpty()) {
+            throw new IllegalArgumentException("no cache levels specified");
+         }
+         // Level 1 caches miss to level 2.  Without a level 1 cache, accesses go straight to level 2.
+         if (instructionCache == null) {
+            instructionCache = level2Cache;
+         }
+         else {
+            instructionCache.setNextLevel(level2Cache);
+         }
+         if (dataCache == null) {
+            dataCache = level2Cache;
+         }
+         else {
+            dataCache.setNextLevel(level2Cache);
+         }
+      }
+
+   	/**
+   	 * Record an instruction fetch.
+   	 * @param address the address of the instruction
+   	 */
+       public void instructionFetched(int address) {
+         if (instructionCache != null) {
+            instructionCache.access(address, false);
+         }
+      }
+
+   	/**
+   	 * Record a data read.
+   	 * @param address the address being read
+   	 * @param length the number of bytes being read
+   	 * @param value the value read
+   	 */
+       public void dataRead(int address, int length, int value) {
+         if (dataCache != null && !isMemoryMapped(address)) {
+            dataCache.access(address, false);
+         }
+      }
+
+   	/**
+   	 * Record a data write.
+   	 * @param address the address being written
+   	 * @param length the number of bytes being written
+   	 * @param value the value written
+   	 */
+       public void dataWritten(int address, int length, int value) {
+         if (dataCache != null && !isMemoryMapped(address)) {
+            dataCache.access(address, true);
+         }
+      }
+
+   	/**
+   	 * Write back dirty blocks from every level, level 1 first, so that the memory
+   	 * traffic reported includes them.  Call when the program has finished.
+   	 */
+       public void flush() {
+         for (int i = 0; i < levels.size(); i++) {
+            levels.get(i).flush();
+         }
+      }
+
+   	/**
+   	 * Return the caches of the hierarchy, level 1 first.
+   	 * @return array of the Cache levels configured
+   	 */
+       public Cache[] getLevels() {
+         return levels.toArray(new Cache[levels.size()]);
+      }
+
+   	/**
+   	 * Produce a report of the accesses, misses and hit rate of each level, and the
+   	 * resulting main memory traffic, one line per item.
+   	 * @return the report
+   	 */
+       public String getReport() {
+         StringBuffer report = new StringBuffer();
+         long memoryReads = 0;
+         long memoryWrites = 0;
+         for (int i = 0; i < levels.size(); i++) {
+            Cache cache = levels.get(i);
+            report.append(cache.getName()).append(": ").append(cache.getDescription()).append("\n");
+            report.append("    accesses ").append(cache.getReads() + cache.getWrites())
+                  .append("  reads ").append(cache.getReads())
+                  .append("  read misses ").append(cache.getReadMisses())
+                  .append("  writes ").append(cache.getWrites())
+                  .append("  write misses ").append(cache.getWriteMisses())
+                  .append("  write-backs ").append(cache.getWriteBacks())
+                  .append("  hit rate ").append(percent(cache.getHitRate())).append("\n");
+            memoryReads += cache.getMemoryReads();
+            memoryWrites += cache.getMemoryWrites();
+         }
+         report.append("Memory: reads ").append(memoryReads).append("  writes ").append(memoryWrites);
+         return report.toString();
+      }
+
+       private void addLevel(Cache cache) {
+         if (cache != null) {
+            levels.add(cache);
+         }
+      }
+
+       private static boolean isMemoryMapped(int address) {
+         return address >= Memory.memoryMapBaseAddress && address < Memory.memoryMapLimitAddress;
+      }
+
+      // Format a fraction as a percentage with two decimal places.
+       private static String percent(double fraction) {
+         long hundredths = Math.round(fraction * 10000);
+         String decimals = "0" + (hundredths % 100);
+         return (hundredths / 100) + "." + decimals.substring(decimals.length() - 2) + "%";
+      }
+
+      // Parse size:block:ways[:option...] into a Cache.
+       private static Cache parseCache(String name, String specification) {
+         String[] fields = specification.split(":");
+         if (fields.length < 3) {
+            throw new IllegalArgumentException(name + " requires size, block size and ways");
+         }
+         int size = parseSize(name, fields[0]);
+         int blockSize = parseSize(name, fields[1]);
+         int ways;
+         if (fields[2].equalsIgnoreCase("full")) {
+            ways = 0;
+         }
+         else {
+            try {
+               ways = Integer.parseInt(fields[2]);
+            }
+                catch (NumberFormatException e) {
+                  throw new IllegalArgumentException(name + " has invalid number of ways " + fields[2]);
+               }
+            if (ways < 1) {
+               throw new IllegalArgumentException(name + " has invalid number of ways " + fields[2]);
+            }
+         }
+         int policy = Cache.LRU;
+         boolean writeBack = true;
+         boolean writeAllocate = true;
+         for (int i = 3; i < fields.length; i++) {
+            String option = fields[i].toLowerCase();
+            if (option.equals("lru")) {
+               policy = Cache.LRU;
+            }
+            else if (option.equals("plru")) {
+               policy = Cache.PLRU;
+            }
+            else if (option.equals("fifo")) {
+               policy = Cache.FIFO;
+            }
+            else if (option.equals("wb") || option.equals("wt")) {
+               writeBack = option.equals("wb");
+            }
+            else if (option.equals("wa") || option.equals("nwa")) {
+               writeAllocate = option.equals("wa");
+            }
+            else {
+               throw new IllegalArgumentException(name + " has unknown option " + fields[i]);
+            }
+         }
+         return new Cache(name, size, blockSize, ways, policy, writeBack, writeAllocate);
+      }
+
+      // Parse a byte count with optional K or M suffix.
+       private static int parseSize(String name, String size) {
+         int multiplier = 1;
+         String digits = size.toUpperCase();
+         if (digits.endsWith("K")) {
+            multiplier = 1024;
+         }
+         else if (digits.endsWith("M")) {
+            multiplier = 1024 * 1024;
+         }
+         if (multiplier > 1) {
+            digits = digits.substring(0, digits.length() - 1);
+         }
+         try {
+            long bytes = Long.parseLong(digits) * multiplier;
+            if (bytes > 0 && bytes <= Integer.MAX_VALUE) {
+               return (int) bytes;
+            }
+         }
+             catch (NumberFormatException e) {
+            }
+         throw new IllegalArgumentException(name + " has invalid size " + size);
+      }
+   }
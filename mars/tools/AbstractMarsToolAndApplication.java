@@ -10,6 +10,7 @@
    import mars.util.*;
    import mars.tools.*;
    import mars.mips.hardware.*;
+   import mars.simulator.*;
 
 /*
 Copyright (c) 2003-2008,  Pete Sanderson and Kenneth Vollmar
@@ -540,6 +541,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             reg.addObserver(thisMarsApp);
          }
       }
+
+      /**
+   	 *  Register a memory-mapped device, typically implemented by this app/tool, for the specified
+   	 *  subrange of the MIPS memory-mapped I/O segment.  MIPS accesses within the subrange are then
+   	 *  delivered directly to the device rather than to memory.  Like the subrange version of 
+   	 *  addAsObserver(), this method is not invoked automatically; call it from an overridden
+   	 *  addAsObserver() and call deleteAsDevice() from an overridden deleteAsObserver().
+   	 *  @param device the memory-mapped device
+   	 *  @param lowEnd low end of memory address range.
+   	 *  @param highEnd high end of memory address range; must be >= lowEnd
+   	 */
+   	
+       protected void addAsDevice(MemoryMappedDevice device, int lowEnd, int highEnd) {
+         String errorMessage = "Error connecting to MIPS memory";
+         try {
+            Globals.memory.addDevice(device, lowEnd, highEnd);
+         } 
+             catch (AddressErrorException aee) {
+               if (this.isBeingUsedAsAMarsTool) {
+                  headingLabel.setText(errorMessage);
+               } 
+               else {
+                  operationStatusMessages.displayTerminatingMessage(errorMessage);
+               }
+            }		 
+      }
    
    	 
       /**
@@ -564,6 +591,37 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             reg.deleteObserver(thisMarsApp);
          }
       }
+
+      /**
+   	 * Remove the specified memory-mapped device from all the MIPS memory address ranges it 
+   	 * was registered for.
+   	 */
+   	 
+       protected void deleteAsDevice(MemoryMappedDevice device) {
+         Globals.memory.deleteDevice(device);
+      }
+   
+      /**
+   	 *  Register a listener, typically this app/tool, to receive an event for each MIPS 
+   	 *  instruction retired by the simulator.  This is much cheaper than observing 
+   	 *  instruction fetches in the text segment.  Like addAsDevice(), call it from an 
+   	 *  overridden addAsObserver() and call deleteAsRetireListener() from an overridden 
+   	 *  deleteAsObserver().
+   	 *  @param listener the RetireListener
+   	 *  @param batchSize maximum number of events delivered at a time
+   	 */
+   	
+       protected void addAsRetireListener(RetireListener listener, int batchSize) {
+         Simulator.getInstance().addRetireListener(listener, batchSize);
+      }
+   
+      /**
+   	 * Remove the specified instruction retire listener.
+   	 */
+   	 
+       protected void deleteAsRetireListener(RetireListener listener) {
+         Simulator.getInstance().deleteRetireListener(listener);
+      }
    	
    	/**
    	 * Query method to let you know if the tool/app is (or could be) currently 
@@ -29,16 +29,13 @@ package mars.tools;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Observable;
 
 import javax.swing.JComponent;
 
 import mars.ProgramStatement;
-import mars.mips.hardware.AccessNotice;
-import mars.mips.hardware.AddressErrorException;
-import mars.mips.hardware.Memory;
-import mars.mips.hardware.MemoryAccessNotice;
 import mars.mips.hardware.RegisterFile;
+import mars.simulator.RetireEvent;
+import mars.simulator.RetireListener;
 //import mars.tools.bhtsim.BHTSimGUI;
 //import mars.tools.bhtsim.BHTableModel;
 
@@ -46,9 +43,9 @@ import mars.mips.hardware.RegisterFile;
 /**
  * A MARS tool for simulating branch prediction with a Branch History Table (BHT)
  * <p>
- * The simulation is based on observing the access to the instruction memory area (text segment). 
+ * The simulation is based on observing the instructions retired by the MIPS simulator. 
  * If a branch instruction is encountered, a prediction based on a BHT is performed. 
- * The outcome of the branch is compared with the prediction and the prediction is updated accordingly.
+ * The actual outcome of the branch is compared with the prediction and the prediction is updated accordingly.
  * Statistics about the correct and incorrect number of predictions can be obtained for each BHT entry.  
  * The number of entries in the BHT and the history that is considered for each prediction can be configured interactively.
  * A change of the configuration however causes a re-initialization of the BHT.
@@ -59,7 +56,7 @@ import mars.mips.hardware.RegisterFile;
  * @author ingo.kofler@itec.uni-klu.ac.at
  */
 //@SuppressWarnings("serial")
-public class BHTSimulator extends AbstractMarsToolAndApplication implements ActionListener {
+public class BHTSimulator extends AbstractMarsToolAndApplication implements ActionListener, RetireListener {
 	
 	
 	/** constant for the default size of the BHT */
@@ -86,11 +83,8 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 	/** the model of the BHT */
 	private BHTableModel m_bhtModel;
 			
-	/** state variable that indicates that the last instruction was a branch instruction (if address != 0) or not (address == 0) */
-	private int m_pendingBranchInstAddress;
-	
-	/** state variable that signals if the last branch was taken */
-	private boolean m_lastBranchTaken;
+	/** number of retired instructions delivered to the tool at a time */
+	private static final int RETIRE_BATCH_SIZE = 256;
 	
 	
 	/**
@@ -102,11 +96,18 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 	
 	
 	/**
-	 *  Adds BHTSimulator as observer of the text segment.
+	 *  Adds BHTSimulator as listener for the instructions retired by the MIPS simulator.
 	 */
 	protected void addAsObserver() { 
-		addAsObserver(Memory.textBaseAddress, Memory.textLimitAddress);
-		addAsObserver(RegisterFile.getProgramCounterRegister());
+		addAsRetireListener(this, RETIRE_BATCH_SIZE);
+	}
+	
+	
+	/**
+	 *  Removes BHTSimulator as listener of the MIPS simulator.
+	 */
+	protected void deleteAsObserver() { 
+		deleteAsRetireListener(this);
 	}
 	
 	
@@ -172,9 +173,6 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 		m_bhtModel.initBHT(((Integer)m_gui.getCbBHTentries().getSelectedItem()).intValue(), 
 				((Integer)m_gui.getCbBHThistory().getSelectedItem()).intValue(), 
 				((String)m_gui.getCbBHTinitVal().getSelectedItem()).equals(BHTSimGUI.BHT_TAKE_BRANCH));		
-		
-		m_pendingBranchInstAddress = 0;
-		m_lastBranchTaken = false;
 	}
 	
 	
@@ -316,72 +314,37 @@ public class BHTSimulator extends AbstractMarsToolAndApplication implements Acti
 	
 	
 	/**
-	 * Callback for text segment access by the MIPS simulator.
+	 * Callback for instructions retired by the MIPS simulator.
 	 * 
-	 * The method is called each time the text segment is accessed to fetch the next instruction.
-	 * If the next instruction to execute was a branch instruction, the branch prediction is performed and visualized.
-	 * In case the last instruction was a branch instruction, the outcome of the branch prediction is analyzed and visualized.
+	 * For each retired branch instruction the branch prediction is performed and visualized,
+	 * then the actual outcome of the branch is compared with the prediction and the BHT is updated.
+	 * If the last instruction of the batch was not a branch, the text fields and the selection are cleared.
 	 *
-	 * @param resource the observed resource
-	 * @param notice signals the type of access (memory, register etc.)
+	 * @param events the retired instructions
+	 * @param count the number of events
 	 */
-	protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
-				
-		if (!notice.accessIsFromMIPS()) return;
-			
+	public void instructionsRetired(RetireEvent[] events, int count) {
 		
-		if (notice.getAccessType() == AccessNotice.READ && notice instanceof MemoryAccessNotice) {			
-			
-			// now it is safe to make a cast of the notice
-			MemoryAccessNotice memAccNotice = (MemoryAccessNotice) notice;
-			
-			try {				
-				// access the statement in the text segment without notifying other tools etc.
-				ProgramStatement stmt = Memory.getInstance().getStatementNoNotify(memAccNotice.getAddress());
-				
-				// necessary to handle possible null pointers at the end of the program 
-				// (e.g., if the simulator tries to execute the next instruction after the last instruction in the text segment) 
-				if (stmt != null) {								
-					
-					boolean clearTextFields = true;
-					
-					// first, check if there's a pending branch to handle
-					if (m_pendingBranchInstAddress != 0) {						
-						handleExecBranchInst(m_pendingBranchInstAddress, m_lastBranchTaken);
-						clearTextFields = false;
-						m_pendingBranchInstAddress = 0;
-					}
-					
-					
-					// if current instruction is branch instruction
-					if (BHTSimulator.isBranchInstruction(stmt)) {						
-						handlePreBranchInst(stmt);
-						m_lastBranchTaken = willBranch(stmt);
-						m_pendingBranchInstAddress = stmt.getAddress();
-						clearTextFields = false;
-					}
-
-					
-					// clear text fields and selection
-					if (clearTextFields) {
-						m_gui.getTfInstruction().setText("");
-						m_gui.getTfAddress().setText("");
-						m_gui.getTfIndex().setText("");
-						m_gui.getTabBHT().clearSelection();						
-					}
-				}					
-				else {
-					// check if there's a pending branch to handle
-					if (m_pendingBranchInstAddress != 0) {						
-						handleExecBranchInst(m_pendingBranchInstAddress, m_lastBranchTaken);						
-						m_pendingBranchInstAddress = 0;
-					}
-				}
-			} 
-			catch (AddressErrorException e) {			
-				// silently ignore these exceptions
-			}			
-					
+		boolean clearTextFields = false;
+		
+		for (int i = 0; i < count; i++) {
+			ProgramStatement stmt = events[i].getStatement();
+			if (BHTSimulator.isBranchInstruction(stmt)) {
+				handlePreBranchInst(stmt);
+				handleExecBranchInst(stmt.getAddress(), events[i].isBranchTaken());
+				clearTextFields = false;
+			}
+			else {
+				clearTextFields = true;
+			}
+		}
+		
+		// clear text fields and selection
+		if (clearTextFields) {
+			m_gui.getTfInstruction().setText("");
+			m_gui.getTfAddress().setText("");
+			m_gui.getTfIndex().setText("");
+			m_gui.getTabBHT().clearSelection();						
 		}
 	}
 }
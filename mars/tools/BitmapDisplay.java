@@ -4,7 +4,9 @@
    import javax.swing.event.*;
    import java.awt.*;
    import java.awt.event.*;
+   import java.awt.image.*;
    import java.util.*;
+   import mars.Globals;
    import mars.tools.*;
    import mars.mips.hardware.*;
 
@@ -85,6 +87,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private int baseAddress;
    	
       private Grid theGrid;
+      // Repaints the area of the grid written since the previous frame, about 60 times per second.
+      private javax.swing.Timer repaintTimer;
    	         	
    	/**
    	 * Simple constructor, likely used to run a stand-alone bitmap display tool.
@@ -161,6 +165,20 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    
+      /**
+   	 * Called when receiving notice of access to MIPS memory.  Overrides the inherited
+   	 * method so that the display is not repainted for each notice: the written area is 
+   	 * repainted by a timer at the next frame.
+   	 * @param resource the attached MIPS resource 
+   	 * @param accessNotice AccessNotice information provided by the resource
+   	 */
+       @SuppressWarnings("deprecation")
+       public void update(Observable resource, Object accessNotice) {
+         if (((AccessNotice)accessNotice).accessIsFromMIPS()) { 
+            processMIPSUpdate(resource, (AccessNotice)accessNotice);
+         }
+      }
+   
       //////////////////////////////////////////////////////////////////////////////////////
       //  Rest of the protected methods.  These override do-nothing methods inherited from
    	//  the abstract superclass.
@@ -221,6 +239,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          canvas.repaint();
       }
    
+   	/**
+   	 *  Stop the repaint timer when the tool is closed.  Overrides inherited method that does nothing.
+   	 */
+       protected void performSpecialClosingDuties() {
+         if (repaintTimer != null) {
+            repaintTimer.stop();
+         }
+      }
+   
        
    	 /**
    	  *  Overrides default method, to provide a Help button for this tool/app.
@@ -391,6 +418,14 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          canvas = new GraphicsPanel();
          canvas.setPreferredSize(getDisplayAreaDimension());
          canvas.setToolTipText("Bitmap display area");
+         repaintTimer = new javax.swing.Timer(mars.venus.DirtyRegionTracker.FRAME_INTERVAL_MS, 
+               new ActionListener() {
+                  public void actionPerformed(ActionEvent e) {
+                     repaintDirtyArea();
+                  }
+               });
+         repaintTimer.setCoalesce(true);
+         repaintTimer.start();
          return canvas;
       }
    
@@ -466,6 +501,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        private void updateColorForAddress(MemoryAccessNotice notice) {
          int address = notice.getAddress();
          int value   = notice.getValue();
+         if (notice.getLength() > Memory.WORD_LENGTH_BYTES) {
+            updateColorsForRange(address, notice.getLength());
+            return;
+         }
          int offset = (address - baseAddress)/Memory.WORD_LENGTH_BYTES;
          try {
             theGrid.setElement(offset / theGrid.getColumns(), offset % theGrid.getColumns(), value);
@@ -474,6 +513,39 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                  // If address is out of range for display, do nothing.  
             }
       }
+   
+   	 // A bulk write (e.g. a file read by syscall) notifies once for the range, so
+   	 // read the words it touched, straight from memory into the grid.
+       private void updateColorsForRange(int address, int length) {
+         Grid grid = theGrid;
+         long first = Math.max(((long) address & ~(Memory.WORD_LENGTH_BYTES - 1)) - baseAddress, 0) / Memory.WORD_LENGTH_BYTES;
+         long last = Math.min(((long) address + length - 1 - baseAddress) / Memory.WORD_LENGTH_BYTES, 
+                              grid.getRows() * grid.getColumns() - 1);
+         if (first > last) {
+            return;
+         }
+         try {
+            int count = Globals.memory.getRawWords(baseAddress + (int) first * Memory.WORD_LENGTH_BYTES, 
+                                                   grid.getPixels(), (int) first, (int) (last - first + 1));
+            // Reading stops at an unallocated word, which reads as 0.  Handle the rest as before.
+            for (long offset = first + count; offset <= last; offset++) {
+               grid.setPixel((int) offset, Globals.memory.getWordNoNotify(baseAddress + (int) offset * Memory.WORD_LENGTH_BYTES));
+            }
+         } 
+             catch (AddressErrorException e) {
+            }
+         grid.markDirty((int) first, (int) last);
+      }
+   
+   	 // Repaint the area of the display written since the last call, if any.  Called by
+   	 // the repaint timer on the event dispatch thread.
+       private void repaintDirtyArea() {
+         Rectangle dirty = theGrid.takeDirtyArea();
+         if (dirty != null) {
+            canvas.repaint(dirty.x * unitPixelWidth, dirty.y * unitPixelHeight, 
+                           dirty.width * unitPixelWidth, dirty.height * unitPixelHeight);
+         }
+      }
    	  
    	  
       //////////////////////////////////////////////////////////////////////////////////////
@@ -492,32 +564,32 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                paintGrid(g, theGrid);
          }
       
-      	// Paint the color codes.
+      	// Paint the color codes: the grid's image, one pixel per unit, scaled to the unit size.
+      	// Only the part within the clip, usually the area written since the last frame, is drawn.
           private void paintGrid(Graphics g, Grid grid) {
-            int upperLeftX = 0, upperLeftY = 0;
-            for (int i=0; i<grid.getRows(); i++) {
-               for (int j=0; j<grid.getColumns(); j++) {
-                  g.setColor(grid.getElementFast(i,j));
-                  g.fillRect(upperLeftX, upperLeftY, unitPixelWidth, unitPixelHeight); 
-                  upperLeftX += unitPixelWidth;   // faster than multiplying
-               }
-            	// get ready for next row...
-               upperLeftX = 0;
-               upperLeftY += unitPixelHeight;     // faster than multiplying
-            }
+            g.drawImage(grid.getImage(), 0, 0, grid.getColumns() * unitPixelWidth, 
+                        grid.getRows() * unitPixelHeight, null);
          }
       }
    
    	
       ////////////////////////////////////////////////////////////////////////
-   	// Represents grid of colors
+   	// Represents grid of colors, as an image with one pixel per grid element.  Its
+   	// int array of pixels holds the 24-bit RGB colors in row-major order, the same
+   	// layout as the display's memory words, which can be stored into it unchanged
+   	// (the high order byte is ignored).  Elements set since the last repaint are
+   	// tracked as a dirty rectangle.
        private class Grid {
       
-         Color[][] grid;
+         BufferedImage image;
+         int[] pixels;
          int rows, columns;
+         // Dirty rectangle, in grid elements; empty when dirtyTop > dirtyBottom.
+         int dirtyTop, dirtyBottom, dirtyLeft, dirtyRight;
       	 		  
           private Grid(int rows, int columns) {
-            grid = new Color[rows][columns];
+            image = new BufferedImage(Math.max(columns, 1), Math.max(rows, 1), BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
             this.rows = rows;
             this.columns = columns;
             reset();
@@ -531,36 +603,76 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
             return columns;
          }
       
-      	// Returns value in given grid element; null if row or column is out of range.			
-          private Color getElement(int row, int column) {
-            return (row>=0 && row<=rows && column>=0 && column<=columns) ? grid[row][column] : null;			
+          private BufferedImage getImage() {
+            return image;
          }
       
-      	// Returns value in given grid element without doing any row/column index checking.
-      	// Is faster than getElement but will throw array index out of bounds exception if
-      	// parameter values are outside the bounds of the grid.			
-          private Color getElementFast(int row, int column) {
-            return grid[row][column];			
+      	// The pixels of the image, indexed by row*columns+column.  Use markDirty() 
+      	// after changing them directly.
+          private int[] getPixels() {
+            return pixels;
          }
       	      	
-      	// Set the grid element.
+      	// Set the grid element.  Throws IndexOutOfBoundsException if out of range.
           private void setElement(int row, int column, int color) {
-            grid[row][column] = new Color(color);
+            if (row < 0 || row >= rows || column < 0 || column >= columns) {
+               throw new IndexOutOfBoundsException();
+            }
+            pixels[row * columns + column] = color;
+            markDirty(row, row, column, column);
          }
-      	
-      	// Set the grid element.
-          private void setElement(int row, int column, Color color) {
-            grid[row][column] = color;
+      
+      	// Set the element at the given row-major offset, without marking it dirty.
+          private void setPixel(int offset, int color) {
+            pixels[offset] = color;
+         }
+      
+      	// Mark the elements from one row-major offset to another as needing repaint.
+          private void markDirty(int firstOffset, int lastOffset) {
+            int firstRow = firstOffset / columns;
+            int lastRow = lastOffset / columns;
+            if (firstRow == lastRow) {
+               markDirty(firstRow, lastRow, firstOffset % columns, lastOffset % columns);
+            } 
+            else {
+               markDirty(firstRow, lastRow, 0, columns - 1);
+            }
+         }
+      
+          private synchronized void markDirty(int top, int bottom, int left, int right) {
+            if (dirtyTop > dirtyBottom) {
+               dirtyTop = top;
+               dirtyBottom = bottom;
+               dirtyLeft = left;
+               dirtyRight = right;
+            } 
+            else {
+               dirtyTop = Math.min(dirtyTop, top);
+               dirtyBottom = Math.max(dirtyBottom, bottom);
+               dirtyLeft = Math.min(dirtyLeft, left);
+               dirtyRight = Math.max(dirtyRight, right);
+            }
+         }
+      
+      	// Returns the rectangle of elements set since the last call, in grid elements, and
+      	// clears it; null if none have been set.
+          private synchronized Rectangle takeDirtyArea() {
+            if (dirtyTop > dirtyBottom) {
+               return null;
+            }
+            Rectangle dirty = new Rectangle(dirtyLeft, dirtyTop, dirtyRight - dirtyLeft + 1, dirtyBottom - dirtyTop + 1);
+            dirtyTop = 0;
+            dirtyBottom = -1;
+            return dirty;
          }
       
       	// Just set all grid elements to black.
           private void reset() {
-            for (int i=0; i<rows; i++) {
-               for (int j=0; j<columns; j++) {
-                  grid[i][j] = Color.BLACK;
-               }
+            Arrays.fill(pixels, 0);
+            synchronized (this) {
+               dirtyTop = 0;
+               dirtyBottom = -1;
             }
          }
-      }  	
-   
-   }
\ No newline at end of file
+      }
+   }
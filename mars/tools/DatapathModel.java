@@ -0,0 +1,299 @@
+   package mars.tools;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+   import java.awt.Color;
+   import java.util.*;
+   import javax.xml.parsers.*;
+   import org.w3c.dom.*;
+
+/**
+ * The contents of one of the datapath definition files used by MIPS X-Ray: the
+ * tables that name opcode, function and register bits, and the vertices of the
+ * datapath whose lines are animated.  Each file is parsed only once, when first
+ * requested, and the resulting model is shared by every animation and is never
+ * modified.  The color of each line for a kind of instruction is looked up in
+ * advance, so an animation can be set up for an instruction without parsing or
+ * string matching.
+ *
+ * @version October 2026
+ */
+
+    class DatapathModel {
+   
+      /** Color element names for the kinds of instructions, as used in the definition files */
+      static final String R_TYPE = "color_Rtype";
+      static final String J_TYPE = "color_Jtype";
+      static final String LOAD_TYPE = "color_LOADtype";
+      static final String STORE_TYPE = "color_STOREtype";
+      static final String BRANCH_TYPE = "color_BRANCHtype";
+      static final String I_TYPE = "color_Itype";
+      private static final String[] COLOR_ELEMENTS = {R_TYPE, J_TYPE, LOAD_TYPE, STORE_TYPE, BRANCH_TYPE, I_TYPE, 
+                                                      "ALU_out000", "ALU_out001", "ALU_out010", "ALU_out110", "ALU_out111"};
+      private static final String[] TABLE_ELEMENTS = {"equivalence", "function_equivalence", "register_equivalence"};
+      // Kind of instruction, as a color element name, for each of the 64 opcodes.
+      private static final String[] KIND_OF_OPCODE = new String[64];
+      private static final HashMap<String, DatapathModel> models = new HashMap<String, DatapathModel>(); // resource name -> DatapathModel
+   
+      private final HashMap<String, Map<String, String>> tables = new HashMap<String, Map<String, String>>(); // element name -> unmodifiable Map of bits to mnemonic
+      private final ArrayList<Vertex> vertices = new ArrayList<Vertex>();
+      private final HashMap<String, Color[]> colorsOfKind = new HashMap<String, Color[]>(); // color element name -> Color[] indexed by vertex
+      private final Color[][] colorsOfOpcode = new Color[64][];
+   
+       static {
+         for (int opcode = 0; opcode < 64; opcode++) {
+            if (opcode == 0) {
+               KIND_OF_OPCODE[opcode] = R_TYPE;
+            }
+            else if ((opcode >> 1) == 1) {  // 00001x
+               KIND_OF_OPCODE[opcode] = J_TYPE;
+            }
+            else if ((opcode >> 3) == 4) {  // 100xxx
+               KIND_OF_OPCODE[opcode] = LOAD_TYPE;
+            }
+            else if ((opcode >> 3) == 5) {  // 101xxx
+               KIND_OF_OPCODE[opcode] = STORE_TYPE;
+            }
+            else if ((opcode >> 2) == 1) {  // 0001xx
+               KIND_OF_OPCODE[opcode] = BRANCH_TYPE;
+            }
+            else {
+               KIND_OF_OPCODE[opcode] = I_TYPE;
+            }
+         }
+      }
+   
+   	/**
+   	 * Return the model of a datapath definition file, parsing it if this is the first request.
+   	 *
+   	 * @param resourceName name of the definition file resource, such as "/MipsXRayOpcode.xml"
+   	 * @return the shared model.  If the file could not be read or parsed it is empty, or
+   	 * holds the vertices read before the error.
+   	 */
+       static synchronized DatapathModel getModel(String resourceName) {
+         DatapathModel model = models.get(resourceName);
+         if (model == null) {
+            model = new DatapathModel(resourceName);
+            models.put(resourceName, model);
+         }
+         return model;
+      }
+   
+   	/**
+   	 * Return the kind of an instruction, as the name of the color elements used for it.
+   	 *
+   	 * @param instructionBinary the instruction's 32 bits as a string of 0s and 1s
+   	 * @return one of R_TYPE, J_TYPE, LOAD_TYPE, STORE_TYPE, BRANCH_TYPE or I_TYPE
+   	 */
+       static String getKind(String instructionBinary) {
+         return KIND_OF_OPCODE[Integer.parseInt(instructionBinary.substring(0, 6), 2)];
+      }
+   
+       private DatapathModel(String resourceName) {
+         try {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(false);
+            Document doc = dbf.newDocumentBuilder().parse(getClass().getResource(resourceName).toString());
+            Element root = doc.getDocumentElement();
+            for (int i = 0; i < TABLE_ELEMENTS.length; i++) {
+               tables.put(TABLE_ELEMENTS[i], Collections.unmodifiableMap(readTable(root, TABLE_ELEMENTS[i])));
+            }
+            readVertices(root);
+         } 
+             catch (Exception e) {
+               e.printStackTrace();
+            }
+         for (int i = 0; i < TABLE_ELEMENTS.length; i++) {
+            if (!tables.containsKey(TABLE_ELEMENTS[i])) {
+               tables.put(TABLE_ELEMENTS[i], Collections.<String, String>emptyMap());
+            }
+         }
+         for (int i = 0; i < COLOR_ELEMENTS.length; i++) {
+            Color[] colors = new Color[vertices.size()];
+            for (int v = 0; v < colors.length; v++) {
+               colors[v] = vertices.get(v).getColor(COLOR_ELEMENTS[i]);
+            }
+            colorsOfKind.put(COLOR_ELEMENTS[i], colors);
+         }
+         for (int opcode = 0; opcode < 64; opcode++) {
+            colorsOfOpcode[opcode] = colorsOfKind.get(KIND_OF_OPCODE[opcode]);
+         }
+      }
+   
+   	/**
+   	 * Return a table naming bit patterns.
+   	 *
+   	 * @param elementName "equivalence" for opcodes, "function_equivalence" for R-type
+   	 * function codes or "register_equivalence" for registers
+   	 * @return unmodifiable map from bit string to mnemonic, empty if the file has no such table
+   	 */
+       Map<String, String> getTable(String elementName) {
+         Map<String, String> table = tables.get(elementName);
+         return (table == null) ? Collections.<String, String>emptyMap() : table;
+      }
+   
+   	/**
+   	 * Return the number of vertices, which are numbered from 0.
+   	 * @return number of vertices
+   	 */
+       int getVertexCount() {
+         return vertices.size();
+      }
+   
+   	/**
+   	 * Return a vertex.
+   	 * @param index the vertex number
+   	 * @return the vertex
+   	 */
+       Vertex getVertex(int index) {
+         return vertices.get(index);
+      }
+   
+   	/**
+   	 * Return the colors of the lines, indexed by vertex, for an instruction.
+   	 *
+   	 * @param instructionBinary the instruction's 32 bits as a string of 0s and 1s
+   	 * @return the colors; an element is null if the file gives no color for that kind of instruction
+   	 */
+       Color[] getColors(String instructionBinary) {
+         return colorsOfOpcode[Integer.parseInt(instructionBinary.substring(0, 6), 2)];
+      }
+   
+   	/**
+   	 * Return the colors of the lines, indexed by vertex, given by color elements of one name.
+   	 *
+   	 * @param colorElement name of the color elements, such as R_TYPE or "ALU_out010"
+   	 * @return the colors; an element is null if the file gives no such color for that vertex
+   	 */
+       Color[] getColorsOfKind(String colorElement) {
+         return colorsOfKind.get(colorElement);
+      }
+   
+       private static HashMap<String, String> readTable(Element root, String elementName) {
+         HashMap<String, String> table = new HashMap<String, String>();
+         NodeList equivalenceList = root.getElementsByTagName(elementName);
+         for (int i = 0; i < equivalenceList.getLength(); i++) {
+            Element equivalenceItem = (Element) equivalenceList.item(i);
+            NodeList bitsList = equivalenceItem.getElementsByTagName("bits");
+            NodeList mnemonic = equivalenceItem.getElementsByTagName("mnemonic");
+            for (int j = 0; j < bitsList.getLength(); j++) {
+               table.put(bitsList.item(j).getTextContent(), mnemonic.item(j).getTextContent());
+            }
+         }
+         return table;
+      }
+   
+      // Each datapath_map element lists the properties of its vertices in parallel.
+       private void readVertices(Element root) {
+         NodeList datapathMapList = root.getElementsByTagName("datapath_map");
+         for (int i = 0; i < datapathMapList.getLength(); i++) {
+            Element item = (Element) datapathMapList.item(i);
+            NodeList numVertex = item.getElementsByTagName("num_vertex");
+            NodeList name = item.getElementsByTagName("name");
+            NodeList init = item.getElementsByTagName("init");
+            NodeList end = item.getElementsByTagName("end");
+            NodeList otherAxis = item.getElementsByTagName("other_axis");
+            NodeList isMovingXaxis = item.getElementsByTagName("isMovingXaxis");
+            NodeList targetVertex = item.getElementsByTagName("target_vertex");
+            NodeList isText = item.getElementsByTagName("is_text");
+            NodeList[] colors = new NodeList[COLOR_ELEMENTS.length];
+            for (int c = 0; c < colors.length; c++) {
+               colors[c] = item.getElementsByTagName(COLOR_ELEMENTS[c]);
+            }
+            for (int j = 0; j < numVertex.getLength(); j++) {
+               HashMap<String, Color> colorMap = new HashMap<String, Color>();
+               for (int c = 0; c < colors.length; c++) {
+                  if (j < colors[c].getLength()) {
+                     colorMap.put(COLOR_ELEMENTS[c], parseColor(colors[c].item(j).getTextContent()));
+                  }
+               }
+               String[] targets = targetVertex.item(j).getTextContent().split("#");
+               int[] targetIndexes = new int[targets.length];
+               for (int t = 0; t < targets.length; t++) {
+                  targetIndexes[t] = Integer.parseInt(targets[t]);
+               }
+               vertices.add(new Vertex(Integer.parseInt(numVertex.item(j).getTextContent()), 
+                                       Integer.parseInt(init.item(j).getTextContent()),
+                                       Integer.parseInt(end.item(j).getTextContent()), 
+                                       name.item(j).getTextContent(), 
+                                       Integer.parseInt(otherAxis.item(j).getTextContent()),
+                                       Boolean.parseBoolean(isMovingXaxis.item(j).getTextContent()),
+                                       Boolean.parseBoolean(isText.item(j).getTextContent()),
+                                       targetIndexes, colorMap));
+            }
+         }
+      }
+   
+      // Colors are given as red#green#blue.
+       private static Color parseColor(String rgb) {
+         String[] listColor = rgb.split("#");
+         return new Color(Integer.parseInt(listColor[0]), Integer.parseInt(listColor[1]), Integer.parseInt(listColor[2]));
+      }
+   
+   	/**
+   	 * The fixed properties of a line of the datapath, as given in the definition file.
+   	 * The animations keep the state of drawing the line in their own vertex objects.
+   	 */
+       static final class Vertex {
+         final int numIndex, init, end, oppositeAxis;
+         final String name;
+         final boolean isMovingXaxis, isText;
+         private final int[] targets;
+         private final HashMap<String, Color> colors;
+      
+          private Vertex(int numIndex, int init, int end, String name, int oppositeAxis, boolean isMovingXaxis, 
+                         boolean isText, int[] targets, HashMap<String, Color> colors) {
+            this.numIndex = numIndex;
+            this.init = init;
+            this.end = end;
+            this.name = name;
+            this.oppositeAxis = oppositeAxis;
+            this.isMovingXaxis = isMovingXaxis;
+            this.isText = isText;
+            this.targets = targets;
+            this.colors = colors;
+         }
+      
+      	/**
+      	 * Return the vertices that this line leads to.
+      	 * @return a new list of the vertex numbers
+      	 */
+          ArrayList<Integer> getTargetVertex() {
+            ArrayList<Integer> list = new ArrayList<Integer>(targets.length);
+            for (int i = 0; i < targets.length; i++) {
+               list.add(targets[i]);
+            }
+            return list;
+         }
+      
+          private Color getColor(String colorElement) {
+            return colors.get(colorElement);
+         }
+      }
+   }
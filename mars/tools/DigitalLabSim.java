@@ -7,11 +7,12 @@ import javax.swing.*;
 import javax.swing.Timer;
 
 import mars.Globals;
-import mars.mips.hardware.AddressErrorException;
 import mars.mips.hardware.Coprocessor0;
 import mars.mips.hardware.Memory;
-import mars.mips.hardware.MemoryAccessNotice;
+import mars.mips.hardware.MemoryMappedDevice;
 import mars.simulator.Exceptions;
+import mars.simulator.EventScheduler;
+import mars.simulator.ScheduledEvent;
 @SuppressWarnings("serial")
 /* Add these two lines in exceptions.java file
  * public static final int EXTERNAL_INTERRUPT_TIMER = 0x00000100; //Add for digital Lab Sim
@@ -44,9 +45,12 @@ public class DigitalLabSim extends AbstractMarsToolAndApplication {
 	private static boolean KeyboardInterruptOnOff=false;
 	// Counter
 	private static int CounterValueMax=30; 
-	private static int CounterValue=CounterValueMax;
 	private static boolean CounterInterruptOnOff=false;
+	private static CounterEvent CounterTick = new CounterEvent();
 	private static OneSecondCounter SecondCounter;
+	// MMIO bytes 0xFFFF0010 to 0xFFFF0017, held as two words
+	private int[] mmioWords = new int[2];
+	private DigitalLabDevice digitalLabDevice = new DigitalLabDevice();
 
 	public DigitalLabSim(String title, String heading) {
 		super(title,heading);
@@ -61,13 +65,15 @@ public class DigitalLabSim extends AbstractMarsToolAndApplication {
 		return "Digital Lab Sim";
 	}
 	protected void addAsObserver(){
-    	addAsObserver(IN_ADRESS_DISPLAY_1, IN_ADRESS_DISPLAY_1);
-    	addAsObserver(Memory.textBaseAddress, Memory.textLimitAddress);
+    	addAsDevice(digitalLabDevice, IN_ADRESS_DISPLAY_1, OUT_ADRESS_HEXA_KEYBOARD);
     }
-	public void update(Observable ressource, Object accessNotice){
-    	MemoryAccessNotice notice = (MemoryAccessNotice) accessNotice;
-    	int address=notice.getAddress();
-    	char value=(char)notice.getValue();
+	protected void deleteAsObserver(){
+    	super.deleteAsObserver();
+    	deleteAsDevice(digitalLabDevice);
+    	EventScheduler.cancel(CounterTick);
+    }
+	// Called for each byte the MIPS program stores to the MMIO area.
+	private void updateFromMIPS(int address, char value){
     	if(address == IN_ADRESS_DISPLAY_1)
     			updateSevenSegment(1, value);
     	else
@@ -79,16 +85,22 @@ public class DigitalLabSim extends AbstractMarsToolAndApplication {
     			else
     				if (address == IN_ADRESS_COUNTER)
     					updateOneSecondCounter(value);
-    	if  (CounterInterruptOnOff)
-    		if (CounterValue >0){
-    			CounterValue--;
-    		}
-    		else{
-    			CounterValue=CounterValueMax;
-    			if((Coprocessor0.getValue(Coprocessor0.STATUS) & 2)==0){
-    				mars.simulator.Simulator.externalInterruptingDevice = /*Exceptions.*/EXTERNAL_INTERRUPT_TIMER;
-    			}
-    		}
+	}
+	// MIPS accesses to the MMIO bytes are delivered here directly, rather than
+	// observed, so only instruction executions are observed (for the counter).
+	private class DigitalLabDevice implements MemoryMappedDevice {
+		public int read(int address, int length){
+			return peek(address, length);
+		}
+		public int peek(int address, int length){
+			return Memory.extractBytesFromWord(mmioWords[(address - IN_ADRESS_DISPLAY_1) >> 2], address, length);
+		}
+		public void write(int address, int value, int length){
+			int index = (address - IN_ADRESS_DISPLAY_1) >> 2;
+			mmioWords[index] = Memory.insertBytesIntoWord(mmioWords[index], address, value, length);
+			for (int i = 0; i < length; i++)
+				updateFromMIPS(address + i, (char)((value >>> (i << 3)) & 0xFF));
+		}
 	}
 	protected void reset(){
     	sevenSegPanel.resetSevenSegment();
@@ -107,13 +119,8 @@ public class DigitalLabSim extends AbstractMarsToolAndApplication {
     private synchronized void updateMMIOControlAndData(int dataAddr, int dataValue) {
         if (!this.isBeingUsedAsAMarsTool || (this.isBeingUsedAsAMarsTool && connectButton.isConnected())) {
            synchronized (Globals.memoryAndRegistersLock) {
-              try {
-              		Globals.memory.setByte(dataAddr, dataValue);
-              } 
-                  catch (AddressErrorException aee) {
-                    System.out.println("Tool author specified incorrect MMIO address!"+aee);
-                    System.exit(0);
-                 }
+              int index = (dataAddr - IN_ADRESS_DISPLAY_1) >> 2;
+              mmioWords[index] = Memory.insertBytesIntoWord(mmioWords[index], dataAddr, dataValue, 1);
            }
            if (Globals.getGui() != null && Globals.getGui().getMainPane().getExecutePane().getTextSegmentWindow().getCodeHighlighting() ) {
               Globals.getGui().getMainPane().getExecutePane().getDataSegmentWindow().updateValues();
@@ -336,9 +343,10 @@ public class DigitalLabSim extends AbstractMarsToolAndApplication {
 /* ....................Hexa Keyboard end here................................... */
 /* ....................Timer start here................................... */
     public void updateOneSecondCounter(char value) {
+    	EventScheduler.cancel(CounterTick);
     	if (value !=0){
     		CounterInterruptOnOff=true;
-    		CounterValue=CounterValueMax;
+    		EventScheduler.schedule(CounterTick, CounterValueMax);
     	}
     	else{
     		CounterInterruptOnOff=false;
@@ -350,7 +358,16 @@ public class DigitalLabSim extends AbstractMarsToolAndApplication {
     	}
  	    public void resetOneSecondCounter(){
 	    	CounterInterruptOnOff=false;
-	    	CounterValue=CounterValueMax;
+	    	EventScheduler.cancel(CounterTick);
 	    }
     }
+    // Scheduled every CounterValueMax instructions while the counter interrupt is enabled
+    private static class CounterEvent implements ScheduledEvent{
+    	public void fire(long instructionCount){
+    		if((Coprocessor0.getValue(Coprocessor0.STATUS) & 2)==0){
+    			mars.simulator.Simulator.externalInterruptingDevice = /*Exceptions.*/EXTERNAL_INTERRUPT_TIMER;
+    		}
+    		EventScheduler.schedule(this, CounterValueMax);
+    	}
+    }
 }
\ No newline at end of file
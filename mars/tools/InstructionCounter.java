@@ -29,7 +29,6 @@ package mars.tools;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.util.Observable;
 
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -37,13 +36,10 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JTextField;
 
-import mars.ProgramStatement;
-import mars.mips.hardware.AccessNotice;
-import mars.mips.hardware.AddressErrorException;
-import mars.mips.hardware.Memory;
-import mars.mips.hardware.MemoryAccessNotice;
 import mars.mips.instructions.BasicInstruction;
 import mars.mips.instructions.BasicInstructionFormat;
+import mars.simulator.RetireEvent;
+import mars.simulator.RetireListener;
 
 /**
  * 
@@ -56,7 +52,7 @@ import mars.mips.instructions.BasicInstructionFormat;
  *
  */
 //@SuppressWarnings("serial")
-public class InstructionCounter extends AbstractMarsToolAndApplication {
+public class InstructionCounter extends AbstractMarsToolAndApplication implements RetireListener {
     private static String name    = "Instruction Counter";
     private static String version = "Version 1.0 (Felipe Lessa)";
     private static String heading = "Counting the number of instructions executed";
@@ -90,11 +86,9 @@ public class InstructionCounter extends AbstractMarsToolAndApplication {
     
     
     /**
-     * The last address we saw. We ignore it because the only way for a
-     * program to execute twice the same instruction is to enter an infinite
-     * loop, which is not insteresting in the POV of counting instructions.
+     * Number of retired instructions delivered to the counter at a time.
      */
-    protected int lastAddress = -1;
+    private static final int RETIRE_BATCH_SIZE = 1024;
     
    	/**
    	 * Simple constructor, likely used to run a stand-alone memory reference visualizer.
@@ -198,21 +192,23 @@ public class InstructionCounter extends AbstractMarsToolAndApplication {
 	
 //	@Override
 	protected void addAsObserver() {
-		addAsObserver(Memory.textBaseAddress, Memory.textLimitAddress);
+		addAsRetireListener(this, RETIRE_BATCH_SIZE);
 	}
 
 //	@Override
-	protected void processMIPSUpdate(Observable resource, AccessNotice notice) {
-		if (!notice.accessIsFromMIPS()) return;
-		if (notice.getAccessType() != AccessNotice.READ) return;
-		MemoryAccessNotice m = (MemoryAccessNotice) notice;
-		int a = m.getAddress();
-		if (a == lastAddress) return;
-		lastAddress = a;
-		counter++;
-		try {
-			ProgramStatement stmt = Memory.getInstance().getStatement(a);
-			BasicInstruction instr = (BasicInstruction) stmt.getInstruction();
+	protected void deleteAsObserver() {
+		deleteAsRetireListener(this);
+	}
+
+	/**
+	 * Counts the retired instructions by format and updates the display.
+	 */
+	public void instructionsRetired(RetireEvent[] events, int count) {
+		for (int i = 0; i < count; i++) {
+			if (events[i].isException())
+				continue;
+			counter++;
+			BasicInstruction instr = (BasicInstruction) events[i].getStatement().getInstruction();
 			BasicInstructionFormat format = instr.getInstructionFormat();
 			if (format == BasicInstructionFormat.R_FORMAT)
 				counterR++;
@@ -221,23 +217,18 @@ public class InstructionCounter extends AbstractMarsToolAndApplication {
 				counterI++;
 			else if (format == BasicInstructionFormat.J_FORMAT)
 				counterJ++;
-		} catch (AddressErrorException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		}
 		updateDisplay();
 	}
-	
+
 //	@Override
 	protected void initializePreGUI() {
 		counter = counterR = counterI = counterJ = 0;
-		lastAddress = -1;
 	}
 	
 // @Override
 	protected void reset() {
 		counter = counterR = counterI = counterJ = 0;
-		lastAddress = -1;		
 		updateDisplay();
 	}
 	
@@ -11,6 +11,8 @@
    import mars.venus.RunSpeedPanel;
    import mars.mips.hardware.*;
    import mars.simulator.Exceptions;
+   import mars.simulator.EventScheduler;
+   import mars.simulator.ScheduledEvent;
    import javax.swing.text.DefaultCaret;
 
 
@@ -64,11 +66,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     *    transmitted will clear the Display window.  (2) ASCII control character 7 (bell) when
     *    transmitted with properly coded (X,Y) values will reposition the cursor to the specified
     *    position of a virtual text-based terminal.  X represents column, Y represents row.
+	 *
+	 * Version 1.5, October 2026, implements the MMIO registers as a memory-mapped device and simulates
+	 *    the transmitter delay with an event scheduled on the simulator's instruction count, rather than
+	 *    by observing memory and every instruction fetch.
 	 */
     
    public class KeyboardAndDisplaySimulator extends AbstractMarsToolAndApplication {
    
-      private static String version = "Version 1.4";
+      private static String version = "Version 1.5";
       private static String heading =  "Keyboard and Display MMIO Simulator";
       private static String displayPanelTitle, keyboardPanelTitle;
       private static char VT_FILL = ' ';  // fill character for virtual terminal (random access mode)
@@ -87,9 +93,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       public static int RECEIVER_DATA;       // keyboard character in low-order byte
       public static int TRANSMITTER_CONTROL; // display Ready in low-order bit
       public static int TRANSMITTER_DATA;    // display character in low-order byte
+   	// Values of the four registers above, in that order.  The registers are implemented by
+   	// a memory-mapped device so MIPS loads and stores are delivered to us as they occur.
+      private int[] mmioRegisters = new int[4];
+      private KeyboardAndDisplayDevice keyboardAndDisplayDevice = new KeyboardAndDisplayDevice();
    	// These are used to track instruction counts to simulate driver delay of Transmitter Data
-      private boolean countingInstructions;
-      private int instructionCount;
+      private TransmitterReadyEvent transmitterReadyEvent = new TransmitterReadyEvent();
       private int transmitDelayInstructionCountLimit;
       private int currentDelayInstructionLimit;
    
@@ -176,26 +185,33 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	 *  (starting address 0x10010000) only.
    	 *
    	 *  When user enters keystroke, set RECEIVER_CONTROL and RECEIVER_DATA using the action listener.
-   	 *  When user loads word (lw) from RECEIVER_DATA (we are notified of the read), then clear RECEIVER_CONTROL.
-   	 *  When user stores word (sw) to TRANSMITTER_DATA (we are notified of the write), then clear TRANSMITTER_CONTROL, read TRANSMITTER_DATA,
+   	 *  When user loads word (lw) from RECEIVER_DATA (our device is read), then clear RECEIVER_CONTROL.
+   	 *  When user stores word (sw) to TRANSMITTER_DATA (our device is written), then clear TRANSMITTER_CONTROL, read TRANSMITTER_DATA,
    	 *  echo the character to display, wait for delay period, then set TRANSMITTER_CONTROL.
    	 *
    	 *  If you use the inherited GUI buttons, this method is invoked when you click "Connect" button on MarsTool or the
    	 *  "Assemble and Run" button on a Mars-based app.
    	 */
       protected void addAsObserver() {
+          // MIPS accesses to the four MMIO registers go directly to our device.
+         addAsDevice(keyboardAndDisplayDevice, RECEIVER_CONTROL, TRANSMITTER_DATA);
        	// Set transmitter Control ready bit to 1, means we're ready to accept display character.
          updateMMIOControl(TRANSMITTER_CONTROL, readyBitSet(TRANSMITTER_CONTROL));
-          // We want to be an observer only of MIPS reads from RECEIVER_DATA and writes to TRANSMITTER_DATA.
-          // Use the Globals.memory.addObserver() methods instead of inherited method to achieve this.
-         addAsObserver(RECEIVER_DATA,RECEIVER_DATA);
-         addAsObserver(TRANSMITTER_DATA, TRANSMITTER_DATA);
-      	// We want to be notified of each instruction execution, because instruction count is the
-      	// basis for delay in re-setting (literally) the TRANSMITTER_CONTROL register.  SPIM does
-      	// this too.  This simulates the time required for the display unit to process the
-      	// TRANSMITTER_DATA.
-         addAsObserver(Memory.textBaseAddress, Memory.textLimitAddress);
-         addAsObserver(Memory.kernelTextBaseAddress, Memory.kernelTextLimitAddress);
+      	// Instruction count is the basis for delay in re-setting (literally) the TRANSMITTER_CONTROL 
+      	// register.  SPIM does this too.  This simulates the time required for the display unit to 
+      	// process the TRANSMITTER_DATA.  The delay is scheduled with the simulator's EventScheduler
+      	// when TRANSMITTER_DATA is written, so there is no need to observe instruction fetches.
+      }
+   
+   
+   	/**
+   	 *  Override the inherited method to also remove our memory-mapped device.  Subsequent 
+   	 *  accesses to the MMIO registers go to ordinary memory.
+   	 */
+      protected void deleteAsObserver() {
+         super.deleteAsObserver();
+         deleteAsDevice(keyboardAndDisplayDevice);
+         EventScheduler.cancel(transmitterReadyEvent);
       }
    
    
@@ -228,58 +244,6 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	//  the abstract superclass.
       //////////////////////////////////////////////////////////////////////////////////////
    
-      /**
-   	 * Update display when connected MIPS program accesses (data) memory.
-   	 * @param memory the attached memory
-   	 * @param accessNotice information provided by memory in MemoryAccessNotice object
-   	 */
-      protected void processMIPSUpdate(Observable memory, AccessNotice accessNotice) {
-         MemoryAccessNotice notice = (MemoryAccessNotice) accessNotice;
-      	// If MIPS program has just read (loaded) the receiver (keyboard) data register,
-      	// then clear the Ready bit to indicate there is no longer a keystroke available.
-      	// If Ready bit was initially clear, they'll get the old keystroke -- serves 'em right
-      	// for not checking!
-         if (notice.getAddress()==RECEIVER_DATA && notice.getAccessType()==AccessNotice.READ) {
-            updateMMIOControl(RECEIVER_CONTROL, readyBitCleared(RECEIVER_CONTROL));
-         }
-      	// MIPS program has just written (stored) the transmitter (display) data register.  If transmitter
-      	// Ready bit is clear, device is not ready yet so ignore this event -- serves 'em right for not checking!
-      	// If transmitter Ready bit is set, then clear it to indicate the display device is processing the character.
-      	// Also start an intruction counter that will simulate the delay of the slower
-      	// display device processing the character.
-         if (isReadyBitSet(TRANSMITTER_CONTROL) && notice.getAddress()==TRANSMITTER_DATA && notice.getAccessType()==AccessNotice.WRITE) {
-            updateMMIOControl(TRANSMITTER_CONTROL, readyBitCleared(TRANSMITTER_CONTROL));
-            intWithCharacterToDisplay = notice.getValue();
-            if (!displayAfterDelay) displayCharacter(intWithCharacterToDisplay); 
-            this.countingInstructions = true;
-            this.instructionCount = 0;
-            this.transmitDelayInstructionCountLimit = generateDelay();
-         }
-      	// We have been notified of a MIPS instruction execution.
-      	// If we are in transmit delay period, increment instruction count and if limit
-      	// has been reached, set the transmitter Ready flag to indicate the MIPS program
-      	// can write another character to the transmitter data register.  If the Interrupt-Enabled
-      	// bit had been set by the MIPS program, generate an interrupt!
-         if (   this.countingInstructions &&
-                notice.getAccessType()==AccessNotice.READ &&
-                (Memory.inTextSegment(notice.getAddress()) || Memory.inKernelTextSegment(notice.getAddress()))) {
-            this.instructionCount++;
-            if (this.instructionCount >= this.transmitDelayInstructionCountLimit) {
-               if (displayAfterDelay) displayCharacter(intWithCharacterToDisplay);
-               this.countingInstructions = false;
-               int updatedTransmitterControl =  readyBitSet(TRANSMITTER_CONTROL);
-               updateMMIOControl(TRANSMITTER_CONTROL, updatedTransmitterControl);
-               if (updatedTransmitterControl != 1
-                   && (Coprocessor0.getValue(Coprocessor0.STATUS) & 2)==0  // Added by Carl Hauser Nov 2008
-                   && (Coprocessor0.getValue(Coprocessor0.STATUS) & 1)==1) {
-               // interrupt-enabled bit is set in both Tranmitter Control and in
-               // Coprocessor0 Status register, and Interrupt Level Bit is 0, so trigger external interrupt.
-                  mars.simulator.Simulator.externalInterruptingDevice = Exceptions.EXTERNAL_INTERRUPT_DISPLAY;
-               }
-            }
-         }
-      }
-   
       private static final char CLEAR_SCREEN  = 12; // ASCII Form Feed
       private static final char SET_CURSOR_X_Y = 7; // ASCII Bell  (ding ding!)
    
@@ -704,14 +668,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private synchronized void updateMMIOControlAndData(int controlAddr, int controlValue, int dataAddr, int dataValue, boolean controlOnly) {
          if (!this.isBeingUsedAsAMarsTool || (this.isBeingUsedAsAMarsTool && connectButton.isConnected())) {
             synchronized (Globals.memoryAndRegistersLock) {
-               try {
-                  Globals.memory.setRawWord(controlAddr, controlValue);
-                  if (!controlOnly) Globals.memory.setRawWord(dataAddr, dataValue);
-               }
-                  catch (AddressErrorException aee) {
-                     System.out.println("Tool author specified incorrect MMIO address!"+aee);
-                     System.exit(0);
-                  }
+               mmioRegisters[registerIndex(controlAddr)] = controlValue;
+               if (!controlOnly) mmioRegisters[registerIndex(dataAddr)] = dataValue;
             }
          	// HERE'S A HACK!!  Want to immediately display the updated memory value in MARS
          	// but that code was not written for event-driven update (e.g. Observer) --
@@ -726,55 +684,39 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    
      /////////////////////////////////////////////////////////////////////
-     // Return value of the given MMIO control register after ready (low order) bit set (to 1).
-     // Have to preserve the value of Interrupt Enable bit (bit 1)
-      private static boolean isReadyBitSet(int mmioControlRegister) {
-         try {
-            return (Globals.memory.get(mmioControlRegister, Memory.WORD_LENGTH_BYTES) & 1) == 1;
-         }
-            catch (AddressErrorException aee) {
-               System.out.println("Tool author specified incorrect MMIO address!"+aee);
-               System.exit(0);
-            }
-         return false; // to satisfy the compiler -- this will never happen.
+     // Return index into mmioRegisters of the given MMIO register address.
+      private static int registerIndex(int mmioRegister) {
+         return (mmioRegister - RECEIVER_CONTROL) >> 2;
+      }
+   
+   
+     /////////////////////////////////////////////////////////////////////
+     // Return true if ready (low order) bit of the given MMIO control register is set.
+      private boolean isReadyBitSet(int mmioControlRegister) {
+         return (mmioRegisters[registerIndex(mmioControlRegister)] & 1) == 1;
       }
    
    
      /////////////////////////////////////////////////////////////////////
      // Return value of the given MMIO control register after ready (low order) bit set (to 1).
      // Have to preserve the value of Interrupt Enable bit (bit 1)
-      private static int readyBitSet(int mmioControlRegister) {
-         try {
-            return Globals.memory.get(mmioControlRegister, Memory.WORD_LENGTH_BYTES) | 1;
-         }
-            catch (AddressErrorException aee) {
-               System.out.println("Tool author specified incorrect MMIO address!"+aee);
-               System.exit(0);
-            }
-         return 1; // to satisfy the compiler -- this will never happen.
+      private int readyBitSet(int mmioControlRegister) {
+         return mmioRegisters[registerIndex(mmioControlRegister)] | 1;
       }
    
      /////////////////////////////////////////////////////////////////////
      //  Return value of the given MMIO control register after ready (low order) bit cleared (to 0).
      // Have to preserve the value of Interrupt Enable bit (bit 1). Bits 2 and higher don't matter.
-      private static int readyBitCleared(int mmioControlRegister) {
-         try {
-            return Globals.memory.get(mmioControlRegister, Memory.WORD_LENGTH_BYTES) & 2;
-         }
-            catch (AddressErrorException aee) {
-               System.out.println("Tool author specified incorrect MMIO address!"+aee);
-               System.exit(0);
-            }
-         return 0; // to satisfy the compiler -- this will never happen.
+      private int readyBitCleared(int mmioControlRegister) {
+         return mmioRegisters[registerIndex(mmioControlRegister)] & 2;
       }
    
    
    	/////////////////////////////////////////////////////////////////////
    	// Transmit delay is simulated by counting instruction executions.
-   	// Here we simly initialize (or reset) the variables.
+   	// Here we simly initialize (or reset) the delay and cancel any pending one.
       private void initializeTransmitDelaySimulator() {
-         this.countingInstructions = false;
-         this.instructionCount = 0;
+         EventScheduler.cancel(transmitterReadyEvent);
          this.transmitDelayInstructionCountLimit = this.generateDelay();
       }
    
@@ -791,6 +733,71 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    
    
    
+   	///////////////////////////////////////////////////////////////////////////////////
+   	//
+   	//  Memory-mapped device implementing the four MMIO registers.  Memory calls it from the
+   	//  simulator thread, which holds Globals.memoryAndRegistersLock.
+   
+      private class KeyboardAndDisplayDevice implements MemoryMappedDevice {
+         public int read(int address, int length) {
+         	// If MIPS program is reading (loading) the receiver (keyboard) data register,
+         	// then clear the Ready bit to indicate there is no longer a keystroke available.
+         	// If Ready bit was initially clear, they'll get the old keystroke -- serves 'em right
+         	// for not checking!
+            int value = peek(address, length);
+            if (registerIndex(address) == registerIndex(RECEIVER_DATA)) {
+               updateMMIOControl(RECEIVER_CONTROL, readyBitCleared(RECEIVER_CONTROL));
+            }
+            return value;
+         }
+      
+         public int peek(int address, int length) {
+            return Memory.extractBytesFromWord(mmioRegisters[registerIndex(address)], address, length);
+         }
+      
+         public void write(int address, int value, int length) {
+            int index = registerIndex(address);
+            boolean transmitterReady = isReadyBitSet(TRANSMITTER_CONTROL);
+            mmioRegisters[index] = Memory.insertBytesIntoWord(mmioRegisters[index], address, value, length);
+         	// MIPS program is writing (storing) the transmitter (display) data register.  If transmitter
+         	// Ready bit is clear, device is not ready yet so ignore this event -- serves 'em right for not checking!
+         	// If transmitter Ready bit is set, then clear it to indicate the display device is processing the character.
+         	// Also start an intruction counter that will simulate the delay of the slower
+         	// display device processing the character.
+            if (transmitterReady && index == registerIndex(TRANSMITTER_DATA)) {
+               updateMMIOControl(TRANSMITTER_CONTROL, readyBitCleared(TRANSMITTER_CONTROL));
+               intWithCharacterToDisplay = mmioRegisters[index];
+               if (!displayAfterDelay) displayCharacter(intWithCharacterToDisplay); 
+               transmitDelayInstructionCountLimit = generateDelay();
+               EventScheduler.schedule(transmitterReadyEvent, transmitDelayInstructionCountLimit);
+            }
+         }
+      }
+   
+   
+   	///////////////////////////////////////////////////////////////////////////////////
+   	//
+   	//  Event fired by the simulator when the transmit delay period has elapsed.
+   	//  Set the transmitter Ready flag to indicate the MIPS program can write another 
+   	//  character to the transmitter data register.  If the Interrupt-Enabled bit had 
+   	//  been set by the MIPS program, generate an interrupt!
+   
+      private class TransmitterReadyEvent implements ScheduledEvent {
+         public void fire(long instructionCount) {
+            if (displayAfterDelay) displayCharacter(intWithCharacterToDisplay);
+            int updatedTransmitterControl =  readyBitSet(TRANSMITTER_CONTROL);
+            updateMMIOControl(TRANSMITTER_CONTROL, updatedTransmitterControl);
+            if (updatedTransmitterControl != 1
+                && (Coprocessor0.getValue(Coprocessor0.STATUS) & 2)==0  // Added by Carl Hauser Nov 2008
+                && (Coprocessor0.getValue(Coprocessor0.STATUS) & 1)==1) {
+            // interrupt-enabled bit is set in both Tranmitter Control and in
+            // Coprocessor0 Status register, and Interrupt Level Bit is 0, so trigger external interrupt.
+               mars.simulator.Simulator.externalInterruptingDevice = Exceptions.EXTERNAL_INTERRUPT_DISPLAY;
+            }
+         }
+      }
+   
+   
    	///////////////////////////////////////////////////////////////////////////////////
    	//
    	//  Class to grab keystrokes going to keyboard echo area and send them to MMIO area
@@ -10,7 +10,7 @@
  * Simple Demo of Mars tool capability
  */
 
-    public class MarsBot implements Observer, MarsTool
+    public class MarsBot implements MemoryMappedDevice, MarsTool
    {
       private static final int GRAPHIC_WIDTH = 512;
       private static final int GRAPHIC_HEIGHT = 512;
@@ -19,6 +19,11 @@
       private static final int ADDR_WHEREAREWEX = 0xffff8030;
       private static final int ADDR_WHEREAREWEY = 0xffff8040;
       private static final int ADDR_MOVE = 0xffff8050;
+      private static final int ADDR_FIRST = 0xffff8000;
+      private static final int ADDR_LAST = 0xffff8060;
+    // Values last stored by the MIPS program to MarsBot's MMIO words.  The X and Y
+    // position words are not stored here; their values are computed when read.
+      private int[] mmioWords = new int[(ADDR_LAST - ADDR_FIRST) / Memory.WORD_LENGTH_BYTES + 1];
       private MarsBotDisplay graphicArea;
       private int MarsBotHeading = 0; // 0 --> North (up), 90 --> East (right), etc.
       private boolean MarsBotLeaveTrack = false; // true --> leave track when moving, false --> do not ...
@@ -106,17 +111,8 @@
                   MarsBotXPosition += Math.cos(Math.toRadians(tempAngle)); // Math.cos parameter unit is radians
                   MarsBotYPosition += -Math.sin(Math.toRadians(tempAngle)); // Negate value because Y coord grows down
                
-                    // Write this new information to MARS memory area
-                  try
-                  {
-                     Globals.memory.setWord(ADDR_WHEREAREWEX, (int) MarsBotXPosition);
-                     Globals.memory.setWord(ADDR_WHEREAREWEY, (int) MarsBotYPosition);
-                  
-                  }
-                      catch ( AddressErrorException e)
-                     {
-                        // TBD TBD TBD No action
-                     }
+                    // No need to write this new information to MARS memory area.  The MIPS
+                    // program gets it when it reads ADDR_WHEREAREWEX or ADDR_WHEREAREWEY.
                     
                     //System.out.println(" ------- Heading is " + MarsBotHeading + ", angle is " + tempAngle);
                     //System.out.println(" ------- New X,Y is (" + MarsBotXPosition + "," + MarsBotYPosition + ")" );
@@ -259,8 +255,9 @@
          Thread t1 = new Thread(br1);
          t1.start();
         // New: DPS 27 Feb 2006.  Register observer for memory subrange.
+        // Now registered as a memory-mapped device, so MIPS accesses are delivered directly.
          try {
-            Globals.memory.addObserver(this,0xffff8000,0xffff8060);
+            Globals.memory.addDevice(this, ADDR_FIRST, ADDR_LAST);
          } 
              catch (AddressErrorException aee) { 
                System.out.println(aee);
@@ -268,88 +265,96 @@
       }
    
     /*
-     * This method observes MIPS program directives to modify Bot activity (that is,
+     * MemoryMappedDevice method for MIPS program read of MMIO.  The bot's
+     * position is provided as of the moment it is read.
+     */
+       public int read(int address, int length)
+      {
+         return peek(address, length);
+      }
+   
+       public int peek(int address, int length)
+      {
+         int wordAddress = address & ~3;
+         int word;
+         if (wordAddress == ADDR_WHEREAREWEX) word = (int) MarsBotXPosition;
+         else if (wordAddress == ADDR_WHEREAREWEY) word = (int) MarsBotYPosition;
+         else word = mmioWords[(wordAddress - ADDR_FIRST) / Memory.WORD_LENGTH_BYTES];
+         return Memory.extractBytesFromWord(word, address, length);
+      }
+   
+    /*
+     * This method receives MIPS program directives to modify Bot activity (that is,
      * MIPS program write to MMIO) and updates instance variables to reflect that
      * directive.
      */
-       public void update(Observable o, Object arg)
+       public void write(int address, int value, int length)
       {
-         MemoryAccessNotice notice;
-         int address;
-         if (arg instanceof MemoryAccessNotice)
+         int index = ((address & ~3) - ADDR_FIRST) / Memory.WORD_LENGTH_BYTES;
+         mmioWords[index] = Memory.insertBytesIntoWord(mmioWords[index], address, value, length);
+         String message = "";
+         if (address == ADDR_HEADING)
          {
-            notice = (MemoryAccessNotice) arg;
-            address = notice.getAddress();
-            if (address < 0 && notice.getAccessType() == AccessNotice.WRITE)
+            message = "MarsBot.update: got move heading value: ";
+            MarsBotHeading = value;
+              //System.out.println(message + value );
+         }
+         else if (address == ADDR_LEAVETRACK)
+         {
+            message = "MarsBot.update: got leave track directive value ";
+              
+              // If we HAD NOT been leaving a track, but we should NOW leave
+              // a track, put start point into array.
+            if (MarsBotLeaveTrack == false && value == 1)
             {
-               String message = "";
-               if (address == ADDR_HEADING)
-               {
-                  message = "MarsBot.update: got move heading value: ";
-                  MarsBotHeading = notice.getValue();
-                    //System.out.println(message + notice.getValue() );
-               }
-               else if (address == ADDR_LEAVETRACK)
-               {
-                  message = "MarsBot.update: got leave track directive value ";
-                    
-                    // If we HAD NOT been leaving a track, but we should NOW leave
-                    // a track, put start point into array.
-                  if (MarsBotLeaveTrack == false && notice.getValue() == 1)
-                  {
-                     MarsBotLeaveTrack = true;
-                     arrayOfTrack[trackIndex] = new Point((int) MarsBotXPosition, (int) MarsBotYPosition);
-                     trackIndex++;  // the index of the end point
-                  }
-                    // If we HAD NOT been leaving a track, and get another directive
-                    // to NOT leave a track, do nothing (nothing to do).
-                  else if (MarsBotLeaveTrack == false && notice.getValue() == 0)
-                  {
-                      // NO ACTION
-                  }
-                    // If we HAD been leaving a track, and get another directive
-                    // to LEAVE a track, do nothing (nothing to do).
-                  else if (MarsBotLeaveTrack == true && notice.getValue() == 1)
-                  {
-                      // NO ACTION
-                  }
-                    // If we HAD been leaving a track, and get another directive
-                    // to NOT leave a track, put end point into array.
-                  else if (MarsBotLeaveTrack == true && notice.getValue() == 0)
-                  {
-                     MarsBotLeaveTrack = false;
-                     arrayOfTrack[trackIndex] = new Point((int) MarsBotXPosition, (int) MarsBotYPosition);
-                     trackIndex++;  // the index of the next start point
-                  }
-               
-                    //System.out.println("MarsBotDisplay.paintComponent: putting point in track array at " + trackIndex);
-               
-                    //System.out.println(message + notice.getValue() );
-               }
-               else if (address == ADDR_MOVE)
-               {
-                  message = "MarsBot.update: got move control value: ";
-                  if (notice.getValue() == 0) MarsBotMoving = false;
-                  else MarsBotMoving = true;
-                    //System.out.println(message + notice.getValue() );
-               }
-               else if (address == ADDR_WHEREAREWEX ||
-                         address == ADDR_WHEREAREWEY)
-               {
-                  // Ignore these memory writes, because the writes originated within
-                  // this tool. This tool is being notified of the writes in the usual
-                  // manner, but the writes are already known to this tool.
-                  // NO ACTION
-               }
-               else
-               {
-                    //message = "MarsBot.update: HEY!!! unknown address of " + Integer.toString(address) + ", value: ";
-                    //System.out.println(message + notice.getValue() );
-               }
-            
+               MarsBotLeaveTrack = true;
+               arrayOfTrack[trackIndex] = new Point((int) MarsBotXPosition, (int) MarsBotYPosition);
+               trackIndex++;  // the index of the end point
+            }
+              // If we HAD NOT been leaving a track, and get another directive
+              // to NOT leave a track, do nothing (nothing to do).
+            else if (MarsBotLeaveTrack == false && value == 0)
+            {
+                // NO ACTION
             }
+              // If we HAD been leaving a track, and get another directive
+              // to LEAVE a track, do nothing (nothing to do).
+            else if (MarsBotLeaveTrack == true && value == 1)
+            {
+                // NO ACTION
+            }
+              // If we HAD been leaving a track, and get another directive
+              // to NOT leave a track, put end point into array.
+            else if (MarsBotLeaveTrack == true && value == 0)
+            {
+               MarsBotLeaveTrack = false;
+               arrayOfTrack[trackIndex] = new Point((int) MarsBotXPosition, (int) MarsBotYPosition);
+               trackIndex++;  // the index of the next start point
+            }
+         
+              //System.out.println("MarsBotDisplay.paintComponent: putting point in track array at " + trackIndex);
+         
+              //System.out.println(message + value );
+         }
+         else if (address == ADDR_MOVE)
+         {
+            message = "MarsBot.update: got move control value: ";
+            if (value == 0) MarsBotMoving = false;
+            else MarsBotMoving = true;
+              //System.out.println(message + value );
+         }
+         else if (address == ADDR_WHEREAREWEX ||
+                   address == ADDR_WHEREAREWEY)
+         {
+            // Ignore these memory writes; the position is maintained by this tool
+            // and provided when the MIPS program reads it.
+            // NO ACTION
+         }
+         else
+         {
+              //message = "MarsBot.update: HEY!!! unknown address of " + Integer.toString(address) + ", value: ";
+              //System.out.println(message + value );
          }
-      
       }
    
    }
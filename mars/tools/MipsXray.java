@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Vector;
 
@@ -50,12 +51,6 @@ import javax.swing.Timer;
 import javax.swing.UIManager;
 //import java.util.Timer;
 import javax.swing.event.InternalFrameEvent;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 import mars.Globals;
 import mars.ProgramStatement;
@@ -248,7 +243,7 @@ public class MipsXray extends AbstractMarsToolAndApplication{
    		
    		try {
    			BasicInstruction instr = null;
-   			stmt = Memory.getInstance().getStatement(currentAdress);
+   			stmt = Memory.getInstance().getStatementNoNotify(currentAdress);
    			if(stmt == null){
    				return;
    			}
@@ -257,12 +252,14 @@ public class MipsXray extends AbstractMarsToolAndApplication{
    			instructionBinary = stmt.getMachineStatement();
    			BasicInstructionFormat format = instr.getInstructionFormat();
    			
-   			painel.removeAll();
-   			datapathAnimation = new DatapathAnimation(instructionBinary);
-   			this.createActionObjects();
-   			toolbar= this.setUpToolBar();
-   			painel.add(toolbar, BorderLayout.NORTH);
-   			painel.add(datapathAnimation, BorderLayout.WEST);
+   			// The animation panel and toolbar are built for the first instruction and reused after.
+   			if (datapathAnimation == null) {
+   				painel.removeAll();
+   				datapathAnimation = new DatapathAnimation(instructionBinary);
+   				painel.add(toolbar, BorderLayout.NORTH);
+   				painel.add(datapathAnimation, BorderLayout.WEST);
+   				painel.validate();
+   			}
    			datapathAnimation.startAnimation(instructionBinary );
 
    		} catch (AddressErrorException e) {
@@ -275,6 +272,13 @@ public class MipsXray extends AbstractMarsToolAndApplication{
    	public void updateDisplay(){
    		this.repaint();
    	}
+
+   	//stop the animation timer when the tool is closed.
+   	protected void performSpecialClosingDuties() {
+   		if (time != null) {
+   			time.stop();
+   		}
+   	}
    	
    	//set the tool bar that controls the step in a time instruction running.
        private JToolBar setUpToolBar() {
@@ -341,18 +345,17 @@ class Vertex {
    	private boolean isText;
    	private ArrayList<Integer> targetVertex;
    	
-   	public Vertex(int index, int init, int end, String name, int oppositeAxis, boolean isMovingXaxis, 
-   			String listOfColors, String listTargetVertex, boolean isText){
-   		this.numIndex = index;
-   		this.init = init;
+   	public Vertex(DatapathModel.Vertex definition){
+   		this.numIndex = definition.numIndex;
+   		this.init = definition.init;
    		this.current = this.init;
-   		this.end = end; 
-   		this.name = name;
-   		this.oppositeAxis = oppositeAxis;
-   		this.isMovingXaxis = isMovingXaxis;
+   		this.end = definition.end; 
+   		this.name = definition.name;
+   		this.oppositeAxis = definition.oppositeAxis;
+   		this.isMovingXaxis = definition.isMovingXaxis;
    		this.first_interaction = true;
    		this.active = false;
-   		this.isText = isText;
+   		this.isText = definition.isText;
    		this.color = new Color(0,153,0);
    		if(isMovingXaxis == true){
    			if( init < end)
@@ -367,14 +370,15 @@ class Vertex {
    			else 
    				direction = movingDownside;
    		}
-   		String[] list =  listTargetVertex.split("#");
-   		targetVertex = new ArrayList<Integer>();
-   		for(int i = 0; i < list.length; i++){
-   			targetVertex.add(Integer.parseInt(list[i]));
-   		//	System.out.println("Adding " + i + " " +  Integer.parseInt(list[i])+ " in target");
-   		}
-   		String[] listColor =  listOfColors.split("#");
-   		this.color = new Color(Integer.parseInt(listColor[0]) , Integer.parseInt(listColor[1]),  Integer.parseInt(listColor[2]) );
+   		targetVertex = definition.getTargetVertex();
+   	}
+
+   	//return the line to its state before animation, to be drawn in the given color.
+   	public void reset(Color color){
+   		this.current = this.init;
+   		this.first_interaction = true;
+   		this.active = false;
+   		this.color = color;
    	}
  	
    	public int getDirection(){
@@ -487,9 +491,10 @@ class DatapathAnimation extends JPanel
 	 private ArrayList<Vertex> vertexTraversed;
 	 //Screen Label variables
 	 
-	 private HashMap<String, String> opcodeEquivalenceTable;
-	 private HashMap<String, String> functionEquivalenceTable;
-	 private HashMap<String, String> registerEquivalenceTable;
+	 private DatapathModel model;	//shared definition of the datapath, parsed once
+	 private Map<String, String> opcodeEquivalenceTable;
+	 private Map<String, String> functionEquivalenceTable;
+	 private Map<String, String> registerEquivalenceTable;
 
 	 private String instructionCode;
 	 
@@ -539,11 +544,6 @@ class DatapathAnimation extends JPanel
 		 justStarted = true;
 		 instructionCode = instructionBinary;
 		 
-		 //declaration of labels definition.
-		 opcodeEquivalenceTable = new  HashMap<String, String>();
-		 functionEquivalenceTable = new  HashMap<String, String>();
-		 registerEquivalenceTable = new  HashMap<String, String>();
-		 
 		 countRegLabel = 400;
 		 countALULabel = 380;
 		 countPCLabel = 380;
@@ -554,125 +554,42 @@ class DatapathAnimation extends JPanel
 
 	 } // end of ImagesTests()
 
-	 //set the binnary opcode value of the basic instructions of MIPS instruction set
+	 //set the binnary opcode value of the basic instructions of MIPS instruction set, and build the
+	 //vertices of the datapath and the graph of their connections from the shared model.
 	 public void loadHashMapValues(){
-		 importXmlStringData("/MipsXRayOpcode.xml",opcodeEquivalenceTable, "equivalence",  "bits", "mnemonic");
-		 importXmlStringData("/MipsXRayOpcode.xml", functionEquivalenceTable, "function_equivalence",  "bits", "mnemonic");
-		 importXmlStringData("/MipsXRayOpcode.xml", registerEquivalenceTable, "register_equivalence",  "bits", "mnemonic");
-	 	 importXmlDatapathMap("/MipsXRayOpcode.xml", "datapath_map"); 
+		 model = DatapathModel.getModel("/MipsXRayOpcode.xml");
+		 opcodeEquivalenceTable = model.getTable("equivalence");
+		 functionEquivalenceTable = model.getTable("function_equivalence");
+		 registerEquivalenceTable = model.getTable("register_equivalence");
+		 for(int i = 0; i < model.getVertexCount(); i++){
+			 vertexList.add(new Vertex(model.getVertex(i)));
+		 }
+		 //loading matrix of control of vertex.
+		 outputGraph = new Vector<Vector<Vertex>>();
+		 vertexTraversed = new ArrayList<Vertex>();
+		 for(int i = 0; i < vertexList.size(); i++){
+			 ArrayList<Integer> targetList = vertexList.get(i).getTargetVertex();
+			 Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
+			 for(int k = 0; k < targetList.size(); k++){
+				 vertexOfTargets.add(vertexList.get(targetList.get(k)));
+			 }
+			 outputGraph.add(vertexOfTargets); 	
+		 }
 	 }
 	 
-	 //import the list of opcodes of mips set of instructions
-	 public void importXmlStringData(String xmlName, HashMap table, String elementTree, String tagId, String tagData){
-		 	DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			dbf.setNamespaceAware(false);
-			DocumentBuilder docBuilder;
-			try {
-				//System.out.println();
-				docBuilder = dbf.newDocumentBuilder();
-				Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-				Element root = doc.getDocumentElement();
-				Element equivalenceItem;
-				NodeList bitsList,  mnemonic;
-				NodeList equivalenceList = root.getElementsByTagName(elementTree);
-				for(int i = 0; i < equivalenceList.getLength(); i++){
-					equivalenceItem =  (Element)equivalenceList.item(i);
-					bitsList = equivalenceItem.getElementsByTagName(tagId);
-					mnemonic = equivalenceItem.getElementsByTagName(tagData);
-					for(int j= 0; j < bitsList.getLength(); j++){
-						table.put(bitsList.item(j).getTextContent(),mnemonic.item(j).getTextContent());
-					}
-				}
-			}
-			 catch (Exception e) {
-					e.printStackTrace();
-				}
+	 //set every line to its initial state in the colors of the current instruction, with only the first active.
+	 private void resetVertices(){
+		 Color[] colors = model.getColors(instructionCode);
+		 vertexTraversed.clear();
+		 for(int i = 0; i < vertexList.size(); i++){
+			 vertexList.get(i).reset(colors[i]);
+		 }
+		 if(vertexList.size() > 0){
+			 vertexList.get(0).setActive(true);
+			 vertexTraversed.add(vertexList.get(0));
+		 }
 	 }
 	 
-	 //import the parameters of the animation on datapath
-	 public void importXmlDatapathMap(String xmlName, String elementTree){
-		 DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			dbf.setNamespaceAware(false);
-			DocumentBuilder docBuilder;
-			try {
-				docBuilder = dbf.newDocumentBuilder();
-				Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-				Element root = doc.getDocumentElement();
-				Element datapath_mapItem;
-				NodeList index_vertex,  name, init, end,color, other_axis, isMovingXaxis, targetVertex, sourceVertex, isText ;
-					NodeList datapath_mapList = root.getElementsByTagName(elementTree);
-				for(int i = 0; i < datapath_mapList.getLength(); i++){ //extract the vertex of the xml input and encapsulate into the vertex object
-					datapath_mapItem =  (Element)datapath_mapList.item(i);
-					index_vertex = datapath_mapItem.getElementsByTagName("num_vertex");
-					name = datapath_mapItem.getElementsByTagName("name");
-					init = datapath_mapItem.getElementsByTagName("init");
-					end = datapath_mapItem.getElementsByTagName("end");
-					//definition of colors line 
-					if(instructionCode.substring(0,6).equals("000000")){//R-type instructions
-						color = datapath_mapItem.getElementsByTagName("color_Rtype"); 
-						//System.out.println("rtype");
-					}
-					else if(instructionCode.substring(0,6).matches("00001[0-1]")){ //J-type instructions
-						color = datapath_mapItem.getElementsByTagName("color_Jtype"); 
-						//System.out.println("jtype");
-					}
-					else if(instructionCode.substring(0,6).matches("100[0-1][0-1][0-1]")){ //LOAD type instructions
-						color = datapath_mapItem.getElementsByTagName("color_LOADtype");
-						//System.out.println("load type");
-					}
-					else if(instructionCode.substring(0,6).matches("101[0-1][0-1][0-1]")){ //LOAD type instructions
-						color = datapath_mapItem.getElementsByTagName("color_STOREtype");
-						//System.out.println("store type");
-					}
-					else if(instructionCode.substring(0,6).matches("0001[0-1][0-1]")){ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("color_BRANCHtype");
-						//System.out.println("branch type");
-					}
-					else{ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("color_Itype");
-						//System.out.println("immediate type");
-					}
-					
-					other_axis = datapath_mapItem.getElementsByTagName("other_axis");
-					isMovingXaxis = datapath_mapItem.getElementsByTagName("isMovingXaxis");
-					targetVertex = datapath_mapItem.getElementsByTagName("target_vertex");
-					isText = datapath_mapItem.getElementsByTagName("is_text");
-					
-					for(int j= 0; j < index_vertex.getLength(); j++){
-						Vertex vert = new Vertex(Integer.parseInt(index_vertex.item(j).getTextContent()), Integer.parseInt(init.item(j).getTextContent()),
-								Integer.parseInt(end.item(j).getTextContent()), name.item(j).getTextContent(), Integer.parseInt(other_axis.item(j).getTextContent()),
-								Boolean.parseBoolean(isMovingXaxis.item(j).getTextContent()), color.item(j).getTextContent(), targetVertex.item(j).getTextContent(), Boolean.parseBoolean(isText.item(j).getTextContent()));
-						vertexList.add(vert);
-					}
-				}
-				//loading matrix of control of vertex.
-				outputGraph = new Vector<Vector<Vertex>>();
-				vertexTraversed = new ArrayList<Vertex>();
-				int size = vertexList.size();
-				Vertex vertex;
-				ArrayList<Integer> targetList;
-				for(int i = 0; i < vertexList.size(); i++){
-					vertex = vertexList.get(i);
-					targetList = vertex.getTargetVertex();
-					Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
-					for(int k = 0; k < targetList.size(); k++){
-						vertexOfTargets.add(vertexList.get(targetList.get(k)));
-					}
-					outputGraph.add(vertexOfTargets); 	
-				}
-				for(int i=0; i< outputGraph.size(); i++){
-					Vector<Vertex> vert = outputGraph.get(i);
-				}
-				
-				vertexList.get(0).setActive(true);
-				vertexTraversed.add(vertexList.get(0));
-			}
-			 catch (Exception e) {
-					e.printStackTrace();
-				}
-			
-	 } 
-	 
 	 //Set up the information showed in the screen of the current instruction.
 	 public void setUpInstructionInfo( Graphics2D g2d){
 		 
@@ -1101,10 +1018,15 @@ class DatapathAnimation extends JPanel
 	 
 	 
 	//set the initial state of the variables that controls the animation, and start the timer that triggers the animation. 
+	//Called for each instruction; the panel and its timer are reused.
 	 public void startAnimation(String codeInstruction){
 	 	instructionCode = codeInstruction;
-	 	time = new Timer(PERIOD, this);    // start timer
-	 	time.start();
+	 	resetVertices();
+	 	counter = 0;
+	 	justStarted = true;
+	 	if(time == null)
+	 		time = new Timer(PERIOD, this);
+	 	time.restart();    // start timer
 	// 	this.repaint();
 	 }
 	 
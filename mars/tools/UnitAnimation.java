@@ -23,23 +23,19 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.Timer;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 
 import mars.Globals;
 
 
 
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 
 class UnitAnimation extends JPanel
@@ -72,7 +68,7 @@ implements ActionListener {
  private ArrayList<Vertex> vertexTraversed;
  //Screen Label variables
  
- private HashMap<String, String> registerEquivalenceTable;
+ private Map<String, String> registerEquivalenceTable;
 
  private String instructionCode;
  
@@ -111,19 +107,18 @@ private int datapatTypeUsed;
 	   	private boolean isText;
 	   	private ArrayList<Integer> targetVertex;
 	   	
-	   	public Vertex(int index, int init, int end, String name, int oppositeAxis, boolean isMovingXaxis, 
-	   			String listOfColors, String listTargetVertex, boolean isText){
-	   		this.numIndex = index;
-	   		this.init = init;
+	   	public Vertex(DatapathModel.Vertex definition, Color color){
+	   		this.numIndex = definition.numIndex;
+	   		this.init = definition.init;
 	   		this.current = this.init;
-	   		this.end = end; 
-	   		this.name = name;
-	   		this.oppositeAxis = oppositeAxis;
-	   		this.isMovingXaxis = isMovingXaxis;
+	   		this.end = definition.end; 
+	   		this.name = definition.name;
+	   		this.oppositeAxis = definition.oppositeAxis;
+	   		this.isMovingXaxis = definition.isMovingXaxis;
 	   		this.first_interaction = true;
 	   		this.active = false;
-	   		this.isText = isText;
-	   		this.color = new Color(0,153,0);
+	   		this.isText = definition.isText;
+	   		this.color = color;
 	   		if(isMovingXaxis == true){
 	   			if( init < end)
 	   				direction = movingLeft;
@@ -137,14 +132,7 @@ private int datapatTypeUsed;
 	   			else 
 	   				direction = movingDownside;
 	   		}
-	   		String[] list =  listTargetVertex.split("#");
-	   		targetVertex = new ArrayList<Integer>();
-	   		for(int i = 0; i < list.length; i++){
-	   			targetVertex.add(Integer.parseInt(list[i]));
-	   		//	System.out.println("Adding " + i + " " +  Integer.parseInt(list[i])+ " in target");
-	   		}
-	   		String[] listColor =  listOfColors.split("#");
-	   		this.color = new Color(Integer.parseInt(listColor[0]) , Integer.parseInt(listColor[1]),  Integer.parseInt(listColor[2]) );
+	   		targetVertex = definition.getTargetVertex();
 	   	}
 	 	
 	   	public int getDirection(){
@@ -245,9 +233,6 @@ private int datapatTypeUsed;
 	 justStarted = true;
 	 instructionCode = instructionBinary;
 	 
-	 //declaration of labels definition.
-	 registerEquivalenceTable = new  HashMap<String, String>();
-	 
 	 countRegLabel = 400;
 	 countALULabel = 380;
 	 countPCLabel = 380;
@@ -256,240 +241,65 @@ private int datapatTypeUsed;
 
  } // end of ImagesTests()
 
- //set the binnary opcode value of the basic instructions of MIPS instruction set
+ //set the binnary opcode value of the basic instructions of MIPS instruction set, and build the
+ //vertices of the datapath, in the colors of the current instruction, from the shared model.
  public void loadHashMapValues(){
+	 DatapathModel model;
+	 Color[] colors;
 	 if(datapatTypeUsed == register){
-		 importXmlStringData("/registerDatapath.xml", registerEquivalenceTable, "register_equivalence",  "bits", "mnemonic");
- 	 	 importXmlDatapathMap("/registerDatapath.xml", "datapath_map");
+		 model = DatapathModel.getModel("/registerDatapath.xml");
+		 colors = model.getColors(instructionCode);
 	 }
 	 else if(datapatTypeUsed == control){
-		 importXmlStringData("/controlDatapath.xml", registerEquivalenceTable, "register_equivalence",  "bits", "mnemonic");
- 	 	 importXmlDatapathMap("/controlDatapath.xml", "datapath_map");
+		 model = DatapathModel.getModel("/controlDatapath.xml");
+		 colors = model.getColors(instructionCode);
 	 }
-	 
 	 else if(datapatTypeUsed == aluControl){
-		 importXmlStringData("/ALUcontrolDatapath.xml", registerEquivalenceTable, "register_equivalence",  "bits", "mnemonic");
- 	 	 importXmlDatapathMapAluControl("/ALUcontrolDatapath.xml", "datapath_map");
+		 model = DatapathModel.getModel("/ALUcontrolDatapath.xml");
+		 colors = model.getColorsOfKind(getAluControlKind());
+	 }
+	 else{
+		 return;
+	 }
+	 registerEquivalenceTable = model.getTable("register_equivalence");
+	 for(int i = 0; i < model.getVertexCount(); i++){
+		 vertexList.add(new Vertex(model.getVertex(i), colors[i]));
+	 }
+	 //loading matrix of control of vertex.
+	 outputGraph = new Vector<Vector<Vertex>>();
+	 vertexTraversed = new ArrayList<Vertex>();
+	 for(int i = 0; i < vertexList.size(); i++){
+		 ArrayList<Integer> targetList = vertexList.get(i).getTargetVertex();
+		 Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
+		 for(int k = 0; k < targetList.size(); k++){
+			 vertexOfTargets.add(vertexList.get(targetList.get(k)));
+		 }
+		 outputGraph.add(vertexOfTargets); 	
+	 }
+	 if(vertexList.size() > 0){
+		 vertexList.get(0).setActive(true);
+		 vertexTraversed.add(vertexList.get(0));
 	 }
  }
  
- //import the list of opcodes of mips set of instructions
- public void importXmlStringData(String xmlName, HashMap table, String elementTree, String tagId, String tagData){
-	 	DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		dbf.setNamespaceAware(false);
-		DocumentBuilder docBuilder;
-		try {
-			//System.out.println();
-			docBuilder = dbf.newDocumentBuilder();
-			Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-			Element root = doc.getDocumentElement();
-			Element equivalenceItem;
-			NodeList bitsList,  mnemonic;
-			NodeList equivalenceList = root.getElementsByTagName(elementTree);
-			for(int i = 0; i < equivalenceList.getLength(); i++){
-				equivalenceItem =  (Element)equivalenceList.item(i);
-				bitsList = equivalenceItem.getElementsByTagName(tagId);
-				mnemonic = equivalenceItem.getElementsByTagName(tagData);
-				for(int j= 0; j < bitsList.getLength(); j++){
-					table.put(bitsList.item(j).getTextContent(),mnemonic.item(j).getTextContent());
-				}
-			}
-		}
-		 catch (Exception e) {
-				e.printStackTrace();
-			}
+ //the ALU control lines of R-type instructions are colored by the ALU operation, from the function bits.
+ private String getAluControlKind(){
+	 String kind = DatapathModel.getKind(instructionCode);
+	 if(!kind.equals(DatapathModel.R_TYPE))
+		 return kind;
+	 String function = instructionCode.substring(28,32);
+	 if(function.equals("0000"))
+		 return "ALU_out010";
+	 else if(function.equals("0010"))
+		 return "ALU_out110";
+	 else if(function.equals("0100"))
+		 return "ALU_out000";
+	 else if(function.equals("0101"))
+		 return "ALU_out001";
+	 else
+		 return "ALU_out111";
  }
  
- //import the parameters of the animation on datapath
- public void importXmlDatapathMap(String xmlName, String elementTree){
-	 DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		dbf.setNamespaceAware(false);
-		DocumentBuilder docBuilder;
-		try {
-			docBuilder = dbf.newDocumentBuilder();
-			Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-			Element root = doc.getDocumentElement();
-			Element datapath_mapItem;
-			NodeList index_vertex,  name, init, end,color, other_axis, isMovingXaxis, targetVertex, sourceVertex, isText ;
-				NodeList datapath_mapList = root.getElementsByTagName(elementTree);
-			for(int i = 0; i < datapath_mapList.getLength(); i++){ //extract the vertex of the xml input and encapsulate into the vertex object
-				datapath_mapItem =  (Element)datapath_mapList.item(i);
-				index_vertex = datapath_mapItem.getElementsByTagName("num_vertex");
-				name = datapath_mapItem.getElementsByTagName("name");
-				init = datapath_mapItem.getElementsByTagName("init");
-				end = datapath_mapItem.getElementsByTagName("end");
-				//definition of colors line 
-			
-				if(instructionCode.substring(0,6).equals("000000")){//R-type instructions
-					color = datapath_mapItem.getElementsByTagName("color_Rtype"); 
-					//System.out.println("rtype");
-				}
-				else if(instructionCode.substring(0,6).matches("00001[0-1]")){ //J-type instructions
-					color = datapath_mapItem.getElementsByTagName("color_Jtype"); 
-					//System.out.println("jtype");
-				}
-				else if(instructionCode.substring(0,6).matches("100[0-1][0-1][0-1]")){ //LOAD type instructions
-					color = datapath_mapItem.getElementsByTagName("color_LOADtype");
-					//System.out.println("load type");
-				}
-				else if(instructionCode.substring(0,6).matches("101[0-1][0-1][0-1]")){ //LOAD type instructions
-					color = datapath_mapItem.getElementsByTagName("color_STOREtype");
-					//System.out.println("store type");
-				}
-				else if(instructionCode.substring(0,6).matches("0001[0-1][0-1]")){ //BRANCH type instructions
-					color = datapath_mapItem.getElementsByTagName("color_BRANCHtype");
-					//System.out.println("branch type");
-				}
-				else{ //BRANCH type instructions
-					color = datapath_mapItem.getElementsByTagName("color_Itype");
-					//System.out.println("immediate type");
-				}
-				
-				
-				other_axis = datapath_mapItem.getElementsByTagName("other_axis");
-				isMovingXaxis = datapath_mapItem.getElementsByTagName("isMovingXaxis");
-				targetVertex = datapath_mapItem.getElementsByTagName("target_vertex");
-				isText = datapath_mapItem.getElementsByTagName("is_text");
-				
-				for(int j= 0; j < index_vertex.getLength(); j++){
-					Vertex vert = new Vertex(Integer.parseInt(index_vertex.item(j).getTextContent()), Integer.parseInt(init.item(j).getTextContent()),
-							Integer.parseInt(end.item(j).getTextContent()), name.item(j).getTextContent(), Integer.parseInt(other_axis.item(j).getTextContent()),
-							Boolean.parseBoolean(isMovingXaxis.item(j).getTextContent()), color.item(j).getTextContent(), targetVertex.item(j).getTextContent(), Boolean.parseBoolean(isText.item(j).getTextContent()));
-					vertexList.add(vert);
-				}
-			}
-			//loading matrix of control of vertex.
-			outputGraph = new Vector<Vector<Vertex>>();
-			vertexTraversed = new ArrayList<Vertex>();
-			int size = vertexList.size();
-			Vertex vertex;
-			ArrayList<Integer> targetList;
-			for(int i = 0; i < vertexList.size(); i++){
-				vertex = vertexList.get(i);
-				targetList = vertex.getTargetVertex();
-				Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
-				for(int k = 0; k < targetList.size(); k++){
-					vertexOfTargets.add(vertexList.get(targetList.get(k)));
-				}
-				outputGraph.add(vertexOfTargets); 	
-			}
-			for(int i=0; i< outputGraph.size(); i++){
-				Vector<Vertex> vert = outputGraph.get(i);
-			}
-			
-			vertexList.get(0).setActive(true);
-			vertexTraversed.add(vertexList.get(0));
-		}
-		 catch (Exception e) {
-				e.printStackTrace();
-			}
-		
- } 
-  
- 
- public void importXmlDatapathMapAluControl(String xmlName, String elementTree){
-	 DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		dbf.setNamespaceAware(false);
-		DocumentBuilder docBuilder;
-		try {
-			docBuilder = dbf.newDocumentBuilder();
-			Document doc = docBuilder.parse(getClass().getResource(xmlName).toString());
-			Element root = doc.getDocumentElement();
-			Element datapath_mapItem;
-			NodeList index_vertex,  name, init, end,color, other_axis, isMovingXaxis, targetVertex, sourceVertex, isText ;
-				NodeList datapath_mapList = root.getElementsByTagName(elementTree);
-			for(int i = 0; i < datapath_mapList.getLength(); i++){ //extract the vertex of the xml input and encapsulate into the vertex object
-				datapath_mapItem =  (Element)datapath_mapList.item(i);
-				index_vertex = datapath_mapItem.getElementsByTagName("num_vertex");
-				name = datapath_mapItem.getElementsByTagName("name");
-				init = datapath_mapItem.getElementsByTagName("init");
-				end = datapath_mapItem.getElementsByTagName("end");
-				//definition of colors line 
-			
-				if(instructionCode.substring(0,6).equals("000000")){//R-type instructions 
-					if(instructionCode.substring(28,32).matches("0000")){ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("ALU_out010");
-						System.out.println("ALU_out010 type " + instructionCode.substring(28,32));
-					}
-					else if(instructionCode.substring(28,32).matches("0010")){ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("ALU_out110");
-						System.out.println("ALU_out110 type " + instructionCode.substring(28,32));
-					}
-					else if(instructionCode.substring(28,32).matches("0100")){ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("ALU_out000");
-						System.out.println("ALU_out000 type " + instructionCode.substring(28,32));
-					}
-					else if(instructionCode.substring(28,32).matches("0101")){ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("ALU_out001");
-						System.out.println("ALU_out001 type " + instructionCode.substring(28,32));
-					}
-					else{ //BRANCH type instructions
-						color = datapath_mapItem.getElementsByTagName("ALU_out111");
-						System.out.println("ALU_out111 type " + instructionCode.substring(28,32));
-					}
-				}
-				else if(instructionCode.substring(0,6).matches("00001[0-1]")){ //J-type instructions
-					color = datapath_mapItem.getElementsByTagName("color_Jtype"); 
-					System.out.println("jtype");
-				}
-				else if(instructionCode.substring(0,6).matches("100[0-1][0-1][0-1]")){ //LOAD type instructions
-					color = datapath_mapItem.getElementsByTagName("color_LOADtype");
-					System.out.println("load type");
-				}
-				else if(instructionCode.substring(0,6).matches("101[0-1][0-1][0-1]")){ //LOAD type instructions
-					color = datapath_mapItem.getElementsByTagName("color_STOREtype");
-					System.out.println("store type");
-				}
-				else if(instructionCode.substring(0,6).matches("0001[0-1][0-1]")){ //BRANCH type instructions
-					color = datapath_mapItem.getElementsByTagName("color_BRANCHtype");
-					System.out.println("branch type");
-				}
-				else{
-					color = datapath_mapItem.getElementsByTagName("color_Itype");
-					System.out.println("immediate type");
-				}
-				
-				
-				other_axis = datapath_mapItem.getElementsByTagName("other_axis");
-				isMovingXaxis = datapath_mapItem.getElementsByTagName("isMovingXaxis");
-				targetVertex = datapath_mapItem.getElementsByTagName("target_vertex");
-				isText = datapath_mapItem.getElementsByTagName("is_text");
-				
-				for(int j= 0; j < index_vertex.getLength(); j++){
-					Vertex vert = new Vertex(Integer.parseInt(index_vertex.item(j).getTextContent()), Integer.parseInt(init.item(j).getTextContent()),
-							Integer.parseInt(end.item(j).getTextContent()), name.item(j).getTextContent(), Integer.parseInt(other_axis.item(j).getTextContent()),
-							Boolean.parseBoolean(isMovingXaxis.item(j).getTextContent()), color.item(j).getTextContent(), targetVertex.item(j).getTextContent(), Boolean.parseBoolean(isText.item(j).getTextContent()));
-					vertexList.add(vert);
-				}
-			}
-			//loading matrix of control of vertex.
-			outputGraph = new Vector<Vector<Vertex>>();
-			vertexTraversed = new ArrayList<Vertex>();
-			int size = vertexList.size();
-			Vertex vertex;
-			ArrayList<Integer> targetList;
-			for(int i = 0; i < vertexList.size(); i++){
-				vertex = vertexList.get(i);
-				targetList = vertex.getTargetVertex();
-				Vector<Vertex> vertexOfTargets = new Vector<Vertex>();
-				for(int k = 0; k < targetList.size(); k++){
-					vertexOfTargets.add(vertexList.get(targetList.get(k)));
-				}
-				outputGraph.add(vertexOfTargets); 	
-			}
-			for(int i=0; i< outputGraph.size(); i++){
-				Vector<Vertex> vert = outputGraph.get(i);
-			}
-			
-			vertexList.get(0).setActive(true);
-			vertexTraversed.add(vertexList.get(0));
-		}
-		 catch (Exception e) {
-				e.printStackTrace();
-			}
-		
- } 
- 
 //set the initial state of the variables that controls the animation, and start the timer that triggers the animation. 
  public void startAnimation(String codeInstruction){
  	 instructionCode = codeInstruction;	 	
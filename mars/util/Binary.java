@@ -41,6 +41,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     // Using int value 0-15 as index, yields equivalent hex digit as char.
       private static char[] chars = 
                    {'0','1','2','3','4','5','6','7','8','9','a','b','c','d','e','f'};
+    /** Value returned by decodeInt() for a string that does not represent an integer. */
+      public static final long NOT_AN_INT = Long.MIN_VALUE;
     // Use this to produce String equivalent of unsigned int value (add it to int value, result is long)
       private static final long UNSIGNED_BASE = (long)0x7FFFFFFF + (long)0x7FFFFFFF +(long)2; //0xFFFFFFFF+1
    
@@ -354,6 +356,95 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
      */
      
        public static int stringToInt(String s) throws NumberFormatException {
+         long value = decodeInt(s);
+         if (value == NOT_AN_INT) {
+            throw new NumberFormatException("not an integer: " + s);
+         }
+         return (int) value;
+      }
+   
+    /**
+     * Exception-free counterpart of stringToInt(), for callers such as the assembler's
+     * token classifier that test many strings which are not integers.  Accepts exactly 
+     * the strings that stringToInt() accepts, with the same values: those accepted by 
+     * Integer.decode(), hex two's complement "0x" followed by 8 hex digits, and unsigned 
+     * decimal digit strings (which wrap around if too large).
+     *
+     * @param s candidate string
+     * @return the int value represented by the string, or NOT_AN_INT if there is none
+     */
+       public static long decodeInt(String s) {
+         int length = s.length();
+         for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 128) {
+               // Integer.decode() accepts non-ASCII digits; leave those rare cases to it.
+               try {
+                  return decodeWithExceptions(s);
+               } 
+                   catch (NumberFormatException e) {
+                     return NOT_AN_INT;
+                  }
+            }
+         }
+         // Integer.decode(): optional sign, then radix specifier 0x, 0X, # or 0 (octal).
+         int index = 0;
+         boolean negative = false;
+         if (length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            index = 1;
+         }
+         int radix = 10;
+         if (s.startsWith("0x", index) || s.startsWith("0X", index)) {
+            index += 2;
+            radix = 16;
+         } 
+         else if (s.startsWith("#", index)) {
+            index += 1;
+            radix = 16;
+         } 
+         else if (s.startsWith("0", index) && length > index + 1) {
+            index += 1;
+            radix = 8;
+         }
+         boolean valid = index < length;
+         long magnitude = 0;
+         for (int i = index; valid && i < length; i++) {
+            int digit = Character.digit(s.charAt(i), radix);
+            magnitude = magnitude * radix + digit;
+            valid = digit >= 0 && magnitude <= 0x80000000L;
+         }
+         if (valid && (magnitude <= Integer.MAX_VALUE || negative)) {
+            return negative ? -magnitude : magnitude;
+         }
+         // Hex two's complement: exactly 8 hex digits.
+         if (s.startsWith("0x") || s.startsWith("0X")) {
+            if (length != 10) {
+               return NOT_AN_INT;
+            }
+            int result = 0;
+            for (int i = 2; i < length; i++) {
+               int digit = Character.digit(s.charAt(i), 16);
+               if (digit < 0) {
+                  return NOT_AN_INT;
+               }
+               result = (result << 4) | digit;
+            }
+            return result;
+         }
+         // Unsigned decimal whose signed value is negative (see Jose Paredes code below).
+         int result = 0;
+         for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+               return NOT_AN_INT;
+            }
+            result = result * 10 + (c - '0');
+         }
+         return result;
+      }
+   
+      // The original stringToInt(), now used only for strings with non-ASCII characters.
+       private static int decodeWithExceptions(String s) throws NumberFormatException {
          String work = new String(s);
          int result = 0;
        // First, use Integer.decode().  This will validate most, but it flags
@@ -1,6 +1,8 @@
    package mars.util;
+   import java.io.BufferedReader;
    import java.io.File;
    import java.io.IOException;
+   import java.io.InputStreamReader;
    import java.net.URI;
    import java.net.URISyntaxException;
    import java.net.URL;
@@ -56,6 +58,59 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       private static final String JAR_URI_PREFIX = "jar:";
       private static final boolean NO_DIRECTORIES = false;
       public static String MATCH_ALL_EXTENSIONS = "*"; 
+      /** Name of the class registry file that the build places in a directory of
+       *  dynamically loaded classes.  See getClassFilenameList(). **/
+      public static final String CLASS_REGISTRY_FILENAME = "classes.list";
+      private static final String CLASS_EXTENSION = "class";
+   
+   /**
+    * Return list of names of the class files in a directory on the class path, for the
+    * loaders of syscalls, tools and dump formats.  If the directory contains a class 
+    * registry, a file named CLASS_REGISTRY_FILENAME listing one class file name per line,
+    * the names are read from it (from every registry, if the directory is in several JAR
+    * files) and the class path is not searched.  The makefile generates the registries
+    * when it builds the JAR, which spares startup from listing directories and opening
+    * JAR files.  Without a registry, for instance when running in the MARS development
+    * directory, this is getFilenameList(classLoader, directoryPath, "class").
+    * @param classLoader class loader to use
+    * @param directoryPath Search will be confined to this directory.  Use "/" as 
+    * separator but do NOT include starting or ending "/"  (e.g. mars/tools)
+    * @return array list of class file names as Strings.  If none, list is empty.
+    */
+       public static ArrayList<String> getClassFilenameList(ClassLoader classLoader, String directoryPath) {
+         ArrayList<String> filenameList = new ArrayList<String>();
+         boolean registryFound = false;
+         try {
+            Enumeration<URL> urls = classLoader.getResources(directoryPath+"/"+CLASS_REGISTRY_FILENAME);
+            while (urls.hasMoreElements()) {
+               registryFound = true;
+               BufferedReader in = new BufferedReader(new InputStreamReader(urls.nextElement().openStream()));
+               try {
+                  String line;
+                  while ((line = in.readLine()) != null) {
+                     line = line.trim();
+                     if (line.length() > 0 && !line.startsWith("#")) {
+                        filenameList.add(line);
+                     }
+                  }
+               } 
+               finally {
+                  in.close();
+               }
+            }
+         }
+             catch (IOException e) {
+               registryFound = false;
+            }
+         if (!registryFound) {
+            filenameList.clear();
+            for (Object filename : getFilenameList(classLoader, directoryPath, CLASS_EXTENSION)) {
+               filenameList.add((String) filename);
+            }
+         }
+         return filenameList;
+      }
+   
    /**
     * Locate files and return list of file names.  Given a known relative directory path,
     * it will locate it and build list of all names of files in that directory 
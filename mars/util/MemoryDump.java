@@ -45,9 +45,12 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       /** A mapping from segments names (like ".text") to the base and limit for that segment. */
       private static final HashMap segmentBoundMap = new HashMap();
       
-      private static final String[] segmentNames = { ".text", ".data" };
-      private static int[] baseAddresses = new int[2];
-      private static int[] limitAddresses = new int[2];
+      /** Pseudo segment name used by the "dump" command option to dump every segment to one file. */
+      public static final String ALL_SEGMENTS = ".all";
+      
+      private static final String[] segmentNames = { ".text", ".data", ".ktext", ".kdata" };
+      private static int[] baseAddresses = new int[4];
+      private static int[] limitAddresses = new int[4];
    
    
       /**
@@ -91,6 +94,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static int[] getBaseAddresses(String[] segments) {
          baseAddresses[0] = Memory.textBaseAddress;
          baseAddresses[1] = Memory.dataBaseAddress;
+         baseAddresses[2] = Memory.kernelTextBaseAddress;
+         baseAddresses[3] = Memory.kernelDataBaseAddress;
          return baseAddresses;
       }
    	
@@ -106,6 +111,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
        public static int[] getLimitAddresses(String[] segments) {
          limitAddresses[0] = Memory.textLimitAddress;
          limitAddresses[1] = Memory.dataSegmentLimitAddress;
+         limitAddresses[2] = Memory.kernelTextLimitAddress;
+         limitAddresses[3] = Memory.kernelDataSegmentLimitAddress;
          return limitAddresses;
       }				
    			
@@ -123,13 +130,23 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	*  @throws AddressErrorException if the base address is not on a word boundary
    	*/
        public static int getAddressOfFirstNull(int baseAddress, int limitAddress) throws AddressErrorException {
-         int address = baseAddress;
-         for (; address < limitAddress; address += Memory.WORD_LENGTH_BYTES) {
-            if (Globals.memory.getRawWordOrNull(address) == null) {
-               break;
-            } 
-         }
-         return address;
+         return Globals.memory.getAddressOfFirstNull(baseAddress, limitAddress);
+      }
+   
+      /**
+   	 * Get the address ranges dumped for the ALL_SEGMENTS pseudo segment: the text, data, 
+   	 * stack, kernel text and kernel data segments, in that order.  Unlike getSegmentBounds(), 
+   	 * each range is inclusive of its last word, and the data range starts at the 
+   	 * beginning of the data segment to include the global area.
+   	 * @return array with one array of two int, the first and last word address, per segment.
+   	 */
+       public static int[][] getAllSegmentBounds() {
+         return new int[][] {
+               { Memory.textBaseAddress, Memory.textLimitAddress - Memory.WORD_LENGTH_BYTES },
+               { Memory.dataSegmentBaseAddress, Memory.dataSegmentLimitAddress - Memory.WORD_LENGTH_BYTES },
+               { Memory.stackLimitAddress + Memory.WORD_LENGTH_BYTES, Memory.stackBaseAddress },
+               { Memory.kernelTextBaseAddress, Memory.kernelTextLimitAddress - Memory.WORD_LENGTH_BYTES },
+               { Memory.kernelDataBaseAddress, Memory.kernelDataSegmentLimitAddress - Memory.WORD_LENGTH_BYTES } };
       }
    
    }
\ No newline at end of file
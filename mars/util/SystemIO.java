@@ -67,6 +67,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       // Will use one buffered reader for all keyboard/redirected/piped input.
    	// Added by DPS 28 Feb 2008.  See getInputReader() below.
       private static BufferedReader inputReader = null;
+      private static InputStream inputStream = null; // the System.in that inputReader reads
    
     /**
      * Implements syscall to read an integer value.  
@@ -496,10 +497,13 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	// keyboard input, redirected input, or piped input.
    	// These are all equivalent in the eyes of the program because they are 
    	// transparent to it.  Lazy instantiation.  DPS.  28 Feb 2008
+   	// A new reader is made if System.in has been replaced, as it is for each
+   	// job run by the MARS server.
    	
        private static BufferedReader getInputReader() {
-         if (inputReader == null) {
-            inputReader = new BufferedReader(new InputStreamReader(System.in));  
+         if (inputReader == null || inputStream != System.in) {
+            inputStream = System.in;
+            inputReader = new BufferedReader(new InputStreamReader(inputStream));  
          }
          return inputReader;
       }
@@ -541,6 +541,45 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                address += BYTES_PER_VALUE;
             }
          }
+         DirtyRegionTracker.getInstance().setWatchedFirstAddress(firstAddr);
+      }
+   
+   	/**
+   	 * Update only the given cells of the displayed memory chunk, then highlight the cell
+   	 * for the given address.  If that address is not in the displayed chunk, the chunk
+   	 * containing it is loaded and displayed instead.  Called by DirtyRegionTracker to
+   	 * apply the memory writes accumulated since its previous flush.
+   	 * @param dirtyWords word offsets, relative to the first displayed address, of cells to update
+   	 * @param address data segment address of most recently written word, to be highlighted.
+   	 */
+   	 
+      void updateCellsAndHighlight(BitSet dirtyWords, int address) {
+         int offset = address - this.firstAddress;
+         if (offset < 0 || offset >= MEMORY_CHUNK_SIZE || tablePanel.getComponentCount() == 0) {
+            highlightCellForAddress(address);
+            return;
+         }
+         int valueBase = getValueDisplayFormat();
+         DataTableModel dataModel = (DataTableModel) dataTable.getModel();
+         for (int word = dirtyWords.nextSetBit(0); word >= 0; word = dirtyWords.nextSetBit(word+1)) {
+            int cellOffset = word * BYTES_PER_VALUE;
+            if (cellOffset >= MEMORY_CHUNK_SIZE) {
+               break;
+            }
+            try {
+               dataModel.setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatNumber(
+                                   Globals.memory.getWordNoNotify(this.firstAddress + cellOffset), valueBase),
+                                   cellOffset / BYTES_PER_ROW, (cellOffset % BYTES_PER_ROW) / BYTES_PER_VALUE + 1);
+            } 
+               catch (AddressErrorException aee) {
+                  // Cannot be read without the write also having failed; leave cell as is.
+               }
+         }
+         this.addressRow = offset / BYTES_PER_ROW;
+         this.addressColumn = dataTable.convertColumnIndexToView(offset % BYTES_PER_ROW / BYTES_PER_VALUE + 1);
+         this.addressRowFirstAddress = this.firstAddress + this.addressRow * BYTES_PER_ROW;
+         dataTable.scrollRectToVisible(dataTable.getCellRect(this.addressRow, this.addressColumn, true));
+         dataTable.repaint();
       }
    	 
    	/**
@@ -846,10 +885,10 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          else if (obj instanceof MemoryAccessNotice) {          	// NOTE: observable != Memory.getInstance() because Memory class delegates notification duty.
             MemoryAccessNotice access = (MemoryAccessNotice) obj;
             if (access.getAccessType()==AccessNotice.WRITE) {
-               int address = access.getAddress();
-            	// Use the same highlighting technique as for Text Segment -- see
-            	// AddressCellRenderer class below.
-               this.highlightCellForAddress(address);
+            	// Only record the write here; this runs on the simulator thread.  The
+            	// DirtyRegionTracker timer will update and highlight the cell using the
+            	// same technique as for Text Segment -- see AddressCellRenderer class below.
+               DirtyRegionTracker.getInstance().markMemoryWritten(access.getAddress(), access.getLength());
             }
          }
       }
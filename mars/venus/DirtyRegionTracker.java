@@ -0,0 +1,232 @@
+   package mars.venus;
+   import mars.*;
+   import mars.mips.hardware.*;
+   import java.awt.event.*;
+   import java.util.*;
+   import javax.swing.*;
+
+/*
+Copyright (c) 2003-2014,  Pete Sanderson and Kenneth Vollmar
+
+Developed by Pete Sanderson (psanderson@otterbein.edu)
+and Kenneth Vollmar (kenvollmar@missouristate.edu)
+
+Permission is hereby granted, free of charge, to any person obtaining
+a copy of this software and associated documentation files (the
+"Software"), to deal in the Software without restriction, including
+without limitation the rights to use, copy, modify, merge, publish,
+distribute, sublicense, and/or sell copies of the Software, and to
+permit persons to whom the Software is furnished to do so, subject
+to the following conditions:
+
+The above copyright notice and this permission notice shall be
+included in all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+(MIT license, http://www.opensource.org/licenses/mit-license.html)
+ */
+
+/**
+ * Coalesces Execute pane updates while a MIPS program runs in timed or stepped mode.
+ * The simulator thread only records which registers and data segment words were
+ * written, in bit sets.  A single Swing timer running on the event dispatch thread
+ * flushes the accumulated changes to the Registers and Data Segment windows at
+ * about 60 frames per second.  Previously each write was rendered as it occurred,
+ * so at the higher timed run speeds Swing rather than the simulator set the pace.
+ *
+ * @version October 2026
+ */
+
+    public class DirtyRegionTracker implements ActionListener {
+
+   /** Milliseconds between flushes of accumulated changes, about 60 per second. */
+      public static final int FRAME_INTERVAL_MS = 16;
+
+      private static DirtyRegionTracker tracker = null;  // Singleton object
+
+      // Register numbers as assigned by RegisterFile: 0-31 general purpose,
+      // 32 for pc, 33 for hi and 34 for lo.
+      private static final int NUMBER_OF_REGISTERS = 35;
+
+      private final BitSet dirtyRegisters = new BitSet(NUMBER_OF_REGISTERS);
+      private int lastRegisterWritten = -1;
+
+      // Data segment words written, indexed by word offset from the first address
+      // of the memory chunk currently displayed by the Data Segment window.  Writes
+      // outside the chunk are not recorded individually; only the most recent write
+      // address is kept, since highlighting it will reload the whole chunk anyway.
+      private final BitSet dirtyWords = new BitSet(DataSegmentWindow.MEMORY_CHUNK_SIZE / Memory.WORD_LENGTH_BYTES);
+      private volatile int watchedFirstAddress;
+      private boolean memoryWritten = false;
+      private int lastAddressWritten;
+
+      private boolean stepsCompleted = false;
+      private final javax.swing.Timer timer;
+      private final Runnable finalFlush =
+         new Runnable() {
+            public void run() {
+               flush();
+            }
+         };
+
+      /**
+   	 * Returns the tracker object
+   	 *
+   	 * @return the DirtyRegionTracker object in use
+   	 */
+       public static DirtyRegionTracker getInstance() {
+         if (tracker == null) {
+            tracker = new DirtyRegionTracker();
+         }
+         return tracker;
+      }
+
+       private DirtyRegionTracker() {
+         timer = new javax.swing.Timer(FRAME_INTERVAL_MS, this);
+         timer.setCoalesce(true);
+      }
+
+   	/**
+   	 * Begin periodic flushing.  Called by the simulator when execution starts.
+   	 */
+       public void simulationStarted() {
+         timer.start();
+      }
+
+   	/**
+   	 * Stop periodic flushing and schedule a final flush so the display reflects
+   	 * the state at which execution stopped.  Called by the simulator when
+   	 * execution stops.
+   	 */
+       public void simulationStopped() {
+         timer.stop();
+         SwingUtilities.invokeLater(finalFlush);
+      }
+
+   	/**
+   	 * Record that a register was written by the executing MIPS program.
+   	 * Safe to call from the simulator thread.
+   	 *
+   	 * @param number register number as assigned by RegisterFile
+   	 */
+       public synchronized void markRegisterWritten(int number) {
+         if (number >= 0 && number < NUMBER_OF_REGISTERS) {
+            dirtyRegisters.set(number);
+            lastRegisterWritten = number;
+         }
+      }
+
+   	/**
+   	 * Record that a memory word was written by the executing MIPS program.
+   	 * Safe to call from the simulator thread.
+   	 *
+   	 * @param address address of the memory write
+   	 */
+       public synchronized void markMemoryWritten(int address) {
+         int offset = address - watchedFirstAddress;
+         if (offset >= 0 && offset < DataSegmentWindow.MEMORY_CHUNK_SIZE) {
+            dirtyWords.set(offset / Memory.WORD_LENGTH_BYTES);
+         }
+         memoryWritten = true;
+         lastAddressWritten = address;
+      }
+   
+   	/**
+   	 * Record that a range of memory bytes was written by the executing MIPS program,
+   	 * for instance by a syscall filling a buffer.  Safe to call from the simulator thread.
+   	 *
+   	 * @param address address of the first byte written
+   	 * @param length number of bytes written
+   	 */
+       public synchronized void markMemoryWritten(int address, int length) {
+         long first = Math.max((long) address - watchedFirstAddress, 0);
+         long last = Math.min((long) address + length - 1 - watchedFirstAddress, DataSegmentWindow.MEMORY_CHUNK_SIZE - 1);
+         if (first <= last) {
+            dirtyWords.set((int) first / Memory.WORD_LENGTH_BYTES, (int) last / Memory.WORD_LENGTH_BYTES + 1);
+         }
+         memoryWritten = true;
+         lastAddressWritten = address;
+      }
+
+   	/**
+   	 * Record that one or more instructions have completed, so the program counter
+   	 * highlight is due to be refreshed.  Safe to call from the simulator thread.
+   	 */
+       public synchronized void markStepCompleted() {
+         stepsCompleted = true;
+      }
+
+   	/**
+   	 * Tell the tracker which memory chunk the Data Segment window is displaying.
+   	 * Any dirty words recorded relative to the previous chunk are discarded since
+   	 * the window has just reloaded all its values.
+   	 *
+   	 * @param firstAddress first address of the displayed memory chunk
+   	 */
+       public synchronized void setWatchedFirstAddress(int firstAddress) {
+         watchedFirstAddress = firstAddress;
+         dirtyWords.clear();
+      }
+
+   	/**
+   	 * Timer callback, performed on the event dispatch thread.
+   	 */
+       public void actionPerformed(ActionEvent e) {
+         flush();
+      }
+
+   	// Takes a snapshot of the accumulated changes, clears them, and applies the
+   	// snapshot to the Execute pane windows.  Runs on the event dispatch thread.
+       private void flush() {
+         BitSet registers, words;
+         int lastRegister, lastAddress;
+         boolean memory, steps;
+         synchronized (this) {
+            if (dirtyRegisters.isEmpty() && !memoryWritten && !stepsCompleted) {
+               return;
+            }
+            registers = (BitSet) dirtyRegisters.clone();
+            words = (BitSet) dirtyWords.clone();
+            lastRegister = lastRegisterWritten;
+            lastAddress = lastAddressWritten;
+            memory = memoryWritten;
+            steps = stepsCompleted;
+            dirtyRegisters.clear();
+            dirtyWords.clear();
+            memoryWritten = false;
+            stepsCompleted = false;
+         }
+         if (Globals.getGui() == null) {
+            return;
+         }
+         ExecutePane executePane = Globals.getGui().getMainPane().getExecutePane();
+         RegistersWindow registersWindow = executePane.getRegistersWindow();
+         if (!registers.isEmpty()) {
+            registersWindow.updateRegisterValues(registers);
+            registersWindow.highlightCellForRegister(lastRegister);
+            Globals.getGui().getRegistersPane().setSelectedComponent(registersWindow);
+         }
+         if (steps) {
+            if (Globals.getGui().getRegistersPane().getSelectedComponent() == registersWindow) {
+               registersWindow.updateProgramCounterValue();
+            }
+            else {
+               executePane.getCoprocessor1Window().updateRegisters();
+            }
+         }
+         if (memory) {
+            executePane.getDataSegmentWindow().updateCellsAndHighlight(words, lastAddress);
+         }
+         if (steps) {
+            executePane.getTextSegmentWindow().setCodeHighlighting(true);
+            executePane.getTextSegmentWindow().highlightStepAtPC();
+         }
+      }
+   }
@@ -0,0 +1,298 @@
+package mars.venus;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A local working copy of one branch of a remote repository, kept under the user's
+ * MARS directory and reused by every upload to that branch.  Each upload fetches only
+ * what is new on the remote, resets the working copy to the remote branch, copies the
+ * files in, and commits and pushes them together if any of them changed.  This replaces
+ * a full clone into a temporary directory for every upload.
+ * <p>
+ * The remote is authoritative: commits that were not pushed, for example because the
+ * push failed, are discarded by the next upload.  Uploads to the same mirror are
+ * serialized within this process.  Methods do network and disk work, so they must not
+ * be called on the event dispatch thread.
+ */
+public final class GitHubMirror {
+
+    /** System property naming the directory to keep mirrors in, instead of the default. */
+    public static final String ROOT_PROPERTY = "mars.github.mirrors";
+
+    private static final String REMOTE = "origin";
+    private static final Map<Path, Object> LOCKS = new HashMap<>();
+
+    private final Path directory;
+    private final String remoteUrl;
+    private final String branch;
+
+    /** Outcome of an upload. */
+    public static final class Result {
+        /** The commit pushed, or null if the files were already on the remote branch. */
+        public final RevCommit commit;
+        /** Names, in the repository, of the files added or changed by the commit. */
+        public final List<String> changedFiles;
+
+        Result(RevCommit commit, List<String> changedFiles) {
+            this.commit = commit;
+            this.changedFiles = changedFiles;
+        }
+    }
+
+    /**
+     * Mirror of a branch of a remote repository, kept in its own directory under root.
+     * Nothing is read or created until the first upload.
+     *
+     * @param root directory holding all mirrors, such as {@link #defaultRoot()}
+     * @param remoteUrl URL of the remote repository, for example https://github.com/user/repo.git
+     * @param branch name of the branch, such as main
+     */
+    public GitHubMirror(Path root, String remoteUrl, String branch) {
+        this.remoteUrl = remoteUrl;
+        this.branch = branch;
+        this.directory = root.resolve(directoryName(remoteUrl)).resolve(directoryName(branch)).toAbsolutePath();
+    }
+
+    /**
+     * Directory holding the mirrors: the value of the {@value #ROOT_PROPERTY} system
+     * property if set, otherwise .mars/github-mirrors in the user's home directory.
+     *
+     * @return the directory, which may not exist yet
+     */
+    public static Path defaultRoot() {
+        String root = System.getProperty(ROOT_PROPERTY);
+        if (root != null && !root.isBlank()) {
+            return Paths.get(root);
+        }
+        return Paths.get(System.getProperty("user.home"), ".mars", "github-mirrors");
+    }
+
+    /** @return the working directory of this mirror */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Commit the given files to the root of the branch and push them in one commit.
+     * If the push is rejected because the remote branch moved after it was fetched,
+     * the upload is redone once on top of the new remote branch.
+     *
+     * @param files local files to upload; their names must be distinct
+     * @param message commit message
+     * @param author author and committer of the commit
+     * @param credentials credentials for the remote, or null if none are needed
+     * @return the commit pushed and the files it changed
+     * @throws IOException if a file cannot be read or the mirror cannot be written
+     * @throws GitAPIException if fetching, committing or pushing fails
+     */
+    public Result upload(List<Path> files, String message, PersonIdent author, CredentialsProvider credentials)
+            throws IOException, GitAPIException {
+        Set<String> names = new HashSet<>();
+        for (Path file : files) {
+            if (!names.add(file.getFileName().toString())) {
+                throw new IOException("More than one file is named " + file.getFileName());
+            }
+        }
+        synchronized (lockFor(directory)) {
+            Git git = openOrCreate();
+            try {
+                for (int attempt = 0; ; attempt++) {
+                    if (!synchronize(git, credentials)) {
+                        // The remote repository was emptied: start again from an empty mirror.
+                        git.close();
+                        deleteRecursively(directory);
+                        git = openOrCreate();
+                    }
+                    List<String> changed = commitFiles(git, files, message, author);
+                    if (changed.isEmpty()) {
+                        return new Result(null, changed);
+                    }
+                    RemoteRefUpdate.Status status = push(git, credentials);
+                    if (status == RemoteRefUpdate.Status.OK || status == RemoteRefUpdate.Status.UP_TO_DATE) {
+                        return new Result(git.log().setMaxCount(1).call().iterator().next(), changed);
+                    }
+                    if (status != RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD || attempt > 0) {
+                        throw new IOException("Push of " + branch + " to " + remoteUrl + " was rejected: " + status);
+                    }
+                }
+            } finally {
+                git.close();
+            }
+        }
+    }
+
+    // Open the mirror, creating it if needed.  A mirror that cannot be opened is recreated.
+    private Git openOrCreate() throws IOException, GitAPIException {
+        if (Files.isDirectory(directory.resolve(Constants.DOT_GIT))) {
+            try {
+                Git git = Git.open(directory.toFile());
+                StoredConfig config = git.getRepository().getConfig();
+                if (!remoteUrl.equals(config.getString("remote", REMOTE, "url"))) {
+                    config.setString("remote", REMOTE, "url", remoteUrl);
+                    config.save();
+                }
+                return git;
+            } catch (IOException damaged) {
+                deleteRecursively(directory);
+            }
+        }
+        Files.createDirectories(directory);
+        Git git = Git.init().setDirectory(directory.toFile()).setInitialBranch(branch).call();
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString("remote", REMOTE, "url", remoteUrl);
+        config.save();
+        return git;
+    }
+
+    // Fetch the remote branch and make the local branch, index and working tree match it.
+    // A branch the remote does not have yet starts from the remote's default branch.
+    // Returns false if the mirror has commits but the remote repository is now empty.
+    private boolean synchronize(Git git, CredentialsProvider credentials) throws IOException, GitAPIException {
+        Repository repository = git.getRepository();
+        String localRef = Constants.R_HEADS + branch;
+        String trackingRef = fetch(git, credentials);
+        ObjectId remoteTip = (trackingRef == null) ? null : repository.resolve(trackingRef);
+        if (remoteTip == null) {
+            // Empty repository: start with no commits.
+            return repository.resolve(localRef) == null;
+        }
+        RefUpdate update = repository.updateRef(localRef);
+        update.setNewObjectId(remoteTip);
+        update.setForceUpdate(true);
+        update.update();
+        if (!localRef.equals(repository.getFullBranch())) {
+            RefUpdate head = repository.updateRef(Constants.HEAD);
+            head.disableRefLog();
+            head.link(localRef);
+        }
+        git.reset().setMode(ResetCommand.ResetType.HARD).setRef(localRef).call();
+        git.clean().setCleanDirectories(true).setForce(true).call();
+        return true;
+    }
+
+    // Fetch the branch or, if the remote does not have it, the remote's default branch.
+    // Returns the tracking ref fetched into, or null if the remote has no branches.
+    private String fetch(Git git, CredentialsProvider credentials) throws GitAPIException {
+        try {
+            return fetchBranch(git, branch, credentials);
+        } catch (TransportException fetchFailed) {
+            // Either the branch does not exist or the remote could not be reached; only
+            // the first is not an error.
+            Map<String, Ref> refs = git.lsRemote().setRemote(REMOTE).setCredentialsProvider(credentials).callAsMap();
+            if (refs.containsKey(Constants.R_HEADS + branch)) {
+                throw fetchFailed;
+            }
+            String start = defaultBranch(refs);
+            return (start == null) ? null : fetchBranch(git, start, credentials);
+        }
+    }
+
+    private String fetchBranch(Git git, String name, CredentialsProvider credentials) throws GitAPIException {
+        String trackingRef = Constants.R_REMOTES + REMOTE + "/" + name;
+        git.fetch()
+           .setRemote(REMOTE)
+           .setRefSpecs(new RefSpec("+" + Constants.R_HEADS + name + ":" + trackingRef))
+           .setCredentialsProvider(credentials)
+           .call();
+        return trackingRef;
+    }
+
+    // The branch the remote's HEAD names or points at; failing that main, master or the
+    // first branch.  Returns null if the remote has no branches.
+    private static String defaultBranch(Map<String, Ref> refs) {
+        List<String> branches = new ArrayList<>();
+        for (String name : refs.keySet()) {
+            if (name.startsWith(Constants.R_HEADS)) {
+                branches.add(name.substring(Constants.R_HEADS.length()));
+            }
+        }
+        if (branches.isEmpty()) {
+            return null;
+        }
+        Collections.sort(branches);
+        Ref head = refs.get(Constants.HEAD);
+        if (head != null && head.isSymbolic() && refs.containsKey(head.getTarget().getName())) {
+            return head.getTarget().getName().substring(Constants.R_HEADS.length());
+        }
+        if (head != null && head.getObjectId() != null) {
+            for (String name : branches) {
+                if (head.getObjectId().equals(refs.get(Constants.R_HEADS + name).getObjectId())) {
+                    return name;
+                }
+            }
+        }
+        if (branches.contains("main")) return "main";
+        if (branches.contains("master")) return "master";
+        return branches.get(0);
+    }
+
+    // Copy the files into the working tree and commit the ones that differ from the branch.
+    private List<String> commitFiles(Git git, List<Path> files, String message, PersonIdent author)
+            throws IOException, GitAPIException {
+        for (Path file : files) {
+            Files.copy(file, directory.resolve(file.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+            git.add().addFilepattern(file.getFileName().toString()).call();
+        }
+        Status status = git.status().call();
+        List<String> changed = new ArrayList<>(status.getAdded());
+        changed.addAll(status.getChanged());
+        Collections.sort(changed);
+        if (!changed.isEmpty()) {
+            git.commit().setMessage(message).setAuthor(author).setCommitter(author).call();
+        }
+        return changed;
+    }
+
+    private RemoteRefUpdate.Status push(Git git, CredentialsProvider credentials) throws GitAPIException {
+        String ref = Constants.R_HEADS + branch;
+        for (PushResult result : git.push()
+                .setRemote(REMOTE)
+                .setRefSpecs(new RefSpec(ref + ":" + ref))
+                .setCredentialsProvider(credentials)
+                .call()) {
+            RemoteRefUpdate update = result.getRemoteUpdate(ref);
+            if (update != null) {
+                return update.getStatus();
+            }
+        }
+        return RemoteRefUpdate.Status.NOT_ATTEMPTED;
+    }
+
+    private static synchronized Object lockFor(Path directory) {
+        return LOCKS.computeIfAbsent(directory, d -> new Object());
+    }
+
+    // A file name made from a URL or branch name, without separators or other special characters.
+    private static String directoryName(String name) {
+        String stripped = name.replaceFirst("^[A-Za-z][A-Za-z0-9+.-]*://", "").replaceFirst("\\.git$", "");
+        return stripped.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) return;
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
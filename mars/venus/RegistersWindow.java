@@ -165,6 +165,31 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
       }
    
    	 
+   	/**
+   	 * update display of only the given registers, using current number base (10 or 16)
+   	 *
+   	 * @param numbers set of register numbers, as assigned by RegisterFile, to update
+   	 */   	
+       void updateRegisterValues(BitSet numbers) {
+         int base = Globals.getGui().getMainPane().getExecutePane().getValueDisplayBase();
+         for (int i = numbers.nextSetBit(0); i >= 0; i = numbers.nextSetBit(i+1)) {
+            if (i == 32) {
+               updateRegisterUnsignedValue(32, RegisterFile.getProgramCounter(), base);
+            } 
+            else {
+               updateRegisterValue(i, RegisterFile.getValue(i), base);
+            }
+         }
+      }
+   
+   	/**
+   	 * update program counter display using current number base (10 or 16)
+   	 */   	
+       void updateProgramCounterValue() {
+         updateRegisterUnsignedValue(32, RegisterFile.getProgramCounter(),
+                         Globals.getGui().getMainPane().getExecutePane().getValueDisplayBase());
+      }
+   
        private void updateRegisterUnsignedValue(int number,int val, int base){
          ((RegTableModel)table.getModel()).setDisplayAndModelValueAt(NumberDisplayBaseChooser.formatUnsignedInteger(val,base), number, 2);
       }   
@@ -198,11 +223,11 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          	// NOTE: each register is a separate Observable
             RegisterAccessNotice access = (RegisterAccessNotice) obj;
             if (access.getAccessType()==AccessNotice.WRITE) {
-            	// Uses the same highlighting technique as for Text Segment -- see
-            	// AddressCellRenderer class in DataSegmentWindow.java.
+            	// Only record the write here; this runs on the simulator thread.  The
+            	// DirtyRegionTracker timer will update and highlight the row using the same
+            	// technique as for Text Segment -- see AddressCellRenderer class in DataSegmentWindow.java.
                this.highlighting = true;
-               this.highlightCellForRegister((Register)observable);
-               Globals.getGui().getRegistersPane().setSelectedComponent(this);
+               DirtyRegionTracker.getInstance().markRegisterWritten(((Register)observable).getNumber());
             }
          }
       }
@@ -212,7 +237,15 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
    	*  @param register Register object corresponding to row to be selected.
    	*/
        void highlightCellForRegister(Register register) {
-         this.highlightRow = register.getNumber();
+         highlightCellForRegister(register.getNumber());
+      }
+   	
+     /**
+      *  Highlight the row corresponding to the given register number.  
+   	*  @param number number of register whose row is to be selected.
+   	*/
+       void highlightCellForRegister(int number) {
+         this.highlightRow = number;
          // Tell the system that table contents have changed.  This will trigger re-rendering 
       	// during which cell renderers are obtained.  The row of interest (identified by 
       	// instance variabls this.registerRow) will get a renderer
@@ -2,6 +2,7 @@
    import mars.*;
    import mars.util.*;
    import mars.mips.hardware.*;
+   import mars.simulator.*;
    import java.util.*;
    import java.io.*;
    import java.awt.*;
@@ -107,6 +108,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
                RegisterFile.resetRegisters();
                Coprocessor1.resetRegisters();
                Coprocessor0.resetRegisters();
+               Simulator.getInstance().getPerformanceCounters().reset();
                executePane.getTextSegmentWindow().setupTable();
                executePane.getDataSegmentWindow().setupTable();
                executePane.getDataSegmentWindow().highlightCellForAddress(Memory.dataBaseAddress); 
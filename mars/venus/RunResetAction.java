@@ -2,6 +2,7 @@
    import mars.*;
    import mars.util.*;
    import mars.mips.hardware.*;
+   import mars.simulator.*;
    import java.awt.*;
    import java.awt.event.*;
    import javax.swing.*;
@@ -73,6 +74,7 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          RegisterFile.resetRegisters();
          Coprocessor1.resetRegisters();
          Coprocessor0.resetRegisters();
+         Simulator.getInstance().getPerformanceCounters().reset();
 
 			executePane.getRegistersWindow().clearHighlighting();
          executePane.getRegistersWindow().updateRegisters();
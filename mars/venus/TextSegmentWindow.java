@@ -920,8 +920,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
          as a TableModelListener by calling the TextSegmentWindow's registerTableModelListener
          method.  Then it is notified when the table model changes, and this occurs whenever
          the user clicks on a breakpoint checkbox!  Using this approach, the SimThread registers
-         similarly.  A "GUI guard" is not needed in SimThread because it extends SwingWorker and
-         thus is only invoked when the IDE is present (never when running MARS in command mode).
+         similarly.  A "GUI guard" is not needed in SimThread because its finished() method
+         only updates the GUI when the IDE is present (never when running MARS in command mode).
          
          *****************************************************/
          }
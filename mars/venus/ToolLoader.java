@@ -103,8 +103,8 @@ WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
     */
        private ArrayList loadMarsTools() {
          ArrayList toolList = new ArrayList();
-         ArrayList candidates = FilenameFinder.getFilenameList(this.getClass( ).getClassLoader(),
-                                              TOOLS_DIRECTORY_PATH, CLASS_EXTENSION);
+         ArrayList candidates = FilenameFinder.getClassFilenameList(this.getClass( ).getClassLoader(),
+                                             TOOLS_DIRECTORY_PATH);
       	// Add any tools stored externally, as listed in Config.properties file.
       	// This needs some work, because mars.Globals.getExternalTools() returns
       	// whatever is in the properties file entry.  Since the class file will
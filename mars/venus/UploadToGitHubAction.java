@@ -1,23 +1,22 @@
 package mars.venus;
 
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.lib.StoredConfig;
-import org.eclipse.jgit.transport.RefSpec;
-import org.eclipse.jgit.transport.URIish;
+import mars.Globals;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
 import java.nio.file.*;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class UploadToGitHubAction extends AbstractAction {
 
     public UploadToGitHubAction() {
         super("Upload…");
-        putValue(SHORT_DESCRIPTION, "Commit and push a local file to a GitHub repository");
+        putValue(SHORT_DESCRIPTION, "Commit and push local files to a GitHub repository");
     }
 
     @Override
@@ -31,7 +30,7 @@ public class UploadToGitHubAction extends AbstractAction {
             return;
         }
 
-        // 1) Ask what to upload / where (only file + repo name + branch + message)
+        // 1) Ask what to upload / where (file or open files + repo name + branch + message)
         UploadDialog d = new UploadDialog(session.login);
         d.setVisible(true);
         if (!d.ok) return;
@@ -56,139 +55,90 @@ public class UploadToGitHubAction extends AbstractAction {
 
         final String branch = (d.getBranch().trim().isEmpty() ? "main" : d.getBranch().trim());
 
-        Path local = Paths.get(d.getLocalFile());
-        if (!Files.isRegularFile(local)) {
-            JOptionPane.showMessageDialog(null,
-                    "Local file not found:\n" + local,
-                    "GitHub", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Path in repo = just the filename (no subfolders)
-        final String pathInRepo = local.getFileName().toString();
+        final List<Path> files = filesToUpload(d);
+        if (files == null) return;
 
-        var creds = new UsernamePasswordCredentialsProvider("oauth2", session.accessToken);
+        final var creds = new UsernamePasswordCredentialsProvider("oauth2", session.accessToken);
+        final PersonIdent author = new PersonIdent(login, login + "@users.noreply.github.com");
+        final String message = d.getCommitMessage();
+        final GitHubMirror mirror = new GitHubMirror(GitHubMirror.defaultRoot(), repoUrl, branch);
 
-        Path temp = null;
-        Git git = null;
-        try {
-            temp = Files.createTempDirectory("mars-git-" + UUID.randomUUID());
-
-            // 2) Try to CLONE repo. If that fails (empty repo / no commits / no such repo),
-            //    we INIT a new local repo and still commit.
-            boolean cloned = false;
-            try {
-                git = Git.cloneRepository()
-                        .setURI(repoUrl)
-                        .setDirectory(temp.toFile())
-                        .setCloneAllBranches(false)
-                        .setCredentialsProvider(creds)
-                        .call();
-                cloned = true;
-            } catch (Exception cloneFail) {
-                // clone failed – we'll create a new repo and push the first commit later
-                git = Git.init()
-                        .setDirectory(temp.toFile())
-                        .setInitialBranch(branch)   // <-- important: avoid unborn HEAD + checkout
-                        .call();
-                git.remoteAdd().setName("origin").setUri(new URIish(repoUrl)).call();
+        // 2) Fetch, commit and push in the background so the IDE stays responsive.
+        //    The mirror is kept between uploads, so only new commits are fetched.
+        setEnabled(false);
+        new SwingWorker<GitHubMirror.Result, Void>() {
+            @Override protected GitHubMirror.Result doInBackground() throws Exception {
+                return mirror.upload(files, message, author, creds);
             }
-
-            // 3) Copy file into repo root
-            Path target = temp.resolve(pathInRepo);
-            if (target.getParent() != null) Files.createDirectories(target.getParent());
-            Files.copy(local, target, StandardCopyOption.REPLACE_EXISTING);
-
-            // 4) Branch handling
-            boolean unborn = (git.getRepository().resolve("HEAD^{commit}") == null);
-
-            if (!unborn) {
-                // Repo already has commits (either cloned or previously initialized+committed).
-                // Now make sure we're on the requested branch.
+            @Override protected void done() {
+                setEnabled(true);
                 try {
-                    String current = git.getRepository().getBranch();
-                    if (!branch.equals(current)) {
-                        try {
-                            // branch might already exist
-                            git.checkout().setName(branch).call();
-                        } catch (Exception ex) {
-                            // create new branch from current HEAD
-                            git.checkout().setCreateBranch(true).setName(branch).call();
-                        }
-                    }
-                } catch (Exception any) {
-                    // if anything weird happens, just stay on whatever branch we're on
-                    System.err.println("Branch switch failed, staying on current branch: " + any);
+                    GitHubMirror.Result result = get();
+                    String changed = result.changedFiles.isEmpty()
+                            ? "(none, the files on the branch are the same)"
+                            : String.join(", ", result.changedFiles);
+                    JOptionPane.showMessageDialog(null,
+                            (result.commit == null ? "Nothing to upload.\n\n" : "Upload complete.\n\n") +
+                            "Repo:   " + repoUrl + "\n" +
+                            "Branch: " + branch + "\n" +
+                            "Files:  " + changed + "\n" +
+                            "User:   " + login,
+                            "GitHub", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    ex.getCause().printStackTrace();
+                    Throwable root = ex.getCause();
+                    while (root.getCause() != null) root = root.getCause();
+                    JOptionPane.showMessageDialog(null,
+                            "Upload failed:\n" + root.getMessage() + "\n\nRepo URL used:\n" + repoUrl,
+                            "GitHub", JOptionPane.ERROR_MESSAGE);
                 }
             }
-            // If unborn == true, we do NOT touch branches here.
-            // For the init case we already set initialBranch(branch), so the first commit
-            // will create refs/heads/<branch>. No checkout necessary.
-
-            // 5) Stage the file
-            git.add().addFilepattern(pathInRepo).call();
+        }.execute();
+    }
 
-            // 6) Commit identity based on signed-in GitHub user
-            StoredConfig cfg = git.getRepository().getConfig();
-            if (cfg.getString("user", null, "name") == null) {
-                cfg.setString("user", null, "name", login);
-                String email = login + "@users.noreply.github.com";
-                cfg.setString("user", null, "email", email);
-                cfg.save();
+    // The file named in the dialog, or every file open in the editor, saving unsaved edits
+    // first.  Returns null after telling the user, if there is nothing to upload.
+    private static List<Path> filesToUpload(UploadDialog d) {
+        List<Path> files = new ArrayList<>();
+        if (d.isAllOpenFiles()) {
+            if (Globals.getGui() == null) return null;
+            EditTabbedPane tabs = (EditTabbedPane) Globals.getGui().getMainPane().getEditTabbedPane();
+            boolean unsaved = false;
+            for (int i = 0; i < tabs.getTabCount(); i++) {
+                unsaved |= ((EditPane) tabs.getComponentAt(i)).hasUnsavedEdits();
             }
-
-            // 7) Commit
-            git.commit()
-               .setMessage(d.getCommitMessage())
-               .call();
-
-            // 8) Pull only if we actually cloned (repo exists with commits).
-            //    For first-time init/push there is nothing to pull.
-            if (cloned) {
-                try {
-                    git.pull()
-                       .setRemote("origin")
-                       .setCredentialsProvider(creds)
-                       .call();
-                } catch (Exception pullEx) {
-                    System.err.println("Git pull failed (continuing to push): " + pullEx);
+            if (unsaved && !Globals.getGui().getEditor().saveAll()) {
+                JOptionPane.showMessageDialog(null,
+                        "The open files could not all be saved.",
+                        "GitHub", JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
+            for (int i = 0; i < tabs.getTabCount(); i++) {
+                EditPane pane = (EditPane) tabs.getComponentAt(i);
+                if (!pane.isNew() && pane.getPathname() != null) {
+                    files.add(Paths.get(pane.getPathname()));
                 }
             }
-
-            // 9) Push – this will create the branch remotely if it doesn’t exist yet.
-            git.push()
-               .setRemote("origin")
-               .setRefSpecs(new RefSpec("refs/heads/" + branch + ":refs/heads/" + branch))
-               .setCredentialsProvider(creds)
-               .setForce(false)
-               .call();
-
-            JOptionPane.showMessageDialog(null,
-                    "Upload complete.\n\n" +
-                    "Repo:   " + repoUrl + "\n" +
-                    "Branch: " + branch + "\n" +
-                    "File:   " + pathInRepo + "\n" +
-                    "User:   " + login,
-                    "GitHub", JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            Throwable root = ex;
-            while (root.getCause() != null) root = root.getCause();
-            JOptionPane.showMessageDialog(null,
-                    "Upload failed:\n" + root.getMessage() + "\n\nRepo URL used:\n" + repoUrl,
-                    "GitHub", JOptionPane.ERROR_MESSAGE);
-        } finally {
-            if (git != null) try { git.close(); } catch (Exception ignore) {}
-            if (temp != null) try { deleteRecursively(temp); } catch (Exception ignore) {}
+            if (files.isEmpty()) {
+                JOptionPane.showMessageDialog(null,
+                        "No saved files are open in the editor.",
+                        "GitHub", JOptionPane.WARNING_MESSAGE);
+                return null;
+            }
+        } else {
+            files.add(Paths.get(d.getLocalFile()));
         }
-    }
-
-    private static void deleteRecursively(Path root) throws IOException {
-        if (root == null || !Files.exists(root)) return;
-        Files.walk(root)
-             .sorted((a, b) -> b.getNameCount() - a.getNameCount())
-             .forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignore) {} });
+        for (Path local : files) {
+            if (!Files.isRegularFile(local)) {
+                JOptionPane.showMessageDialog(null,
+                        "Local file not found:\n" + local,
+                        "GitHub", JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
+        }
+        return files;
     }
 
    // ===== Dialog: file, repo name, branch, message =====
@@ -197,12 +147,13 @@ static class UploadDialog extends JDialog {
     JTextField tfRepoName = new JTextField();
     JTextField tfBranch   = new JTextField("main");
     JTextField tfMsg      = new JTextField("Add file from MARS");
+    JCheckBox cbAllOpen   = new JCheckBox("Upload all files open in the editor, in one commit (unsaved edits are saved first)");
     boolean ok = false;
 
     UploadDialog(String githubLogin) {
         setTitle("Upload to GitHub");
         setModal(true);
-        setSize(640, 280);
+        setSize(640, 320);
         setLocationRelativeTo(null);
         setLayout(new BorderLayout(10, 10));
 
@@ -238,6 +189,11 @@ static class UploadDialog extends JDialog {
 
         JPanel form = new JPanel(new GridLayout(0, 1, 6, 6));
         form.add(row("Local file", tfLocal, browseFile));
+        form.add(cbAllOpen);
+        cbAllOpen.addActionListener(e -> {
+            tfLocal.setEnabled(!cbAllOpen.isSelected());
+            browseFile.setEnabled(!cbAllOpen.isSelected());
+        });
         form.add(row("Repository (under https://github.com/" + userLabel + "/)", tfRepoName, browseRepos));
         form.add(row("Branch", tfBranch));
         form.add(row("Commit message", tfMsg));
@@ -272,6 +228,7 @@ static class UploadDialog extends JDialog {
     }
 
     public String getLocalFile()     { return tfLocal.getText().trim(); }
+    public boolean isAllOpenFiles()  { return cbAllOpen.isSelected(); }
     public String getRepoName()      { return tfRepoName.getText().trim(); }
     public String getBranch()        { return tfBranch.getText().trim(); }
     public String getCommitMessage() { return tfMsg.getText().trim(); }